@@ -10,7 +10,7 @@ repositories {
 }
 
 dependencies {
-    implementation("org.json:json:20240303")
+    implementation("com.fasterxml.jackson.core:jackson-core:2.19.0")
     implementation("org.javatuples:javatuples:1.2")
 
     implementation("org.reflections:reflections:0.10.2")
@@ -1,9 +1,11 @@
 package at.sfischer.constraints;
 
+import at.sfischer.constraints.model.CompiledTerm;
 import at.sfischer.constraints.model.MoreStatisticalEvidenceNeeded;
 import at.sfischer.constraints.model.Node;
 import at.sfischer.constraints.model.Variable;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -42,6 +44,21 @@ public class ApplicationResult {
             List<Map<Variable, Node>> valueCombinations,
             Class<T> expectedType,
             Predicate<T> success
+    ) {
+        if (valueCombinations.isEmpty()) {
+            ApplicationResult applicationResult = new ApplicationResult();
+            applicationResult.inapplicable = true;
+            return applicationResult;
+        }
+
+        return applyData(new CompiledTerm(term), valueCombinations, expectedType, success);
+    }
+
+    public static <T extends Node> ApplicationResult applyData(
+            CompiledTerm term,
+            List<Map<Variable, Node>> valueCombinations,
+            Class<T> expectedType,
+            Predicate<T> success
     ) {
         ApplicationResult applicationResult = new ApplicationResult();
         if (valueCombinations.isEmpty()) {
@@ -50,7 +67,49 @@ public class ApplicationResult {
         }
 
         for (Map<Variable, Node> valueCombination : valueCombinations) {
-            Node result = term.setVariableValues(valueCombination).evaluate();
+            Node result = term.evaluate(valueCombination);
+            if (result instanceof MoreStatisticalEvidenceNeeded) {
+                applicationResult.moreStatisticalEvidenceNeeded = true;
+                continue;
+            }
+
+            if (!expectedType.isInstance(result)) {
+                applicationResult.inapplicable = true;
+                continue;
+            }
+
+            T value = expectedType.cast(result);
+            if (success.test(value)) {
+                applicationResult.valid = true;
+            } else {
+                applicationResult.invalid = true;
+                break;
+            }
+        }
+
+        return applicationResult;
+    }
+
+    /**
+     * Applies the value combinations one after another, and stops at the first combination for which the term does not
+     * succeed, without requesting the remaining combinations.
+     *
+     * @param valueCombinations the values of the variables of the term, in the order of {@link CompiledTerm#getVariables()}.
+     */
+    public static <T extends Node> ApplicationResult applyData(
+            CompiledTerm term,
+            Iterator<Node[]> valueCombinations,
+            Class<T> expectedType,
+            Predicate<T> success
+    ) {
+        ApplicationResult applicationResult = new ApplicationResult();
+        if (!valueCombinations.hasNext()) {
+            applicationResult.inapplicable = true;
+            return applicationResult;
+        }
+
+        while (valueCombinations.hasNext()) {
+            Node result = term.evaluate(valueCombinations.next());
             if (result instanceof MoreStatisticalEvidenceNeeded) {
                 applicationResult.moreStatisticalEvidenceNeeded = true;
                 continue;
@@ -74,18 +133,24 @@ public class ApplicationResult {
     }
 
     public static <T> void updateConstraintResults(ApplicationResult result, T dataEntry, ConstraintResults<T> results){
+        updateConstraintResults(result, dataEntry, 1, results);
+    }
+
+    /**
+     * @param weight the number of equal entries the data entry stands for.
+     */
+    public static <T> void updateConstraintResults(ApplicationResult result, T dataEntry, long weight, ConstraintResults<T> results){
         if (result.isInvalid()) {
-            results.invalidConstraintData().addDataEntry(dataEntry);
+            results.invalidConstraintData().addDataEntry(dataEntry, weight);
         } else if (result.isValid()) {
-            results.validConstraintData().addDataEntry(dataEntry);
+            results.validConstraintData().addDataEntry(dataEntry, weight);
 
             // Move data from missingEvidenceConstraintData into validConstraintData, because this result suggests we have enough evidence now.
-            results.validConstraintData().addAll(results.missingEvidenceConstraintData());
-            results.missingEvidenceConstraintData().clear();
+            results.moveMissingEvidenceToValid();
         } else if (result.isInapplicable()) { // TODO Maybe we should make it configurable to decide the behavior here? If valid or inapplicable should be preferred if we have multiple value combinations and in some not all values are set.
-            results.inapplicableConstraintData().addDataEntry(dataEntry);
+            results.inapplicableConstraintData().addDataEntry(dataEntry, weight);
         } else if (result.isMoreStatisticalEvidenceNeeded()) {
-            results.missingEvidenceConstraintData().addDataEntry(dataEntry);
+            results.missingEvidenceConstraintData().addDataEntry(dataEntry, weight);
 
             // TODO Maybe we should move all validConstraintData into missingEvidenceConstraintData here? In case we had enough evidence for one lower bound but then a lower data occurred and we don't have enough evidence for that lower bound yet.
         }
@@ -0,0 +1,62 @@
+package at.sfischer.constraints;
+
+import at.sfischer.constraints.data.DataObject;
+import at.sfischer.constraints.data.ValueCombinations;
+import at.sfischer.constraints.model.BooleanLiteral;
+import at.sfischer.constraints.model.CompiledTerm;
+import at.sfischer.constraints.model.EvaluationContext;
+
+class CompiledConstraint implements IConstraint {
+
+    private final Constraint constraint;
+
+    private final ValueCombinations valueCombinations;
+
+    private final CompiledTerm compiledTerm;
+
+    private final EvaluationContext context;
+
+    CompiledConstraint(Constraint constraint, EvaluationContext context) {
+        this.constraint = constraint;
+        this.context = context;
+        if(context != null){
+            context.shareSubterms(constraint.term());
+        }
+        this.valueCombinations = new ValueCombinations(constraint.term().findInvolvedVariables());
+        this.compiledTerm = new CompiledTerm(constraint.term(), this.valueCombinations.getVariables(), context);
+    }
+
+    @Override
+    public ConstraintConstruct derivedFrom() {
+        return constraint.derivedFrom();
+    }
+
+    @Override
+    public <T> void evaluate(DataObject dao, T dataEntry, ConstraintResults<T> constraintResults) {
+        evaluate(dao, dataEntry, 1, constraintResults);
+    }
+
+    @Override
+    public <T> void evaluate(DataObject dao, T dataEntry, long weight, ConstraintResults<T> constraintResults) {
+        if(context != null){
+            context.beginDataEntry(dao, weight);
+        }
+        ApplicationResult result = ApplicationResult.applyData(compiledTerm, valueCombinations.iterator(dao), BooleanLiteral.class, BooleanLiteral::getValue);
+        ApplicationResult.updateConstraintResults(result, dataEntry, weight, constraintResults);
+    }
+
+    @Override
+    public boolean isOrderDependent() {
+        return constraint.isOrderDependent();
+    }
+
+    @Override
+    public IConstraint compile(EvaluationContext context) {
+        return constraint.compile(context);
+    }
+
+    @Override
+    public String toString() {
+        return constraint.toString();
+    }
+}
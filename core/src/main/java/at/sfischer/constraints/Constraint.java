@@ -1,12 +1,15 @@
 package at.sfischer.constraints;
 
 import at.sfischer.constraints.data.DataCollection;
+import at.sfischer.constraints.data.DataEntryVisitor;
 import at.sfischer.constraints.data.DataObject;
 import at.sfischer.constraints.data.Utils;
 import at.sfischer.constraints.model.*;
+import at.sfischer.constraints.model.operators.StatefulOperator;
 import at.sfischer.constraints.model.operators.array.ArrayQuantifier;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public record Constraint(Node term, ConstraintConstruct derivedFrom) implements IConstraint {
 
@@ -46,20 +49,46 @@ public record Constraint(Node term, ConstraintConstruct derivedFrom) implements
 
         Set<String> variableNames = new HashSet<>();
         term.visitNodes((VariableVisitor) variable -> variableNames.add(variable.getName()));
-        data.visitDataEntries(variableNames, (values, dataEntry) -> {
-            applyNamedData(values, dataEntry, results);
+        EvaluationContext context = new EvaluationContext();
+        context.memoizePredicates();
+        CompiledTerm compiledTerm = new CompiledTerm(term, context);
+        data.visitDataEntries(variableNames, new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                applyNamedData(compiledTerm, values, () -> dataEntry, 1, results);
+            }
+
+            @Override
+            public void visitLazyDataValues(Map<String, Node> values, Supplier<? extends T> dataEntry) {
+                applyNamedData(compiledTerm, values, dataEntry, 1, results);
+            }
+
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+                applyNamedData(compiledTerm, values, () -> dataEntry, weight, results);
+            }
+
+            @Override
+            public void visitLazyDataValues(Map<String, Node> values, Supplier<? extends T> dataEntry, long weight) {
+                applyNamedData(compiledTerm, values, dataEntry, weight, results);
+            }
         });
+        context.commit();
 
         return results;
     }
 
     public <T> void applyNamedData(Map<String, Node> values, T dataEntry, ConstraintResults<T> results) {
+        applyNamedData(new CompiledTerm(term), values, () -> dataEntry, 1, results);
+    }
+
+    private static <T> void applyNamedData(CompiledTerm compiledTerm, Map<String, Node> values, Supplier<? extends T> dataEntry, long weight, ConstraintResults<T> results) {
         Map<Variable, Node> variableValues = new HashMap<>();
         for (Map.Entry<String, Node> entry : values.entrySet()) {
             variableValues.put(new Variable(entry.getKey()), entry.getValue());
         }
 
-        applyData(variableValues, dataEntry, results);
+        updateConstraintResults(compiledTerm.evaluate(variableValues), dataEntry, weight, results);
     }
 
     @Override
@@ -74,25 +103,46 @@ public record Constraint(Node term, ConstraintConstruct derivedFrom) implements
         ApplicationResult.updateConstraintResults(result, dataEntry, results);
     }
 
+    @Override
+    public boolean isOrderDependent() {
+        boolean[] stateful = {false};
+        term.visitNodes(node -> {
+            stateful[0] = stateful[0] || node instanceof StatefulOperator;
+            return !stateful[0];
+        });
+
+        return stateful[0];
+    }
+
+    @Override
+    public IConstraint compile(EvaluationContext context) {
+        return new CompiledConstraint(this, context);
+    }
+
     public <T> void applyData(Map<Variable, Node> values, T dataEntry, ConstraintResults<T> results) {
-        Node valueSetTerm = term.setVariableValues(values);
-        Node result = valueSetTerm.evaluate();
+        updateConstraintResults(new CompiledTerm(term).evaluate(values), () -> dataEntry, 1, results);
+    }
+
+    /**
+     * @param dataEntry the entry, which is only built if the result collection retains it.
+     * @param weight    the number of equal entries the entry stands for.
+     */
+    private static <T> void updateConstraintResults(Node result, Supplier<? extends T> dataEntry, long weight, ConstraintResults<T> results) {
         if (result instanceof MoreStatisticalEvidenceNeeded) {
-            results.missingEvidenceConstraintData().addDataEntry(dataEntry);
+            results.missingEvidenceConstraintData().addLazyDataEntry(dataEntry, weight);
 
             // TODO Maybe we should move all validConstraintData into missingEvidenceConstraintData here? In case we had enough evidence for one lower bound but then a lower data occurred and we don't have enough evidence for that lower bound yet.
         } else if (result instanceof BooleanLiteral) {
             if (((BooleanLiteral) result).getValue()) {
-                results.validConstraintData().addDataEntry(dataEntry);
+                results.validConstraintData().addLazyDataEntry(dataEntry, weight);
 
                 // Move data from missingEvidenceConstraintData into validConstraintData, because this result suggests we have enough evidence now.
-                results.validConstraintData().addAll(results.missingEvidenceConstraintData());
-                results.missingEvidenceConstraintData().clear();
+                results.moveMissingEvidenceToValid();
             } else {
-                results.invalidConstraintData().addDataEntry(dataEntry);
+                results.invalidConstraintData().addLazyDataEntry(dataEntry, weight);
             }
         } else {
-            results.inapplicableConstraintData().addDataEntry(dataEntry);
+            results.inapplicableConstraintData().addLazyDataEntry(dataEntry, weight);
         }
     }
 }
@@ -2,8 +2,14 @@ package at.sfischer.constraints;
 
 import at.sfischer.constraints.data.DataCollection;
 import at.sfischer.constraints.data.DataSchema;
+import at.sfischer.constraints.data.DataSchemaEntry;
 import at.sfischer.constraints.data.EvaluationResults;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 public interface ConstraintConstructHandler<T extends ConstraintConstruct> {
 
     Class<T> getSupportedType();
@@ -19,4 +25,50 @@ public interface ConstraintConstructHandler<T extends ConstraintConstruct> {
             T construct,
             DataSchema schema,
             EvaluationResults<SCHEMA, DATA> results);
+
+    /**
+     * Evaluates the constraints instantiated for all given constructs, so the retention of each construct can be applied
+     * from the returned results (see {@link #retainAll(Collection, DataSchema, EvaluationResults)}).
+     *
+     * @param constructs the constructs whose constraints are evaluated.
+     * @param schema     the schema the constructs were instantiated in.
+     * @param data       the data to evaluate the constraints on.
+     * @return the combined results of all constructs.
+     */
+    default <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluateAll(
+            Collection<T> constructs,
+            DataSchema schema,
+            DataCollection<DATA> data){
+        return evaluateAll(constructs, schema, data, new EvaluationResults<>());
+    }
+
+    /**
+     * Evaluates the constraints instantiated for all given constructs in one pass over the data. By default, the
+     * constraints and potential constraints derived from the constructs are evaluated on the schema, handlers that
+     * evaluate their constraints differently need to override this.
+     *
+     * @param results the results to add the results of the evaluation to, usually empty, which decide how much of the
+     *                data is retained and whether decided candidates are retired.
+     * @return the given results.
+     */
+    default <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluateAll(
+            Collection<T> constructs,
+            DataSchema schema,
+            DataCollection<DATA> data,
+            EvaluationResults<SCHEMA, DATA> results){
+        Map<DataSchemaEntry<SCHEMA>, Set<IConstraint>> constraints = new HashMap<>();
+        Map<DataSchemaEntry<SCHEMA>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+        schema.collectAllConstraints(constraints, potentialConstraints, constructs);
+
+        return schema.evaluate(data, constraints, potentialConstraints, results);
+    }
+
+    default <SCHEMA extends DataSchema, DATA> void retainAll(
+            Collection<T> constructs,
+            DataSchema schema,
+            EvaluationResults<SCHEMA, DATA> results){
+        for (T construct : constructs) {
+            retain(construct, schema, results);
+        }
+    }
 }
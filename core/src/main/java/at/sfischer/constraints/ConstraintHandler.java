@@ -2,21 +2,65 @@ package at.sfischer.constraints;
 
 import at.sfischer.constraints.data.DataCollection;
 import at.sfischer.constraints.data.DataSchema;
+import at.sfischer.constraints.data.DataSchemaEntry;
 import at.sfischer.constraints.data.EvaluationResults;
 import at.sfischer.constraints.data.InOutputDataSchema;
 
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class ConstraintHandler implements ConstraintConstructHandler<ConstraintTemplate>{
 
     private final boolean fillSubSchemata;
 
+    private final ForkJoinPool pool;
+
+    private final int maxExamples;
+
+    private final boolean retireDecidedCandidates;
+
     public ConstraintHandler() {
         this(false);
     }
 
     public ConstraintHandler(boolean fillSubSchemata) {
+        this(fillSubSchemata, null);
+    }
+
+    /**
+     * @param fillSubSchemata also instantiate constraints in the input and output schema of in-/output schemata.
+     * @param pool            pool to evaluate data in parallel on, or null to evaluate sequentially.
+     */
+    public ConstraintHandler(boolean fillSubSchemata, ForkJoinPool pool) {
+        this(fillSubSchemata, pool, EvaluationResults.RETAIN_ALL_DATA);
+    }
+
+    /**
+     * @param fillSubSchemata also instantiate constraints in the input and output schema of in-/output schemata.
+     * @param pool            pool to evaluate data in parallel on, or null to evaluate sequentially.
+     * @param maxExamples     the maximum number of data entries retained per constraint and outcome, or
+     *                        {@link EvaluationResults#RETAIN_ALL_DATA}.
+     */
+    public ConstraintHandler(boolean fillSubSchemata, ForkJoinPool pool, int maxExamples) {
+        this(fillSubSchemata, pool, maxExamples, false);
+    }
+
+    /**
+     * @param fillSubSchemata          also instantiate constraints in the input and output schema of in-/output schemata.
+     * @param pool                     pool to evaluate data in parallel on, or null to evaluate sequentially.
+     * @param maxExamples              the maximum number of data entries retained per constraint and outcome, or
+     *                                 {@link EvaluationResults#RETAIN_ALL_DATA}.
+     * @param retireDecidedCandidates  stop evaluating potential constraints once the decision of their retention policy
+     *                                 is final (see {@link EvaluationResults#EvaluationResults(int, boolean)}). With a
+     *                                 pool, the partitions of the data are evaluated independently, so a candidate
+     *                                 retired within one partition is still evaluated on the other partitions, and its
+     *                                 results can differ from the ones of a sequential evaluation.
+     */
+    public ConstraintHandler(boolean fillSubSchemata, ForkJoinPool pool, int maxExamples, boolean retireDecidedCandidates) {
         this.fillSubSchemata = fillSubSchemata;
+        this.pool = pool;
+        this.maxExamples = maxExamples;
+        this.retireDecidedCandidates = retireDecidedCandidates;
     }
 
     @Override
@@ -36,7 +80,30 @@ public class ConstraintHandler implements ConstraintConstructHandler<ConstraintT
 
     @Override
     public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluate(ConstraintTemplate construct, DataSchema schema, DataCollection<DATA> data) {
-        return schema.evaluate(data);
+        return schema.evaluate(data, pool, new EvaluationResults<>(maxExamples, retireDecidedCandidates));
+    }
+
+    @Override
+    public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluateAll(Collection<ConstraintTemplate> constructs, DataSchema schema, DataCollection<DATA> data) {
+        return evaluateAll(constructs, schema, data, new EvaluationResults<>(maxExamples, retireDecidedCandidates));
+    }
+
+    /**
+     * Evaluates the constraints of all given constructs in one pass over the data, together with the constraints already
+     * in the schema. Potential constraints derived from other constructs are not evaluated.
+     */
+    @Override
+    public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluateAll(Collection<ConstraintTemplate> constructs, DataSchema schema, DataCollection<DATA> data, EvaluationResults<SCHEMA, DATA> results) {
+        Map<DataSchemaEntry<SCHEMA>, Set<IConstraint>> constraints = new HashMap<>();
+        Map<DataSchemaEntry<SCHEMA>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+        schema.collectAllConstraints(constraints, null);
+        schema.collectAllConstraints(null, potentialConstraints, constructs);
+
+        if(pool == null){
+            return schema.evaluate(data, constraints, potentialConstraints, results);
+        }
+
+        return schema.evaluate(data, constraints, potentialConstraints, pool, results);
     }
 
     @Override
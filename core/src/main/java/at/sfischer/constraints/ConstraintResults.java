@@ -1,6 +1,11 @@
 package at.sfischer.constraints;
 
+import at.sfischer.constraints.data.CountingDataCollection;
 import at.sfischer.constraints.data.DataCollection;
+import at.sfischer.constraints.data.DataEntryVisitor;
+import at.sfischer.constraints.model.Node;
+
+import java.util.Map;
 
 /**
  * @param constraint          Constraint that was applied on the data.
@@ -39,6 +44,92 @@ public record ConstraintResults<T>(
         this.missingEvidenceConstraintData = missingEvidenceConstraintData;
     }
 
+    /**
+     * Creates results that only count the data entries per outcome and retain a bounded sample of them as examples,
+     * instead of keeping all of them.
+     *
+     * @param constraint  Constraint that is applied on the data.
+     * @param data        Data on which the constraint is evaluated on.
+     * @param maxExamples the maximum number of data entries to retain per outcome.
+     * @see CountingDataCollection
+     */
+    public static <T> ConstraintResults<T> counting(IConstraint constraint, DataCollection<T> data, int maxExamples) {
+        return new ConstraintResults<>(
+                constraint,
+                data,
+                new CountingDataCollection<>(data, maxExamples),
+                new CountingDataCollection<>(data, maxExamples),
+                new CountingDataCollection<>(data, maxExamples),
+                new CountingDataCollection<>(data, maxExamples)
+        );
+    }
+
+    /**
+     * Appends the data of the given results, e.g., the results of a later partition of the same data.
+     *
+     * @param results results of the same constraint.
+     */
+    public void merge(ConstraintResults<T> results) {
+        // A valid entry in the later data provides the evidence the data before it was missing.
+        if(results.numberOfValidDataEntries() > 0 && missingEvidenceConstraintData.numberOfDataEntries() > 0){
+            appendValidProvidingEvidence(results.validConstraintData);
+        } else {
+            validConstraintData.append(results.validConstraintData);
+        }
+        invalidConstraintData.append(results.invalidConstraintData);
+        inapplicableConstraintData.append(results.inapplicableConstraintData);
+        missingEvidenceConstraintData.append(results.missingEvidenceConstraintData);
+    }
+
+    /**
+     * Appends the valid data of later data, whose first entry provides the evidence the data before it was missing. As
+     * when evaluating the data in order, the entries that were missing evidence follow that first entry.
+     */
+    private void appendValidProvidingEvidence(DataCollection<T> laterValidData) {
+        DataCollection<T> first = laterValidData.emptyDataCollection();
+        DataCollection<T> rest = laterValidData.emptyDataCollection();
+        laterValidData.visitDataEntries(new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                visitDataValues(values, dataEntry, 1);
+            }
+
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+                if(first.numberOfDataEntries() == 0){
+                    first.addDataEntry(dataEntry);
+                    weight--;
+                }
+                if(weight > 0){
+                    rest.addDataEntry(dataEntry, weight);
+                }
+            }
+        });
+        if(first.numberOfDataEntries() + rest.numberOfDataEntries() != laterValidData.numberOfDataEntries()){
+            // Only a sample of the entries is retained, so there is no order to keep.
+            moveMissingEvidenceToValid();
+            validConstraintData.append(laterValidData);
+            return;
+        }
+
+        validConstraintData.append(first);
+        moveMissingEvidenceToValid();
+        validConstraintData.append(rest);
+    }
+
+    /**
+     * Moves the data for which more evidence was needed to the valid data, e.g., when the constraint evaluated to true
+     * after enough evidence was collected.
+     */
+    public void moveMissingEvidenceToValid() {
+        if(missingEvidenceConstraintData.numberOfDataEntries() == 0){
+            return;
+        }
+
+        validConstraintData.addAll(missingEvidenceConstraintData);
+        missingEvidenceConstraintData.clear();
+    }
+
     public boolean foundCounterExample() {
         return numberOfViolations() > 0;
     }
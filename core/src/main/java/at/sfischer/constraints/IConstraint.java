@@ -1,10 +1,39 @@
 package at.sfischer.constraints;
 
 import at.sfischer.constraints.data.DataObject;
+import at.sfischer.constraints.model.EvaluationContext;
 
 public interface IConstraint {
 
     ConstraintConstruct derivedFrom();
 
     <T> void evaluate(DataObject dao, T dataEntry, ConstraintResults<T> constraintResults);
+
+    /**
+     * Evaluates a data entry that stands for the given number of equal entries, e.g., of a
+     * {@link at.sfischer.constraints.data.WeightedDataCollection}, as if each of them was evaluated in a row.
+     */
+    default <T> void evaluate(DataObject dao, T dataEntry, long weight, ConstraintResults<T> constraintResults){
+        for (long i = 0; i < weight; i++) {
+            evaluate(dao, dataEntry, constraintResults);
+        }
+    }
+
+    /**
+     * @return true if the result for a data entry may depend on the data evaluated before, so the data has to be evaluated in order.
+     */
+    default boolean isOrderDependent(){
+        return true;
+    }
+
+    /**
+     * Returns a constraint that evaluates like this one, but may keep prepared state between evaluations.
+     * The returned constraint is meant to be used for evaluating many data entries and is not thread-safe.
+     *
+     * @param context the context keeping the state of stateful operators, or null to update the constraint's state directly.
+     * @return the constraint to use for repeated evaluations.
+     */
+    default IConstraint compile(EvaluationContext context){
+        return this;
+    }
 }
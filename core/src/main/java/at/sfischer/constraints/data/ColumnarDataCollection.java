@@ -0,0 +1,837 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.*;
+import org.javatuples.Pair;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Collection of data objects that stores the values column by column instead of keeping every data object.
+ * <p>
+ * Each path of the data objects, with nested objects flattened to dotted paths, is kept in its own column. Integers,
+ * numbers and booleans are stored in primitive arrays, strings are dictionary encoded, and arrays of these values are
+ * stored flattened with the offset of each row. Whether a path has a value in a row is tracked by a bitmap.
+ * Values that do not fit a typed column, e.g., arrays of objects, nested arrays, or paths with inconsistent types,
+ * are kept in a column of the original values.
+ * <p>
+ * The data objects are rebuilt when a visitor requests them, so the collection can be used like a
+ * {@link SimpleDataCollection}. The values of the visited fields, accessing the values of a single path, deriving the
+ * schema, assigning fields to terms, and appending, partitioning or retaining visited rows in another columnar
+ * collection use the columns directly.
+ */
+public class ColumnarDataCollection extends DataCollection<DataObject> {
+
+    private final Map<String, Column> columns;
+
+    private int numberOfRows;
+
+    public ColumnarDataCollection() {
+        this.columns = new LinkedHashMap<>();
+        this.numberOfRows = 0;
+    }
+
+    public ColumnarDataCollection(Collection<DataObject> dataObjects) {
+        this();
+        for (DataObject dataObject : dataObjects) {
+            addRow(dataObject);
+        }
+    }
+
+    @Override
+    public void addDataEntry(DataObject dataObject) {
+        addRow(dataObject);
+    }
+
+    /**
+     * Rows visited in another columnar collection are copied from its columns instead of rebuilding the data object.
+     */
+    @Override
+    public void addLazyDataEntry(Supplier<? extends DataObject> dataEntry) {
+        if(dataEntry instanceof Row row && row.source != this){
+            addRow(row.source, row.row);
+            return;
+        }
+
+        addRow(dataEntry.get());
+    }
+
+    private void addRow(DataObject dataObject) {
+        int row = numberOfRows++;
+        for (String fieldName : dataObject.getFieldNames()) {
+            addValue(row, fieldName, dataObject.getDataValue(fieldName));
+        }
+    }
+
+    private void addValue(int row, String path, DataValue<?> value) {
+        Column column = columns.get(path);
+        if(column instanceof ObjectColumn && value.getType() != TypeEnum.COMPLEXTYPE){
+            column = convertToGeneric(path);
+        }
+
+        if(column == null){
+            column = createColumn(value);
+            columns.put(path, column);
+        } else if(!column.accepts(value)){
+            column = GenericColumn.of(column, numberOfRows - 1);
+            columns.put(path, column);
+        }
+
+        column.set(row, value);
+        if(column instanceof ObjectColumn){
+            DataObject dataObject = (DataObject) value.getValue();
+            for (String fieldName : dataObject.getFieldNames()) {
+                addValue(row, path + "." + fieldName, dataObject.getDataValue(fieldName));
+            }
+        }
+    }
+
+    /**
+     * Replaces the columns of an object and all of its fields by a single column of the original values.
+     */
+    private Column convertToGeneric(String path) {
+        String prefix = path + ".";
+        DataObject[] subtrees = new DataObject[numberOfRows];
+        for (int row = 0; row < numberOfRows; row++) {
+            subtrees[row] = new DataObject();
+        }
+
+        Iterator<Map.Entry<String, Column>> iterator = columns.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Column> entry = iterator.next();
+            if(!entry.getKey().equals(path) && !entry.getKey().startsWith(prefix)){
+                continue;
+            }
+
+            Column column = entry.getValue();
+            for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+                column.putInto(subtrees[row], entry.getKey(), row);
+            }
+            iterator.remove();
+        }
+
+        GenericColumn generic = new GenericColumn();
+        for (int row = 0; row < numberOfRows; row++) {
+            DataValue<?> value = valueAtPath(subtrees[row], path);
+            if(value != null){
+                generic.set(row, value);
+            }
+        }
+        columns.put(path, generic);
+
+        return generic;
+    }
+
+    private static DataValue<?> valueAtPath(DataObject dataObject, String path) {
+        String[] parts = path.split("\\.");
+        DataObject current = dataObject;
+        for (int i = 0; i < parts.length - 1; i++) {
+            DataValue<?> value = current.getDataValue(parts[i]);
+            if(value == null || value.getType() != TypeEnum.COMPLEXTYPE){
+                return null;
+            }
+            current = (DataObject) value.getValue();
+        }
+
+        return current.getDataValue(parts[parts.length - 1]);
+    }
+
+    private static Column createColumn(DataValue<?> value) {
+        Column[] candidates = {
+                new ObjectColumn(),
+                new IntegerColumn(),
+                new NumberColumn(),
+                new BooleanColumn(),
+                new StringColumn(),
+                new IntegerArrayColumn(),
+                new NumberArrayColumn(),
+                new BooleanArrayColumn(),
+                new StringArrayColumn()
+        };
+        for (Column candidate : candidates) {
+            if(candidate.accepts(value)){
+                return candidate;
+            }
+        }
+
+        return new GenericColumn();
+    }
+
+    /**
+     * @param row index of the row.
+     * @return the data object of the given row, rebuilt from the columns.
+     */
+    public DataObject getDataEntry(int row) {
+        Objects.checkIndex(row, numberOfRows);
+        DataObject dataObject = new DataObject();
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Column column = entry.getValue();
+            if(column.present.get(row)){
+                column.putInto(dataObject, entry.getKey(), row);
+            }
+        }
+
+        return dataObject;
+    }
+
+    private List<DataObject> getDataEntries() {
+        List<DataObject> dataObjects = new ArrayList<>(numberOfRows);
+        for (int row = 0; row < numberOfRows; row++) {
+            dataObjects.add(getDataEntry(row));
+        }
+
+        return dataObjects;
+    }
+
+    /**
+     * Rows with the same paths present only differ in their values, except for values of columns that keep the original
+     * values. So one row of each combination of present paths is enough to derive the structure of the data.
+     *
+     * @return data objects that have the same structure as all data objects of this collection.
+     */
+    private List<DataObject> getStructuralRepresentatives() {
+        List<Column> columnList = new ArrayList<>(columns.values());
+        Set<BitSet> patterns = new HashSet<>();
+        List<DataObject> representatives = new ArrayList<>();
+        for (int row = 0; row < numberOfRows; row++) {
+            BitSet pattern = new BitSet(columnList.size());
+            boolean original = false;
+            for (int i = 0; i < columnList.size(); i++) {
+                Column column = columnList.get(i);
+                if(column.present.get(row)){
+                    pattern.set(i);
+                    original |= column instanceof GenericColumn;
+                }
+            }
+
+            if(original || patterns.add(pattern)){
+                representatives.add(getDataEntry(row));
+            }
+        }
+
+        return representatives;
+    }
+
+    @Override
+    public SimpleDataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy) {
+        SimpleDataSchema schema = null;
+        for (DataObject dataObject : getStructuralRepresentatives()) {
+            if(schema == null){
+                schema = SimpleDataSchema.deriveFromData(dataObject);
+            } else {
+                schema.unify(SimpleDataSchema.deriveFromData(dataObject), typePromotionPolicy);
+            }
+        }
+
+        return schema;
+    }
+
+    @Override
+    public boolean applyDataToTerms(List<Node> terms, Map<Variable, Type> variableTypes) {
+        List<Pair<Node, Set<Variable>>> termsToAssign = new LinkedList<>();
+        terms.forEach(term -> termsToAssign.add(new Pair<>(term, new HashSet<>())));
+        findAssignableFields(termsToAssign, variableTypes, variableNodeProvider, getStructuralRepresentatives());
+
+        terms.clear();
+        for (Pair<Node, Set<Variable>> pair : termsToAssign) {
+            // Check if all variables have been assigned a field.
+            if(pair.getValue1().containsAll(variableTypes.keySet())){
+                terms.add(pair.getValue0());
+            }
+        }
+
+        return !terms.isEmpty();
+    }
+
+    @Override
+    public int numberOfDataEntries() {
+        return numberOfRows;
+    }
+
+    @Override
+    public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<DataObject> visitor) {
+        // Fields with a column of their own are read from it, others, e.g., objects, are resolved in the data object.
+        List<String> columnPaths = new ArrayList<>();
+        List<Column> fieldColumns = new ArrayList<>();
+        Set<String> otherFieldNames = new HashSet<>();
+        for (String fieldName : fieldNames) {
+            Column column = columns.get(fieldName);
+            if(column == null || column instanceof ObjectColumn){
+                otherFieldNames.add(fieldName);
+            } else {
+                columnPaths.add(fieldName);
+                fieldColumns.add(column);
+            }
+        }
+
+        FieldPaths otherPaths = new FieldPaths(otherFieldNames);
+        for (int row = 0; row < numberOfRows; row++) {
+            // The data object is only rebuilt if other fields are resolved in it or the visitor requests it.
+            Row dataEntry = new Row(this, row);
+            Map<String, Node> values = new HashMap<>();
+            for (int i = 0; i < fieldColumns.size(); i++) {
+                Column column = fieldColumns.get(i);
+                if(column.present.get(row)){
+                    values.put(columnPaths.get(i), column.get(row).getLiteralValue());
+                }
+            }
+            if(!otherPaths.isEmpty()){
+                otherPaths.resolve(dataEntry.get(), values);
+            }
+            visitor.visitLazyDataValues(values, dataEntry);
+        }
+    }
+
+    @Override
+    public void append(DataCollection<DataObject> collection) {
+        if(collection instanceof ColumnarDataCollection other){
+            for (int row = 0; row < other.numberOfRows; row++) {
+                addRow(other, row);
+            }
+            return;
+        }
+
+        addAll(collection);
+    }
+
+    /**
+     * Adds a row of the given collection, copying the values of its columns instead of rebuilding the data object.
+     * Only objects that are kept as original values in this collection are rebuilt.
+     */
+    private void addRow(ColumnarDataCollection source, int sourceRow) {
+        int row = numberOfRows++;
+        List<String> copiedObjects = new ArrayList<>();
+        for (Map.Entry<String, Column> entry : source.columns.entrySet()) {
+            String path = entry.getKey();
+            Column column = entry.getValue();
+            if(!column.present.get(sourceRow) || isFieldOf(path, copiedObjects)){
+                continue;
+            }
+
+            DataValue<?> value = column.get(sourceRow);
+            Column target = columns.get(path);
+            if(column instanceof ObjectColumn && target != null && !(target instanceof ObjectColumn)){
+                value = valueAtPath(source.getDataEntry(sourceRow), path);
+                copiedObjects.add(path + ".");
+            }
+            addValue(row, path, value);
+        }
+    }
+
+    private static boolean isFieldOf(String path, List<String> objectPrefixes) {
+        for (String prefix : objectPrefixes) {
+            if(path.startsWith(prefix)){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public List<DataCollection<DataObject>> partition(int numberOfPartitions) {
+        List<DataCollection<DataObject>> partitions = new ArrayList<>();
+        int parts = Math.max(1, numberOfPartitions);
+        int partitionSize = Math.max(1, (numberOfRows + parts - 1) / parts);
+        ColumnarDataCollection partition = null;
+        for (int row = 0; row < numberOfRows; row++) {
+            if(partition == null || partition.numberOfRows == partitionSize){
+                partition = new ColumnarDataCollection();
+                partitions.add(partition);
+            }
+            partition.addRow(this, row);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Removes the first data object equal to the given one. As the columns have to be rebuilt, this takes time
+     * linear to the size of the collection.
+     */
+    @Override
+    public void removeDataEntry(DataObject dataObject) {
+        List<DataObject> dataObjects = getDataEntries();
+        if(!dataObjects.remove(dataObject)){
+            return;
+        }
+
+        clear();
+        for (DataObject remaining : dataObjects) {
+            addRow(remaining);
+        }
+    }
+
+    @Override
+    public void clear() {
+        columns.clear();
+        numberOfRows = 0;
+    }
+
+    @Override
+    public DataCollection<DataObject> emptyDataCollection() {
+        return new ColumnarDataCollection();
+    }
+
+    @Override
+    public DataCollection<DataObject> clone() {
+        ColumnarDataCollection clone = new ColumnarDataCollection();
+        clone.append(this);
+        return clone;
+    }
+
+    @Override
+    public int size() {
+        return numberOfRows;
+    }
+
+    @Override
+    public List<List<Value<?>>> getAllValues(String valueReference) {
+        Column column = columns.get(valueReference);
+        if(column == null || column instanceof ObjectColumn){
+            List<List<Value<?>>> allValues = new LinkedList<>();
+            for (int row = 0; row < numberOfRows; row++) {
+                List<Value<?>> values = getDataEntry(row).getValues(valueReference);
+                if(values != null){
+                    allValues.add(values);
+                }
+            }
+
+            return allValues;
+        }
+
+        // The parents of a column are objects, so the value of the column is the only value of a row.
+        List<List<Value<?>>> allValues = new LinkedList<>();
+        for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+            List<Value<?>> values = new LinkedList<>();
+            values.add(column.get(row).getLiteralValue());
+            allValues.add(values);
+        }
+
+        return allValues;
+    }
+
+    @Override
+    public List<Map<Variable, Node>> getAllValueCombinations(Set<Variable> variables) {
+        List<Map<Variable, Node>> valueCombinations = new LinkedList<>();
+        Map<Utils.Path, Utils.Group> groups = Utils.groupByCollapsedHierarchy(variables);
+        for (int row = 0; row < numberOfRows; row++) {
+            valueCombinations.addAll(Utils.collectValueCombinations(getDataEntry(row), groups));
+        }
+
+        return valueCombinations;
+    }
+
+    public static ColumnarDataCollection parseData(String... data){
+        return parseData(Arrays.asList(data));
+    }
+
+    public static ColumnarDataCollection parseData(Collection<String> data){
+        ColumnarDataCollection dataCollection = new ColumnarDataCollection();
+        for (String datum : data) {
+            dataCollection.addDataEntry(DataObject.parseData(datum));
+        }
+
+        return dataCollection;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("ColumnarDataCollection {\n\t");
+        s.append("numberOfRows=").append(numberOfRows);
+        s.append(",\n\tcolumns=[");
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            s.append("\n\t\t");
+            s.append(entry.getKey()).append(": ").append(entry.getValue().getClass().getSimpleName());
+        }
+        s.append("\n\t]");
+        s.append("\n}");
+        return s.toString();
+    }
+
+    private static int[] ensureCapacity(int[] array, int minCapacity) {
+        if(minCapacity <= array.length){
+            return array;
+        }
+
+        return Arrays.copyOf(array, Math.max(minCapacity, array.length * 2));
+    }
+
+    /**
+     * Row of a collection whose data object is rebuilt once it is requested.
+     */
+    private static final class Row implements Supplier<DataObject> {
+
+        private final ColumnarDataCollection source;
+
+        private final int row;
+
+        private DataObject dataObject;
+
+        private Row(ColumnarDataCollection source, int row) {
+            this.source = source;
+            this.row = row;
+        }
+
+        @Override
+        public DataObject get() {
+            if(dataObject == null){
+                dataObject = source.getDataEntry(row);
+            }
+
+            return dataObject;
+        }
+    }
+
+    private static abstract class Column {
+
+        protected final BitSet present = new BitSet();
+
+        abstract boolean accepts(DataValue<?> value);
+
+        void set(int row, DataValue<?> value) {
+            present.set(row);
+            store(row, value);
+        }
+
+        abstract void store(int row, DataValue<?> value);
+
+        abstract DataValue<?> get(int row);
+
+        void putInto(DataObject dataObject, String path, int row) {
+            dataObject.putDataValue(path, get(row));
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            return value.getType() == TypeEnum.COMPLEXTYPE && value.getValue() instanceof DataObject;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            // The fields of the object are stored in their own columns.
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<>(TypeEnum.COMPLEXTYPE, new DataObject());
+        }
+    }
+
+    private static class GenericColumn extends Column {
+
+        private DataValue<?>[] values = new DataValue<?>[16];
+
+        private static GenericColumn of(Column column, int numberOfRows) {
+            GenericColumn generic = new GenericColumn();
+            for (int row = column.present.nextSetBit(0); row >= 0 && row < numberOfRows; row = column.present.nextSetBit(row + 1)) {
+                generic.set(row, column.get(row));
+            }
+
+            return generic;
+        }
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            return true;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            if(row >= values.length){
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return values[row];
+        }
+    }
+
+    private static class IntegerColumn extends Column {
+
+        private int[] values = new int[16];
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            return value.getType() == TypeEnum.INTEGER && value.getValue() instanceof Integer;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            values = ensureCapacity(values, row + 1);
+            values[row] = (Integer) value.getValue();
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<>(TypeEnum.INTEGER, values[row]);
+        }
+    }
+
+    private static class NumberColumn extends Column {
+
+        private double[] values = new double[16];
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            // Only doubles are stored, so other numbers, e.g., big decimals, keep their exact value.
+            return value.getType() == TypeEnum.NUMBER && value.getValue() instanceof Double;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            if(row >= values.length){
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            values[row] = (Double) value.getValue();
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<Number>(TypeEnum.NUMBER, values[row]);
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            return value.getType() == TypeEnum.BOOLEAN && value.getValue() instanceof Boolean;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            values.set(row, (Boolean) value.getValue());
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<>(TypeEnum.BOOLEAN, values.get(row));
+        }
+    }
+
+    private static class StringColumn extends Column {
+
+        private final Dictionary dictionary = new Dictionary();
+
+        private int[] codes = new int[16];
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            return value.getType() == TypeEnum.STRING && value.getValue() instanceof String;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            codes = ensureCapacity(codes, row + 1);
+            codes[row] = dictionary.encode((String) value.getValue());
+        }
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<>(TypeEnum.STRING, dictionary.decode(codes[row]));
+        }
+    }
+
+    /**
+     * Stores the elements of the arrays of all rows in one sequence, with the offset and length of the array of
+     * each row.
+     */
+    private static abstract class ArrayColumn extends Column {
+
+        private final Type type;
+
+        private final Class<?> arrayClass;
+
+        private int[] offsets = new int[16];
+
+        private int[] lengths = new int[16];
+
+        protected int numberOfElements = 0;
+
+        protected ArrayColumn(TypeEnum elementType, Class<?> arrayClass) {
+            this.type = new ArrayType(elementType);
+            this.arrayClass = arrayClass;
+        }
+
+        @Override
+        boolean accepts(DataValue<?> value) {
+            Object array = value.getValue();
+            if(!type.equals(value.getType()) || array == null || array.getClass() != arrayClass){
+                return false;
+            }
+            if(array instanceof Object[] elements){
+                for (Object element : elements) {
+                    if(!acceptsElement(element)){
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        protected boolean acceptsElement(Object element) {
+            return element != null;
+        }
+
+        @Override
+        void store(int row, DataValue<?> value) {
+            Object array = value.getValue();
+            offsets = ensureCapacity(offsets, row + 1);
+            lengths = ensureCapacity(lengths, row + 1);
+            offsets[row] = numberOfElements;
+            lengths[row] = java.lang.reflect.Array.getLength(array);
+            for (int i = 0; i < lengths[row]; i++) {
+                storeElement(numberOfElements++, array, i);
+            }
+        }
+
+        abstract void storeElement(int index, Object array, int arrayIndex);
+
+        @Override
+        DataValue<?> get(int row) {
+            return new DataValue<>(type, load(offsets[row], lengths[row]));
+        }
+
+        abstract Object load(int offset, int length);
+    }
+
+    private static class IntegerArrayColumn extends ArrayColumn {
+
+        private int[] elements = new int[16];
+
+        private IntegerArrayColumn() {
+            super(TypeEnum.INTEGER, Integer[].class);
+        }
+
+        @Override
+        void storeElement(int index, Object array, int arrayIndex) {
+            elements = ensureCapacity(elements, index + 1);
+            elements[index] = ((Integer[]) array)[arrayIndex];
+        }
+
+        @Override
+        Object load(int offset, int length) {
+            Integer[] array = new Integer[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = elements[offset + i];
+            }
+
+            return array;
+        }
+    }
+
+    private static class NumberArrayColumn extends ArrayColumn {
+
+        private double[] elements = new double[16];
+
+        private NumberArrayColumn() {
+            super(TypeEnum.NUMBER, Number[].class);
+        }
+
+        @Override
+        protected boolean acceptsElement(Object element) {
+            return element instanceof Double;
+        }
+
+        @Override
+        void storeElement(int index, Object array, int arrayIndex) {
+            if(index >= elements.length){
+                elements = Arrays.copyOf(elements, Math.max(index + 1, elements.length * 2));
+            }
+            elements[index] = (Double) ((Number[]) array)[arrayIndex];
+        }
+
+        @Override
+        Object load(int offset, int length) {
+            Number[] array = new Number[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = elements[offset + i];
+            }
+
+            return array;
+        }
+    }
+
+    private static class BooleanArrayColumn extends ArrayColumn {
+
+        private final BitSet elements = new BitSet();
+
+        private BooleanArrayColumn() {
+            super(TypeEnum.BOOLEAN, boolean[].class);
+        }
+
+        @Override
+        void storeElement(int index, Object array, int arrayIndex) {
+            elements.set(index, ((boolean[]) array)[arrayIndex]);
+        }
+
+        @Override
+        Object load(int offset, int length) {
+            boolean[] array = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = elements.get(offset + i);
+            }
+
+            return array;
+        }
+    }
+
+    private static class StringArrayColumn extends ArrayColumn {
+
+        private final Dictionary dictionary = new Dictionary();
+
+        private int[] elements = new int[16];
+
+        private StringArrayColumn() {
+            super(TypeEnum.STRING, String[].class);
+        }
+
+        @Override
+        void storeElement(int index, Object array, int arrayIndex) {
+            elements = ensureCapacity(elements, index + 1);
+            elements[index] = dictionary.encode(((String[]) array)[arrayIndex]);
+        }
+
+        @Override
+        Object load(int offset, int length) {
+            String[] array = new String[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = dictionary.decode(elements[offset + i]);
+            }
+
+            return array;
+        }
+    }
+
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        private int encode(String value) {
+            Integer code = codes.get(value);
+            if(code == null){
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+
+            return code;
+        }
+
+        private String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
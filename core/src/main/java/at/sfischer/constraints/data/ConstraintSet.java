@@ -0,0 +1,64 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.IConstraint;
+
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Set of constraints that can also return the instance it contains for an equal constraint, see {@link #get(IConstraint)}.
+ */
+class ConstraintSet extends AbstractSet<IConstraint> {
+
+    private final Map<IConstraint, IConstraint> constraints = new HashMap<>();
+
+    /**
+     * @param constraint the constraint to look for.
+     * @return the constraint in this set that is equal to the given one, or null if there is none.
+     */
+    IConstraint get(IConstraint constraint) {
+        return constraints.get(constraint);
+    }
+
+    @Override
+    public boolean add(IConstraint constraint) {
+        if(constraints.containsKey(constraint)){
+            return false;
+        }
+
+        constraints.put(constraint, constraint);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return constraints.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if(!constraints.containsKey(o)){
+            return false;
+        }
+
+        constraints.remove(o);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        constraints.clear();
+    }
+
+    @Override
+    public Iterator<IConstraint> iterator() {
+        return constraints.keySet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return constraints.size();
+    }
+}
@@ -0,0 +1,165 @@
+package at.sfischer.constraints.data;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Data collection that only counts the entries added to it and retains a bounded sample of them as examples.
+ * <p>
+ * The examples are chosen by reservoir sampling, so every entry added has the same chance of being retained.
+ * All methods that access the data itself, e.g., {@link #visitDataEntries(Set, DataEntryVisitor)}, only see the
+ * retained examples, while {@link #numberOfDataEntries()} and {@link #size()} return the number of entries added.
+ *
+ * @param <T> the type of the data entries.
+ */
+public class CountingDataCollection<T> extends ReservoirDataCollection<T> {
+
+    private final int maxExamples;
+
+    private final List<T> examples;
+
+    private long numberOfEntries;
+
+    /**
+     * @param template    collection of the kind of data that is counted, used to hold the examples.
+     * @param maxExamples the maximum number of entries to retain as examples.
+     */
+    public CountingDataCollection(DataCollection<T> template, int maxExamples) {
+        super(template, 0);
+        if(maxExamples < 0){
+            throw new IllegalArgumentException("The maximum number of examples must not be negative, but was " + maxExamples + ".");
+        }
+
+        this.maxExamples = maxExamples;
+        this.examples = new ArrayList<>(Math.min(maxExamples, 16));
+        this.numberOfEntries = 0;
+    }
+
+    public int getMaxExamples() {
+        return maxExamples;
+    }
+
+    public List<T> getExamples() {
+        return Collections.unmodifiableList(examples);
+    }
+
+    @Override
+    public void addDataEntry(T dataEntry) {
+        addDataEntry(dataEntry, 1);
+    }
+
+    /**
+     * Counts the entry as often as the given weight, which makes it that much more likely to be retained as an example.
+     */
+    @Override
+    public void addDataEntry(T dataEntry, long weight) {
+        addLazyDataEntry(() -> dataEntry, weight);
+    }
+
+    /**
+     * Counts the entry once and only builds it if it is retained as an example.
+     */
+    @Override
+    public void addLazyDataEntry(Supplier<? extends T> dataEntry) {
+        addLazyDataEntry(dataEntry, 1);
+    }
+
+    @Override
+    public void addLazyDataEntry(Supplier<? extends T> dataEntry, long weight) {
+        if(weight < 1){
+            throw new IllegalArgumentException("The weight must be positive, but was " + weight + ".");
+        }
+
+        numberOfEntries += weight;
+        offer(examples, maxExamples, dataEntry, numberOfEntries, weight);
+    }
+
+    /**
+     * Counts entries without retaining any of them as examples, e.g., entries that were only counted elsewhere.
+     *
+     * @param numberOfEntries the number of entries to count.
+     */
+    public void addCount(long numberOfEntries) {
+        this.numberOfEntries += numberOfEntries;
+    }
+
+    @Override
+    public void addAll(DataCollection<T> collection) {
+        if(collection instanceof CountingDataCollection<T> other){
+            merge(other);
+            return;
+        }
+
+        super.addAll(collection);
+    }
+
+    private void merge(CountingDataCollection<T> other) {
+        long total = numberOfEntries + other.numberOfEntries;
+        if(!other.examples.isEmpty()){
+            // Each example of the other collection stands for the same share of the entries it counted.
+            long weight = Math.max(1, other.numberOfEntries / other.examples.size());
+            long seen = numberOfEntries;
+            for (T example : other.examples) {
+                seen = Math.min(total, seen + weight);
+                offer(examples, maxExamples, () -> example, seen, 1);
+            }
+        }
+
+        numberOfEntries = total;
+    }
+
+    /**
+     * Removes the entry if it is retained as an example and no longer counts it. Entries that were only counted
+     * cannot be told apart from entries that were never added, so removing them is not supported and has no effect.
+     */
+    @Override
+    public void removeDataEntry(T dataEntry) {
+        if(examples.remove(dataEntry)){
+            numberOfEntries--;
+            retainedEntriesChanged();
+        }
+    }
+
+    @Override
+    public void clear() {
+        numberOfEntries = 0;
+        examples.clear();
+        retainedEntriesChanged();
+    }
+
+    @Override
+    public int numberOfDataEntries() {
+        return (int) Math.min(Integer.MAX_VALUE, numberOfEntries);
+    }
+
+    @Override
+    public int size() {
+        return numberOfDataEntries();
+    }
+
+    @Override
+    protected Collection<T> retainedEntries() {
+        return examples;
+    }
+
+    @Override
+    public DataCollection<T> emptyDataCollection() {
+        return new CountingDataCollection<>(template, maxExamples);
+    }
+
+    @Override
+    public DataCollection<T> clone() {
+        CountingDataCollection<T> clone = new CountingDataCollection<>(template, maxExamples);
+        clone.examples.addAll(this.examples);
+        clone.numberOfEntries = this.numberOfEntries;
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return "CountingDataCollection{" +
+                "numberOfEntries=" + numberOfEntries +
+                ", examples=" + examples +
+                '}';
+    }
+}
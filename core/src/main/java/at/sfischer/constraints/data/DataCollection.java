@@ -7,6 +7,8 @@ import at.sfischer.constraints.model.operators.objects.Reference;
 import org.javatuples.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public abstract class DataCollection<T> {
 
@@ -16,6 +18,14 @@ public abstract class DataCollection<T> {
 
     public abstract DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy);
 
+    /**
+     * Derives the schema on the given pool, collections that cannot derive their schema in parallel derive it on the
+     * calling thread.
+     */
+    public DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool){
+        return deriveSchema(typePromotionPolicy);
+    }
+
     public abstract boolean applyDataToTerms(List<Node> terms, Map<Variable, Type> variableTypes);
 
     public abstract int numberOfDataEntries();
@@ -27,11 +37,64 @@ public abstract class DataCollection<T> {
     public abstract void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<T> visitor);
 
     public void addAll(DataCollection<T> collection){
-        collection.visitDataEntries(new HashSet<>(), (values, dataEntry) -> addDataEntry(dataEntry));
+        collection.visitDataEntries(new HashSet<>(), new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                addDataEntry(dataEntry);
+            }
+
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+                addDataEntry(dataEntry, weight);
+            }
+        });
     }
 
+    /**
+     * Appends the entries of the given collection in their order. In contrast to {@link #addAll(DataCollection)} the
+     * entries are taken as they are stored in the collection.
+     *
+     * @param collection the collection to append.
+     */
+    public abstract void append(DataCollection<T> collection);
+
+    /**
+     * Splits this collection into consecutive parts of (nearly) the same size, keeping the order of the entries.
+     *
+     * @param numberOfPartitions the maximum number of partitions to create.
+     * @return the non-empty partitions in order.
+     */
+    public abstract List<DataCollection<T>> partition(int numberOfPartitions);
+
     public abstract void addDataEntry(T dataEntry);
 
+    /**
+     * Adds an entry that is only built when this collection needs it, see
+     * {@link DataEntryVisitor#visitLazyDataValues(Map, Supplier)}.
+     */
+    public void addLazyDataEntry(Supplier<? extends T> dataEntry) {
+        addDataEntry(dataEntry.get());
+    }
+
+    /**
+     * Adds the entry as often as the given weight, e.g., an entry visited with a weight in a
+     * {@link WeightedDataCollection}. Collections that count or weight their entries add it at once.
+     */
+    public void addDataEntry(T dataEntry, long weight) {
+        for (long i = 0; i < weight; i++) {
+            addDataEntry(dataEntry);
+        }
+    }
+
+    /**
+     * Adds an entry that is only built when this collection needs it as often as the given weight.
+     */
+    public void addLazyDataEntry(Supplier<? extends T> dataEntry, long weight) {
+        for (long i = 0; i < weight; i++) {
+            addLazyDataEntry(dataEntry);
+        }
+    }
+
     public abstract void removeDataEntry(T dataEntry);
 
     public abstract void clear();
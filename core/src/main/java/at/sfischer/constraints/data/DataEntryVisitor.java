@@ -3,8 +3,36 @@ package at.sfischer.constraints.data;
 import at.sfischer.constraints.model.Node;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 public interface DataEntryVisitor<T> {
 
     void visitDataValues(Map<String, Node> values, T dataEntry);
+
+    /**
+     * Visits an entry that is only built when it is requested, e.g., rebuilt from the columns of a
+     * {@link ColumnarDataCollection}. Visitors that do not always need the entry, or that retain it with
+     * {@link DataCollection#addLazyDataEntry(Supplier)}, can avoid building it.
+     */
+    default void visitLazyDataValues(Map<String, Node> values, Supplier<? extends T> dataEntry) {
+        visitDataValues(values, dataEntry.get());
+    }
+
+    /**
+     * Visits an entry that stands for the given number of equal entries, e.g., in a {@link WeightedDataCollection}.
+     * Visiting it is the same as visiting it that many times, which visitors can do at once, e.g., by adding it with
+     * {@link DataCollection#addDataEntry(Object, long)}.
+     */
+    default void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+        for (long i = 0; i < weight; i++) {
+            visitDataValues(values, dataEntry);
+        }
+    }
+
+    /**
+     * Visits an entry that is only built when it is requested and stands for the given number of equal entries.
+     */
+    default void visitLazyDataValues(Map<String, Node> values, Supplier<? extends T> dataEntry, long weight) {
+        visitDataValues(values, dataEntry.get(), weight);
+    }
 }
@@ -2,9 +2,6 @@ package at.sfischer.constraints.data;
 
 import at.sfischer.constraints.model.*;
 import org.javatuples.Pair;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.json.JSONTokener;
 
 import java.util.*;
 
@@ -12,10 +9,26 @@ import static at.sfischer.constraints.data.Utils.Path;
 
 public class DataObject {
 
-    private final Map<String, DataValue<?>> dataValues;
+    private static final DataValue<?>[] NO_VALUES = new DataValue<?>[0];
+
+    /**
+     * The field names, shared with all objects that have the same fields.
+     */
+    private DataObjectShape shape;
+
+    /**
+     * The values of the fields, indexed by the slots of the shape. The array may be longer than the shape.
+     */
+    private DataValue<?>[] values;
+
+    /**
+     * Where this object is stored, e.g., its location in a {@link DataSegment}, or null if it was changed since.
+     */
+    private Object storedAt;
 
     public DataObject() {
-        this.dataValues = new HashMap<>();
+        this.shape = DataObjectShape.EMPTY;
+        this.values = NO_VALUES;
     }
 
     public void putValue(String path, boolean value){
@@ -72,20 +85,57 @@ public class DataObject {
     }
 
     public void putDataValues(DataObject object) {
-        dataValues.putAll(object.dataValues);
+        for (int i = 0; i < object.shape.size(); i++) {
+            put(object.shape.name(i), object.values[i]);
+        }
     }
 
     protected void putDataValue(String path, DataValue<?> value) {
+        storedAt = null;
+        if(path.indexOf('.') < 0){
+            put(path, value);
+            return;
+        }
+
         DataObject target = getObjectForPath(path);
-        target.dataValues.put(lastPathElement(path), value);
+        target.put(lastPathElement(path), value);
+    }
+
+    private void put(String name, DataValue<?> value) {
+        storedAt = null;
+        int slot = shape.slot(name);
+        if(slot >= 0){
+            values[slot] = value;
+            return;
+        }
+
+        slot = shape.size();
+        shape = shape.withField(name);
+        if(slot >= values.length){
+            values = Arrays.copyOf(values, Math.max(4, 2 * values.length));
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @return where this object is stored, or null if it is not stored or was changed since it was read. Changes of
+     * nested objects are not noticed.
+     */
+    Object getStoredAt() {
+        return storedAt;
+    }
+
+    void setStoredAt(Object storedAt) {
+        this.storedAt = storedAt;
     }
 
     public DataValue<?> getDataValue(String name){
-        return dataValues.get(name);
+        int slot = shape.slot(name);
+        return slot < 0 ? null : values[slot];
     }
 
     private DataObject getOrCreateObject(String name) {
-        DataValue<?> value = dataValues.get(name);
+        DataValue<?> value = getDataValue(name);
         if (value != null && value.getType() == TypeEnum.COMPLEXTYPE) {
             return (DataObject) value.getValue();
         }
@@ -96,10 +146,13 @@ public class DataObject {
     }
 
     private DataObject getObjectForPath(String path) {
-        String[] parts = path.split("\\.");
         DataObject current = this;
-        for (int i = 0; i < parts.length - 1; i++) {
-            current = current.getOrCreateObject(parts[i]);
+        int start = 0;
+        int end = path.indexOf('.');
+        while(end >= 0){
+            current = current.getOrCreateObject(path.substring(start, end));
+            start = end + 1;
+            end = path.indexOf('.', start);
         }
 
         return current;
@@ -119,7 +172,7 @@ public class DataObject {
             rest = name.substring(firstDotIndex + 1);
         }
 
-        DataValue<?> value = dataValues.get(dataValueName);
+        DataValue<?> value = getDataValue(dataValueName);
         if(value == null){
             return null;
         }
@@ -157,27 +210,28 @@ public class DataObject {
             return null;
         }
 
-        String currentSegment = path.segment(0);
-        DataValue<?> value = dataValues.get(currentSegment);
+        return getValues(path.segments(), 0);
+    }
+
+    private List<Value<?>> getValues(List<String> segments, int index) {
+        DataValue<?> value = getDataValue(segments.get(index));
         if (value == null) {
             return null;
         }
 
-        if (path.size() == 1) {
+        if (index == segments.size() - 1) {
             return List.of(value.getLiteralValue());
         }
 
-        Path remainingPath = new Path(path.segments().subList(1, path.size()));
-        List<Value<?>> values = new LinkedList<>();
-
         Type valueType = value.getType();
         if (valueType == TypeEnum.COMPLEXTYPE) {
             DataObject nested = (DataObject) value.getValue();
-            return nested.getValues(remainingPath);
+            return nested.getValues(segments, index + 1);
         } else if(valueType instanceof ArrayType && ((ArrayType)valueType).elementType() == TypeEnum.COMPLEXTYPE){
             DataObject[] nestedArray = (DataObject[]) value.getValue();
+            List<Value<?>> values = new ArrayList<>(nestedArray.length);
             for (DataObject nested : nestedArray) {
-                List<Value<?>> nestedValues = nested.getValues(remainingPath);
+                List<Value<?>> nestedValues = nested.getValues(segments, index + 1);
                 if (nestedValues != null) {
                     values.addAll(nestedValues);
                 }
@@ -189,15 +243,75 @@ public class DataObject {
     }
 
     public Set<String> getFieldNames() {
-        return this.dataValues.keySet();
+        return shape.fieldNames();
+    }
+
+    private Map<String, DataValue<?>> dataValues() {
+        Map<String, DataValue<?>> dataValues = new LinkedHashMap<>();
+        for (int i = 0; i < shape.size(); i++) {
+            dataValues.put(shape.name(i), values[i]);
+        }
+
+        return dataValues;
+    }
+
+    /**
+     * Describes the structure of this object, i.e., its fields and their types, as far as a schema derived from it
+     * depends on them. Objects with equal keys have the same schema.
+     *
+     * @return the key.
+     */
+    Object structureKey() {
+        Object[] key = new Object[shape.size() + 1];
+        key[0] = shape.key();
+        for (int i = 0; i < shape.size(); i++) {
+            Type type = values[i].getType();
+            if(type == TypeEnum.COMPLEXTYPE){
+                key[i + 1] = ((DataObject) values[i].getValue()).structureKey();
+            } else if(type instanceof ArrayType && innermostElementType(type) == TypeEnum.COMPLEXTYPE){
+                Set<Object> elementKeys = new LinkedHashSet<>();
+                collectElementStructureKeys(values[i].getValue(), elementKeys);
+                key[i + 1] = Arrays.asList(type, new ArrayList<>(elementKeys));
+            } else {
+                key[i + 1] = type;
+            }
+        }
+
+        return Arrays.asList(key);
+    }
+
+    private static Type innermostElementType(Type type) {
+        while(type instanceof ArrayType arrayType){
+            type = arrayType.elementType();
+        }
+
+        return type;
+    }
+
+    /**
+     * The schema of an array of objects is unified from the schemas of its elements in order, and unifying it with an
+     * equal schema again does not change it. So the distinct keys of the elements, in the order they first occur,
+     * describe the structure of the array.
+     */
+    private static void collectElementStructureKeys(Object array, Set<Object> keys) {
+        if(array instanceof DataObject[] objects){
+            for (DataObject object : objects) {
+                keys.add(object.structureKey());
+            }
+        } else if(array instanceof DataValue<?>[] nested){
+            for (DataValue<?> value : nested) {
+                collectElementStructureKeys(value.getValue(), keys);
+            }
+        }
     }
 
     @Override
     public DataObject clone() {
         DataObject clone = new DataObject();
-
-        for (Map.Entry<String, DataValue<?>> entry : dataValues.entrySet()) {
-            clone.putDataValue(entry.getKey(), entry.getValue().clone());
+        clone.shape = shape.copy();
+        clone.values = new DataValue<?>[shape.size()];
+        for (int i = 0; i < shape.size(); i++) {
+            clone.values[i] = values[i].clone();
         }
 
         return clone;
@@ -208,21 +322,48 @@ public class DataObject {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DataObject that = (DataObject) o;
-        return Objects.equals(dataValues, that.dataValues);
+        if(shape == that.shape){
+            for (int i = 0; i < shape.size(); i++) {
+                if(!Objects.equals(values[i], that.values[i])){
+                    return false;
+                }
+            }
+
+            return true;
+        }
+        if(shape.size() != that.shape.size()){
+            return false;
+        }
+
+        // The same fields may have been added in a different order.
+        for (int i = 0; i < shape.size(); i++) {
+            int slot = that.shape.slot(shape.name(i));
+            if(slot < 0 || !Objects.equals(values[i], that.values[slot])){
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dataValues);
+        // Independent of the order of the fields, like the hash code of a map.
+        int hashCode = 0;
+        for (int i = 0; i < shape.size(); i++) {
+            hashCode += shape.name(i).hashCode() ^ Objects.hashCode(values[i]);
+        }
+
+        return 31 + hashCode;
     }
 
     public Map<Type, List<Pair<String, DataValue<?>>>> getValuesByType(){
         Map<Type, List<Pair<String, DataValue<?>>>> dataByTypes = new HashMap<>();
-        for (Map.Entry<String, DataValue<?>> entry : dataValues.entrySet()) {
-            Type type = entry.getValue().getType();
+        for (int i = 0; i < shape.size(); i++) {
+            String fieldName = shape.name(i);
+            DataValue<?> value = values[i];
+            Type type = value.getType();
             List<Pair<String, DataValue<?>>> data = dataByTypes.computeIfAbsent(type, k -> new LinkedList<>());
-            String fieldName = entry.getKey();
-            DataValue<?> value = entry.getValue();
             data.add(new Pair<>(fieldName, value));
 
             if(value.getValue() instanceof DataObject){
@@ -244,14 +385,15 @@ public class DataObject {
 
     public Map<String, Type> getDataTypes(){
         Map<String, Type> dataTypes = new HashMap<>();
-        for (Map.Entry<String, DataValue<?>> entry : dataValues.entrySet()) {
-            Map<String, Type> types = entry.getValue().getDataTypes();
+        for (int i = 0; i < shape.size(); i++) {
+            String fieldName = shape.name(i);
+            Map<String, Type> types = values[i].getDataTypes();
             for (Map.Entry<String, Type> typeEntry : types.entrySet()) {
                 if(typeEntry.getKey().isEmpty()){
-                    dataTypes.put(entry.getKey(), typeEntry.getValue());
+                    dataTypes.put(fieldName, typeEntry.getValue());
                 } else {
-                    if(!(entry.getValue().getType() instanceof ArrayType)) {
-                        dataTypes.put(entry.getKey() + "." + typeEntry.getKey(), typeEntry.getValue());
+                    if(!(values[i].getType() instanceof ArrayType)) {
+                        dataTypes.put(fieldName + "." + typeEntry.getKey(), typeEntry.getValue());
                     }
                 }
             }
@@ -262,14 +404,15 @@ public class DataObject {
 
     public Map<String, Node> getDataValues(){
         Map<String, Node> dataValues = new HashMap<>();
-        for (Map.Entry<String, DataValue<?>> entry : this.dataValues.entrySet()) {
-            Map<String, Node> values = entry.getValue().getDataValues();
-            for (Map.Entry<String, Node> typeEntry : values.entrySet()) {
+        for (int i = 0; i < shape.size(); i++) {
+            String fieldName = shape.name(i);
+            Map<String, Node> nodeValues = values[i].getDataValues();
+            for (Map.Entry<String, Node> typeEntry : nodeValues.entrySet()) {
                 if(typeEntry.getKey().isEmpty()){
-                    dataValues.put(entry.getKey(), typeEntry.getValue());
+                    dataValues.put(fieldName, typeEntry.getValue());
                 } else {
-                    if(!(entry.getValue().getType() instanceof ArrayType)) {
-                        dataValues.put(entry.getKey() + "." + typeEntry.getKey(), typeEntry.getValue());
+                    if(!(values[i].getType() instanceof ArrayType)) {
+                        dataValues.put(fieldName + "." + typeEntry.getKey(), typeEntry.getValue());
                     }
                 }
             }
@@ -338,134 +481,14 @@ public class DataObject {
     @Override
     public String toString() {
         return "DataObject{" +
-                "dataValues=" + dataValues +
+                "dataValues=" + dataValues() +
                 '}';
     }
 
+    /**
+     * @see JsonDataParser#parseObject(String)
+     */
     public static DataObject parseData(String jsonData){
-        DataObject dao = new DataObject();
-
-        JSONTokener jt = new JSONTokener(jsonData);
-        JSONObject object = new JSONObject(jt);
-        parseObject(dao, object);
-
-        return dao;
-    }
-
-    private static void parseObject(DataObject dao, JSONObject object){
-        Iterator<String> keyIt = object.keys();
-        while(keyIt.hasNext()){
-            String key = keyIt.next();
-            Object value = object.get(key);
-
-            if(value instanceof Integer){
-                dao.putValue(key, (Integer)value);
-            } else if(value instanceof Number){
-                dao.putValue(key, (Number)value);
-            } else if (value instanceof Boolean){
-                dao.putValue(key, (Boolean)value);
-            } else if (value instanceof String) {
-                dao.putValue(key, (String)value);
-            } else if (value instanceof JSONArray) {
-                parseArray(dao, key, (JSONArray)value);
-            } else if (value instanceof JSONObject) {
-                DataObject valueDao = new DataObject();
-                parseObject(valueDao, (JSONObject)value);
-                dao.putValue(key, valueDao);
-            }
-        }
-    }
-
-    private static void parseArray(DataObject dao, String key, JSONArray array){
-        Class<?> elementType = null;
-        List<Object> values = new ArrayList<>();
-        // Infer the element type pf the array.
-        for (Object value : array) {
-            elementType = inferElementType(elementType, value);
-            values.add(value);
-        }
-
-        // Insert value array into data object.
-        if(elementType == Integer.class){
-            Integer[] value = new Integer[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                value[i] = (Integer)values.get(i);
-            }
-            dao.putValue(key, value);
-        } else if(elementType == Number.class){
-            Number[] value = new Number[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                value[i] = (Number)values.get(i);
-            }
-            dao.putValue(key, value);
-        } else if(elementType == Boolean.class){
-            boolean[] value = new boolean[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                value[i] = (boolean)values.get(i);
-            }
-            dao.putValue(key, value);
-        } else if(elementType == String.class){
-            String[] value = new String[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                value[i] = (String)values.get(i);
-            }
-            dao.putValue(key, value);
-        } else if(elementType == JSONArray.class){
-            DataValue<?>[] value = new DataValue[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                DataObject valueDao = new DataObject();
-                parseArray(valueDao, key, (JSONArray)values.get(i));
-                DataValue<?> dataValue = valueDao.dataValues.get(key);
-                value[i] = dataValue;
-            }
-            dao.putValue(key, value);
-        } else if(elementType == Object.class){
-            DataObject[] value = new DataObject[values.size()];
-            for (int i = 0; i < values.size(); i++) {
-                DataObject valueDao = new DataObject();
-                parseObject(valueDao, (JSONObject)values.get(i));
-                value[i] = valueDao;
-            }
-            dao.putValue(key, value);
-        }
-
-    }
-
-    private static Class<?> inferElementType(Class<?> elementType, Object value){
-        if(value instanceof Integer){
-            if(elementType == null){
-                return Integer.class;
-            } else if(!elementType.equals(Integer.class)) {
-                return Object.class;
-            }
-        } else if(value instanceof Number){
-            if(elementType == null){
-                return Number.class;
-            } else if(!elementType.equals(Number.class)) {
-                return Object.class;
-            }
-        } else if (value instanceof Boolean){
-            if(elementType == null){
-                return Boolean.class;
-            } else if(!elementType.equals(Boolean.class)) {
-                return Object.class;
-            }
-        } else if (value instanceof String) {
-            if(elementType == null){
-                return String.class;
-            } else if(!elementType.equals(String.class)) {
-                return Object.class;
-            }
-        } else if (value instanceof JSONArray) {
-            if(elementType == null){
-                return JSONArray.class;
-            } else if(!elementType.equals(JSONArray.class)) {
-                return Object.class;
-            }
-        } else if (value instanceof JSONObject) {
-            return Object.class;
-        }
-
-        return elementType;
+        return JsonDataParser.parseObject(jsonData);
     }
 }
@@ -0,0 +1,229 @@
+package at.sfischer.constraints.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The field names of data objects, shared by all data objects that have the same fields added in the same order.
+ * <p>
+ * Each data object keeps its values in an array indexed by the slots of its shape. Adding a field moves an object to the
+ * shape with one more field, which is created once and reused by all objects that take the same transition. This way
+ * the field names of objects with the same structure, e.g., parsed from the same kind of payload, are only stored once.
+ * <p>
+ * Shared shapes are only referenced weakly by the shape they extend, so shapes that are no longer used by any object
+ * are freed. The number of transitions of each shape is bounded, since objects with dynamic field names, e.g.,
+ * identifiers used as keys, would otherwise create new shapes without end. Once the bound of a shape is reached,
+ * objects that add further fields to it get a shape of their own, which is not shared and grows with the object.
+ * <p>
+ * Shared shapes are immutable and can be shared between threads. Shapes that are not shared belong to a single object.
+ */
+final class DataObjectShape {
+
+    static final DataObjectShape EMPTY = root(256);
+
+    /**
+     * Up to this number of fields, slots are found by comparing the names directly, which is faster than hashing.
+     */
+    private static final int MAX_LINEAR_LOOKUP = 8;
+
+    /**
+     * The shape this shape extends, which is kept while this shape is used, so that all objects with the same fields
+     * keep sharing the same shapes.
+     */
+    private final DataObjectShape parent;
+
+    private String[] names;
+
+    private int size;
+
+    private Map<String, Integer> slots;
+
+    private final Set<String> fieldNames;
+
+    /**
+     * The shapes with one more field, or null if this shape is not shared.
+     */
+    private final Map<String, Transition> transitions;
+
+    private final ReferenceQueue<DataObjectShape> collectedShapes;
+
+    private final int maxTransitions;
+
+    private DataObjectShape(DataObjectShape parent, String[] names, int maxTransitions, boolean shared) {
+        this.parent = parent;
+        this.names = names;
+        this.size = names.length;
+        if(names.length > MAX_LINEAR_LOOKUP){
+            this.slots = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                slots.put(names[i], i);
+            }
+        }
+        this.fieldNames = new FieldNames();
+        this.transitions = shared ? new ConcurrentHashMap<>() : null;
+        this.collectedShapes = shared ? new ReferenceQueue<>() : null;
+        this.maxTransitions = maxTransitions;
+    }
+
+    /**
+     * @param maxTransitions the maximum number of shared shapes that extend each shape by one field.
+     * @return the shape without fields of a new tree of shapes.
+     */
+    static DataObjectShape root(int maxTransitions) {
+        return new DataObjectShape(null, new String[0], maxTransitions, true);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    Set<String> fieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * @return the slot of the field with the given name, or -1 if there is none.
+     */
+    int slot(String name) {
+        if(slots != null){
+            Integer slot = slots.get(name);
+            return slot == null ? -1 : slot;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if(names[i] == name){
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if(names[i].equals(name)){
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the shape with the given field added as last slot. Shapes that are not shared are extended in place.
+     */
+    DataObjectShape withField(String name) {
+        if(transitions == null){
+            append(name);
+            return this;
+        }
+
+        Transition transition = transitions.get(name);
+        DataObjectShape shape = transition == null ? null : transition.get();
+        if(shape != null){
+            return shape;
+        }
+
+        expungeCollectedShapes();
+        String[] extendedNames = Arrays.copyOf(names, size + 1);
+        extendedNames[size] = name;
+        if(transition == null && transitions.size() >= maxTransitions){
+            return new DataObjectShape(null, extendedNames, maxTransitions, false);
+        }
+
+        // All objects that take the same transition at the same time have to get the same shape.
+        DataObjectShape[] extended = new DataObjectShape[1];
+        transitions.compute(name, (k, existing) -> {
+            extended[0] = existing == null ? null : existing.get();
+            if(extended[0] != null){
+                return existing;
+            }
+
+            extended[0] = new DataObjectShape(this, extendedNames, maxTransitions, true);
+            return new Transition(k, extended[0], collectedShapes);
+        });
+
+        return extended[0];
+    }
+
+    private void append(String name) {
+        if(size == names.length){
+            names = Arrays.copyOf(names, Math.max(4, 2 * size));
+        }
+        names[size] = name;
+        if(slots != null){
+            slots.put(name, size);
+        } else if(size == MAX_LINEAR_LOOKUP){
+            slots = new HashMap<>();
+            for (int i = 0; i <= size; i++) {
+                slots.put(names[i], i);
+            }
+        }
+        size++;
+    }
+
+    private void expungeCollectedShapes() {
+        Transition transition;
+        while ((transition = (Transition) collectedShapes.poll()) != null) {
+            transitions.remove(transition.name, transition);
+        }
+    }
+
+    /**
+     * @return a shape with the same fields that is not shared, e.g., for a copy of an object whose shape is not shared.
+     */
+    DataObjectShape copy() {
+        return isShared() ? this : new DataObjectShape(null, Arrays.copyOf(names, size), maxTransitions, false);
+    }
+
+    /**
+     * @return a key that is equal for shapes with the same fields in the same order, e.g., for shapes that are not shared.
+     */
+    Object key() {
+        return transitions != null ? this : List.of(Arrays.copyOf(names, size));
+    }
+
+    /**
+     * @return true if this shape is shared by all objects with the same fields.
+     */
+    boolean isShared() {
+        return transitions != null;
+    }
+
+    @Override
+    public String toString() {
+        return "DataObjectShape" + Arrays.toString(Arrays.copyOf(names, size));
+    }
+
+    private static final class Transition extends WeakReference<DataObjectShape> {
+
+        private final String name;
+
+        private Transition(String name, DataObjectShape shape, ReferenceQueue<DataObjectShape> queue) {
+            super(shape, queue);
+            this.name = name;
+        }
+    }
+
+    /**
+     * The field names in the order of their slots. Iterating sees the fields the shape had when the iteration started.
+     */
+    private final class FieldNames extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(names).subList(0, size)).iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String name && slot(name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
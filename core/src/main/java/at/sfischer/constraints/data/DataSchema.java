@@ -1,5 +1,6 @@
 package at.sfischer.constraints.data;
 
+import at.sfischer.constraints.Constraint;
 import at.sfischer.constraints.ConstraintConstruct;
 import at.sfischer.constraints.ConstraintFactory;
 import at.sfischer.constraints.ConstraintResults;
@@ -14,6 +15,8 @@ import org.javatuples.Pair;
 import org.javatuples.Triplet;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public abstract class DataSchema {
 
@@ -91,12 +94,213 @@ public abstract class DataSchema {
         return evaluate(data, constraints, potentialConstraints);
     }
 
-    public abstract <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints);
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints){
+        return evaluate(data, constraints, potentialConstraints, new EvaluationResults<>());
+    }
+
+    /**
+     * Evaluates the data and adds the results to the given evaluation results, which also decide how much of the data
+     * is retained in the constraint results.
+     *
+     * @return the given evaluation results.
+     */
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, EvaluationResults<DS, T> evaluationResults){
+        if(data.numberOfDataEntries() == 0){
+            return evaluationResults;
+        }
+
+        EvaluationContext context = new EvaluationContext();
+        context.memoizePredicates();
+        evaluate(data, constraints, potentialConstraints, evaluationResults, context, true);
+        context.commit();
+
+        return evaluationResults;
+    }
+
+    /**
+     * Evaluates the data with the given context, which keeps the state of the stateful operators of the constraints.
+     * The context is not committed.
+     *
+     * @param checkSchema true to check the data against the schema entries as well, false to only evaluate the constraints.
+     */
+    protected abstract <DS extends DataSchema, T> void evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, EvaluationResults<DS, T> evaluationResults, EvaluationContext context, boolean checkSchema);
+
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, ForkJoinPool pool){
+        return evaluate(data, pool, new EvaluationResults<>());
+    }
+
+    /**
+     * @param pool              pool to evaluate data in parallel on, or null to evaluate sequentially.
+     * @param evaluationResults results to add the results of the evaluation to.
+     * @return the given evaluation results.
+     */
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, ForkJoinPool pool, EvaluationResults<DS, T> evaluationResults){
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+        collectAllConstraints(constraints, potentialConstraints);
+
+        if(pool == null){
+            return evaluate(data, constraints, potentialConstraints, evaluationResults);
+        }
+
+        return evaluate(data, constraints, potentialConstraints, pool, evaluationResults);
+    }
+
+    /**
+     * Evaluates the data in parallel on the given pool. The data is split into consecutive partitions, which are
+     * evaluated independently and merged in order afterward. The state of stateful operators, e.g., the options of
+     * one-of constraints, is collected per partition first and combined in order, so each partition is evaluated
+     * starting from the state the data before it leads to. Order-dependent constraints that do not keep their state in
+     * an {@link EvaluationContext} are evaluated on the whole data in order instead. Without candidates that are
+     * retired while evaluating, the results are the same as the ones of {@link #evaluate(DataCollection, Map, Map)}.
+     */
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, ForkJoinPool pool){
+        return evaluate(data, constraints, potentialConstraints, pool, new EvaluationResults<>());
+    }
+
+    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, ForkJoinPool pool, EvaluationResults<DS, T> evaluationResults){
+        List<DataCollection<T>> partitions = data.partition(pool.getParallelism());
+        if(partitions.size() <= 1){
+            return evaluate(data, constraints, potentialConstraints, evaluationResults);
+        }
+
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> partitionedConstraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> statefulConstraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> sequentialConstraints = new HashMap<>();
+        splitByOrderDependence(constraints, partitionedConstraints, statefulConstraints, sequentialConstraints);
+
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> partitionedPotentialConstraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> statefulPotentialConstraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> sequentialPotentialConstraints = new HashMap<>();
+        splitByOrderDependence(potentialConstraints, partitionedPotentialConstraints, statefulPotentialConstraints, sequentialPotentialConstraints);
+
+        List<EvaluationContext> contexts = startContexts(partitions, statefulConstraints, statefulPotentialConstraints, pool);
+        List<ForkJoinTask<EvaluationResults<DS, T>>> tasks = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            DataCollection<T> partition = partitions.get(i);
+            EvaluationContext context = contexts.get(i);
+            tasks.add(pool.submit(() -> {
+                EvaluationResults<DS, T> results = evaluationResults.emptyEvaluationResults();
+                context.memoizePredicates();
+                evaluate(partition, partitionedConstraints, partitionedPotentialConstraints, results, context, true);
+                return results;
+            }));
+        }
+        if(!sequentialConstraints.isEmpty() || !sequentialPotentialConstraints.isEmpty()) {
+            EvaluationContext context = new EvaluationContext();
+            contexts.add(context);
+            tasks.add(pool.submit(() -> {
+                // The schema results are derived by the partitions already.
+                EvaluationResults<DS, T> results = evaluationResults.emptyEvaluationResults();
+                context.memoizePredicates();
+                evaluate(data, sequentialConstraints, sequentialPotentialConstraints, results, context, false);
+                return results;
+            }));
+        }
+
+        for (ForkJoinTask<EvaluationResults<DS, T>> task : tasks) {
+            evaluationResults.merge(task.join(), data);
+        }
+        // Each partition started from the state the partitions before lead to, so committing them in order drops only
+        // options evaluating the data sequentially rejects as well.
+        for (EvaluationContext context : contexts) {
+            context.commit();
+        }
+
+        return evaluationResults;
+    }
+
+    /**
+     * Collects the state the stateful operators of the given constraints reach on each partition in parallel, and
+     * combines it in order.
+     *
+     * @return a context per partition that starts from the state the partitions before it lead to.
+     */
+    private <DS extends DataSchema, T> List<EvaluationContext> startContexts(List<DataCollection<T>> partitions, Map<DataSchemaEntry<DS>, Set<IConstraint>> statefulConstraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> statefulPotentialConstraints, ForkJoinPool pool){
+        List<EvaluationContext> contexts = new ArrayList<>();
+        if(statefulConstraints.isEmpty() && statefulPotentialConstraints.isEmpty()){
+            for (int i = 0; i < partitions.size(); i++) {
+                contexts.add(new EvaluationContext());
+            }
+
+            return contexts;
+        }
+
+        // The state after the last partition is not needed to start any partition.
+        List<ForkJoinTask<EvaluationContext>> tasks = new ArrayList<>();
+        for (DataCollection<T> partition : partitions.subList(0, partitions.size() - 1)) {
+            tasks.add(pool.submit(() -> {
+                // Only the collected state is of interest, so the results neither retain data nor retire candidates.
+                EvaluationContext context = new EvaluationContext();
+                context.memoizePredicates();
+                evaluate(partition, statefulConstraints, statefulPotentialConstraints, new EvaluationResults<DS, T>(0), context, false);
+                return context;
+            }));
+        }
+
+        EvaluationContext state = new EvaluationContext();
+        contexts.add(state.continuation());
+        for (ForkJoinTask<EvaluationContext> task : tasks) {
+            state.merge(task.join());
+            contexts.add(state.continuation());
+        }
+
+        return contexts;
+    }
+
+    /**
+     * Splits the constraints into the ones that can be evaluated per partition, i.e., the order-independent ones and the
+     * stateful ones, whose state is kept in the {@link EvaluationContext} they are compiled with, and the other
+     * order-dependent ones, which have to be evaluated on the whole data in order.
+     */
+    private static <DS extends DataSchema> void splitByOrderDependence(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> partitioned, Map<DataSchemaEntry<DS>, Set<IConstraint>> stateful, Map<DataSchemaEntry<DS>, Set<IConstraint>> sequential){
+        constraints.forEach((k, v) -> {
+            if(v == null){
+                return;
+            }
 
+            for (IConstraint constraint : v) {
+                if(!constraint.isOrderDependent()){
+                    partitioned.computeIfAbsent(k, key -> new HashSet<>()).add(constraint);
+                } else if(constraint instanceof Constraint){
+                    partitioned.computeIfAbsent(k, key -> new HashSet<>()).add(constraint);
+                    stateful.computeIfAbsent(k, key -> new HashSet<>()).add(constraint);
+                } else {
+                    sequential.computeIfAbsent(k, key -> new HashSet<>()).add(constraint);
+                }
+            }
+        });
+    }
+
+    /**
+     * Collects the constraints and potential constraints of all schema entries. The collected sets are the ones of the
+     * schema entries, so they must not be modified.
+     */
     public abstract <DS extends DataSchema> void collectAllConstraints(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints);
 
     public abstract <DS extends DataSchema> void collectAllConstraints(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, ConstraintConstruct derivedFrom);
 
+    /**
+     * Collects the constraints and potential constraints derived from any of the given constructs.
+     */
+    public <DS extends DataSchema> void collectAllConstraints(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, Collection<? extends ConstraintConstruct> derivedFrom){
+        for (ConstraintConstruct construct : derivedFrom) {
+            Map<DataSchemaEntry<DS>, Set<IConstraint>> derivedConstraints = constraints == null ? null : new HashMap<>();
+            Map<DataSchemaEntry<DS>, Set<IConstraint>> derivedPotentialConstraints = potentialConstraints == null ? null : new HashMap<>();
+            collectAllConstraints(derivedConstraints, derivedPotentialConstraints, construct);
+            addAllConstraints(constraints, derivedConstraints);
+            addAllConstraints(potentialConstraints, derivedPotentialConstraints);
+        }
+    }
+
+    private static <DS extends DataSchema> void addAllConstraints(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> toAdd){
+        if(constraints == null){
+            return;
+        }
+
+        toAdd.forEach((k, v) -> constraints.computeIfAbsent(k, key -> new HashSet<>()).addAll(v));
+    }
+
     public abstract <DS extends DataSchema> void collectConstraints(Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, Collection<? extends IConstraint> toFind);
 
     public <DS extends DataSchema> void clearConstrains() {
@@ -117,7 +321,7 @@ public abstract class DataSchema {
             for (ConstraintResults<T> constraintResults : v) {
                 IConstraint constraint = k.getPotentionConstraint(constraintResults.constraint());
                 k.potentialConstraints.remove(constraint);
-                if(policy.includeConstraint(constraintResults)){
+                if(evaluationResults.includeConstraint(constraintResults, policy)){
                     k.constraints.add(constraint);
                 }
             }
@@ -134,7 +338,7 @@ public abstract class DataSchema {
 
                 IConstraint constraint = k.getPotentionConstraint(constraintFromResult);
                 k.potentialConstraints.remove(constraint);
-                if(construct.getRetentionPolicy().includeConstraint(constraintResults)){
+                if(evaluationResults.includeConstraint(constraintResults, construct.getRetentionPolicy())){
                     k.constraints.add(constraint);
                 }
             }
@@ -437,6 +641,90 @@ public abstract class DataSchema {
         return isPartOfSchema(entry.getParentSchemaEntry(), schema);
     }
 
+    /**
+     * A constraint to evaluate on each data entry, together with the results to update.
+     *
+     * @param retiringResults the evaluation results to retire the constraint in once its decision is final, or null to
+     *                        evaluate it on all data entries.
+     */
+    protected record RegisteredConstraint<T>(IConstraint constraint, ConstraintResults<T> results, EvaluationResults<?, T> retiringResults) {
+        private boolean isRetired() {
+            return retiringResults != null && retiringResults.retireIfDecided(results);
+        }
+    }
+
+    /**
+     * Registers the results of all constraints to evaluate once, so they don't have to be looked up for each data entry.
+     *
+     * @param context the context to compile the constraints with, or null to update the constraints' state directly.
+     * @return the compiled constraints paired with the results to update when evaluating them.
+     */
+    protected static <DS extends DataSchema, T> List<RegisteredConstraint<T>> registerConstraints(
+            DataCollection<T> data,
+            EvaluationResults<DS, T> evaluationResults,
+            Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints,
+            Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints,
+            EvaluationContext context
+    ){
+        List<RegisteredConstraint<T>> registeredConstraints = new ArrayList<>();
+        Map<IConstraint, IConstraint> compiledConstraints = new IdentityHashMap<>();
+        constraints.forEach((k, v) -> {
+            if(v == null || v.isEmpty()){
+                return;
+            }
+
+            for (IConstraint constraint : v) {
+                ConstraintResults<T> constraintResults = evaluationResults.getConstraintResults(k, constraint, data);
+                registeredConstraints.add(new RegisteredConstraint<>(compiledConstraints.computeIfAbsent(constraint, c -> c.compile(context)), constraintResults, null));
+            }
+        });
+
+        potentialConstraints.forEach((k, v) -> {
+            if(v == null || v.isEmpty()){
+                return;
+            }
+
+            for (IConstraint constraint : v) {
+                ConstraintResults<T> constraintResults = evaluationResults.getPotentialConstraintResults(k, constraint, data);
+                if(evaluationResults.isRetired(constraintResults)){
+                    continue;
+                }
+
+                EvaluationResults<DS, T> retiringResults = evaluationResults.isRetiringDecidedCandidates() ? evaluationResults : null;
+                registeredConstraints.add(new RegisteredConstraint<>(compiledConstraints.computeIfAbsent(constraint, c -> c.compile(context)), constraintResults, retiringResults));
+            }
+        });
+
+        return registeredConstraints;
+    }
+
+    /**
+     * Evaluates the registered constraints on a data entry. Constraints that are retired afterward are removed from
+     * the list, so they are not evaluated on the following data entries.
+     */
+    protected static <T> void evaluateConstraints(List<RegisteredConstraint<T>> registeredConstraints, DataObject dao, T dataEntry){
+        evaluateConstraints(registeredConstraints, dao, dataEntry, 1);
+    }
+
+    /**
+     * @param weight the number of equal entries the data entry stands for.
+     */
+    protected static <T> void evaluateConstraints(List<RegisteredConstraint<T>> registeredConstraints, DataObject dao, T dataEntry, long weight){
+        int active = 0;
+        int size = registeredConstraints.size();
+        for (int i = 0; i < size; i++) {
+            RegisteredConstraint<T> registeredConstraint = registeredConstraints.get(i);
+            registeredConstraint.constraint().evaluate(dao, dataEntry, weight, registeredConstraint.results());
+            if(!registeredConstraint.isRetired()){
+                registeredConstraints.set(active++, registeredConstraint);
+            }
+        }
+
+        if(active < size){
+            registeredConstraints.subList(active, size).clear();
+        }
+    }
+
     protected <DS extends DataSchema, T> void evaluateDataObject(
             Collection<DataSchemaEntry<DS>> schemaEntries,
             DataObject dao,
@@ -3,7 +3,6 @@ package at.sfischer.constraints.data;
 import at.sfischer.constraints.IConstraint;
 import at.sfischer.constraints.model.Type;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -23,6 +22,9 @@ public class DataSchemaEntry<T extends DataSchema> {
     // Constraints that could be possible but still need confirmation.
     public final Set<IConstraint> potentialConstraints;
 
+    // The potential constraints, with lookup of the contained instance.
+    private final ConstraintSet potentialConstraintSet;
+
     protected T parentSchema;
 
     public DataSchemaEntry(T parentSchema, String name, Type type, boolean mandatory, T dataSchema) {
@@ -34,8 +36,9 @@ public class DataSchemaEntry<T extends DataSchema> {
         if(this.dataSchema != null){
             this.dataSchema.setParentEntry(this);
         }
-        this.constraints = new HashSet<>();
-        this.potentialConstraints = new HashSet<>();
+        this.constraints = new ConstraintSet();
+        this.potentialConstraintSet = new ConstraintSet();
+        this.potentialConstraints = this.potentialConstraintSet;
     }
 
     public DataSchemaEntry<T> clone(T newParentSchema) {
@@ -94,13 +97,7 @@ public class DataSchemaEntry<T extends DataSchema> {
     }
 
     public IConstraint getPotentionConstraint(IConstraint constraint){
-        for (IConstraint potentialConstraint : potentialConstraints) {
-            if(potentialConstraint.equals(constraint)){
-                return potentialConstraint;
-            }
-        }
-
-        return null;
+        return potentialConstraintSet.get(constraint);
     }
 
     @Override
@@ -0,0 +1,548 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.ArrayType;
+import at.sfischer.constraints.model.Type;
+import at.sfischer.constraints.model.TypeEnum;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only file of data objects in a compact binary encoding, which is memory-mapped in regions of fixed size.
+ * <p>
+ * Each data object is stored with its length, followed by its fields. Field names are replaced by indices into a
+ * dictionary that is kept on the heap. Data objects are only appended, so a data object is identified by the offset
+ * it is stored at. Appending is synchronized, reading is possible from any thread.
+ * <p>
+ * Data objects that are read remember their {@link Location} until they are changed, so that they can be referred
+ * to by their offset instead of appending them again. Temporary files are deleted when the segment is closed, or
+ * once it is no longer used.
+ */
+final class DataSegment implements Closeable {
+
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BIG_INTEGER = 4;
+    private static final byte BIG_DECIMAL = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte STRING = 8;
+    private static final byte OBJECT = 9;
+    private static final byte VALUE = 10;
+    private static final byte BOOLEAN_ARRAY = 11;
+    private static final byte OBJECT_ARRAY = 12;
+    private static final byte SHORT = 13;
+    private static final byte BYTE = 14;
+    private static final byte FLOAT = 15;
+
+    private static final Class<?>[] COMPONENT_TYPES = {Integer.class, Number.class, Boolean.class, String.class, DataObject.class, DataValue.class, Object.class};
+
+    private static final byte ARRAY_TYPE = (byte) TypeEnum.values().length;
+
+    private final Path file;
+
+    private final boolean temporary;
+
+    private final FileChannel channel;
+
+    private final int regionSize;
+
+    private volatile MappedByteBuffer[] regions;
+
+    private volatile long size;
+
+    private final Map<String, Integer> nameIndices;
+
+    private volatile String[] names;
+
+    private final Output output;
+
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * Creates a segment in a temporary file, which is deleted when the segment is closed or no longer used.
+     */
+    DataSegment(int regionSize) throws IOException {
+        this(Files.createTempFile("data-segment", ".bin"), true, regionSize);
+    }
+
+    /**
+     * Creates a segment in the given file, replacing its content.
+     */
+    DataSegment(Path file, int regionSize) throws IOException {
+        this(file, false, regionSize);
+    }
+
+    private DataSegment(Path file, boolean temporary, int regionSize) throws IOException {
+        if(regionSize < 8){
+            throw new IllegalArgumentException("The region size must be at least 8 bytes, but was " + regionSize + ".");
+        }
+
+        this.file = file;
+        this.temporary = temporary;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.regionSize = regionSize;
+        this.regions = new MappedByteBuffer[0];
+        this.size = 0;
+        this.nameIndices = new HashMap<>();
+        this.names = new String[0];
+        this.output = new Output();
+        this.cleanable = temporary ? CLEANER.register(this, new TemporaryFile(file, channel)) : null;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of bytes stored.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the offset the data object is stored at.
+     */
+    synchronized long append(DataObject dataObject) {
+        output.reset();
+        output.writeInt(0);
+        writeObject(dataObject);
+        output.setInt(0, output.length - 4);
+
+        long offset = size;
+        ensureCapacity(offset + output.length);
+        write(offset, output.buffer, output.length);
+        // Publishes the written bytes to readers on other threads.
+        size = offset + output.length;
+
+        return offset;
+    }
+
+    DataObject read(long offset) {
+        if(offset < 0 || offset >= size){
+            throw new IndexOutOfBoundsException("No data object stored at offset " + offset + ".");
+        }
+
+        byte[] length = new byte[4];
+        read(offset, length, 4);
+        byte[] data = new byte[new Input(length).readInt()];
+        read(offset + 4, data, data.length);
+
+        DataObject dataObject = new Input(data).readObject();
+        dataObject.setStoredAt(new Location(this, offset));
+        return dataObject;
+    }
+
+    /**
+     * @return the offset the data object is stored at in this segment, if it was read from it and not changed since,
+     * otherwise -1.
+     */
+    long offsetOf(DataObject dataObject) {
+        return dataObject.getStoredAt() instanceof Location location && location.segment() == this ? location.offset() : -1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        regions = new MappedByteBuffer[0];
+        if(temporary){
+            cleanable.clean();
+            return;
+        }
+
+        try {
+            channel.truncate(size);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureCapacity(long end) {
+        MappedByteBuffer[] current = regions;
+        long required = (end + regionSize - 1) / regionSize;
+        if(required <= current.length){
+            return;
+        }
+
+        MappedByteBuffer[] grown = Arrays.copyOf(current, (int) required);
+        try {
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * regionSize, regionSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        regions = grown;
+    }
+
+    private void write(long position, byte[] data, int length) {
+        MappedByteBuffer[] current = regions;
+        int written = 0;
+        while(written < length){
+            int region = (int) (position / regionSize);
+            int index = (int) (position % regionSize);
+            int n = Math.min(length - written, regionSize - index);
+            current[region].put(index, data, written, n);
+            written += n;
+            position += n;
+        }
+    }
+
+    private void read(long position, byte[] data, int length) {
+        MappedByteBuffer[] current = regions;
+        int read = 0;
+        while(read < length){
+            int region = (int) (position / regionSize);
+            int index = (int) (position % regionSize);
+            int n = Math.min(length - read, regionSize - index);
+            current[region].get(index, data, read, n);
+            read += n;
+            position += n;
+        }
+    }
+
+    private int nameIndex(String name) {
+        Integer index = nameIndices.get(name);
+        if(index == null){
+            index = nameIndices.size();
+            nameIndices.put(name, index);
+            String[] grown = Arrays.copyOf(names, index + 1);
+            grown[index] = name;
+            names = grown;
+        }
+
+        return index;
+    }
+
+    private void writeObject(DataObject dataObject) {
+        Set<String> fieldNames = dataObject.getFieldNames();
+        output.writeVarInt(fieldNames.size());
+        for (String fieldName : fieldNames) {
+            output.writeVarInt(nameIndex(fieldName));
+            writeValue(dataObject.getDataValue(fieldName));
+        }
+    }
+
+    private void writeValue(DataValue<?> value) {
+        writeType(value.getType());
+        write(value.getValue());
+    }
+
+    private void writeType(Type type) {
+        if(type instanceof ArrayType(Type elementType)){
+            output.writeByte(ARRAY_TYPE);
+            writeType(elementType);
+        } else if(type instanceof TypeEnum typeEnum){
+            output.writeByte((byte) typeEnum.ordinal());
+        } else {
+            throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private void write(Object value) {
+        switch (value) {
+            case null -> output.writeByte(NULL);
+            case Integer i -> {
+                output.writeByte(INTEGER);
+                output.writeVarLong(i);
+            }
+            case Long l -> {
+                output.writeByte(LONG);
+                output.writeVarLong(l);
+            }
+            case Short s -> {
+                output.writeByte(SHORT);
+                output.writeVarLong(s);
+            }
+            case Byte b -> {
+                output.writeByte(BYTE);
+                output.writeVarLong(b);
+            }
+            case Float f -> {
+                output.writeByte(FLOAT);
+                output.writeInt(Float.floatToRawIntBits(f));
+            }
+            case BigInteger i -> {
+                output.writeByte(BIG_INTEGER);
+                output.writeString(i.toString());
+            }
+            case BigDecimal d -> {
+                output.writeByte(BIG_DECIMAL);
+                output.writeString(d.toString());
+            }
+            case Number n -> {
+                output.writeByte(DOUBLE);
+                output.writeLong(Double.doubleToRawLongBits(n.doubleValue()));
+            }
+            case Boolean b -> output.writeByte(b ? TRUE : FALSE);
+            case String s -> {
+                output.writeByte(STRING);
+                output.writeString(s);
+            }
+            case DataObject o -> {
+                output.writeByte(OBJECT);
+                writeObject(o);
+            }
+            case DataValue<?> v -> {
+                output.writeByte(VALUE);
+                writeValue(v);
+            }
+            case boolean[] array -> {
+                output.writeByte(BOOLEAN_ARRAY);
+                output.writeVarInt(array.length);
+                for (boolean b : array) {
+                    output.writeByte(b ? TRUE : FALSE);
+                }
+            }
+            case Object[] array -> {
+                output.writeByte(OBJECT_ARRAY);
+                output.writeByte(componentType(array.getClass().getComponentType()));
+                output.writeVarInt(array.length);
+                for (Object element : array) {
+                    write(element);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+        }
+    }
+
+    private static byte componentType(Class<?> componentType) {
+        for (int i = 0; i < COMPONENT_TYPES.length; i++) {
+            if(COMPONENT_TYPES[i] == componentType){
+                return (byte) i;
+            }
+        }
+
+        return (byte) (COMPONENT_TYPES.length - 1);
+    }
+
+    /**
+     * The location of a data object that was read from a segment.
+     */
+    record Location(DataSegment segment, long offset) {
+    }
+
+    /**
+     * Closes and deletes a temporary file, without referring to the segment, so that it can be done once the segment
+     * is no longer used.
+     */
+    private record TemporaryFile(Path file, FileChannel channel) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                try {
+                    channel.close();
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[256];
+
+        private int length;
+
+        private void reset() {
+            length = 0;
+        }
+
+        private void ensure(int additional) {
+            if(length + additional > buffer.length){
+                buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, length + additional));
+            }
+        }
+
+        private void writeByte(byte b) {
+            ensure(1);
+            buffer[length++] = b;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            setInt(length, value);
+            length += 4;
+        }
+
+        private void setInt(int index, int value) {
+            buffer[index] = (byte) (value >>> 24);
+            buffer[index + 1] = (byte) (value >>> 16);
+            buffer[index + 2] = (byte) (value >>> 8);
+            buffer[index + 3] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            writeUnsigned(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            // Zig-zag encoding keeps small negative values short.
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        private void writeUnsigned(long value) {
+            ensure(10);
+            while((value & ~0x7FL) != 0){
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+    }
+
+    private final class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readInt() {
+            int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16) | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readUnsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while((b & 0x80) != 0);
+
+            return value;
+        }
+
+        private int readVarInt() {
+            return (int) readUnsigned();
+        }
+
+        private long readVarLong() {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readString() {
+            int length = readVarInt();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private DataObject readObject() {
+            String[] names = DataSegment.this.names;
+            DataObject dataObject = new DataObject();
+            int numberOfFields = readVarInt();
+            for (int i = 0; i < numberOfFields; i++) {
+                String name = names[readVarInt()];
+                dataObject.putDataValue(name, readValue());
+            }
+
+            return dataObject;
+        }
+
+        private DataValue<?> readValue() {
+            Type type = readType();
+            return new DataValue<>(type, read());
+        }
+
+        private Type readType() {
+            byte type = buffer[position++];
+            if(type == ARRAY_TYPE){
+                return new ArrayType(readType());
+            }
+
+            return TypeEnum.values()[type];
+        }
+
+        private Object read() {
+            byte tag = buffer[position++];
+            return switch (tag) {
+                case NULL -> null;
+                case INTEGER -> (int) readVarLong();
+                case LONG -> readVarLong();
+                case SHORT -> (short) readVarLong();
+                case BYTE -> (byte) readVarLong();
+                case FLOAT -> Float.intBitsToFloat(readInt());
+                case DOUBLE -> Double.longBitsToDouble(readLong());
+                case BIG_INTEGER -> new BigInteger(readString());
+                case BIG_DECIMAL -> new BigDecimal(readString());
+                case TRUE -> true;
+                case FALSE -> false;
+                case STRING -> readString();
+                case OBJECT -> readObject();
+                case VALUE -> readValue();
+                case BOOLEAN_ARRAY -> {
+                    boolean[] array = new boolean[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = buffer[position++] == TRUE;
+                    }
+                    yield array;
+                }
+                case OBJECT_ARRAY -> {
+                    Class<?> componentType = COMPONENT_TYPES[buffer[position++]];
+                    Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = read();
+                    }
+                    yield array;
+                }
+                default -> throw new IllegalStateException("Invalid data at position " + (position - 1) + ".");
+            };
+        }
+    }
+}
@@ -244,6 +244,11 @@ public class DataValue<T> {
             Type elementType = ((ArrayType) type).elementType();
             if (elementType == TypeEnum.INTEGER) {
                 Integer[] val =  (Integer[])value;
+                long[] values = toLongs(val);
+                if (values != null) {
+                    return PrimitiveArrayValues.ofIntegers(values);
+                }
+
                 IntegerLiteral[] literalValues = new IntegerLiteral[val.length];
                 for (int i = 0; i < val.length; i++) {
                     literalValues[i] = new IntegerLiteral(val[i]);
@@ -252,6 +257,11 @@ public class DataValue<T> {
                 return new ArrayValues<>(elementType, literalValues);
             } else if (elementType == TypeEnum.NUMBER) {
                 Number[] val =  (Number[])value;
+                double[] values = toDoubles(val);
+                if (values != null) {
+                    return PrimitiveArrayValues.ofNumbers(values);
+                }
+
                 NumberLiteral[] literalValues = new NumberLiteral[val.length];
                 for (int i = 0; i < val.length; i++) {
                     literalValues[i] = new NumberLiteral(val[i]);
@@ -259,13 +269,7 @@ public class DataValue<T> {
 
                 return new ArrayValues<>(elementType, literalValues);
             } else if (elementType == TypeEnum.BOOLEAN) {
-                boolean[] val =  (boolean[])value;
-                BooleanLiteral[] literalValues = new BooleanLiteral[val.length];
-                for (int i = 0; i < val.length; i++) {
-                    literalValues[i] = BooleanLiteral.getBooleanLiteral(val[i]);
-                }
-
-                return new ArrayValues<>(elementType, literalValues);
+                return PrimitiveArrayValues.ofBooleans((boolean[]) value);
             } else if (elementType == TypeEnum.STRING) {
                 String[] val =  (String[])value;
                 StringLiteral[] literalValues = new StringLiteral[val.length];
@@ -296,6 +300,37 @@ public class DataValue<T> {
         throw new IllegalStateException("Unsupported type: " + type);
     }
 
+    /**
+     * @return the integers as primitives, or null if an element is missing.
+     */
+    private static long[] toLongs(Integer[] integers) {
+        long[] values = new long[integers.length];
+        for (int i = 0; i < integers.length; i++) {
+            if (integers[i] == null) {
+                return null;
+            }
+            values[i] = integers[i];
+        }
+
+        return values;
+    }
+
+    /**
+     * @return the numbers as primitives, or null if not all of them are doubles, as other numbers would not be equal to
+     * their literals after the conversion.
+     */
+    private static double[] toDoubles(Number[] numbers) {
+        double[] values = new double[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            if (!(numbers[i] instanceof Double number)) {
+                return null;
+            }
+            values[i] = number;
+        }
+
+        return values;
+    }
+
     @Override
     public String toString() {
         StringBuilder valueString;
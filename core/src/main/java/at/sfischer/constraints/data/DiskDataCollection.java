@@ -0,0 +1,278 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.Type;
+import at.sfischer.constraints.model.Value;
+import at.sfischer.constraints.model.Variable;
+import org.javatuples.Pair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Collection of data objects that are stored in an append-only, memory-mapped file instead of on the heap, for data
+ * that does not fit into memory.
+ * <p>
+ * Only the offsets of the data objects in the file are kept on the heap. The data objects are read from the file when
+ * they are visited, so every visit returns new instances. Collections created from this collection, e.g., by
+ * {@link #emptyDataCollection()} or {@link #partition(int)}, share the file. When a data object read from the file is
+ * added to such a collection unchanged, e.g., to the results of a constraint, only its offset is stored. Other data
+ * objects are appended to the file.
+ * <p>
+ * Closing the collection closes the file for all collections sharing it. A temporary file is also deleted once no
+ * collection sharing it is used anymore.
+ */
+public class DiskDataCollection extends DataCollection<DataObject> implements Closeable {
+
+    private final DataSegment segment;
+
+    private long[] offsets;
+
+    private int numberOfEntries;
+
+    /**
+     * Creates a collection in a temporary file, which is deleted when the collection is closed or no collection sharing
+     * it is used anymore.
+     */
+    public DiskDataCollection() {
+        this(createSegment(null, DataSegment.DEFAULT_REGION_SIZE));
+    }
+
+    /**
+     * Creates a collection in the given file, replacing its content.
+     */
+    public DiskDataCollection(Path file) {
+        this(file, DataSegment.DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param file       the file to store the data objects in, or null to use a temporary file.
+     * @param regionSize the number of bytes of the file that are mapped at once.
+     */
+    public DiskDataCollection(Path file, int regionSize) {
+        this(createSegment(file, regionSize));
+    }
+
+    private DiskDataCollection(DataSegment segment) {
+        this.segment = segment;
+        this.offsets = new long[16];
+        this.numberOfEntries = 0;
+    }
+
+    private static DataSegment createSegment(Path file, int regionSize) {
+        try {
+            return file == null ? new DataSegment(regionSize) : new DataSegment(file, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param index index of the data entry.
+     * @return the data object at the given index, read from the file.
+     */
+    public DataObject getDataEntry(int index) {
+        Objects.checkIndex(index, numberOfEntries);
+        return segment.read(offsets[index]);
+    }
+
+    /**
+     * @param index index of the data entry.
+     * @return the offset of the data object at the given index in the file.
+     */
+    public long getOffset(int index) {
+        Objects.checkIndex(index, numberOfEntries);
+        return offsets[index];
+    }
+
+    private void addOffset(long offset) {
+        if(numberOfEntries == offsets.length){
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        offsets[numberOfEntries++] = offset;
+    }
+
+    @Override
+    public void addDataEntry(DataObject dataObject) {
+        long offset = segment.offsetOf(dataObject);
+        addOffset(offset >= 0 ? offset : segment.append(dataObject));
+    }
+
+    @Override
+    public void addAll(DataCollection<DataObject> collection) {
+        append(collection);
+    }
+
+    @Override
+    public void append(DataCollection<DataObject> collection) {
+        if(collection instanceof DiskDataCollection other && other.segment == segment){
+            for (int i = 0; i < other.numberOfEntries; i++) {
+                addOffset(other.offsets[i]);
+            }
+            return;
+        }
+
+        super.addAll(collection);
+    }
+
+    @Override
+    public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<DataObject> visitor) {
+        FieldPaths paths = new FieldPaths(fieldNames);
+        for (int i = 0; i < numberOfEntries; i++) {
+            DataObject dataObject = segment.read(offsets[i]);
+            visitor.visitDataValues(paths.resolve(dataObject), dataObject);
+        }
+    }
+
+    /**
+     * Data objects with the same structure as one before do not change the schema or the fields that can be assigned
+     * to terms.
+     *
+     * @return data objects that have the same structure as all data objects of this collection.
+     */
+    private List<DataObject> getStructuralRepresentatives() {
+        return SchemaDerivation.representatives(entryIndexes(), this::readEntry);
+    }
+
+    @Override
+    public SimpleDataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy) {
+        // Data objects are read from the file one after the other.
+        return SchemaDerivation.deriveSchema(entryIndexes(), this::readEntry, typePromotionPolicy, null);
+    }
+
+    private List<Integer> entryIndexes() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return numberOfEntries;
+            }
+        };
+    }
+
+    private DataObject readEntry(int index) {
+        return segment.read(offsets[index]);
+    }
+
+    @Override
+    public boolean applyDataToTerms(List<Node> terms, Map<Variable, Type> variableTypes) {
+        List<Pair<Node, Set<Variable>>> termsToAssign = new LinkedList<>();
+        terms.forEach(term -> termsToAssign.add(new Pair<>(term, new HashSet<>())));
+        findAssignableFields(termsToAssign, variableTypes, variableNodeProvider, getStructuralRepresentatives());
+
+        terms.clear();
+        for (Pair<Node, Set<Variable>> pair : termsToAssign) {
+            // Check if all variables have been assigned a field.
+            if(pair.getValue1().containsAll(variableTypes.keySet())){
+                terms.add(pair.getValue0());
+            }
+        }
+
+        return !terms.isEmpty();
+    }
+
+    @Override
+    public int numberOfDataEntries() {
+        return numberOfEntries;
+    }
+
+    @Override
+    public List<DataCollection<DataObject>> partition(int numberOfPartitions) {
+        List<DataCollection<DataObject>> partitions = new ArrayList<>();
+        int parts = Math.max(1, numberOfPartitions);
+        int partitionSize = Math.max(1, (numberOfEntries + parts - 1) / parts);
+        for (int start = 0; start < numberOfEntries; start += partitionSize) {
+            DiskDataCollection partition = new DiskDataCollection(segment);
+            partition.offsets = Arrays.copyOfRange(offsets, start, Math.min(numberOfEntries, start + partitionSize));
+            partition.numberOfEntries = partition.offsets.length;
+            partitions.add(partition);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Removes the first data object equal to the given one. The data object stays in the file.
+     */
+    @Override
+    public void removeDataEntry(DataObject dataObject) {
+        for (int i = 0; i < numberOfEntries; i++) {
+            if(segment.read(offsets[i]).equals(dataObject)){
+                System.arraycopy(offsets, i + 1, offsets, i, numberOfEntries - i - 1);
+                numberOfEntries--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all data objects from this collection, they stay in the file.
+     */
+    @Override
+    public void clear() {
+        numberOfEntries = 0;
+    }
+
+    @Override
+    public DataCollection<DataObject> emptyDataCollection() {
+        return new DiskDataCollection(segment);
+    }
+
+    @Override
+    public DataCollection<DataObject> clone() {
+        DiskDataCollection clone = new DiskDataCollection(segment);
+        clone.offsets = Arrays.copyOf(offsets, Math.max(16, numberOfEntries));
+        clone.numberOfEntries = numberOfEntries;
+        return clone;
+    }
+
+    @Override
+    public int size() {
+        return numberOfEntries;
+    }
+
+    @Override
+    public List<List<Value<?>>> getAllValues(String valueReference) {
+        List<List<Value<?>>> allValues = new LinkedList<>();
+        for (int i = 0; i < numberOfEntries; i++) {
+            List<Value<?>> values = segment.read(offsets[i]).getValues(valueReference);
+            if(values == null){
+                continue;
+            }
+
+            allValues.add(values);
+        }
+
+        return allValues;
+    }
+
+    @Override
+    public List<Map<Variable, Node>> getAllValueCombinations(Set<Variable> variables) {
+        List<Map<Variable, Node>> valueCombinations = new LinkedList<>();
+        Map<Utils.Path, Utils.Group> groups = Utils.groupByCollapsedHierarchy(variables);
+        for (int i = 0; i < numberOfEntries; i++) {
+            valueCombinations.addAll(Utils.collectValueCombinations(segment.read(offsets[i]), groups));
+        }
+        return valueCombinations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment.close();
+    }
+
+    @Override
+    public String toString() {
+        return "DiskDataCollection{" +
+                "file=" + segment.getFile() +
+                ", numberOfEntries=" + numberOfEntries +
+                '}';
+    }
+}
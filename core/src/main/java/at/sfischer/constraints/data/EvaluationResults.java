@@ -2,6 +2,7 @@ package at.sfischer.constraints.data;
 
 import at.sfischer.constraints.ConstraintResults;
 import at.sfischer.constraints.IConstraint;
+import at.sfischer.constraints.miner.ConstraintPolicy;
 
 import java.util.*;
 
@@ -13,36 +14,181 @@ public class EvaluationResults<SCHEMA extends DataSchema, DATA> {
 
     private final Map<DataSchemaEntry<SCHEMA>, Set<ConstraintResults<DATA>>> potentialConstraintResults;
 
+    private final Map<DataSchemaEntry<SCHEMA>, ConstraintResultsIndex<DATA>> constraintResultsIndex;
+
+    private final Map<DataSchemaEntry<SCHEMA>, ConstraintResultsIndex<DATA>> potentialConstraintResultsIndex;
+
+    /**
+     * The decisions on the retired potential constraints, true if the constraint is included.
+     */
+    private final Map<ConstraintResults<DATA>, Boolean> retiredCandidates;
+
+    /**
+     * Value for the maximum number of examples, to retain all data entries in the constraint results.
+     */
+    public static final int RETAIN_ALL_DATA = -1;
+
+    private final int maxExamples;
+
+    private final boolean retireDecidedCandidates;
+
     public EvaluationResults() {
+        this(RETAIN_ALL_DATA);
+    }
+
+    /**
+     * @param maxExamples the maximum number of data entries the constraint results retain per outcome, or
+     *                    {@link #RETAIN_ALL_DATA}. If limited, the constraint results only count the data entries
+     *                    (see {@link ConstraintResults#counting(IConstraint, DataCollection, int)}).
+     */
+    public EvaluationResults(int maxExamples) {
+        this(maxExamples, false);
+    }
+
+    /**
+     * @param maxExamples              the maximum number of data entries the constraint results retain per outcome, or
+     *                                 {@link #RETAIN_ALL_DATA}.
+     * @param retireDecidedCandidates  stop evaluating a potential constraint as soon as the decision of the retention
+     *                                 policy of the construct it is derived from is final (see
+     *                                 {@link at.sfischer.constraints.miner.ConstraintPolicy#isRejectionFinal(ConstraintResults)}
+     *                                 and {@link at.sfischer.constraints.miner.ConstraintPolicy#isAcceptanceFinal(ConstraintResults)}).
+     *                                 The results of such constraints then only cover the data up to that point,
+     *                                 and the decision made at that point is kept, even if a policy would decide
+     *                                 differently on more data (see {@link #includeConstraint(ConstraintResults, ConstraintPolicy)}).
+     */
+    public EvaluationResults(int maxExamples, boolean retireDecidedCandidates) {
+        this.maxExamples = maxExamples;
+        this.retireDecidedCandidates = retireDecidedCandidates;
         this.results = new HashSet<>();
         this.constraintResults = new HashMap<>();
         this.potentialConstraintResults = new HashMap<>();
+        this.constraintResultsIndex = new HashMap<>();
+        this.potentialConstraintResultsIndex = new HashMap<>();
+        this.retiredCandidates = new IdentityHashMap<>();
     }
 
     public ConstraintResults<DATA> getConstraintResults(DataSchemaEntry<SCHEMA> schemaEntry, IConstraint constraint, DataCollection<DATA> data){
-        Set<ConstraintResults<DATA>> results = this.constraintResults.computeIfAbsent(schemaEntry, k -> new HashSet<>());
-        for (ConstraintResults<DATA> result : results) {
-            if(result.constraint().equals(constraint)){
-                return result;
-            }
-        }
-        ConstraintResults<DATA> result = new ConstraintResults<>(constraint, data);
-        results.add(result);
-        return result;
+        return getConstraintResults(constraintResults, constraintResultsIndex, schemaEntry, constraint, data);
     }
 
     public ConstraintResults<DATA> getPotentialConstraintResults(DataSchemaEntry<SCHEMA> schemaEntry, IConstraint constraint, DataCollection<DATA> data){
-        Set<ConstraintResults<DATA>> results = this.potentialConstraintResults.computeIfAbsent(schemaEntry, k -> new HashSet<>());
-        for (ConstraintResults<DATA> result : results) {
-            if(result.constraint().equals(constraint)){
-                return result;
-            }
+        return getConstraintResults(potentialConstraintResults, potentialConstraintResultsIndex, schemaEntry, constraint, data);
+    }
+
+    /**
+     * @return the results of the given potential constraint, or null if there are none yet.
+     */
+    public ConstraintResults<DATA> findPotentialConstraintResults(DataSchemaEntry<SCHEMA> schemaEntry, IConstraint constraint){
+        ConstraintResultsIndex<DATA> entryIndex = potentialConstraintResultsIndex.get(schemaEntry);
+        if(entryIndex == null){
+            return null;
+        }
+
+        return entryIndex.get(constraint);
+    }
+
+    private ConstraintResults<DATA> getConstraintResults(
+            Map<DataSchemaEntry<SCHEMA>, Set<ConstraintResults<DATA>>> constraintResults,
+            Map<DataSchemaEntry<SCHEMA>, ConstraintResultsIndex<DATA>> index,
+            DataSchemaEntry<SCHEMA> schemaEntry,
+            IConstraint constraint,
+            DataCollection<DATA> data
+    ){
+        ConstraintResultsIndex<DATA> entryIndex = index.computeIfAbsent(schemaEntry, k -> new ConstraintResultsIndex<>(constraintResults.computeIfAbsent(k, s -> new HashSet<>())));
+        ConstraintResults<DATA> result = entryIndex.get(constraint);
+        if(result != null){
+            return result;
         }
-        ConstraintResults<DATA> result = new ConstraintResults<>(constraint, data);
-        results.add(result);
+
+        result = createConstraintResults(constraint, data);
+        entryIndex.add(result);
         return result;
     }
 
+    private ConstraintResults<DATA> createConstraintResults(IConstraint constraint, DataCollection<DATA> data){
+        if(maxExamples == RETAIN_ALL_DATA){
+            return new ConstraintResults<>(constraint, data);
+        }
+
+        return ConstraintResults.counting(constraint, data, maxExamples);
+    }
+
+    public int getMaxExamples() {
+        return maxExamples;
+    }
+
+    public boolean isRetiringDecidedCandidates() {
+        return retireDecidedCandidates;
+    }
+
+    /**
+     * Retires the given results of a potential constraint, if these results retire decided candidates and the decision
+     * of the retention policy of the construct the constraint is derived from is final on them.
+     *
+     * @return true if the constraint is retired.
+     */
+    public boolean retireIfDecided(ConstraintResults<DATA> results) {
+        if(retiredCandidates.containsKey(results)){
+            return true;
+        }
+
+        ConstraintPolicy policy = retirementPolicy(results.constraint());
+        if(policy == null){
+            return false;
+        }
+
+        if(policy.isRejectionFinal(results)){
+            retiredCandidates.put(results, false);
+            return true;
+        }
+        if(policy.isAcceptanceFinal(results)){
+            retiredCandidates.put(results, true);
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean isRetired(ConstraintResults<DATA> results) {
+        return retiredCandidates.containsKey(results);
+    }
+
+    /**
+     * @return true if the results of the given potential constraint are retired.
+     */
+    public boolean isRetired(DataSchemaEntry<SCHEMA> schemaEntry, IConstraint constraint) {
+        ConstraintResults<DATA> results = findPotentialConstraintResults(schemaEntry, constraint);
+        return results != null && isRetired(results);
+    }
+
+    /**
+     * Decides whether to include a potential constraint. If the constraint was retired under the given policy, the
+     * decision made at that point is kept, as the policy only decides on the data evaluated until then.
+     */
+    public boolean includeConstraint(ConstraintResults<DATA> results, ConstraintPolicy policy) {
+        Boolean included = retiredCandidates.get(results);
+        if(included != null && policy == retirementPolicy(results.constraint())){
+            return included;
+        }
+
+        return policy.includeConstraint(results);
+    }
+
+    private ConstraintPolicy retirementPolicy(IConstraint constraint) {
+        if(!retireDecidedCandidates || constraint.derivedFrom() == null){
+            return null;
+        }
+
+        return constraint.derivedFrom().getRetentionPolicy();
+    }
+
+    /**
+     * @return new empty results, that retain data the same way as these results.
+     */
+    public <S extends DataSchema, D> EvaluationResults<S, D> emptyEvaluationResults() {
+        return new EvaluationResults<>(maxExamples, retireDecidedCandidates);
+    }
+
     public void addResult(EvaluationResult<SCHEMA, DATA> result) {
         this.results.add(result);
     }
@@ -51,6 +197,40 @@ public class EvaluationResults<SCHEMA extends DataSchema, DATA> {
         this.results.addAll(results.results);
         this.constraintResults.putAll(results.constraintResults);
         this.potentialConstraintResults.putAll(results.potentialConstraintResults);
+        results.constraintResults.forEach((k, v) -> this.constraintResultsIndex.put(k, new ConstraintResultsIndex<>(v)));
+        results.potentialConstraintResults.forEach((k, v) -> this.potentialConstraintResultsIndex.put(k, new ConstraintResultsIndex<>(v)));
+        this.retiredCandidates.putAll(results.retiredCandidates);
+    }
+
+    /**
+     * Merges the given results into these results. Constraint results are appended to the results of the same
+     * constraint, so merging the results of consecutive partitions in order gives the results of the whole data.
+     * <p>
+     * Potential constraints retired in these results ignore the merged results, as they are decided on the data
+     * before. Others are retired if their decision is final on the merged results, no matter whether they were
+     * retired in the merged results, whose decision only covers the data of the partition.
+     *
+     * @param results the results to merge.
+     * @param data    the data the merged results refer to.
+     */
+    public void merge(EvaluationResults<SCHEMA, DATA> results, DataCollection<DATA> data) {
+        this.results.addAll(results.results);
+        results.constraintResults.forEach((k, v) -> {
+            for (ConstraintResults<DATA> result : v) {
+                getConstraintResults(k, result.constraint(), data).merge(result);
+            }
+        });
+        results.potentialConstraintResults.forEach((k, v) -> {
+            for (ConstraintResults<DATA> result : v) {
+                ConstraintResults<DATA> merged = getPotentialConstraintResults(k, result.constraint(), data);
+                if(isRetired(merged)){
+                    continue;
+                }
+
+                merged.merge(result);
+                retireIfDecided(merged);
+            }
+        });
     }
 
     public Set<EvaluationResult<SCHEMA, DATA>> getEvaluationResults() {
@@ -134,4 +314,46 @@ public class EvaluationResults<SCHEMA extends DataSchema, DATA> {
 
         return sb.toString();
     }
+
+    /**
+     * Index of the results of the constraints of one schema entry, so results can be found without comparing the
+     * constraint to all others. Constraints are looked up by identity first, as they usually are the instances
+     * the results were created for, and by equality otherwise.
+     */
+    private static class ConstraintResultsIndex<DATA> {
+
+        private final Set<ConstraintResults<DATA>> results;
+
+        private final Map<IConstraint, ConstraintResults<DATA>> byIdentity;
+
+        private final Map<IConstraint, ConstraintResults<DATA>> byEquality;
+
+        private ConstraintResultsIndex(Set<ConstraintResults<DATA>> results) {
+            this.results = results;
+            this.byIdentity = new IdentityHashMap<>();
+            this.byEquality = new HashMap<>();
+            for (ConstraintResults<DATA> result : results) {
+                byIdentity.put(result.constraint(), result);
+                byEquality.putIfAbsent(result.constraint(), result);
+            }
+        }
+
+        private ConstraintResults<DATA> get(IConstraint constraint) {
+            ConstraintResults<DATA> result = byIdentity.get(constraint);
+            if(result == null){
+                result = byEquality.get(constraint);
+                if(result != null){
+                    byIdentity.put(constraint, result);
+                }
+            }
+
+            return result;
+        }
+
+        private void add(ConstraintResults<DATA> result) {
+            results.add(result);
+            byIdentity.put(result.constraint(), result);
+            byEquality.putIfAbsent(result.constraint(), result);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.IConstraint;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Evaluates the constraints of a schema on data that arrives in batches, without evaluating earlier batches again.
+ * <p>
+ * Each batch is evaluated on its own and its results are merged into the results of the session, the same way the
+ * results of consecutive partitions are merged. Stateful operators keep their state in the terms between batches, so
+ * the results after all batches are the same as the results of evaluating all data at once. The batches are appended
+ * to the data of the session, which the constraint results refer to; a {@link CountingDataCollection} can be used to
+ * only count them instead.
+ * <p>
+ * If the results retire decided candidates (see {@link EvaluationResults#EvaluationResults(int, boolean)}), so do the
+ * results of each batch. Potential constraints retired within a batch stop being evaluated on the rest of it, and are
+ * retired in the session if their decision is final on the merged results. Potential constraints retired in the
+ * session are not evaluated on later batches.
+ *
+ * @param <DS> the type of the schema.
+ * @param <T>  the type of the data entries.
+ */
+public class EvaluationSession<DS extends DataSchema, T> {
+
+    private final DataSchema schema;
+
+    private final DataCollection<T> data;
+
+    private final ForkJoinPool pool;
+
+    private final EvaluationResults<DS, T> results;
+
+    public EvaluationSession(DataSchema schema, DataCollection<T> data) {
+        this(schema, data, null, new EvaluationResults<>());
+    }
+
+    /**
+     * @param schema  the schema whose constraints are evaluated.
+     * @param data    the collection the batches are appended to, usually empty.
+     * @param pool    pool to evaluate batches in parallel on, or null to evaluate sequentially.
+     * @param results the results to update, usually empty.
+     */
+    public EvaluationSession(DataSchema schema, DataCollection<T> data, ForkJoinPool pool, EvaluationResults<DS, T> results) {
+        this.schema = schema;
+        this.data = data;
+        this.pool = pool;
+        this.results = results;
+    }
+
+    public DataSchema getSchema() {
+        return schema;
+    }
+
+    public DataCollection<T> getData() {
+        return data;
+    }
+
+    public EvaluationResults<DS, T> getResults() {
+        return results;
+    }
+
+    /**
+     * Evaluates the constraints currently in the schema on the given batch and updates the results of the session.
+     *
+     * @param batch the data entries that arrived since the last batch.
+     * @return the updated results of the session.
+     */
+    public EvaluationResults<DS, T> evaluate(DataCollection<T> batch) {
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+        schema.collectAllConstraints(constraints, potentialConstraints);
+        if(results.isRetiringDecidedCandidates()){
+            potentialConstraints = undecidedCandidates(potentialConstraints);
+        }
+
+        EvaluationResults<DS, T> batchResults = results.emptyEvaluationResults();
+        if(pool == null){
+            schema.evaluate(batch, constraints, potentialConstraints, batchResults);
+        } else {
+            schema.evaluate(batch, constraints, potentialConstraints, pool, batchResults);
+        }
+
+        data.append(batch);
+        results.merge(batchResults, data);
+
+        return results;
+    }
+
+    private Map<DataSchemaEntry<DS>, Set<IConstraint>> undecidedCandidates(Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints) {
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> undecided = new HashMap<>();
+        potentialConstraints.forEach((k, v) -> {
+            Set<IConstraint> constraints = new HashSet<>();
+            for (IConstraint constraint : v) {
+                if(!results.isRetired(k, constraint)){
+                    constraints.add(constraint);
+                }
+            }
+            undecided.put(k, constraints);
+        });
+
+        return undecided;
+    }
+}
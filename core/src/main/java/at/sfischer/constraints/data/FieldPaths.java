@@ -0,0 +1,66 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.TypeEnum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field paths to resolve in data objects, parsed once to look up the values of many data objects.
+ * <p>
+ * The values are the ones {@link DataObject#getDataValues()} has for the paths, but only the requested fields are
+ * looked up instead of flattening all fields of the objects.
+ */
+final class FieldPaths {
+
+    private final String[] paths;
+
+    private final String[][] segments;
+
+    FieldPaths(Set<String> fieldNames) {
+        this.paths = fieldNames.toArray(new String[0]);
+        this.segments = new String[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            segments[i] = paths[i].split("\\.");
+        }
+    }
+
+    boolean isEmpty() {
+        return paths.length == 0;
+    }
+
+    Map<String, Node> resolve(DataObject dataObject) {
+        Map<String, Node> values = new HashMap<>();
+        resolve(dataObject, values);
+        return values;
+    }
+
+    /**
+     * Adds the values of the paths that are present in the given data object to the given values, replacing the values
+     * of the same paths.
+     */
+    void resolve(DataObject dataObject, Map<String, Node> values) {
+        for (int i = 0; i < paths.length; i++) {
+            DataValue<?> value = resolve(dataObject, segments[i]);
+            if(value != null){
+                values.put(paths[i], value.getLiteralValue());
+            }
+        }
+    }
+
+    private static DataValue<?> resolve(DataObject dataObject, String[] segments) {
+        DataObject current = dataObject;
+        for (int i = 0; i < segments.length - 1; i++) {
+            // Only fields of objects are flattened, not the fields of objects in arrays.
+            DataValue<?> value = current.getDataValue(segments[i]);
+            if(value == null || value.getType() != TypeEnum.COMPLEXTYPE){
+                return null;
+            }
+            current = (DataObject) value.getValue();
+        }
+
+        return current.getDataValue(segments[segments.length - 1]);
+    }
+}
@@ -4,6 +4,7 @@ import at.sfischer.constraints.model.*;
 import org.javatuples.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class InOutputDataCollection extends DataCollection<Pair<DataObject, DataObject>> {
 
@@ -82,21 +83,13 @@ public class InOutputDataCollection extends DataCollection<Pair<DataObject, Data
 
     @Override
     public InOutputDataSchema<SimpleDataSchema> deriveSchema(TypePromotionPolicy typePromotionPolicy) {
-        SimpleDataSchema inputSchema = null;
-        SimpleDataSchema outputSchema = null;
-        for (Pair<DataObject, DataObject> pair : dataCollection) {
-            if(inputSchema == null){
-                inputSchema = SimpleDataSchema.deriveFromData(getInputData(pair));
-            } else {
-                inputSchema.unify(SimpleDataSchema.deriveFromData(getInputData(pair)), typePromotionPolicy);
-            }
-            if(outputSchema == null){
-                outputSchema = SimpleDataSchema.deriveFromData(getOutputData(pair));
-            } else {
-                outputSchema.unify(SimpleDataSchema.deriveFromData(getOutputData(pair)), typePromotionPolicy);
-            }
-        }
+        return deriveSchema(typePromotionPolicy, null);
+    }
 
+    @Override
+    public InOutputDataSchema<SimpleDataSchema> deriveSchema(TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool) {
+        SimpleDataSchema inputSchema = SchemaDerivation.deriveSchema(dataCollection, InOutputDataCollection::getInputData, typePromotionPolicy, pool);
+        SimpleDataSchema outputSchema = SchemaDerivation.deriveSchema(dataCollection, InOutputDataCollection::getOutputData, typePromotionPolicy, pool);
         return new InOutputDataSchema<>(inputSchema, outputSchema);
     }
 
@@ -174,21 +167,11 @@ public class InOutputDataCollection extends DataCollection<Pair<DataObject, Data
 
     @Override
     public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<Pair<DataObject, DataObject>> visitor) {
+        FieldPaths paths = new FieldPaths(fieldNames);
         for (Pair<DataObject, DataObject> dataObjectPair : dataCollection) {
-            Map<String, Node> inputValues = dataObjectPair.getValue0().getDataValues();
-            for (String fieldName : new HashSet<>(inputValues.keySet())) {
-                if(!fieldNames.contains(fieldName)){
-                    inputValues.remove(fieldName);
-                }
-            }
-            Map<String, Node> outputValues = dataObjectPair.getValue1().getDataValues();
-            for (String fieldName : new HashSet<>(outputValues.keySet())) {
-                if(!fieldNames.contains(fieldName)){
-                    outputValues.remove(fieldName);
-                }
-            }
-            inputValues.putAll(outputValues);
-            visitor.visitDataValues(inputValues, dataObjectPair);
+            Map<String, Node> values = paths.resolve(dataObjectPair.getValue0());
+            paths.resolve(dataObjectPair.getValue1(), values);
+            visitor.visitDataValues(values, dataObjectPair);
         }
     }
 
@@ -214,6 +197,33 @@ public class InOutputDataCollection extends DataCollection<Pair<DataObject, Data
         addDataEntry(new Pair<>(in, out), inputPrefix, outputPrefix);
     }
 
+    @Override
+    public void append(DataCollection<Pair<DataObject, DataObject>> collection) {
+        if(collection instanceof InOutputDataCollection other){
+            dataCollection.addAll(other.dataCollection);
+            return;
+        }
+
+        addAll(collection);
+    }
+
+    @Override
+    public List<DataCollection<Pair<DataObject, DataObject>>> partition(int numberOfPartitions) {
+        List<DataCollection<Pair<DataObject, DataObject>>> partitions = new ArrayList<>();
+        int parts = Math.max(1, numberOfPartitions);
+        int partitionSize = Math.max(1, (dataCollection.size() + parts - 1) / parts);
+        InOutputDataCollection partition = null;
+        for (Pair<DataObject, DataObject> dataEntry : dataCollection) {
+            if(partition == null || partition.dataCollection.size() == partitionSize){
+                partition = new InOutputDataCollection();
+                partitions.add(partition);
+            }
+            partition.dataCollection.add(dataEntry);
+        }
+
+        return partitions;
+    }
+
     @Override
     public void removeDataEntry(Pair<DataObject, DataObject> dataEntry) {
         dataCollection.remove(dataEntry);
@@ -2,7 +2,6 @@ package at.sfischer.constraints.data;
 
 import at.sfischer.constraints.ConstraintConstruct;
 import at.sfischer.constraints.ConstraintFactory;
-import at.sfischer.constraints.ConstraintResults;
 import at.sfischer.constraints.IConstraint;
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.array.ArrayOperation;
@@ -167,19 +166,25 @@ public class InOutputDataSchema<SCHEMA extends DataSchema> extends DataSchema {
     }
 
     @Override
-    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints) {
-        EvaluationResults<DS, T> evaluationResults = new EvaluationResults<>();
+    protected <DS extends DataSchema, T> void evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, EvaluationResults<DS, T> evaluationResults, EvaluationContext context, boolean checkSchema) {
+        List<RegisteredConstraint<T>> registeredConstraints = registerConstraints(data, evaluationResults, constraints, potentialConstraints, context);
 
-        data.visitDataEntries((values, dataEntry) -> {
-            if(!(dataEntry instanceof Pair)){
-                return;
+        data.visitDataEntries(new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                visitDataValues(values, dataEntry, 1);
             }
 
-            //noinspection unchecked
-            evaluateDataObject((Pair<DataObject, DataObject>)dataEntry, dataEntry, data, evaluationResults, constraints, potentialConstraints);
-        });
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+                if(!(dataEntry instanceof Pair)){
+                    return;
+                }
 
-        return evaluationResults;
+                //noinspection unchecked
+                evaluateDataObject((Pair<DataObject, DataObject>)dataEntry, dataEntry, weight, evaluationResults, registeredConstraints, checkSchema);
+            }
+        });
     }
 
     public <DS extends DataSchema, T> void evaluateDataObject(
@@ -190,36 +195,30 @@ public class InOutputDataSchema<SCHEMA extends DataSchema> extends DataSchema {
             Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints,
             Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints
     ){
-        evaluateDataObject(inputSchema.getDataSchemaEntries(), InOutputDataCollection.getInputData(dao, this.inputPrefix), dataEntry, evaluationResults);
-        evaluateDataObject(outputSchema.getDataSchemaEntries(), InOutputDataCollection.getOutputData(dao, this.outputPrefix), dataEntry, evaluationResults);
-
-        constraints.forEach((k, v) -> {
-            if(v == null || v.isEmpty()){
-                return;
-            }
+        evaluateDataObject(dao, dataEntry, 1, evaluationResults, registerConstraints(data, evaluationResults, constraints, potentialConstraints, null), true);
+    }
 
-            for (IConstraint constraint : v) {
-                DataObject combinedDao = new DataObject();
-                combinedDao.putDataValues(dao.getValue0());
-                combinedDao.putDataValues(dao.getValue1());
-                ConstraintResults<T> constraintResults = evaluationResults.getConstraintResults(k, constraint, data);
-                constraint.evaluate(combinedDao, dataEntry, constraintResults);
-            }
-        });
+    private <DS extends DataSchema, T> void evaluateDataObject(
+            Pair<DataObject, DataObject> dao,
+            T dataEntry,
+            long weight,
+            EvaluationResults<DS, T> evaluationResults,
+            List<RegisteredConstraint<T>> registeredConstraints,
+            boolean checkSchema
+    ){
+        if(checkSchema) {
+            evaluateDataObject(inputSchema.getDataSchemaEntries(), InOutputDataCollection.getInputData(dao, this.inputPrefix), dataEntry, evaluationResults);
+            evaluateDataObject(outputSchema.getDataSchemaEntries(), InOutputDataCollection.getOutputData(dao, this.outputPrefix), dataEntry, evaluationResults);
+        }
 
-        potentialConstraints.forEach((k, v) -> {
-            if(v == null || v.isEmpty()){
-                return;
-            }
+        if(registeredConstraints.isEmpty()){
+            return;
+        }
 
-            for (IConstraint constraint : v) {
-                DataObject combinedDao = new DataObject();
-                combinedDao.putDataValues(dao.getValue0());
-                combinedDao.putDataValues(dao.getValue1());
-                ConstraintResults<T> constraintResults = evaluationResults.getPotentialConstraintResults(k, constraint, data);
-                constraint.evaluate(combinedDao, dataEntry, constraintResults);
-            }
-        });
+        DataObject combinedDao = new DataObject();
+        combinedDao.putDataValues(dao.getValue0());
+        combinedDao.putDataValues(dao.getValue1());
+        evaluateConstraints(registeredConstraints, combinedDao, dataEntry, weight);
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,492 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.ArrayType;
+import at.sfischer.constraints.model.Type;
+import at.sfischer.constraints.model.TypeEnum;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parses JSON into data objects in a single pass over the tokens of a streaming parser, without building an
+ * intermediate tree.
+ * <p>
+ * Like with the org.json parser used before, field names do not need to be quoted, null values and empty arrays are
+ * left out, integers that fit are parsed as {@link Integer}. Other numbers are parsed as {@link Long},
+ * {@link java.math.BigInteger} or {@link Double}. Values that are not quoted, e.g., {@code {a: hello}}, are strings
+ * unless they are literals or numbers. The streaming parser does not accept them, so JSON given as string or bytes
+ * that fails to parse is parsed again with these values quoted, and so are the lines of a {@link JsonLinesLoader}.
+ * Readers and streams do not support them.
+ * Arrays that mix integers with other numbers are arrays of numbers, other arrays must have elements of the same kind.
+ * Nested arrays are unified the same way, and empty nested arrays become empty arrays of the type of the others.
+ */
+public final class JsonDataParser {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES, JsonReadFeature.ALLOW_SINGLE_QUOTES, JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
+
+    /**
+     * The characters that end a value that is not quoted, like for org.json.
+     */
+    private static final String UNQUOTED_VALUE_DELIMITERS = ",:]}/\\\"[{;=#";
+
+    /**
+     * Values that are not quoted but are not strings either.
+     */
+    private static final Pattern LITERAL = Pattern.compile("true|false|null|-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    private JsonDataParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JSON is not a valid object.
+     */
+    public static DataObject parseObject(String json) {
+        try {
+            return parse(json, JsonDataParser::parseObject);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON object: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JSON is not a valid object.
+     */
+    public static DataObject parseObject(byte[] json) {
+        try {
+            return parse(json, JsonDataParser::parseObject);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON object: " + e.getMessage(), e);
+        }
+    }
+
+    public static DataObject parseObject(InputStream json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return parseObject(parser);
+        }
+    }
+
+    public static DataObject parseObject(Reader json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return parseObject(parser);
+        }
+    }
+
+    /**
+     * Parses any JSON value, e.g., an array of objects.
+     *
+     * @return the value, or null if it is null or an empty array.
+     * @throws IllegalArgumentException if the JSON is not valid.
+     */
+    public static DataValue<?> parseValue(String json) {
+        try {
+            return parse(json, JsonDataParser::parseValue);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @see #parseValue(String)
+     */
+    public static DataValue<?> parseValue(byte[] json) {
+        try {
+            return parse(json, JsonDataParser::parseValue);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    static JsonParser createParser(byte[] json, int length) throws IOException {
+        return FACTORY.createParser(json, 0, length);
+    }
+
+    private interface Parse<R> {
+        R parse(JsonParser parser) throws IOException;
+    }
+
+    private static <R> R parse(String json, Parse<R> parse) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return parse.parse(parser);
+        } catch (JsonParseException e) {
+            return parseQuoted(json, parse, e);
+        }
+    }
+
+    private static <R> R parse(byte[] json, Parse<R> parse) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return parse.parse(parser);
+        } catch (JsonParseException e) {
+            return parseQuoted(new String(json, StandardCharsets.UTF_8), parse, e);
+        }
+    }
+
+    /**
+     * Parses the JSON again with the values that are not quoted quoted.
+     *
+     * @param e the exception of the first attempt, which is thrown if quoting values does not help.
+     */
+    private static <R> R parseQuoted(String json, Parse<R> parse, JsonParseException e) throws IOException {
+        String quoted = quoteUnquotedValues(json);
+        if(quoted == null){
+            throw e;
+        }
+
+        try (JsonParser parser = FACTORY.createParser(quoted)) {
+            return parse.parse(parser);
+        } catch (JsonParseException ignored) {
+            throw e;
+        }
+    }
+
+    /**
+     * Quotes the values that are not quoted, which org.json reads up to the next delimiter and trims. Such values that
+     * are literals or numbers are left as they are.
+     *
+     * @return the JSON with the values quoted, or null if there are no values to quote.
+     */
+    static String quoteUnquotedValues(String json) {
+        StringBuilder quoted = new StringBuilder(json.length() + 16);
+        // Whether the containers the current position is in are objects, the innermost first.
+        Deque<Boolean> objects = new ArrayDeque<>();
+        boolean value = true;
+        boolean changed = false;
+        int i = 0;
+        while(i < json.length()){
+            char c = json.charAt(i);
+            switch (c) {
+                case '"', '\'' -> {
+                    int end = endOfString(json, i);
+                    quoted.append(json, i, end);
+                    i = end;
+                    value = false;
+                    continue;
+                }
+                case '{' -> {
+                    objects.push(true);
+                    value = false;
+                }
+                case '[' -> {
+                    objects.push(false);
+                    value = true;
+                }
+                case '}', ']' -> {
+                    objects.poll();
+                    value = false;
+                }
+                case ':' -> value = true;
+                case ',' -> value = Boolean.FALSE.equals(objects.peek());
+                case ' ', '\t', '\n', '\r' -> {
+                    // Whitespace before a value does not start it, the value may be quoted.
+                }
+                default -> {
+                    int end = i;
+                    while(end < json.length() && json.charAt(end) >= ' ' && UNQUOTED_VALUE_DELIMITERS.indexOf(json.charAt(end)) < 0){
+                        end++;
+                    }
+                    String token = json.substring(i, end).trim();
+                    if(token.isEmpty()){
+                        break;
+                    }
+
+                    if(value && !LITERAL.matcher(token).matches()){
+                        quoted.append('"').append(token).append('"');
+                        changed = true;
+                    } else {
+                        quoted.append(json, i, end);
+                    }
+                    i = end;
+                    value = false;
+                    continue;
+                }
+            }
+
+            quoted.append(c);
+            i++;
+        }
+
+        return changed ? quoted.toString() : null;
+    }
+
+    /**
+     * @return the index after the string starting at the given index.
+     */
+    private static int endOfString(String json, int start) {
+        char quote = json.charAt(start);
+        int i = start + 1;
+        while(i < json.length()){
+            char c = json.charAt(i);
+            if(c == '\\'){
+                i += 2;
+            } else if(c == quote){
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+
+        return json.length();
+    }
+
+    /**
+     * Parses the next object of the given parser, e.g., of a parser over a file with one object per line.
+     *
+     * @param parser the parser, positioned before or at the start of the object.
+     * @return the object, or null if there is no more input.
+     */
+    static DataObject parseObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() == JsonToken.START_OBJECT ? JsonToken.START_OBJECT : parser.nextToken();
+        if(token == null){
+            return null;
+        }
+        if(token != JsonToken.START_OBJECT){
+            throw new JsonParseException(parser, "Expected a JSON object, but found " + token + ".");
+        }
+
+        DataObject dataObject = readObject(parser);
+        parser.clearCurrentToken();
+        return dataObject;
+    }
+
+    private static DataValue<?> parseValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if(token == null){
+            throw new JsonParseException(parser, "Expected a JSON value, but found no input.");
+        }
+
+        // Parse the value as field of an object, to use the same conversions.
+        DataObject holder = new DataObject();
+        readValue(holder, "value", token, parser);
+        return holder.getDataValue("value");
+    }
+
+    private static DataObject readObject(JsonParser parser) throws IOException {
+        DataObject dataObject = new DataObject();
+        String name;
+        while((name = parser.nextFieldName()) != null){
+            readValue(dataObject, name, parser.nextToken(), parser);
+        }
+
+        return dataObject;
+    }
+
+    private static void readValue(DataObject dataObject, String name, JsonToken token, JsonParser parser) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                Number number = readNumber(parser);
+                if(number instanceof Integer integer){
+                    dataObject.putValue(name, integer);
+                } else {
+                    dataObject.putValue(name, number);
+                }
+            }
+            case VALUE_TRUE -> dataObject.putValue(name, true);
+            case VALUE_FALSE -> dataObject.putValue(name, false);
+            case VALUE_STRING -> dataObject.putValue(name, parser.getText());
+            case START_OBJECT -> dataObject.putValue(name, readObject(parser));
+            case START_ARRAY -> {
+                DataValue<?> array = readArray(parser);
+                if(array != null){
+                    dataObject.putDataValue(name, array);
+                }
+            }
+            case VALUE_NULL -> {
+                // Null values are left out.
+            }
+            default -> throw new JsonParseException(parser, "Unexpected token " + token + ".");
+        }
+    }
+
+    private static Number readNumber(JsonParser parser) throws IOException {
+        if(parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT){
+            return parser.getDoubleValue();
+        }
+
+        return switch (parser.getNumberType()) {
+            case INT -> {
+                int value = parser.getIntValue();
+                // Keep the sign of a negative zero, which only a floating point number can.
+                yield value == 0 && parser.getText().startsWith("-") ? (Number) (-0.0) : (Number) value;
+            }
+            case LONG -> parser.getLongValue();
+            default -> parser.getBigIntegerValue();
+        };
+    }
+
+    private enum ElementKind {
+        INTEGER, NUMBER, BOOLEAN, STRING, ARRAY, OBJECT
+    }
+
+    /**
+     * @return the array, or null if it is empty.
+     */
+    private static DataValue<?> readArray(JsonParser parser) throws IOException {
+        List<Object> elements = new ArrayList<>();
+        ElementKind kind = null;
+        JsonToken token;
+        while((token = parser.nextToken()) != JsonToken.END_ARRAY){
+            if(token == null){
+                throw new JsonParseException(parser, "Unexpected end of array.");
+            }
+
+            Object element;
+            ElementKind elementKind;
+            switch (token) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                    element = readNumber(parser);
+                    elementKind = element instanceof Integer ? ElementKind.INTEGER : ElementKind.NUMBER;
+                }
+                case VALUE_TRUE, VALUE_FALSE -> {
+                    element = token == JsonToken.VALUE_TRUE;
+                    elementKind = ElementKind.BOOLEAN;
+                }
+                case VALUE_STRING -> {
+                    element = parser.getText();
+                    elementKind = ElementKind.STRING;
+                }
+                case START_ARRAY -> {
+                    element = readArray(parser);
+                    elementKind = ElementKind.ARRAY;
+                }
+                case START_OBJECT -> {
+                    element = readObject(parser);
+                    elementKind = ElementKind.OBJECT;
+                }
+                case VALUE_NULL -> {
+                    // Null elements are left out.
+                    continue;
+                }
+                default -> throw new JsonParseException(parser, "Unexpected token " + token + ".");
+            }
+
+            kind = unify(kind, elementKind, parser);
+            elements.add(element);
+        }
+
+        if(kind == null){
+            return null;
+        }
+
+        int size = elements.size();
+        return switch (kind) {
+            case INTEGER -> new DataValue<>(new ArrayType(TypeEnum.INTEGER), elements.toArray(new Integer[size]));
+            case NUMBER -> new DataValue<>(new ArrayType(TypeEnum.NUMBER), elements.toArray(new Number[size]));
+            case BOOLEAN -> {
+                boolean[] values = new boolean[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = (Boolean) elements.get(i);
+                }
+                yield new DataValue<>(new ArrayType(TypeEnum.BOOLEAN), values);
+            }
+            case STRING -> new DataValue<>(new ArrayType(TypeEnum.STRING), elements.toArray(new String[size]));
+            case OBJECT -> new DataValue<>(new ArrayType(TypeEnum.COMPLEXTYPE), elements.toArray(new DataObject[size]));
+            case ARRAY -> readNestedArrays(elements, parser);
+        };
+    }
+
+    /**
+     * @param elements the nested arrays, null for empty arrays.
+     * @return the array of the nested arrays, or null if they are all empty, since their type is unknown.
+     */
+    private static DataValue<?> readNestedArrays(List<Object> elements, JsonParser parser) throws JsonParseException {
+        Type elementType = null;
+        for (Object element : elements) {
+            if(element != null){
+                elementType = unify(elementType, ((DataValue<?>) element).getType(), parser);
+            }
+        }
+
+        if(elementType == null){
+            return null;
+        }
+
+        DataValue<?>[] values = new DataValue<?>[elements.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convert((DataValue<?>) elements.get(i), (ArrayType) elementType);
+        }
+
+        return new DataValue<>(new ArrayType(elementType), values);
+    }
+
+    private static Type unify(Type type, Type elementType, JsonParser parser) throws JsonParseException {
+        if(type == null || type.equals(elementType)){
+            return elementType;
+        }
+        if(isNumeric(type) && isNumeric(elementType)){
+            return TypeEnum.NUMBER;
+        }
+        if(type instanceof ArrayType array && elementType instanceof ArrayType elementArray){
+            return new ArrayType(unify(array.elementType(), elementArray.elementType(), parser));
+        }
+
+        throw new JsonParseException(parser, "Array elements of different types are not supported: " + type + " and " + elementType + ".");
+    }
+
+    private static boolean isNumeric(Type type) {
+        return type == TypeEnum.INTEGER || type == TypeEnum.NUMBER;
+    }
+
+    /**
+     * @param value the array, or null for an empty array.
+     * @return the array with the given unified type.
+     */
+    private static DataValue<?> convert(DataValue<?> value, ArrayType type) {
+        Type elementType = type.elementType();
+        if(value == null){
+            Object empty;
+            if(elementType == TypeEnum.INTEGER){
+                empty = new Integer[0];
+            } else if(elementType == TypeEnum.NUMBER){
+                empty = new Number[0];
+            } else if(elementType == TypeEnum.BOOLEAN){
+                empty = new boolean[0];
+            } else if(elementType == TypeEnum.STRING){
+                empty = new String[0];
+            } else if(elementType instanceof ArrayType){
+                empty = new DataValue<?>[0];
+            } else {
+                empty = new DataObject[0];
+            }
+            return new DataValue<>(type, empty);
+        }
+
+        if(value.getType().equals(type)){
+            return value;
+        }
+
+        if(elementType == TypeEnum.NUMBER){
+            Object[] integers = (Object[]) value.getValue();
+            Number[] numbers = new Number[integers.length];
+            System.arraycopy(integers, 0, numbers, 0, integers.length);
+            return new DataValue<>(type, numbers);
+        }
+
+        DataValue<?>[] nested = (DataValue<?>[]) value.getValue();
+        DataValue<?>[] converted = new DataValue<?>[nested.length];
+        for (int i = 0; i < nested.length; i++) {
+            converted[i] = convert(nested[i], (ArrayType) elementType);
+        }
+        return new DataValue<>(type, converted);
+    }
+
+    private static ElementKind unify(ElementKind kind, ElementKind elementKind, JsonParser parser) throws JsonParseException {
+        if(kind == null || kind == elementKind){
+            return elementKind;
+        }
+        if((kind == ElementKind.INTEGER || kind == ElementKind.NUMBER) && (elementKind == ElementKind.INTEGER || elementKind == ElementKind.NUMBER)){
+            return ElementKind.NUMBER;
+        }
+
+        throw new JsonParseException(parser, "Array elements of different kinds are not supported: " + kind + " and " + elementKind + ".");
+    }
+}
@@ -0,0 +1,227 @@
+package at.sfischer.constraints.data;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import org.javatuples.Pair;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads data collections from JSON lines files, i.e., files with one JSON object per line, which may be compressed
+ * with gzip.
+ * <p>
+ * The file is read in chunks of complete lines, which are parsed in parallel while the next chunks are read. The data
+ * entries are added to the collection in the order of the lines, and only a bounded number of chunks are kept in memory
+ * at the same time, so that large files can be loaded without holding them in memory as strings.
+ */
+public final class JsonLinesLoader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    public JsonLinesLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public JsonLinesLoader(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool      the pool to parse the chunks on.
+     * @param chunkSize the number of bytes that are read and parsed together, chunks are extended to the end of the
+     *                  last line.
+     */
+    public JsonLinesLoader(ForkJoinPool pool, int chunkSize) {
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("The chunk size must be positive, but was " + chunkSize + ".");
+        }
+
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Loads a collection with one data entry per line.
+     */
+    public SimpleDataCollection loadSimpleDataCollection(Path file) throws IOException {
+        SimpleDataCollection dataCollection = new SimpleDataCollection();
+        try (InputStream in = Files.newInputStream(file)) {
+            load(in, Function.identity(), dataCollection::addDataEntry);
+        }
+
+        return dataCollection;
+    }
+
+    /**
+     * Loads a collection with one data entry per line, each with the input and output in the fields named by the
+     * default prefixes, e.g., <code>{"input":{...}, "output":{...}}</code>.
+     */
+    public InOutputDataCollection loadInOutputDataCollection(Path file) throws IOException {
+        return loadInOutputDataCollection(file, InOutputDataSchema.INPUT_PREFIX, InOutputDataSchema.OUTPUT_PREFIX);
+    }
+
+    /**
+     * Loads a collection with one data entry per line, each with the input and output in the fields named by the given
+     * prefixes, which are also used as prefixes in the collection.
+     */
+    public InOutputDataCollection loadInOutputDataCollection(Path file, String inputPrefix, String outputPrefix) throws IOException {
+        InOutputDataCollection dataCollection = new InOutputDataCollection();
+        try (InputStream in = Files.newInputStream(file)) {
+            load(in, line -> {
+                Pair<DataObject, DataObject> pair = new Pair<>(line, line);
+                return new Pair<>(InOutputDataCollection.getInputData(pair, inputPrefix), InOutputDataCollection.getOutputData(pair, outputPrefix));
+            }, pair -> dataCollection.addDataEntry(pair, inputPrefix, outputPrefix));
+        }
+
+        return dataCollection;
+    }
+
+    /**
+     * Parses the JSON lines of the given stream, which is decompressed if it is compressed with gzip.
+     *
+     * @param in       the stream to read.
+     * @param mapper   function to apply to each parsed line, called in parallel.
+     * @param consumer consumer of the mapped lines, called in the order of the lines from the calling thread.
+     */
+    public <T> void load(InputStream in, Function<DataObject, T> mapper, Consumer<T> consumer) throws IOException {
+        InputStream input = decompress(new BufferedInputStream(in));
+
+        // Bound the chunks in memory, while keeping all threads busy.
+        int maxPendingChunks = 2 * pool.getParallelism() + 1;
+        Deque<Future<List<T>>> pending = new ArrayDeque<>();
+        long offset = 0;
+        byte[] buffer = new byte[chunkSize];
+        int length = 0;
+        while(true){
+            length += input.readNBytes(buffer, length, buffer.length - length);
+            boolean end = length < buffer.length;
+            int split = end ? length : lastLineEnd(buffer, length);
+            if(split == 0 && !end){
+                // The line does not fit into a chunk.
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                continue;
+            }
+
+            if(split > 0){
+                if(pending.size() >= maxPendingChunks){
+                    drain(pending.removeFirst(), consumer);
+                }
+
+                byte[] chunk = buffer;
+                int chunkLength = split;
+                long chunkOffset = offset;
+                pending.addLast(pool.submit(() -> parse(chunk, chunkLength, chunkOffset, mapper)));
+                offset += split;
+            }
+            if(end){
+                break;
+            }
+
+            byte[] next = new byte[Math.max(chunkSize, buffer.length)];
+            System.arraycopy(buffer, split, next, 0, length - split);
+            length -= split;
+            buffer = next;
+        }
+
+        while(!pending.isEmpty()){
+            drain(pending.removeFirst(), consumer);
+        }
+    }
+
+    private static InputStream decompress(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        if(magic == GZIPInputStream.GZIP_MAGIC){
+            return new BufferedInputStream(new GZIPInputStream(in, 64 * 1024));
+        }
+
+        return in;
+    }
+
+    private static int lastLineEnd(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if(buffer[i] == '\n'){
+                return i + 1;
+            }
+        }
+
+        return 0;
+    }
+
+    private static <T> List<T> parse(byte[] chunk, int length, long offset, Function<DataObject, T> mapper) {
+        List<T> lines = new ArrayList<>();
+        try (JsonParser parser = JsonDataParser.createParser(chunk, length)) {
+            DataObject line;
+            while((line = JsonDataParser.parseObject(parser)) != null){
+                lines.add(mapper.apply(line));
+            }
+        } catch (JsonParseException e) {
+            // Parse the lines separately, which quotes values that are not quoted, like org.json accepted them.
+            return parseLines(chunk, length, offset, mapper, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid JSON line in the chunk starting at byte " + offset + ": " + e.getMessage(), e);
+        }
+
+        return lines;
+    }
+
+    private static <T> List<T> parseLines(byte[] chunk, int length, long offset, Function<DataObject, T> mapper, JsonParseException e) {
+        List<T> lines = new ArrayList<>();
+        int start = 0;
+        while(start < length){
+            int end = start;
+            while(end < length && chunk[end] != '\n'){
+                end++;
+            }
+
+            String line = new String(chunk, start, end - start, StandardCharsets.UTF_8);
+            if(!line.isBlank()){
+                DataObject dataObject;
+                try {
+                    dataObject = JsonDataParser.parseObject(line);
+                } catch (IllegalArgumentException invalid) {
+                    throw new UncheckedIOException("Invalid JSON line in the chunk starting at byte " + offset + ": " + e.getMessage(), e);
+                }
+                lines.add(mapper.apply(dataObject));
+            }
+            start = end + 1;
+        }
+
+        return lines;
+    }
+
+    private static <T> void drain(Future<List<T>> chunk, Consumer<T> consumer) throws IOException {
+        List<T> lines;
+        try {
+            lines = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading data.", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof UncheckedIOException cause){
+                throw new IOException(cause.getMessage(), cause.getCause());
+            }
+            throw new IOException(e.getCause());
+        }
+
+        lines.forEach(consumer);
+    }
+}
@@ -0,0 +1,130 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.Type;
+import at.sfischer.constraints.model.Value;
+import at.sfischer.constraints.model.Variable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Base of the collections that retain a bounded sample of the entries added to them by reservoir sampling, so every
+ * entry added has the same chance of being retained.
+ * <p>
+ * All methods that access the data itself, e.g., {@link #visitDataEntries(Set, DataEntryVisitor)}, only see the
+ * retained entries. They are held in a collection of the kind of the template, which is rebuilt when the retained
+ * entries changed.
+ *
+ * @param <T> the type of the data entries.
+ */
+abstract class ReservoirDataCollection<T> extends DataCollection<T> {
+
+    protected final DataCollection<T> template;
+
+    private final Random random;
+
+    private DataCollection<T> retainedCollection;
+
+    /**
+     * @param template collection of the kind of data that is sampled, used to hold the retained entries.
+     * @param seed     seed of the random choices.
+     */
+    protected ReservoirDataCollection(DataCollection<T> template, long seed) {
+        this.template = template.emptyDataCollection();
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return the retained entries, in the order they are accessed.
+     */
+    protected abstract Collection<T> retainedEntries();
+
+    /**
+     * Offers an entry to a reservoir, which retains it with the chance of the share of the seen entries it stands for.
+     *
+     * @param reservoir the entries retained so far.
+     * @param capacity  the maximum number of entries to retain.
+     * @param dataEntry the entry, which is only built if it is retained.
+     * @param seen      the number of entries seen by the reservoir, including the offered ones.
+     * @param weight    the number of entries the entry stands for, which makes it that much more likely to be retained.
+     */
+    protected void offer(List<T> reservoir, int capacity, Supplier<? extends T> dataEntry, long seen, long weight) {
+        if(reservoir.size() < capacity){
+            reservoir.add(dataEntry.get());
+            retainedEntriesChanged();
+            return;
+        }
+
+        long index = seen <= 1 ? 0 : random.nextLong(seen);
+        if(index < capacity * weight){
+            reservoir.set((int) (index % capacity), dataEntry.get());
+            retainedEntriesChanged();
+        }
+    }
+
+    /**
+     * Has to be called when the retained entries were changed without {@link #offer(List, int, Supplier, long, long)}.
+     */
+    protected void retainedEntriesChanged() {
+        retainedCollection = null;
+    }
+
+    private DataCollection<T> retained() {
+        if(retainedCollection == null){
+            DataCollection<T> collection = template.emptyDataCollection();
+            for (T dataEntry : retainedEntries()) {
+                collection.addDataEntry(dataEntry);
+            }
+            retainedCollection = collection;
+        }
+
+        return retainedCollection;
+    }
+
+    /**
+     * Appends the given collection by adding its entries like with {@link #addAll(DataCollection)}.
+     *
+     * @param collection the collection to append.
+     */
+    @Override
+    public void append(DataCollection<T> collection) {
+        addAll(collection);
+    }
+
+    @Override
+    public DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy) {
+        return retained().deriveSchema(typePromotionPolicy);
+    }
+
+    @Override
+    public DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool) {
+        return retained().deriveSchema(typePromotionPolicy, pool);
+    }
+
+    @Override
+    public boolean applyDataToTerms(List<Node> terms, Map<Variable, Type> variableTypes) {
+        return retained().applyDataToTerms(terms, variableTypes);
+    }
+
+    @Override
+    public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<T> visitor) {
+        retained().visitDataEntries(fieldNames, visitor);
+    }
+
+    @Override
+    public List<DataCollection<T>> partition(int numberOfPartitions) {
+        return retained().partition(numberOfPartitions);
+    }
+
+    @Override
+    public List<List<Value<?>>> getAllValues(String valueReference) {
+        return retained().getAllValues(valueReference);
+    }
+
+    @Override
+    public List<Map<Variable, Node>> getAllValueCombinations(Set<Variable> variables) {
+        return retained().getAllValueCombinations(variables);
+    }
+}
@@ -0,0 +1,198 @@
+package at.sfischer.constraints.data;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Data collection that retains a uniform sample of bounded size of the entries added to it, for data that arrives
+ * without end.
+ * <p>
+ * The entries are sampled by reservoir sampling, so every entry added has the same chance of being retained, and adding
+ * an entry takes constant time. Optionally, the entries are divided into strata, e.g., by their structure (see
+ * {@link #byStructure()}) or by the endpoint they were captured at, and each stratum is sampled separately, so that
+ * rare strata are retained as well. The number of entries seen per stratum is counted.
+ * <p>
+ * All methods that access the data, including {@link #numberOfDataEntries()} and {@link #size()}, only see the retained
+ * entries, so schemas are derived and evaluated on the sample. {@link #getNumberOfSeenEntries()} returns the number of
+ * entries added.
+ *
+ * @param <T> the type of the data entries.
+ */
+public class SampledDataCollection<T> extends ReservoirDataCollection<T> {
+
+    private static final Object ALL = new Object();
+
+    private final int sampleSize;
+
+    private final Function<? super T, ?> stratifier;
+
+    private final long seed;
+
+    private final Map<Object, Stratum<T>> strata;
+
+    private long numberOfSeenEntries;
+
+    private int numberOfRetainedEntries;
+
+    /**
+     * @param template   collection of the kind of data that is sampled, used to hold the sample.
+     * @param sampleSize the maximum number of entries to retain.
+     */
+    public SampledDataCollection(DataCollection<T> template, int sampleSize) {
+        this(template, sampleSize, null, 0);
+    }
+
+    /**
+     * @param template   collection of the kind of data that is sampled, used to hold the sample.
+     * @param sampleSize the maximum number of entries to retain per stratum.
+     * @param stratifier function that returns the stratum of an entry, or null to sample all entries together.
+     * @param seed       seed of the random choices.
+     */
+    public SampledDataCollection(DataCollection<T> template, int sampleSize, Function<? super T, ?> stratifier, long seed) {
+        super(template, seed);
+        if(sampleSize < 1){
+            throw new IllegalArgumentException("The sample size must be positive, but was " + sampleSize + ".");
+        }
+
+        this.sampleSize = sampleSize;
+        this.stratifier = stratifier;
+        this.seed = seed;
+        this.strata = new LinkedHashMap<>();
+        this.numberOfSeenEntries = 0;
+        this.numberOfRetainedEntries = 0;
+    }
+
+    /**
+     * @return stratifier that divides data objects by their structure, i.e., the names and types of their fields.
+     */
+    public static Function<DataObject, Object> byStructure() {
+        return DataObject::structureKey;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @return the number of entries added, including the ones that are not retained.
+     */
+    public long getNumberOfSeenEntries() {
+        return numberOfSeenEntries;
+    }
+
+    /**
+     * @return the number of entries added per stratum, including the ones that are not retained.
+     */
+    public Map<Object, Long> getNumberOfSeenEntriesPerStratum() {
+        Map<Object, Long> seen = new LinkedHashMap<>();
+        strata.forEach((key, stratum) -> seen.put(key, stratum.numberOfSeenEntries));
+        return seen;
+    }
+
+    /**
+     * @return the retained entries.
+     */
+    public List<T> getSample() {
+        List<T> sample = new ArrayList<>(numberOfRetainedEntries);
+        for (Stratum<T> stratum : strata.values()) {
+            sample.addAll(stratum.sample);
+        }
+        return sample;
+    }
+
+    private Object stratumOf(T dataEntry) {
+        return stratifier == null ? ALL : stratifier.apply(dataEntry);
+    }
+
+    @Override
+    public void addDataEntry(T dataEntry) {
+        addDataEntry(dataEntry, 1);
+    }
+
+    /**
+     * Adds the entry as often as the given weight, which makes it that much more likely to be retained.
+     */
+    @Override
+    public void addDataEntry(T dataEntry, long weight) {
+        if(weight < 1){
+            throw new IllegalArgumentException("The weight must be positive, but was " + weight + ".");
+        }
+
+        numberOfSeenEntries += weight;
+        Stratum<T> stratum = strata.computeIfAbsent(stratumOf(dataEntry), k -> new Stratum<>());
+        stratum.numberOfSeenEntries += weight;
+        int retained = stratum.sample.size();
+        offer(stratum.sample, sampleSize, () -> dataEntry, stratum.numberOfSeenEntries, weight);
+        numberOfRetainedEntries += stratum.sample.size() - retained;
+    }
+
+    /**
+     * Removes the entry from the sample. The entry was still seen, so the number of seen entries does not change.
+     */
+    @Override
+    public void removeDataEntry(T dataEntry) {
+        Stratum<T> stratum = strata.get(stratumOf(dataEntry));
+        if(stratum != null && stratum.sample.remove(dataEntry)){
+            numberOfRetainedEntries--;
+            retainedEntriesChanged();
+        }
+    }
+
+    @Override
+    public void clear() {
+        strata.clear();
+        numberOfSeenEntries = 0;
+        numberOfRetainedEntries = 0;
+        retainedEntriesChanged();
+    }
+
+    @Override
+    public int numberOfDataEntries() {
+        return numberOfRetainedEntries;
+    }
+
+    @Override
+    public int size() {
+        return numberOfRetainedEntries;
+    }
+
+    @Override
+    protected Collection<T> retainedEntries() {
+        return getSample();
+    }
+
+    @Override
+    public DataCollection<T> emptyDataCollection() {
+        return new SampledDataCollection<>(template, sampleSize, stratifier, seed);
+    }
+
+    @Override
+    public DataCollection<T> clone() {
+        SampledDataCollection<T> clone = new SampledDataCollection<>(template, sampleSize, stratifier, seed);
+        strata.forEach((key, stratum) -> {
+            Stratum<T> cloned = new Stratum<>();
+            cloned.sample.addAll(stratum.sample);
+            cloned.numberOfSeenEntries = stratum.numberOfSeenEntries;
+            clone.strata.put(key, cloned);
+        });
+        clone.numberOfSeenEntries = numberOfSeenEntries;
+        clone.numberOfRetainedEntries = numberOfRetainedEntries;
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return "SampledDataCollection{" +
+                "numberOfSeenEntries=" + numberOfSeenEntries +
+                ", numberOfStrata=" + strata.size() +
+                ", sample=" + getSample() +
+                '}';
+    }
+
+    private static class Stratum<T> {
+
+        private final List<T> sample = new ArrayList<>();
+
+        private long numberOfSeenEntries;
+    }
+}
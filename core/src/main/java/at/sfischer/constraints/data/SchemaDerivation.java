@@ -0,0 +1,186 @@
+package at.sfischer.constraints.data;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Derives the schema of data objects. Data objects with the same structure as one before do not change the schema, so
+ * the schema is only derived once per distinct structure, and the schemas of the structures are unified.
+ * <p>
+ * The schemas are unified in the order the structures first occur. On a pool, the structures of consecutive ranges of
+ * data objects are collected in parallel, and the schemas of consecutive structures are unified pairwise as a tree.
+ */
+final class SchemaDerivation {
+
+    /**
+     * Number of data objects whose structures are collected in one task.
+     */
+    private static final int STRUCTURES_PER_TASK = 4096;
+
+    /**
+     * Number of schemas that are unified in one task.
+     */
+    private static final int SCHEMAS_PER_TASK = 8;
+
+    private SchemaDerivation() {
+    }
+
+    /**
+     * @param entries             the data entries.
+     * @param dataObject          returns the data object of an entry whose schema is derived.
+     * @param typePromotionPolicy policy to resolve differing types of a field, or null if they have to be consistent.
+     * @param pool                the pool to derive the schema on, or null to derive it on the calling thread.
+     * @return the schema of the data objects, or null if there are none.
+     */
+    static <E> SimpleDataSchema deriveSchema(Collection<E> entries, Function<E, DataObject> dataObject, TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool) {
+        List<DataObject> representatives;
+        if(pool == null || entries.size() <= STRUCTURES_PER_TASK){
+            representatives = representatives(entries, dataObject);
+        } else {
+            @SuppressWarnings("unchecked")
+            E[] array = (E[]) entries.toArray();
+            representatives = pool.invoke(new CollectTask<>(array, dataObject, 0, array.length)).dataObjects;
+        }
+
+        if(representatives.isEmpty()){
+            return null;
+        }
+
+        if(pool == null || representatives.size() <= SCHEMAS_PER_TASK){
+            return unify(representatives, 0, representatives.size(), typePromotionPolicy);
+        }
+
+        return pool.invoke(new UnifyTask(representatives, 0, representatives.size(), typePromotionPolicy));
+    }
+
+    /**
+     * @param entries    the data entries.
+     * @param dataObject returns the data object of an entry.
+     * @return the first data object of each structure, in the order of the entries.
+     */
+    static <E> List<DataObject> representatives(Collection<E> entries, Function<E, DataObject> dataObject) {
+        Representatives representatives = new Representatives();
+        for (E entry : entries) {
+            representatives.add(dataObject.apply(entry));
+        }
+
+        return representatives.dataObjects;
+    }
+
+    private static SimpleDataSchema unify(List<DataObject> representatives, int from, int to, TypePromotionPolicy typePromotionPolicy) {
+        SimpleDataSchema schema = SimpleDataSchema.deriveFromData(representatives.get(from));
+        for (int i = from + 1; i < to; i++) {
+            schema.unify(SimpleDataSchema.deriveFromData(representatives.get(i)), typePromotionPolicy);
+        }
+
+        return schema;
+    }
+
+    /**
+     * The first data object of each structure, in the order of the data objects.
+     */
+    private static class Representatives {
+
+        private final Set<Object> structures = new HashSet<>();
+
+        private final List<Object> keys = new ArrayList<>();
+
+        private final List<DataObject> dataObjects = new ArrayList<>();
+
+        private void add(DataObject dataObject) {
+            add(dataObject.structureKey(), dataObject);
+        }
+
+        private void add(Object structure, DataObject dataObject) {
+            if(structures.add(structure)){
+                keys.add(structure);
+                dataObjects.add(dataObject);
+            }
+        }
+
+        /**
+         * Adds the representatives of data objects that follow the ones of this instance.
+         */
+        private void addAll(Representatives other) {
+            for (int i = 0; i < other.keys.size(); i++) {
+                add(other.keys.get(i), other.dataObjects.get(i));
+            }
+        }
+    }
+
+    // Tasks are only run in the pool and never serialized, although ForkJoinTask is serializable.
+    @SuppressWarnings("serial")
+    private static class CollectTask<E> extends RecursiveTask<Representatives> {
+
+        private final E[] entries;
+
+        private final Function<E, DataObject> dataObject;
+
+        private final int from;
+
+        private final int to;
+
+        private CollectTask(E[] entries, Function<E, DataObject> dataObject, int from, int to) {
+            this.entries = entries;
+            this.dataObject = dataObject;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Representatives compute() {
+            if(to - from <= STRUCTURES_PER_TASK){
+                Representatives representatives = new Representatives();
+                for (int i = from; i < to; i++) {
+                    representatives.add(dataObject.apply(entries[i]));
+                }
+                return representatives;
+            }
+
+            int middle = (from + to) >>> 1;
+            CollectTask<E> left = new CollectTask<>(entries, dataObject, from, middle);
+            left.fork();
+            Representatives right = new CollectTask<>(entries, dataObject, middle, to).compute();
+            Representatives representatives = left.join();
+            representatives.addAll(right);
+            return representatives;
+        }
+    }
+
+    // Tasks are only run in the pool and never serialized, although ForkJoinTask is serializable.
+    @SuppressWarnings("serial")
+    private static class UnifyTask extends RecursiveTask<SimpleDataSchema> {
+
+        private final List<DataObject> representatives;
+
+        private final int from;
+
+        private final int to;
+
+        private final TypePromotionPolicy typePromotionPolicy;
+
+        private UnifyTask(List<DataObject> representatives, int from, int to, TypePromotionPolicy typePromotionPolicy) {
+            this.representatives = representatives;
+            this.from = from;
+            this.to = to;
+            this.typePromotionPolicy = typePromotionPolicy;
+        }
+
+        @Override
+        protected SimpleDataSchema compute() {
+            if(to - from <= SCHEMAS_PER_TASK){
+                return unify(representatives, from, to, typePromotionPolicy);
+            }
+
+            int middle = (from + to) >>> 1;
+            UnifyTask left = new UnifyTask(representatives, from, middle, typePromotionPolicy);
+            left.fork();
+            SimpleDataSchema right = new UnifyTask(representatives, middle, to, typePromotionPolicy).compute();
+            SimpleDataSchema schema = left.join();
+            schema.unify(right, typePromotionPolicy);
+            return schema;
+        }
+    }
+}
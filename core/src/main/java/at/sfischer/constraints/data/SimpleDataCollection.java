@@ -7,6 +7,7 @@ import at.sfischer.constraints.model.Variable;
 import org.javatuples.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class SimpleDataCollection extends DataCollection<DataObject> {
 
@@ -18,16 +19,12 @@ public class SimpleDataCollection extends DataCollection<DataObject> {
 
     @Override
     public SimpleDataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy) {
-        SimpleDataSchema schema = null;
-        for (DataObject dataObject : dataCollection) {
-            if(schema == null){
-                schema = SimpleDataSchema.deriveFromData(dataObject);
-            } else {
-                schema.unify(SimpleDataSchema.deriveFromData(dataObject), typePromotionPolicy);
-            }
-        }
+        return deriveSchema(typePromotionPolicy, null);
+    }
 
-        return schema;
+    @Override
+    public SimpleDataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool) {
+        return SchemaDerivation.deriveSchema(dataCollection, dataObject -> dataObject, typePromotionPolicy, pool);
     }
 
     public List<DataObject> getDataCollection() {
@@ -39,6 +36,33 @@ public class SimpleDataCollection extends DataCollection<DataObject> {
         dataCollection.add(dataObject);
     }
 
+    @Override
+    public void append(DataCollection<DataObject> collection) {
+        if(collection instanceof SimpleDataCollection other){
+            dataCollection.addAll(other.dataCollection);
+            return;
+        }
+
+        addAll(collection);
+    }
+
+    @Override
+    public List<DataCollection<DataObject>> partition(int numberOfPartitions) {
+        List<DataCollection<DataObject>> partitions = new ArrayList<>();
+        int parts = Math.max(1, numberOfPartitions);
+        int partitionSize = Math.max(1, (dataCollection.size() + parts - 1) / parts);
+        SimpleDataCollection partition = null;
+        for (DataObject dataEntry : dataCollection) {
+            if(partition == null || partition.dataCollection.size() == partitionSize){
+                partition = new SimpleDataCollection();
+                partitions.add(partition);
+            }
+            partition.dataCollection.add(dataEntry);
+        }
+
+        return partitions;
+    }
+
     @Override
     public void removeDataEntry(DataObject dataObject) {
         dataCollection.remove(dataObject);
@@ -56,14 +80,9 @@ public class SimpleDataCollection extends DataCollection<DataObject> {
 
     @Override
     public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<DataObject> visitor) {
+        FieldPaths paths = new FieldPaths(fieldNames);
         for (DataObject dataObject : getDataCollection()) {
-            Map<String, Node> values = dataObject.getDataValues();
-            for (String fieldName : new HashSet<>(values.keySet())) {
-                if(!fieldNames.contains(fieldName)){
-                    values.remove(fieldName);
-                }
-            }
-            visitor.visitDataValues(values, dataObject);
+            visitor.visitDataValues(paths.resolve(dataObject), dataObject);
         }
     }
 
@@ -2,7 +2,6 @@ package at.sfischer.constraints.data;
 
 import at.sfischer.constraints.ConstraintConstruct;
 import at.sfischer.constraints.ConstraintFactory;
-import at.sfischer.constraints.ConstraintResults;
 import at.sfischer.constraints.IConstraint;
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.array.ArrayOperation;
@@ -324,18 +323,25 @@ public class SimpleDataSchema extends DataSchema {
     }
 
     @Override
-    public <DS extends DataSchema, T> EvaluationResults<DS, T> evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints) {
-        EvaluationResults<DS, T> evaluationResults = new EvaluationResults<>();
-
-        data.visitDataEntries((values, dataEntry) -> {
-            if(!(dataEntry instanceof DataObject)){
-                return;
+    protected <DS extends DataSchema, T> void evaluate(DataCollection<T> data, Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints, Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints, EvaluationResults<DS, T> evaluationResults, EvaluationContext context, boolean checkSchema) {
+        Collection<DataSchemaEntry<DS>> schemaEntries = checkSchema ? schemaEntries() : Collections.emptySet();
+        List<RegisteredConstraint<T>> registeredConstraints = registerConstraints(data, evaluationResults, constraints, potentialConstraints, context);
+
+        data.visitDataEntries(new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                visitDataValues(values, dataEntry, 1);
             }
 
-            evaluateDataObject((DataObject)dataEntry, dataEntry, data, evaluationResults, constraints, potentialConstraints);
-        });
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry, long weight) {
+                if(!(dataEntry instanceof DataObject)){
+                    return;
+                }
 
-        return evaluationResults;
+                evaluateDataObject((DataObject)dataEntry, dataEntry, weight, evaluationResults, schemaEntries, registeredConstraints);
+            }
+        });
     }
 
     public <DS extends DataSchema, T> void evaluateDataObject(
@@ -346,34 +352,30 @@ public class SimpleDataSchema extends DataSchema {
             Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints,
             Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints
     ){
+        evaluateDataObject(dao, dataEntry, 1, evaluationResults, schemaEntries(), registerConstraints(data, evaluationResults, constraints, potentialConstraints, null));
+    }
+
+    private <DS extends DataSchema> Collection<DataSchemaEntry<DS>> schemaEntries(){
         Collection<DataSchemaEntry<DS>> schemaEntries = new HashSet<>();
         for (DataSchemaEntry<SimpleDataSchema> dataSchemaEntry : this.getDataSchemaEntries()) {
             //noinspection unchecked
             schemaEntries.add((DataSchemaEntry<DS>) dataSchemaEntry);
         }
-        evaluateDataObject(schemaEntries, dao, dataEntry, evaluationResults);
 
-        constraints.forEach((k, v) -> {
-            if(v == null || v.isEmpty()){
-                return;
-            }
-
-            for (IConstraint constraint : v) {
-                ConstraintResults<T> constraintResults = evaluationResults.getConstraintResults(k, constraint, data);
-                constraint.evaluate(dao, dataEntry, constraintResults);
-            }
-        });
+        return schemaEntries;
+    }
 
-        potentialConstraints.forEach((k, v) -> {
-            if(v == null || v.isEmpty()){
-                return;
-            }
+    private <DS extends DataSchema, T> void evaluateDataObject(
+            DataObject dao,
+            T dataEntry,
+            long weight,
+            EvaluationResults<DS, T> evaluationResults,
+            Collection<DataSchemaEntry<DS>> schemaEntries,
+            List<RegisteredConstraint<T>> registeredConstraints
+    ){
+        evaluateDataObject(schemaEntries, dao, dataEntry, evaluationResults);
 
-            for (IConstraint constraint : v) {
-                ConstraintResults<T> constraintResults = evaluationResults.getPotentialConstraintResults(k, constraint, data);
-                constraint.evaluate(dao, dataEntry, constraintResults);
-            }
-        });
+        evaluateConstraints(registeredConstraints, dao, dataEntry, weight);
     }
 
     public static SimpleDataSchema deriveFromData(DataObject dao){
@@ -0,0 +1,280 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.*;
+
+import java.util.*;
+
+/**
+ * Enumerates the same value combinations as {@link Utils#collectValueCombinations(DataObject, Set)}, without building
+ * all of them upfront.
+ * <p>
+ * The grouping of the variables is computed once on creation. A combination is provided as an array of values, in the
+ * order of {@link #getVariables()}, in which unset variables are {@code null}. The iterator reuses the same array for
+ * all combinations, so a combination is only valid until the iterator is used again. As combinations are only created
+ * when requested, the evaluation can stop early without creating the remaining combinations.
+ * <p>
+ * Instances are not thread-safe and only support one iteration at a time.
+ */
+public class ValueCombinations {
+
+    private final List<Variable> variables;
+
+    private final Node[] bindings;
+
+    private final ProductCursor root;
+
+    public ValueCombinations(Collection<Variable> variables) {
+        this.variables = List.copyOf(new LinkedHashSet<>(variables));
+        this.bindings = new Node[this.variables.size()];
+
+        Map<Variable, Integer> indices = new HashMap<>();
+        for (int i = 0; i < this.variables.size(); i++) {
+            indices.put(this.variables.get(i), i);
+        }
+        this.root = new ProductCursor(plans(Utils.groupByCollapsedHierarchy(new HashSet<>(this.variables)), indices), bindings);
+    }
+
+    public List<Variable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @param dao the data object to collect the values from.
+     * @return iterator over the value combinations, which invalidates any previous iterator of this instance.
+     */
+    public Iterator<Node[]> iterator(DataObject dao) {
+        Arrays.fill(bindings, null);
+        root.reset(dao);
+        return new Iterator<>() {
+            private boolean fetched = false;
+
+            private boolean available = false;
+
+            @Override
+            public boolean hasNext() {
+                if(!fetched){
+                    available = root.next();
+                    fetched = true;
+                }
+
+                return available;
+            }
+
+            @Override
+            public Node[] next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                fetched = false;
+
+                return bindings;
+            }
+        };
+    }
+
+    /**
+     * @param dao the data object to collect the values from.
+     * @return all value combinations, like {@link Utils#collectValueCombinations(DataObject, Set)}.
+     */
+    public List<Map<Variable, Node>> collect(DataObject dao) {
+        List<Map<Variable, Node>> valueCombinations = new ArrayList<>();
+        Iterator<Node[]> iterator = iterator(dao);
+        while (iterator.hasNext()) {
+            Node[] values = iterator.next();
+            Map<Variable, Node> valueCombination = new HashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                if(values[i] != null){
+                    valueCombination.put(variables.get(i), values[i]);
+                }
+            }
+            valueCombinations.add(valueCombination);
+        }
+
+        return valueCombinations;
+    }
+
+    private static Plan[] plans(Map<Utils.Path, Utils.Group> groups, Map<Variable, Integer> indices) {
+        Plan[] plans = new Plan[groups.size()];
+        int i = 0;
+        for (Utils.Group group : groups.values()) {
+            plans[i++] = plan(group, indices);
+        }
+
+        return plans;
+    }
+
+    private static Plan plan(Utils.Group group, Map<Variable, Integer> indices) {
+        int variableIndex = group.getVariable() == null ? -1 : indices.get(group.getVariable());
+        Plan[] children = plans(group.getChildren(), indices);
+
+        List<Integer> ownedVariables = new ArrayList<>();
+        if(variableIndex >= 0){
+            ownedVariables.add(variableIndex);
+        }
+        for (Plan child : children) {
+            for (int ownedVariable : child.ownedVariables) {
+                ownedVariables.add(ownedVariable);
+            }
+        }
+
+        return new Plan(group.getPath(), variableIndex, children, ownedVariables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private record Plan(Utils.Path path, int variableIndex, Plan[] children, int[] ownedVariables) {}
+
+    /**
+     * Cross product of the combinations of multiple groups, ignoring groups without any combination.
+     * The first group changes the fastest.
+     */
+    private static class ProductCursor {
+
+        private final GroupCursor[] cursors;
+
+        private final GroupCursor[] activeCursors;
+
+        private int numberOfActiveCursors;
+
+        private DataObject dao;
+
+        private boolean first;
+
+        private ProductCursor(Plan[] plans, Node[] bindings) {
+            this.cursors = new GroupCursor[plans.length];
+            for (int i = 0; i < plans.length; i++) {
+                this.cursors[i] = new GroupCursor(plans[i], bindings);
+            }
+            this.activeCursors = new GroupCursor[plans.length];
+        }
+
+        private void reset(DataObject dao) {
+            this.dao = dao;
+            this.numberOfActiveCursors = 0;
+            for (GroupCursor cursor : cursors) {
+                cursor.reset(dao);
+                if(cursor.next()){
+                    activeCursors[numberOfActiveCursors++] = cursor;
+                }
+            }
+            this.first = true;
+        }
+
+        private boolean next() {
+            if(first){
+                first = false;
+                return numberOfActiveCursors > 0;
+            }
+
+            for (int i = 0; i < numberOfActiveCursors; i++) {
+                GroupCursor cursor = activeCursors[i];
+                if(cursor.next()){
+                    return true;
+                }
+
+                cursor.reset(dao);
+                cursor.next();
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * The values of the variable of a group followed by the combinations of its children within each complex value.
+     */
+    private static class GroupCursor {
+
+        private final Plan plan;
+
+        private final Node[] bindings;
+
+        private final ProductCursor children;
+
+        private Iterator<Value<?>> variableValues;
+
+        private Iterator<Value<?>> values;
+
+        private Value<?>[] arrayElements;
+
+        private int arrayIndex;
+
+        private boolean childrenActive;
+
+        private GroupCursor(Plan plan, Node[] bindings) {
+            this.plan = plan;
+            this.bindings = bindings;
+            this.children = plan.children.length == 0 ? null : new ProductCursor(plan.children, bindings);
+        }
+
+        private void reset(DataObject dao) {
+            clear();
+            List<Value<?>> values = dao.getValues(plan.path);
+            this.variableValues = values != null && plan.variableIndex >= 0 ? values.iterator() : null;
+            this.values = values != null && children != null ? values.iterator() : null;
+            this.arrayElements = null;
+            this.childrenActive = false;
+        }
+
+        private void clear() {
+            for (int ownedVariable : plan.ownedVariables) {
+                bindings[ownedVariable] = null;
+            }
+        }
+
+        private boolean next() {
+            if(variableValues != null){
+                if(variableValues.hasNext()){
+                    bindings[plan.variableIndex] = variableValues.next();
+                    return true;
+                }
+
+                variableValues = null;
+                bindings[plan.variableIndex] = null;
+            }
+
+            if(values != null){
+                while (true){
+                    if(childrenActive && children.next()){
+                        return true;
+                    }
+
+                    DataObject childDao = nextChildDao();
+                    if(childDao == null){
+                        break;
+                    }
+                    children.reset(childDao);
+                    childrenActive = true;
+                }
+                values = null;
+            }
+
+            clear();
+            return false;
+        }
+
+        private DataObject nextChildDao() {
+            while (true){
+                if(arrayElements != null){
+                    while (arrayIndex < arrayElements.length){
+                        Value<?> element = arrayElements[arrayIndex++];
+                        if(element instanceof ComplexValue){
+                            return ((ComplexValue) element).getValue();
+                        }
+                    }
+                    arrayElements = null;
+                }
+
+                if(!values.hasNext()){
+                    return null;
+                }
+
+                Value<?> value = values.next();
+                if(value instanceof ComplexValue){
+                    return ((ComplexValue) value).getValue();
+                } else if(value instanceof ArrayValues<?> && ((ArrayValues<?>) value).getElementType() == TypeEnum.COMPLEXTYPE){
+                    arrayElements = ((ArrayValues<?>) value).getValue();
+                    arrayIndex = 0;
+                }
+            }
+        }
+    }
+}
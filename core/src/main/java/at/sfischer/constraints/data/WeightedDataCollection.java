@@ -0,0 +1,313 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.Type;
+import at.sfischer.constraints.model.Value;
+import at.sfischer.constraints.model.Variable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Collection that stores equal data entries only once, together with the number of times they were added.
+ * <p>
+ * The distinct entries are kept in a collection of the kind of the given template, e.g., a
+ * {@link SimpleDataCollection} or an {@link InOutputDataCollection}, and are visited only once each. While an entry is
+ * visited with its weight (see {@link DataEntryVisitor#visitDataValues(Map, Object, long)}), and visitors add it to the
+ * collections they fill, e.g., the results of the constraints, with that weight (see
+ * {@link DataCollection#addDataEntry(Object, long)}). So the number of valid and invalid entries of a constraint are the
+ * same as if all entries were stored separately. Visitors that are not aware of weights visit the entry that many times.
+ * <p>
+ * Stateful operators and windowed aggregates observe the values of an entry with its weight, i.e., as if the equal
+ * entries were evaluated in a row (see {@link at.sfischer.constraints.model.operators.Accumulator#setWeight(int)}).
+ *
+ * @param <T> the type of the data entries.
+ */
+public class WeightedDataCollection<T> extends DataCollection<T> {
+
+    private final DataCollection<T> template;
+
+    private DataCollection<T> distinctEntries;
+
+    /**
+     * The distinct entries in the order they were added, with null for removed entries, whose weight is 0.
+     */
+    private final List<T> entries;
+
+    private final Map<T, Integer> indices;
+
+    private long[] weights;
+
+    private long numberOfEntries;
+
+    private int numberOfRemovedEntries;
+
+    /**
+     * @param template collection of the kind of data that is stored, used to hold the distinct entries.
+     */
+    public WeightedDataCollection(DataCollection<T> template) {
+        this.template = template.emptyDataCollection();
+        this.distinctEntries = template.emptyDataCollection();
+        this.entries = new ArrayList<>();
+        this.indices = new HashMap<>();
+        this.weights = new long[16];
+        this.numberOfEntries = 0;
+        this.numberOfRemovedEntries = 0;
+    }
+
+    @Override
+    public void addDataEntry(T dataEntry) {
+        addDataEntry(dataEntry, 1);
+    }
+
+    /**
+     * @param dataEntry the entry to add.
+     * @param weight    the number of times to add the entry.
+     */
+    @Override
+    public void addDataEntry(T dataEntry, long weight) {
+        if(weight < 1){
+            throw new IllegalArgumentException("The weight must be positive, but was " + weight + ".");
+        }
+
+        Integer index = indices.get(dataEntry);
+        if(index == null){
+            index = entries.size();
+            indices.put(dataEntry, index);
+            entries.add(dataEntry);
+            distinctEntries.addDataEntry(dataEntry);
+            if(index == weights.length){
+                weights = Arrays.copyOf(weights, 2 * weights.length);
+            }
+        }
+
+        weights[index] += weight;
+        numberOfEntries += weight;
+    }
+
+    @Override
+    public void addLazyDataEntry(Supplier<? extends T> dataEntry, long weight) {
+        addDataEntry(dataEntry.get(), weight);
+    }
+
+    /**
+     * @return the number of times the given entry was added.
+     */
+    public long getWeight(T dataEntry) {
+        Integer index = indices.get(dataEntry);
+        return index == null ? 0 : weights[index];
+    }
+
+    public int numberOfDistinctDataEntries() {
+        return entries.size() - numberOfRemovedEntries;
+    }
+
+    @Override
+    public void addAll(DataCollection<T> collection) {
+        if(collection instanceof WeightedDataCollection<T> other){
+            for (int i = 0; i < other.entries.size(); i++) {
+                if(other.weights[i] > 0){
+                    addDataEntry(other.entries.get(i), other.weights[i]);
+                }
+            }
+            return;
+        }
+
+        super.addAll(collection);
+    }
+
+    @Override
+    public void append(DataCollection<T> collection) {
+        addAll(collection);
+    }
+
+    @Override
+    public void visitDataEntries(Set<String> fieldNames, DataEntryVisitor<T> visitor) {
+        // The distinct entries are visited in the order they were added, which skips the removed ones.
+        int[] index = {0};
+        distinctEntries.visitDataEntries(fieldNames, new DataEntryVisitor<>() {
+            @Override
+            public void visitDataValues(Map<String, Node> values, T dataEntry) {
+                visitor.visitDataValues(values, dataEntry, nextWeight(index));
+            }
+
+            @Override
+            public void visitLazyDataValues(Map<String, Node> values, Supplier<? extends T> dataEntry) {
+                visitor.visitLazyDataValues(values, dataEntry, nextWeight(index));
+            }
+        });
+    }
+
+    private long nextWeight(int[] index) {
+        while (weights[index[0]] == 0) {
+            index[0]++;
+        }
+
+        return weights[index[0]++];
+    }
+
+    @Override
+    public DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy) {
+        return distinctEntries.deriveSchema(typePromotionPolicy);
+    }
+
+    @Override
+    public DataSchema deriveSchema(TypePromotionPolicy typePromotionPolicy, ForkJoinPool pool) {
+        return distinctEntries.deriveSchema(typePromotionPolicy, pool);
+    }
+
+    @Override
+    public boolean applyDataToTerms(List<Node> terms, Map<Variable, Type> variableTypes) {
+        return distinctEntries.applyDataToTerms(terms, variableTypes);
+    }
+
+    @Override
+    public int numberOfDataEntries() {
+        return (int) Math.min(Integer.MAX_VALUE, numberOfEntries);
+    }
+
+    @Override
+    public int size() {
+        return numberOfDataEntries();
+    }
+
+    @Override
+    public List<DataCollection<T>> partition(int numberOfPartitions) {
+        List<DataCollection<T>> partitions = new ArrayList<>();
+        int parts = Math.max(1, numberOfPartitions);
+        int partitionSize = Math.max(1, (numberOfDistinctDataEntries() + parts - 1) / parts);
+        WeightedDataCollection<T> partition = null;
+        for (int i = 0; i < entries.size(); i++) {
+            if(weights[i] == 0){
+                continue;
+            }
+            if(partition == null || partition.entries.size() == partitionSize){
+                partition = new WeightedDataCollection<>(template);
+                partitions.add(partition);
+            }
+            partition.addDataEntry(entries.get(i), weights[i]);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Removes the given entry once. An entry that is no longer contained is only removed from the distinct entries, its
+     * index is compacted once most of the indexed entries are removed.
+     */
+    @Override
+    public void removeDataEntry(T dataEntry) {
+        Integer index = indices.get(dataEntry);
+        if(index == null){
+            return;
+        }
+
+        numberOfEntries--;
+        if(--weights[index] > 0){
+            return;
+        }
+
+        indices.remove(dataEntry);
+        entries.set(index, null);
+        distinctEntries.removeDataEntry(dataEntry);
+        numberOfRemovedEntries++;
+        if(numberOfRemovedEntries > entries.size() / 2){
+            compact();
+        }
+    }
+
+    private void compact() {
+        int size = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if(weights[i] == 0){
+                continue;
+            }
+
+            entries.set(size, entries.get(i));
+            weights[size] = weights[i];
+            indices.put(entries.get(size), size);
+            size++;
+        }
+
+        entries.subList(size, entries.size()).clear();
+        Arrays.fill(weights, size, weights.length, 0);
+        numberOfRemovedEntries = 0;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        indices.clear();
+        distinctEntries.clear();
+        Arrays.fill(weights, 0);
+        numberOfEntries = 0;
+        numberOfRemovedEntries = 0;
+    }
+
+    @Override
+    public DataCollection<T> emptyDataCollection() {
+        return new WeightedDataCollection<>(template);
+    }
+
+    @Override
+    public DataCollection<T> clone() {
+        WeightedDataCollection<T> clone = new WeightedDataCollection<>(template);
+        clone.addAll(this);
+        return clone;
+    }
+
+    /**
+     * @return the values of each entry, the values of an entry that was added multiple times are contained that many
+     * times.
+     */
+    @Override
+    public List<List<Value<?>>> getAllValues(String valueReference) {
+        List<List<Value<?>>> allValues = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if(weights[i] == 0){
+                continue;
+            }
+            for (List<Value<?>> values : single(i).getAllValues(valueReference)) {
+                repeat(allValues, values, weights[i]);
+            }
+        }
+
+        return allValues;
+    }
+
+    @Override
+    public List<Map<Variable, Node>> getAllValueCombinations(Set<Variable> variables) {
+        List<Map<Variable, Node>> valueCombinations = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if(weights[i] == 0){
+                continue;
+            }
+            for (Map<Variable, Node> combination : single(i).getAllValueCombinations(variables)) {
+                repeat(valueCombinations, combination, weights[i]);
+            }
+        }
+
+        return valueCombinations;
+    }
+
+    private DataCollection<T> single(int index) {
+        DataCollection<T> single = template.emptyDataCollection();
+        single.addDataEntry(entries.get(index));
+        return single;
+    }
+
+    private static <E> void repeat(List<E> list, E element, long times) {
+        for (long i = 0; i < times; i++) {
+            list.add(element);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedDataCollection{" +
+                "numberOfEntries=" + numberOfEntries +
+                ", distinctEntries=" + distinctEntries +
+                '}';
+    }
+}
@@ -0,0 +1,350 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintConstruct;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.IConstraint;
+import at.sfischer.constraints.model.CompiledTerm;
+import at.sfischer.constraints.model.EvaluationContext;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.Value;
+import at.sfischer.constraints.model.operators.WindowAggregate;
+import at.sfischer.constraints.model.operators.WindowedOperator;
+
+import java.util.*;
+
+/**
+ * Evaluates the constraints of a schema over a sliding window of the data, e.g., the data of the last hours, so that
+ * constraints can be checked for the recent data only.
+ * <p>
+ * The data arrives in windows, e.g., one per hour. For each window only the number of data entries per outcome of each
+ * constraint is kept, and for stateful operators an order-independent {@link WindowAggregate} of the values they were
+ * applied to. These are added to running totals and subtracted again once the window expires, so neither the data nor
+ * the earlier windows have to be evaluated again, and the memory needed depends on the number of windows instead of
+ * the number of data entries.
+ * <p>
+ * Constraints whose term is a {@link WindowedOperator} are decided on the aggregate of the retained windows, with the
+ * values counted instead of the data entries. Their results refer to data of the values and the data entries the
+ * operator is not applicable to, so all outcomes are counted the same way. Other terms with stateful operators, e.g., nested in a quantifier, are
+ * evaluated on each window separately, starting from their state when the evaluation was created. The state of the
+ * operators in the schema is not updated.
+ *
+ * @param <DS> the type of the schema.
+ * @param <T>  the type of the data entries.
+ */
+public class WindowedEvaluation<DS extends DataSchema, T> {
+
+    private final DataSchema schema;
+
+    private final int numberOfWindows;
+
+    private final List<TrackedConstraint<DS>> trackedConstraints;
+
+    private final Deque<Window> windows;
+
+    private final Window total;
+
+    private DataCollection<T> template;
+
+    /**
+     * @param schema          the schema whose constraints are evaluated, usually with stateful operators that were not
+     *                        evaluated before.
+     * @param numberOfWindows the number of most recent windows to evaluate the constraints on.
+     */
+    public WindowedEvaluation(DataSchema schema, int numberOfWindows) {
+        if(numberOfWindows < 1){
+            throw new IllegalArgumentException("The number of windows must be positive, but was " + numberOfWindows + ".");
+        }
+
+        this.schema = schema;
+        this.numberOfWindows = numberOfWindows;
+        this.trackedConstraints = new ArrayList<>();
+        this.windows = new ArrayDeque<>(numberOfWindows + 1);
+
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> schemaConstraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> schemaPotentialConstraints = new HashMap<>();
+        schema.collectAllConstraints(schemaConstraints, schemaPotentialConstraints);
+        track(schemaConstraints, false);
+        track(schemaPotentialConstraints, true);
+
+        this.total = newWindow();
+    }
+
+    private void track(Map<DataSchemaEntry<DS>, Set<IConstraint>> schemaConstraints, boolean potential) {
+        schemaConstraints.forEach((entry, constraints) -> {
+            for (IConstraint constraint : constraints) {
+                IConstraint initialConstraint = constraint;
+                if(constraint instanceof Constraint c && !(c.term() instanceof WindowedOperator<?>) && c.isOrderDependent()){
+                    // Keep the initial state, each window starts from it.
+                    initialConstraint = new Constraint(c.term().cloneNode(), c.derivedFrom());
+                }
+
+                trackedConstraints.add(new TrackedConstraint<>(entry, constraint, initialConstraint, potential));
+            }
+        });
+    }
+
+    public DataSchema getSchema() {
+        return schema;
+    }
+
+    public int getNumberOfWindows() {
+        return numberOfWindows;
+    }
+
+    /**
+     * @return the number of windows currently retained.
+     */
+    public int getNumberOfRetainedWindows() {
+        return windows.size();
+    }
+
+    /**
+     * Evaluates the constraints on the data of a new window, and expires the oldest window if more than the given
+     * number of windows would be retained.
+     *
+     * @param window the data of the new window.
+     * @return the results over the retained windows.
+     */
+    public EvaluationResults<DS, T> evaluate(DataCollection<T> window) {
+        if(template == null){
+            template = window.emptyDataCollection();
+        }
+
+        Window newWindow = newWindow();
+        newWindow.numberOfDataEntries = window.numberOfDataEntries();
+        IConstraint[] evaluatedConstraints = new IConstraint[trackedConstraints.size()];
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> constraints = new HashMap<>();
+        Map<DataSchemaEntry<DS>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+        for (int i = 0; i < trackedConstraints.size(); i++) {
+            TrackedConstraint<DS> trackedConstraint = trackedConstraints.get(i);
+            evaluatedConstraints[i] = trackedConstraint.evaluatedConstraint(newWindow.aggregates[i]);
+            (trackedConstraint.potential() ? potentialConstraints : constraints).computeIfAbsent(trackedConstraint.entry(), k -> new HashSet<>()).add(evaluatedConstraints[i]);
+        }
+
+        EvaluationResults<DS, T> windowResults = new EvaluationResults<>(0);
+        schema.evaluate(window, constraints, potentialConstraints, windowResults);
+        for (int i = 0; i < trackedConstraints.size(); i++) {
+            TrackedConstraint<DS> trackedConstraint = trackedConstraints.get(i);
+            ConstraintResults<T> results = trackedConstraint.potential()
+                    ? windowResults.getPotentialConstraintResults(trackedConstraint.entry(), evaluatedConstraints[i], window)
+                    : windowResults.getConstraintResults(trackedConstraint.entry(), evaluatedConstraints[i], window);
+            newWindow.counts[i] = new Counts(results);
+        }
+
+        total.add(newWindow);
+        windows.addLast(newWindow);
+        if(windows.size() > numberOfWindows){
+            total.subtract(windows.removeFirst());
+        }
+
+        return getResults();
+    }
+
+    /**
+     * @return the results over the retained windows, which only count the data entries per outcome.
+     */
+    public EvaluationResults<DS, T> getResults() {
+        EvaluationResults<DS, T> results = new EvaluationResults<>(0);
+        if(template == null){
+            return results;
+        }
+
+        CountingDataCollection<T> data = new CountingDataCollection<>(template, 0);
+        data.addCount(total.numberOfDataEntries);
+        for (int i = 0; i < trackedConstraints.size(); i++) {
+            TrackedConstraint<DS> trackedConstraint = trackedConstraints.get(i);
+            Counts counts = total.counts[i];
+            WindowAggregate<?> aggregate = total.aggregates[i];
+            DataCollection<T> constraintData = data;
+            if(aggregate != null){
+                CountingDataCollection<T> values = new CountingDataCollection<>(template, 0);
+                values.addCount(aggregate.numberOfValues() + counts.inapplicable);
+                constraintData = values;
+            }
+
+            ConstraintResults<T> constraintResults = trackedConstraint.potential()
+                    ? results.getPotentialConstraintResults(trackedConstraint.entry(), trackedConstraint.constraint(), constraintData)
+                    : results.getConstraintResults(trackedConstraint.entry(), trackedConstraint.constraint(), constraintData);
+
+            if(aggregate == null){
+                addCount(constraintResults.validConstraintData(), counts.valid);
+                addCount(constraintResults.invalidConstraintData(), counts.invalid);
+                addCount(constraintResults.missingEvidenceConstraintData(), counts.missingEvidence);
+            } else {
+                addCount(constraintResults.validConstraintData(), aggregate.numberOfValidValues());
+                addCount(constraintResults.invalidConstraintData(), aggregate.numberOfViolations());
+                addCount(constraintResults.missingEvidenceConstraintData(), aggregate.numberOfValuesMissingEvidence());
+            }
+            addCount(constraintResults.inapplicableConstraintData(), counts.inapplicable);
+        }
+
+        return results;
+    }
+
+    /**
+     * Adds the count to a collection of the results, which are counting collections as the results retain no examples.
+     */
+    private void addCount(DataCollection<T> data, int count) {
+        CountingDataCollection<T> counted = new CountingDataCollection<>(template, 0);
+        counted.addCount(count);
+        data.addAll(counted);
+    }
+
+    private Window newWindow() {
+        Window window = new Window(trackedConstraints.size());
+        for (int i = 0; i < trackedConstraints.size(); i++) {
+            window.counts[i] = new Counts();
+            if(trackedConstraints.get(i).initialConstraint() instanceof Constraint c && c.term() instanceof WindowedOperator<?> operator){
+                window.aggregates[i] = operator.emptyWindowAggregate();
+            }
+        }
+
+        return window;
+    }
+
+    /**
+     * @param initialConstraint the constraint in the state each window is evaluated from.
+     */
+    private record TrackedConstraint<DS extends DataSchema>(DataSchemaEntry<DS> entry, IConstraint constraint, IConstraint initialConstraint, boolean potential) {
+        private IConstraint evaluatedConstraint(WindowAggregate<?> aggregate) {
+            if(aggregate != null){
+                return new WindowedConstraint(constraint, (WindowedOperator<?>) ((Constraint) constraint).term(), aggregate);
+            }
+            if(initialConstraint != constraint){
+                Constraint c = (Constraint) initialConstraint;
+                return new Constraint(c.term().cloneNode(), c.derivedFrom());
+            }
+
+            return constraint;
+        }
+    }
+
+    private static class Window {
+
+        private final Counts[] counts;
+
+        private final WindowAggregate<?>[] aggregates;
+
+        private int numberOfDataEntries;
+
+        private Window(int numberOfConstraints) {
+            this.counts = new Counts[numberOfConstraints];
+            this.aggregates = new WindowAggregate<?>[numberOfConstraints];
+        }
+
+        private void add(Window window) {
+            numberOfDataEntries += window.numberOfDataEntries;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i].add(window.counts[i], 1);
+                if(aggregates[i] != null){
+                    add(aggregates[i], window.aggregates[i]);
+                }
+            }
+        }
+
+        private void subtract(Window window) {
+            numberOfDataEntries -= window.numberOfDataEntries;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i].add(window.counts[i], -1);
+                if(aggregates[i] != null){
+                    subtract(aggregates[i], window.aggregates[i]);
+                }
+            }
+        }
+
+        // The aggregates of a constraint in all windows are created by the same operator, so they have the same type.
+        @SuppressWarnings("unchecked")
+        private static <W extends WindowAggregate<W>> void add(WindowAggregate<W> aggregate, WindowAggregate<?> other) {
+            aggregate.add((W) other);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <W extends WindowAggregate<W>> void subtract(WindowAggregate<W> aggregate, WindowAggregate<?> other) {
+            aggregate.subtract((W) other);
+        }
+    }
+
+    private static class Counts {
+
+        private int valid;
+
+        private int invalid;
+
+        private int inapplicable;
+
+        private int missingEvidence;
+
+        private Counts() {
+        }
+
+        private Counts(ConstraintResults<?> results) {
+            this.valid = results.numberOfValidDataEntries();
+            this.invalid = results.numberOfViolations();
+            this.inapplicable = results.numberOfInapplicableEntries();
+            this.missingEvidence = results.missingEvidenceConstraintData().numberOfDataEntries();
+        }
+
+        private void add(Counts counts, int sign) {
+            valid += sign * counts.valid;
+            invalid += sign * counts.invalid;
+            inapplicable += sign * counts.inapplicable;
+            missingEvidence += sign * counts.missingEvidence;
+        }
+    }
+
+    /**
+     * Adds the values the operator of a constraint is applied to to the aggregate of the current window, instead of
+     * evaluating the operator. Only data entries the operator is not applicable to are added to the results.
+     */
+    private static class WindowedConstraint implements IConstraint {
+
+        private final IConstraint constraint;
+
+        private final ValueCombinations valueCombinations;
+
+        private final CompiledTerm compiledOperator;
+
+        private final WindowAggregate<?> aggregate;
+
+        private WindowedConstraint(IConstraint constraint, WindowedOperator<?> operator, WindowAggregate<?> aggregate) {
+            this.constraint = constraint;
+            this.valueCombinations = new ValueCombinations(operator.findInvolvedVariables());
+            // The values the operator is applied to are only read, so the state in the context is never committed.
+            this.compiledOperator = new CompiledTerm(operator, valueCombinations.getVariables(), new EvaluationContext());
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public ConstraintConstruct derivedFrom() {
+            return constraint.derivedFrom();
+        }
+
+        @Override
+        public <T> void evaluate(DataObject dao, T dataEntry, ConstraintResults<T> constraintResults) {
+            evaluate(dao, dataEntry, 1, constraintResults);
+        }
+
+        @Override
+        public <T> void evaluate(DataObject dao, T dataEntry, long weight, ConstraintResults<T> constraintResults) {
+            boolean applicable = false;
+            Iterator<Node[]> combinations = valueCombinations.iterator(dao);
+            while (combinations.hasNext()) {
+                Value<?> value = compiledOperator.apply(operator -> ((WindowedOperator<?>) operator).getWindowValue(), combinations.next());
+                if(value != null){
+                    aggregate.accept(value, (int) Math.min(Integer.MAX_VALUE, weight));
+                    applicable = true;
+                }
+            }
+
+            if(!applicable){
+                constraintResults.inapplicableConstraintData().addDataEntry(dataEntry, weight);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return constraint.toString();
+        }
+    }
+}
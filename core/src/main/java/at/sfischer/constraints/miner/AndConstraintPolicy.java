@@ -26,4 +26,26 @@ public class AndConstraintPolicy implements ConstraintPolicy {
 
         return true;
     }
+
+    @Override
+    public boolean isRejectionFinal(ConstraintResults<?> results) {
+        for (ConstraintPolicy policy : policies) {
+            if(policy.isRejectionFinal(results)){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean isAcceptanceFinal(ConstraintResults<?> results) {
+        for (ConstraintPolicy policy : policies) {
+            if(!policy.isAcceptanceFinal(results)){
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
@@ -5,4 +5,31 @@ import at.sfischer.constraints.ConstraintResults;
 public interface ConstraintPolicy {
 
     boolean includeConstraint(ConstraintResults<?> results);
+
+    /**
+     * Tells whether the decision not to include the constraint is made on the given results, so evaluating it on more
+     * data is not needed. Policies with a fixed criterion only decide this if the criterion holds for any additional
+     * results. Policies that decide sequentially, like {@link SequentialTestPolicy}, decide this as soon as the
+     * evidence suffices, even though enough additional results could change their mind. Constraints retired this way
+     * keep the decision made at that point (see
+     * {@link at.sfischer.constraints.data.EvaluationResults#includeConstraint(ConstraintResults, ConstraintPolicy)}).
+     *
+     * @param results the results of the constraint so far.
+     * @return true if the constraint is not included on these results, and need not be evaluated any further.
+     */
+    default boolean isRejectionFinal(ConstraintResults<?> results) {
+        return false;
+    }
+
+    /**
+     * Tells whether the decision to include the constraint is made on the given results, so evaluating it on more
+     * data is not needed. The same as for {@link #isRejectionFinal(ConstraintResults)}, sequential policies may
+     * decide this although enough additional violations could change their mind.
+     *
+     * @param results the results of the constraint so far.
+     * @return true if the constraint is included on these results, and need not be evaluated any further.
+     */
+    default boolean isAcceptanceFinal(ConstraintResults<?> results) {
+        return false;
+    }
 }
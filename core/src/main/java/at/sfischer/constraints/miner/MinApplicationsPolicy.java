@@ -14,4 +14,10 @@ public class MinApplicationsPolicy implements ConstraintPolicy {
     public boolean includeConstraint(ConstraintResults<?> results) {
         return results.numberOfValidDataEntries() >= minNumberOfValidData;
     }
+
+    @Override
+    public boolean isAcceptanceFinal(ConstraintResults<?> results) {
+        // Valid data entries are never removed from the results.
+        return includeConstraint(results);
+    }
 }
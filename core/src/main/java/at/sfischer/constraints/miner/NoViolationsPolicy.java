@@ -8,4 +8,10 @@ public class NoViolationsPolicy implements ConstraintPolicy {
     public boolean includeConstraint(ConstraintResults<?> results) {
         return !results.foundCounterExample();
     }
+
+    @Override
+    public boolean isRejectionFinal(ConstraintResults<?> results) {
+        // Violations are never removed from the results.
+        return results.foundCounterExample();
+    }
 }
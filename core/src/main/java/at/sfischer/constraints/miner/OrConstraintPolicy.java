@@ -26,4 +26,26 @@ public class OrConstraintPolicy implements ConstraintPolicy {
 
         return false;
     }
+
+    @Override
+    public boolean isRejectionFinal(ConstraintResults<?> results) {
+        for (ConstraintPolicy policy : policies) {
+            if(!policy.isRejectionFinal(results)){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isAcceptanceFinal(ConstraintResults<?> results) {
+        for (ConstraintPolicy policy : policies) {
+            if(policy.isAcceptanceFinal(results)){
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
@@ -0,0 +1,118 @@
+package at.sfischer.constraints.miner;
+
+import at.sfischer.constraints.ConstraintResults;
+
+/**
+ * Includes constraints based on a sequential probability ratio test on their violations.
+ * <p>
+ * The data entries a constraint is applicable to are treated as trials that violate the constraint with an unknown
+ * rate. The test decides between the hypothesis that the violation rate is at most the acceptable rate and the
+ * hypothesis that it is at least the unacceptable rate, with the given confidence for both decisions. A decision is
+ * made as soon as the evidence suffices. Constraints for which the data did not suffice to decide are not included.
+ * <p>
+ * The decision is only final in the sense of a sequential test: evaluating the constraint on further data could
+ * cross the other bound again. Evaluation results that retire decided candidates stop evaluating the constraint
+ * once a bound is crossed, and keep the decision made there.
+ */
+public class SequentialTestPolicy implements ConstraintPolicy {
+
+    private final double acceptableViolationRate;
+
+    private final double unacceptableViolationRate;
+
+    private final double confidence;
+
+    private final double acceptanceBound;
+
+    private final double rejectionBound;
+
+    /**
+     * Creates a test that tolerates the given violation rate. Twice the tolerance, but at least one percent more, is
+     * considered unacceptable.
+     *
+     * @param violationTolerance the violation rate that is acceptable, in [0, 1).
+     * @param confidence         the probability of making the right decision, in (0.5, 1).
+     */
+    public SequentialTestPolicy(double violationTolerance, double confidence) {
+        this(violationTolerance, Math.min(1.0, Math.max(2 * violationTolerance, violationTolerance + 0.01)), confidence);
+    }
+
+    /**
+     * @param acceptableViolationRate   the violation rate up to which a constraint is included, in [0, 1).
+     * @param unacceptableViolationRate the violation rate from which a constraint is not included, in
+     *                                  (acceptableViolationRate, 1].
+     * @param confidence                the probability of making the right decision, in (0.5, 1).
+     */
+    public SequentialTestPolicy(double acceptableViolationRate, double unacceptableViolationRate, double confidence) {
+        if(acceptableViolationRate < 0 || acceptableViolationRate >= 1){
+            throw new IllegalArgumentException("The acceptable violation rate must be in [0, 1), but was " + acceptableViolationRate + ".");
+        }
+        if(unacceptableViolationRate <= acceptableViolationRate || unacceptableViolationRate > 1){
+            throw new IllegalArgumentException("The unacceptable violation rate must be in (" + acceptableViolationRate + ", 1], but was " + unacceptableViolationRate + ".");
+        }
+        if(confidence <= 0.5 || confidence >= 1){
+            throw new IllegalArgumentException("The confidence must be in (0.5, 1), but was " + confidence + ".");
+        }
+
+        this.acceptableViolationRate = acceptableViolationRate;
+        this.unacceptableViolationRate = unacceptableViolationRate;
+        this.confidence = confidence;
+
+        double error = 1.0 - confidence;
+        this.acceptanceBound = Math.log(error / confidence);
+        this.rejectionBound = Math.log(confidence / error);
+    }
+
+    public double getAcceptableViolationRate() {
+        return acceptableViolationRate;
+    }
+
+    public double getUnacceptableViolationRate() {
+        return unacceptableViolationRate;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    public boolean includeConstraint(ConstraintResults<?> results) {
+        return isAcceptanceFinal(results);
+    }
+
+    @Override
+    public boolean isAcceptanceFinal(ConstraintResults<?> results) {
+        return logLikelihoodRatio(results) <= acceptanceBound;
+    }
+
+    @Override
+    public boolean isRejectionFinal(ConstraintResults<?> results) {
+        return logLikelihoodRatio(results) >= rejectionBound;
+    }
+
+    /**
+     * @return the log-likelihood ratio of the violations observed so far, under the unacceptable against the
+     * acceptable violation rate.
+     */
+    private double logLikelihoodRatio(ConstraintResults<?> results) {
+        int violations = results.numberOfViolations();
+        int validEntries = results.numberOfValidDataEntries();
+
+        double ratio = 0.0;
+        if(violations > 0){
+            if(acceptableViolationRate == 0.0){
+                // A single violation rules out a violation rate of zero.
+                return Double.POSITIVE_INFINITY;
+            }
+            ratio += violations * Math.log(unacceptableViolationRate / acceptableViolationRate);
+        }
+        if(validEntries > 0){
+            if(unacceptableViolationRate == 1.0){
+                return Double.NEGATIVE_INFINITY;
+            }
+            ratio += validEntries * Math.log((1.0 - unacceptableViolationRate) / (1.0 - acceptableViolationRate));
+        }
+
+        return ratio;
+    }
+}
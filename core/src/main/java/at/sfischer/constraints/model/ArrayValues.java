@@ -45,8 +45,8 @@ public class ArrayValues<T extends Value<?>> extends Value<T[]> {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ArrayValues<?> that = (ArrayValues<?>) o;
+        // Arrays backed by primitives are equal to arrays of the same literals.
+        if (!(o instanceof ArrayValues<?> that)) return false;
         if(!Objects.equals(elementType, that.elementType)) return false;
         return Arrays.deepEquals(this.getValue(), that.getValue());
     }
@@ -0,0 +1,552 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.operators.Accumulator;
+import at.sfischer.constraints.model.operators.Function;
+import at.sfischer.constraints.model.operators.Operator;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+import at.sfischer.constraints.model.validation.ValidationContext;
+
+import java.util.*;
+
+/**
+ * A term prepared for repeated evaluation with different variable values.
+ * <p>
+ * Instead of creating a new tree via {@link Node#setVariableValues(Map)} for every value combination, the variables of
+ * the term are replaced once by slots. Values are bound to the slots by index (see {@link #getVariables()}) and the
+ * operands the operators replace during evaluation are restored afterward, so the same tree can be evaluated again.
+ * State kept by stateful operators is kept by the given {@link EvaluationContext}. Without a context, each evaluation
+ * uses a context of its own, which is committed to the original term afterward, so compiled terms of the same term can
+ * be evaluated by several threads.
+ * The functions of the tree are prepared (see {@link Function#prepare()}), so what they derive from literal arguments is
+ * reused across evaluations. If the context memoizes predicates (see {@link EvaluationContext#memoizePredicates()}),
+ * boolean functions on a single variable are evaluated once per value of the variable.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class CompiledTerm {
+
+    private final Node term;
+
+    private final Variable[] variables;
+
+    private final Slot[] slots;
+
+    private final EvaluationContext context;
+
+    private final Map<List<Type>, Program> programs;
+
+    private Program current;
+
+    public CompiledTerm(Node term) {
+        this(term, term.findInvolvedVariables());
+    }
+
+    public CompiledTerm(Node term, EvaluationContext context) {
+        this(term, term.findInvolvedVariables(), context);
+    }
+
+    public CompiledTerm(Node term, Collection<Variable> variables) {
+        this(term, variables, null);
+    }
+
+    public CompiledTerm(Node term, Collection<Variable> variables, EvaluationContext context) {
+        this.term = term;
+        this.context = context;
+        this.variables = variables.toArray(new Variable[0]);
+        this.slots = new Slot[this.variables.length];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = new Slot(this.variables[i]);
+        }
+        this.programs = new HashMap<>();
+    }
+
+    public Node getTerm() {
+        return term;
+    }
+
+    public List<Variable> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    public int indexOf(Variable variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if(variables[i].equals(variable)){
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Evaluates the term with the given values.
+     *
+     * @param bindings the values of the variables, in the order of {@link #getVariables()}. A {@code null} entry leaves the variable unset.
+     * @return the result of the evaluation, like {@link Node#evaluate()} on a term with the values set.
+     */
+    public Node evaluate(Node... bindings) {
+        return apply(Node::evaluate, bindings);
+    }
+
+    /**
+     * Applies the given function to the term with the given values, e.g., to read a value the term is applied to
+     * instead of evaluating it.
+     *
+     * @param bindings the values of the variables, like for {@link #evaluate(Node...)}.
+     * @return the result of the function.
+     */
+    public <R> R apply(java.util.function.Function<Node, R> function, Node... bindings) {
+        if(bindings.length != slots.length){
+            throw new IllegalArgumentException("Expected " + slots.length + " values, but got " + bindings.length + ".");
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].value = bindings[i];
+        }
+
+        try {
+            Program program = program();
+            EvaluationContext evaluationContext = context == null && program.accumulators.length > 0 ? new EvaluationContext() : null;
+            if(evaluationContext != null){
+                program.useContext(evaluationContext);
+            }
+            try {
+                return function.apply(program.root);
+            } finally {
+                program.restore();
+                if(evaluationContext != null){
+                    evaluationContext.commit();
+                }
+            }
+        } finally {
+            for (Slot slot : slots) {
+                slot.value = null;
+            }
+        }
+    }
+
+    public Node evaluate(Map<Variable, Node> values) {
+        Node[] bindings = new Node[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            bindings[i] = values.get(variables[i]);
+        }
+
+        return evaluate(bindings);
+    }
+
+    private Program program() {
+        // Some operators capture the types of their operands on creation, so a tree is built per combination of value types.
+        if(current != null && current.matches(slots)){
+            return current;
+        }
+
+        List<Type> types = new ArrayList<>(slots.length);
+        for (Slot slot : slots) {
+            types.add(slot.getReturnType());
+        }
+
+        current = programs.computeIfAbsent(types, k -> {
+            Map<Variable, Slot> slotValues = new HashMap<>();
+            for (int i = 0; i < variables.length; i++) {
+                slotValues.put(variables[i], slots[i]);
+            }
+
+            Node root = term.setVariableValues(new HashMap<>(slotValues));
+            if(context != null && context.getPredicateResults() != null){
+                root = memoizePredicates(term, root, context.getPredicateResults());
+            }
+            if(context != null){
+                shareSubterms(term, root, context.getSharedSubterms(), slotValues);
+            }
+
+            return new Program(root, k, context);
+        });
+
+        return current;
+    }
+
+    /**
+     * Replaces the operands of the given tree that are shared with other terms by nodes that evaluate them only once
+     * per data entry. The tree was created from the original term, so both have the same structure.
+     */
+    private static void shareSubterms(Node original, Node node, SharedSubterms sharedSubterms, Map<Variable, Slot> slots) {
+        if(!(original instanceof Operator originalOperator) || !(node instanceof Operator operator) || original.getClass() != node.getClass()){
+            return;
+        }
+
+        List<Node> originalOperands = originalOperator.getOperands();
+        List<Node> operands = new ArrayList<>(operator.getOperands());
+        if(originalOperands.size() != operands.size()){
+            return;
+        }
+
+        boolean shared = false;
+        for (int i = 0; i < operands.size(); i++) {
+            SharedSubterms.Subterm subterm = sharedSubterms.get(originalOperands.get(i));
+            if(subterm != null && slots.keySet().containsAll(subterm.getVariables())){
+                Slot[] subtermSlots = new Slot[subterm.getVariables().size()];
+                for (int j = 0; j < subtermSlots.length; j++) {
+                    subtermSlots[j] = slots.get(subterm.getVariables().get(j));
+                }
+                operands.set(i, new SharedNode(operands.get(i), subterm, subtermSlots, sharedSubterms));
+                shared = true;
+            }
+
+            shareSubterms(originalOperands.get(i), operator.getOperands().get(i), sharedSubterms, slots);
+        }
+
+        if(shared){
+            operator.setOperands(operands);
+        }
+    }
+
+    /**
+     * Replaces the boolean functions on a single variable in the given tree by nodes that look up their results by the
+     * value of the variable. The tree was created from the original term, so both have the same structure.
+     *
+     * @return the given node, or the node that memoizes its results.
+     */
+    private static Node memoizePredicates(Node original, Node node, PredicateResults predicateResults) {
+        if(!(original instanceof Operator originalOperator) || !(node instanceof Operator operator) || original.getClass() != node.getClass()){
+            return node;
+        }
+
+        List<Node> originalOperands = originalOperator.getOperands();
+        List<Node> operands = new ArrayList<>(operator.getOperands());
+        if(originalOperands.size() != operands.size()){
+            return node;
+        }
+
+        Slot slot = predicateSlot(originalOperator, operands);
+        if(slot != null){
+            return new MemoizedNode(node, slot, predicateResults.resultsOf(original), predicateResults);
+        }
+
+        boolean memoized = false;
+        for (int i = 0; i < operands.size(); i++) {
+            Node operand = memoizePredicates(originalOperands.get(i), operands.get(i), predicateResults);
+            if(operand != operands.get(i)){
+                operands.set(i, operand);
+                memoized = true;
+            }
+        }
+
+        if(memoized){
+            operator.setOperands(operands);
+        }
+
+        return node;
+    }
+
+    /**
+     * @return the slot of the only variable of a stateless boolean function whose other operands are values, or
+     * {@code null} if the original operator is not such a function.
+     */
+    private static Slot predicateSlot(Operator original, List<Node> operands) {
+        if(!(original instanceof Function) || original instanceof StatefulOperator<?> || !TypeEnum.BOOLEAN.equals(original.getReturnType())){
+            return null;
+        }
+
+        Slot slot = null;
+        List<Node> originalOperands = original.getOperands();
+        for (int i = 0; i < originalOperands.size(); i++) {
+            Node operand = originalOperands.get(i);
+            if(operand instanceof Variable){
+                // Variables that are not bound to slots, e.g., elements of quantifiers, change within the evaluation.
+                if(slot != null || !(operands.get(i) instanceof Slot variableSlot)){
+                    return null;
+                }
+                slot = variableSlot;
+            } else if(!(operand instanceof Value<?>)){
+                return null;
+            }
+        }
+
+        return slot;
+    }
+
+    private static class Program {
+
+        private final Node root;
+
+        private final Type[] types;
+
+        private final Operator[] operators;
+
+        private final List<List<Node>> operands;
+
+        /**
+         * The stateful operators of the tree with the accumulators of the original term.
+         */
+        private final AccumulatorBinding<?>[] accumulators;
+
+        private Program(Node root, List<Type> types, EvaluationContext context) {
+            this.root = root;
+            this.types = types.toArray(new Type[0]);
+
+            List<Operator> operators = new ArrayList<>();
+            this.operands = new ArrayList<>();
+            collectOperators(root, operators, Collections.newSetFromMap(new IdentityHashMap<>()));
+            this.operators = operators.toArray(new Operator[0]);
+            List<AccumulatorBinding<?>> accumulators = new ArrayList<>();
+            for (Operator operator : this.operators) {
+                if(operator instanceof StatefulOperator<?> statefulOperator){
+                    accumulators.add(AccumulatorBinding.of(statefulOperator));
+                }
+                if(operator instanceof Function function){
+                    function.prepare();
+                }
+            }
+            this.accumulators = accumulators.toArray(new AccumulatorBinding<?>[0]);
+            if(context != null){
+                useContext(context);
+            }
+        }
+
+        private void useContext(EvaluationContext context) {
+            for (AccumulatorBinding<?> accumulator : accumulators) {
+                accumulator.useContext(context);
+            }
+        }
+
+        private void collectOperators(Node node, List<Operator> operators, Set<Node> visited) {
+            if(node instanceof SharedNode sharedNode){
+                collectOperators(sharedNode.subterm, operators, visited);
+                return;
+            }
+            if(node instanceof MemoizedNode memoizedNode){
+                collectOperators(memoizedNode.predicate, operators, visited);
+                return;
+            }
+            if(!(node instanceof Operator operator) || !visited.add(node)){
+                return;
+            }
+
+            List<Node> nodeOperands = operator.getOperands();
+            operators.add(operator);
+            operands.add(nodeOperands);
+            for (Node operand : nodeOperands) {
+                collectOperators(operand, operators, visited);
+            }
+        }
+
+        private boolean matches(Slot[] slots) {
+            for (int i = 0; i < slots.length; i++) {
+                if(!types[i].equals(slots[i].getReturnType())){
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void restore() {
+            for (int i = 0; i < operators.length; i++) {
+                operators[i].setOperands(operands.get(i));
+            }
+        }
+    }
+
+    private record AccumulatorBinding<A extends Accumulator<A>>(StatefulOperator<A> operator, A accumulator) {
+
+        private static <A extends Accumulator<A>> AccumulatorBinding<A> of(StatefulOperator<A> operator) {
+            return new AccumulatorBinding<>(operator, operator.getAccumulator());
+        }
+
+        private void useContext(EvaluationContext context) {
+            operator.setAccumulator(context.getAccumulator(accumulator));
+        }
+    }
+
+    /**
+     * Subterm shared with other terms, the result is looked up by the values of its variables before it is evaluated.
+     */
+    private static class SharedNode implements Node {
+
+        private final Node subterm;
+
+        private final SharedSubterms.Subterm shared;
+
+        private final Slot[] slots;
+
+        private final SharedSubterms sharedSubterms;
+
+        private final Node[] values;
+
+        private SharedNode(Node subterm, SharedSubterms.Subterm shared, Slot[] slots, SharedSubterms sharedSubterms) {
+            this.subterm = subterm;
+            this.shared = shared;
+            this.slots = slots;
+            this.sharedSubterms = sharedSubterms;
+            this.values = new Node[slots.length];
+        }
+
+        @Override
+        public Type getReturnType() {
+            return subterm.getReturnType();
+        }
+
+        @Override
+        public Node evaluate() {
+            for (int i = 0; i < slots.length; i++) {
+                values[i] = slots[i].value;
+            }
+
+            Node result = sharedSubterms.getResult(shared, values);
+            if(result == null){
+                result = subterm.evaluate();
+                // Only values are independent of the tree they were computed in.
+                if(result instanceof Value<?>){
+                    sharedSubterms.putResult(shared, values, result);
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public void validate(ValidationContext context) {
+            subterm.validate(context);
+        }
+
+        @Override
+        public List<Node> getChildren() {
+            return List.of(subterm);
+        }
+
+        @Override
+        public Node setVariableValues(Map<Variable, Node> values) {
+            // The subterm is bound to the slots, e.g., when a quantifier sets the element of its condition.
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return subterm.toString();
+        }
+    }
+
+    /**
+     * Boolean function on a single variable, the result is looked up by the value of the variable before it is evaluated.
+     */
+    private static class MemoizedNode implements Node {
+
+        private final Node predicate;
+
+        private final Slot slot;
+
+        private final PredicateResults.Results results;
+
+        private final PredicateResults predicateResults;
+
+        private MemoizedNode(Node predicate, Slot slot, PredicateResults.Results results, PredicateResults predicateResults) {
+            this.predicate = predicate;
+            this.slot = slot;
+            this.results = results;
+            this.predicateResults = predicateResults;
+        }
+
+        @Override
+        public Type getReturnType() {
+            return predicate.getReturnType();
+        }
+
+        @Override
+        public Node evaluate() {
+            // Arrays can be changed and are hashed by all their elements, so they are not memoized.
+            if(results.isOverflowed() || !(slot.value instanceof Value<?> value) || value instanceof ArrayValues<?>){
+                return predicate.evaluate();
+            }
+
+            Node result = results.get(value);
+            if(result == null){
+                result = predicate.evaluate();
+                // Only values are independent of the tree they were computed in.
+                if(result instanceof Value<?>){
+                    predicateResults.putResult(results, value, result);
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public void validate(ValidationContext context) {
+            predicate.validate(context);
+        }
+
+        @Override
+        public List<Node> getChildren() {
+            return List.of(predicate);
+        }
+
+        @Override
+        public Node setVariableValues(Map<Variable, Node> values) {
+            // The predicate only depends on the slot, e.g., when a quantifier sets the element of its condition.
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return predicate.toString();
+        }
+    }
+
+    private static class Slot implements Node {
+
+        private final Variable variable;
+
+        private Node value;
+
+        private Slot(Variable variable) {
+            this.variable = variable;
+        }
+
+        @Override
+        public Type getReturnType() {
+            if(value != null){
+                return value.getReturnType();
+            }
+
+            return variable.getReturnType();
+        }
+
+        @Override
+        public Node evaluate() {
+            if(value != null){
+                return value.evaluate();
+            }
+
+            return variable;
+        }
+
+        @Override
+        public void validate(ValidationContext context) {
+            if(value != null){
+                value.validate(context);
+            } else {
+                variable.validate(context);
+            }
+        }
+
+        @Override
+        public List<Node> getChildren() {
+            return null;
+        }
+
+        @Override
+        public Node setVariableValues(Map<Variable, Node> values) {
+            // Slots stay in place, values are bound through the compiled term.
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            if(value != null){
+                return value.toString();
+            }
+
+            return variable.toString();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.operators.Accumulator;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the state of stateful operators while data is evaluated, instead of updating the terms directly.
+ * <p>
+ * Terms compiled with a context (see {@link CompiledTerm#CompiledTerm(Node, EvaluationContext)}) update working copies
+ * of the accumulators of their stateful operators. Contexts used to evaluate separate parts of the data can be merged,
+ * a {@link #continuation()} evaluates the following data starting from the state collected so far, and
+ * {@link #commit()} finally writes the collected state back to the terms.
+ * <p>
+ * Instances are not thread-safe, each thread should use its own context. Contexts of different threads can share
+ * terms, committing to and copying from their accumulators is synchronized.
+ */
+public class EvaluationContext {
+
+    private final Map<Accumulator<?>, Entry<?>> entries = new IdentityHashMap<>();
+
+    /**
+     * Number of values per predicate whose results are kept by {@link #memoizePredicates()}.
+     */
+    public static final int DEFAULT_MEMOIZED_VALUES = 4096;
+
+    private final SharedSubterms sharedSubterms = new SharedSubterms();
+
+    private PredicateResults predicateResults;
+
+    /**
+     * The weight of the data entry that is evaluated, which the accumulators observe its values with.
+     */
+    private int weight = 1;
+
+    public <A extends Accumulator<A>> A getAccumulator(StatefulOperator<A> operator) {
+        return getAccumulator(operator.getAccumulator());
+    }
+
+    /**
+     * @param accumulator the accumulator of a term.
+     * @return the working copy of the accumulator that keeps the state collected by this context.
+     */
+    public <A extends Accumulator<A>> A getAccumulator(A accumulator) {
+        return entry(accumulator).working;
+    }
+
+    /**
+     * Registers the subterms of a term, so that subterms it has in common with other registered terms are evaluated only
+     * once per data entry by the terms compiled with this context. Terms have to be registered before they are evaluated.
+     *
+     * @param term the term to register.
+     */
+    public void shareSubterms(Node term) {
+        sharedSubterms.register(term);
+    }
+
+    /**
+     * Signals that the following evaluations are on the given data entry, results of shared subterms computed for
+     * another data entry are discarded.
+     *
+     * @param dataEntry the data entry that is evaluated.
+     */
+    public void beginDataEntry(Object dataEntry) {
+        sharedSubterms.beginDataEntry(dataEntry);
+    }
+
+    /**
+     * Signals that the following evaluations are on the given data entry, which stands for the given number of equal
+     * data entries, e.g., in a {@link at.sfischer.constraints.data.WeightedDataCollection}. The accumulators observe
+     * its values with that weight (see {@link Accumulator#setWeight(int)}).
+     *
+     * @param dataEntry the data entry that is evaluated.
+     * @param weight    the positive weight of the data entry.
+     */
+    public void beginDataEntry(Object dataEntry, long weight) {
+        beginDataEntry(dataEntry);
+        int w = (int) Math.min(Integer.MAX_VALUE, weight);
+        if(w == this.weight){
+            return;
+        }
+
+        this.weight = w;
+        for (Entry<?> entry : entries.values()) {
+            entry.working.setWeight(w);
+        }
+    }
+
+    SharedSubterms getSharedSubterms() {
+        return sharedSubterms;
+    }
+
+    /**
+     * Memoizes the results of boolean functions on a single variable, e.g., {@link at.sfischer.constraints.model.operators.strings.IsEmail},
+     * per value of the variable, so that they are evaluated once per distinct value instead of once per data entry.
+     * The results of at most {@link #DEFAULT_MEMOIZED_VALUES} values are kept per function, functions that are applied
+     * to more values are no longer memoized.
+     */
+    public void memoizePredicates() {
+        memoizePredicates(DEFAULT_MEMOIZED_VALUES);
+    }
+
+    /**
+     * Memoizes the results of boolean functions on a single variable per value of the variable. Terms compiled with
+     * this context before are not affected.
+     *
+     * @param maximumValues the maximum number of values whose results are kept per function, functions that are applied
+     *                      to more values are no longer memoized.
+     */
+    public void memoizePredicates(int maximumValues) {
+        if(maximumValues < 0){
+            throw new IllegalArgumentException("The maximum number of values must not be negative, but was " + maximumValues + ".");
+        }
+
+        this.predicateResults = new PredicateResults(maximumValues);
+    }
+
+    PredicateResults getPredicateResults() {
+        return predicateResults;
+    }
+
+    /**
+     * Merges the state collected by another context into this context.
+     *
+     * @param context the context to merge, it must not be used afterward.
+     * @return true if all the state of the other context was merged, false if some of it had to be dropped (see
+     * {@link Accumulator#merge(Accumulator, Accumulator)}).
+     */
+    public boolean merge(EvaluationContext context) {
+        boolean merged = true;
+        for (Entry<?> entry : context.entries.values()) {
+            merged &= merge(entry);
+        }
+
+        return merged;
+    }
+
+    private <A extends Accumulator<A>> boolean merge(Entry<A> other) {
+        Entry<A> entry = entry(other.target);
+        return entry.working.merge(other.working, other.base);
+    }
+
+    /**
+     * Creates a context that starts from the state collected by this context, e.g., to evaluate the data following the
+     * data evaluated with this context. Committing it writes only the state it collects itself back to the terms.
+     * Subterms and memoized predicates are not shared with the new context.
+     *
+     * @return the new context.
+     */
+    public EvaluationContext continuation() {
+        EvaluationContext continuation = new EvaluationContext();
+        for (Entry<?> entry : entries.values()) {
+            continuation.entries.put(entry.target, entry.continuation());
+        }
+
+        return continuation;
+    }
+
+    /**
+     * Writes the collected state back to the accumulators of the terms and resets this context.
+     *
+     * @return true if all the collected state was written back, false if some of it had to be dropped (see
+     * {@link Accumulator#merge(Accumulator, Accumulator)}).
+     */
+    public boolean commit() {
+        boolean committed = true;
+        for (Entry<?> entry : entries.values()) {
+            committed &= entry.commit();
+        }
+        entries.clear();
+        sharedSubterms.clearResults();
+
+        return committed;
+    }
+
+    // Entries are keyed by their target, so the entry of a target of type A is an Entry<A>.
+    @SuppressWarnings("unchecked")
+    private <A extends Accumulator<A>> Entry<A> entry(A target) {
+        return (Entry<A>) entries.computeIfAbsent(target, k -> {
+            Entry<A> entry = new Entry<>(target);
+            entry.working.setWeight(weight);
+            return entry;
+        });
+    }
+
+    private static class Entry<A extends Accumulator<A>> {
+
+        private final A target;
+
+        private final A base;
+
+        private final A working;
+
+        private Entry(A target) {
+            this(target, target);
+        }
+
+        private Entry(A target, A start) {
+            this.target = target;
+            // The target may be committed to by other contexts concurrently.
+            synchronized (start) {
+                this.base = start.copy();
+                this.working = start.copy();
+            }
+        }
+
+        private Entry<A> continuation() {
+            return new Entry<>(target, working);
+        }
+
+        private boolean commit() {
+            synchronized (target) {
+                return target.merge(working, base);
+            }
+        }
+    }
+}
@@ -16,6 +16,10 @@ public class IntegerLiteral extends NumberLiteral {
         return new IntegerLiteral((Integer)value);
     }
 
+    public int intValue() {
+        return (int) doubleValue();
+    }
+
     @Override
     public Integer getValue() {
         return (Integer)super.getValue();
@@ -2,8 +2,24 @@ package at.sfischer.constraints.model;
 
 public class NumberLiteral extends Value<Number> {
 
+    /**
+     * The value as primitive, so comparisons and arithmetic do not have to unbox it.
+     */
+    private double doubleValue;
+
     public NumberLiteral(Number value) {
         super(value);
+        this.doubleValue = value == null ? Double.NaN : value.doubleValue();
+    }
+
+    @Override
+    public void setValue(Number value) {
+        super.setValue(value);
+        this.doubleValue = value == null ? Double.NaN : value.doubleValue();
+    }
+
+    public double doubleValue() {
+        return doubleValue;
     }
 
     @Override
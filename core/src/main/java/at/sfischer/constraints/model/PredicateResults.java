@@ -0,0 +1,63 @@
+package at.sfischer.constraints.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Results of predicates on a single variable, per value of the variable, that are kept while data is evaluated with the
+ * same {@link EvaluationContext}.
+ * <p>
+ * Only functions without stateful operators are memoized, so their result only depends on the value. Data often has
+ * few distinct values per field, e.g., dictionary encoded strings, so most results are looked up instead of evaluated.
+ * The number of values per predicate is bounded. A predicate that is applied to more values, e.g., on a field with
+ * unique values, would mostly look up values that are not kept, so its results are dropped and it is no longer memoized.
+ */
+class PredicateResults {
+
+    private final int maximumValues;
+
+    private final Map<Node, Results> results = new HashMap<>();
+
+    PredicateResults(int maximumValues) {
+        this.maximumValues = maximumValues;
+    }
+
+    /**
+     * @param predicate the predicate of a term, with the variable not set.
+     * @return the results of the predicate, shared by all terms with an equal predicate.
+     */
+    Results resultsOf(Node predicate) {
+        return results.computeIfAbsent(predicate, k -> new Results());
+    }
+
+    void putResult(Results results, Value<?> value, Node result) {
+        if(results.values.size() < maximumValues){
+            results.values.put(value, result);
+            return;
+        }
+
+        results.values.clear();
+        results.overflowed = true;
+    }
+
+    static final class Results {
+
+        private final Map<Value<?>, Node> values = new HashMap<>();
+
+        private boolean overflowed;
+
+        /**
+         * @return the result for the given value, or null if it is not kept.
+         */
+        Node get(Value<?> value) {
+            return values.get(value);
+        }
+
+        /**
+         * @return true if the predicate was applied to more values than are kept, so it is no longer memoized.
+         */
+        boolean isOverflowed() {
+            return overflowed;
+        }
+    }
+}
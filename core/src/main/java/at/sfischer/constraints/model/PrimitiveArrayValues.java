@@ -0,0 +1,240 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.validation.ValidationContext;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Array of integers, numbers or booleans that is backed by a primitive array.
+ * <p>
+ * The literals of the elements are only created when they are accessed, e.g., by {@link #getValue()}. Operators that
+ * only need the numbers, e.g., {@link at.sfischer.constraints.model.operators.array.Sum}, read the primitive values
+ * instead. It is equal to an {@link ArrayValues} with the same elements.
+ *
+ * @param <T> the type of the literals of the elements.
+ */
+public class PrimitiveArrayValues<T extends Value<?>> extends ArrayValues<T> {
+
+    private long[] longs;
+
+    private double[] doubles;
+
+    private boolean[] booleans;
+
+    private PrimitiveArrayValues(Type elementType, long[] longs, double[] doubles, boolean[] booleans) {
+        super(elementType, null);
+        this.longs = longs;
+        this.doubles = doubles;
+        this.booleans = booleans;
+    }
+
+    /**
+     * @param values the integers, in the range of {@link IntegerLiteral}s.
+     */
+    public static PrimitiveArrayValues<IntegerLiteral> ofIntegers(long[] values) {
+        return new PrimitiveArrayValues<>(TypeEnum.INTEGER, values, null, null);
+    }
+
+    public static PrimitiveArrayValues<NumberLiteral> ofNumbers(double[] values) {
+        return new PrimitiveArrayValues<>(TypeEnum.NUMBER, null, values, null);
+    }
+
+    public static PrimitiveArrayValues<BooleanLiteral> ofBooleans(boolean[] values) {
+        return new PrimitiveArrayValues<>(TypeEnum.BOOLEAN, null, null, values);
+    }
+
+    /**
+     * @return true if the elements are still stored as primitives, i.e., they have not been replaced.
+     */
+    public boolean isPrimitive() {
+        return longs != null || doubles != null || booleans != null;
+    }
+
+    /**
+     * @return true if the elements are stored as primitive integers or numbers.
+     */
+    public boolean isNumeric() {
+        return longs != null || doubles != null;
+    }
+
+    /**
+     * @return true if the elements are stored as primitive integers.
+     */
+    public boolean isIntegral() {
+        return longs != null;
+    }
+
+    public int length() {
+        if(longs != null){
+            return longs.length;
+        } else if(doubles != null){
+            return doubles.length;
+        } else if(booleans != null){
+            return booleans.length;
+        }
+
+        return getValue().length;
+    }
+
+    /**
+     * @return the element at the given index of an array of integers or numbers.
+     */
+    public double doubleValue(int index) {
+        if(longs != null){
+            return longs[index];
+        } else if(doubles != null){
+            return doubles[index];
+        }
+
+        throw new IllegalStateException("The elements are not stored as numbers.");
+    }
+
+    /**
+     * @return the element at the given index of an array of integers.
+     */
+    public long longValue(int index) {
+        if(longs != null){
+            return longs[index];
+        }
+
+        throw new IllegalStateException("The elements are not stored as integers.");
+    }
+
+    /**
+     * @return the element at the given index of an array of booleans.
+     */
+    public boolean booleanValue(int index) {
+        if(booleans != null){
+            return booleans[index];
+        }
+
+        throw new IllegalStateException("The elements are not stored as booleans.");
+    }
+
+    /**
+     * @return a copy of the elements of an array of integers or numbers.
+     */
+    public double[] toDoubleArray() {
+        if(longs != null){
+            double[] values = new double[longs.length];
+            for (int i = 0; i < longs.length; i++) {
+                values[i] = longs[i];
+            }
+            return values;
+        } else if(doubles != null){
+            return doubles.clone();
+        }
+
+        throw new IllegalStateException("The elements are not stored as numbers.");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T[] getValue() {
+        if(value == null){
+            Value<?>[] literals;
+            if(longs != null){
+                literals = new IntegerLiteral[longs.length];
+                for (int i = 0; i < longs.length; i++) {
+                    literals[i] = new IntegerLiteral((int) longs[i]);
+                }
+            } else if(doubles != null){
+                literals = new NumberLiteral[doubles.length];
+                for (int i = 0; i < doubles.length; i++) {
+                    literals[i] = new NumberLiteral(doubles[i]);
+                }
+            } else {
+                literals = new BooleanLiteral[booleans.length];
+                for (int i = 0; i < booleans.length; i++) {
+                    literals[i] = BooleanLiteral.getBooleanLiteral(booleans[i]);
+                }
+            }
+            value = (T[]) literals;
+        }
+
+        return value;
+    }
+
+    @Override
+    public void setValue(T[] value) {
+        super.setValue(value);
+        clearPrimitives();
+    }
+
+    @Override
+    public void setValue(int i, T value) {
+        getValue();
+        super.setValue(i, value);
+        clearPrimitives();
+    }
+
+    private void clearPrimitives() {
+        this.longs = null;
+        this.doubles = null;
+        this.booleans = null;
+    }
+
+    @Override
+    public void validate(ValidationContext context) {
+        if(!isPrimitive()){
+            super.validate(context);
+        }
+    }
+
+    @Override
+    public Node cloneNode() {
+        if(!isPrimitive()){
+            return super.cloneNode();
+        }
+
+        return new PrimitiveArrayValues<T>(getElementType(),
+                longs == null ? null : longs.clone(),
+                doubles == null ? null : doubles.clone(),
+                booleans == null ? null : booleans.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o instanceof PrimitiveArrayValues<?> that && this.isPrimitive() && that.isPrimitive()){
+            return getElementType().equals(that.getElementType())
+                    && Arrays.equals(longs, that.longs)
+                    && Arrays.equals(doubles, that.doubles)
+                    && Arrays.equals(booleans, that.booleans);
+        }
+
+        return super.equals(o);
+    }
+
+    /**
+     * Same hash code as the {@link ArrayValues} of the literals, without creating them.
+     */
+    @Override
+    public int hashCode() {
+        if(!isPrimitive()){
+            return super.hashCode();
+        }
+
+        int hashCode = 1;
+        for (int i = 0; i < length(); i++) {
+            int elementHashCode;
+            if(longs != null){
+                elementHashCode = Integer.hashCode((int) longs[i]);
+            } else if(doubles != null){
+                elementHashCode = Double.hashCode(doubles[i]);
+            } else {
+                elementHashCode = Boolean.hashCode(booleans[i]);
+            }
+            // Literals hash their value like Objects.hash(value).
+            hashCode = 31 * hashCode + (31 + elementHashCode);
+        }
+
+        return Objects.hash(getElementType(), hashCode);
+    }
+
+    @Override
+    public String toString() {
+        getValue();
+        return super.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.operators.Operator;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+
+import java.util.*;
+
+/**
+ * Subterms that occur multiple times in the terms evaluated with the same {@link EvaluationContext}, together with the
+ * results computed for them on the current data entry.
+ * <p>
+ * Only operators without stateful operators that depend on variables are shared, so their result only depends on the
+ * values of their variables. Results are kept per subterm and variable values until the next data entry.
+ */
+class SharedSubterms {
+
+    private final Map<Node, Subterm> subterms = new HashMap<>();
+
+    private final Map<Key, Node> results = new HashMap<>();
+
+    private Object dataEntry;
+
+    void register(Node term) {
+        if(!(term instanceof Operator operator)){
+            return;
+        }
+
+        for (Node operand : operator.getOperands()) {
+            if(isShareable(operand)){
+                subterms.computeIfAbsent(operand, k -> new Subterm(subterms.size(), List.copyOf(k.findInvolvedVariables()))).occurrences++;
+            }
+            register(operand);
+        }
+    }
+
+    private static boolean isShareable(Node node) {
+        if(!(node instanceof Operator)){
+            return false;
+        }
+
+        boolean[] stateful = {false};
+        node.visitNodes(n -> {
+            stateful[0] = stateful[0] || n instanceof StatefulOperator;
+            return !stateful[0];
+        });
+
+        return !stateful[0] && !node.findInvolvedVariables().isEmpty();
+    }
+
+    /**
+     * @param subterm the subterm of a registered term.
+     * @return the shared subterm, or {@code null} if the subterm occurs only once.
+     */
+    Subterm get(Node subterm) {
+        if(subterms.isEmpty()){
+            return null;
+        }
+
+        Subterm shared = subterms.get(subterm);
+        if(shared == null || shared.occurrences < 2){
+            return null;
+        }
+
+        return shared;
+    }
+
+    void beginDataEntry(Object dataEntry) {
+        if(this.dataEntry != dataEntry){
+            this.dataEntry = dataEntry;
+            results.clear();
+        }
+    }
+
+    Node getResult(Subterm subterm, Node[] values) {
+        return results.get(new Key(subterm.id, values));
+    }
+
+    void putResult(Subterm subterm, Node[] values, Node result) {
+        results.put(new Key(subterm.id, values.clone()), result);
+    }
+
+    void clearResults() {
+        dataEntry = null;
+        results.clear();
+    }
+
+    static class Subterm {
+
+        private final int id;
+
+        private final List<Variable> variables;
+
+        private int occurrences;
+
+        private Subterm(int id, List<Variable> variables) {
+            this.id = id;
+            this.variables = variables;
+        }
+
+        List<Variable> getVariables() {
+            return variables;
+        }
+    }
+
+    private record Key(int id, Node[] values) {
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return id == key.id && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * id + Arrays.hashCode(values);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package at.sfischer.constraints.model.operators;
+
+/**
+ * State a {@link StatefulOperator} collects while evaluating data, e.g., the options observed so far.
+ * Accumulators can be copied to evaluate data in separate contexts, e.g., per partition of the data, and be merged afterward.
+ *
+ * @param <A> the type of the accumulator.
+ */
+public interface Accumulator<A extends Accumulator<A>> {
+
+    A copy();
+
+    /**
+     * Merges the state another accumulator collected into this accumulator.
+     *
+     * @param accumulator the accumulator to merge.
+     * @param base        the state the accumulator to merge started from.
+     * @return true if all the state of the given accumulator was merged, false if some of it had to be dropped,
+     * e.g., options that did not fit anymore.
+     */
+    boolean merge(A accumulator, A base);
+
+    /**
+     * Sets the weight of the following observations, e.g., the weight of a data entry that stands for that many equal
+     * entries. Observing a value with weight n has the same effect as observing it n times in a row. Accumulators whose
+     * state does not change when the same value is observed again in a row, e.g., the options observed so far, can
+     * ignore the weight.
+     *
+     * @param weight the positive weight.
+     */
+    default void setWeight(int weight) {
+    }
+}
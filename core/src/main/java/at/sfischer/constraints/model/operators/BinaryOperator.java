@@ -5,6 +5,7 @@ import at.sfischer.constraints.model.Type;
 import at.sfischer.constraints.model.TypeEnum;
 import at.sfischer.constraints.model.validation.ValidationContext;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -27,6 +28,17 @@ public abstract class BinaryOperator implements Operator {
         return right;
     }
 
+    @Override
+    public List<Node> getOperands() {
+        return Arrays.asList(left, right);
+    }
+
+    @Override
+    public void setOperands(List<Node> operands) {
+        this.left = operands.get(0);
+        this.right = operands.get(1);
+    }
+
     @Override
     public void validate(ValidationContext context) {
         if(this.left == null || this.right == null){
@@ -3,6 +3,7 @@ package at.sfischer.constraints.model.operators;
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.validation.ValidationContext;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -77,6 +78,15 @@ public abstract class Function implements Operator {
         return Objects.hash(name, parameters);
     }
 
+    /**
+     * Prepares this function for repeated evaluation, e.g., by a {@link CompiledTerm}. Functions with literal
+     * arguments precompile what they derive from them, e.g., patterns, and reuse it in every evaluation. Functions
+     * created from this one by {@link #setVariableValues(java.util.Map)} share what was prepared. Functions that are not prepared
+     * derive it on every evaluation.
+     */
+    public void prepare() {
+    }
+
     public abstract List<Type> parameterTypes();
 
     @Override
@@ -96,6 +106,20 @@ public abstract class Function implements Operator {
         parameters.set(i, value);
     }
 
+    @Override
+    public List<Node> getOperands() {
+        return new ArrayList<>(parameters);
+    }
+
+    @Override
+    public void setOperands(List<Node> operands) {
+        for (int i = 0; i < operands.size(); i++) {
+            if(parameters.get(i) != operands.get(i)){
+                parameters.set(i, operands.get(i));
+            }
+        }
+    }
+
     protected String getStringArgument(int i){
         Node arg = getParameter(i).evaluate();
         setParameter(i, arg);
@@ -0,0 +1,148 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.ArrayValues;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Value;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class OneOfAccumulator<T extends Value<?>> implements Accumulator<OneOfAccumulator<T>> {
+
+    private final ArrayValues<T> options;
+
+    /**
+     * Lookup keys of the options (see {@link #lookupKey(Value)}), which are kept up to date by {@link #accept(Value)}.
+     */
+    private final Set<Object> lookup = new HashSet<>();
+
+    /**
+     * True if there are no options left, i.e., the options array has no free slots.
+     */
+    private boolean full;
+
+    public OneOfAccumulator(ArrayValues<T> options) {
+        this.options = options;
+        this.full = true;
+        for (T option : options.getValue()) {
+            if (option == null) {
+                this.full = false;
+            } else {
+                addLookupKey(option);
+            }
+        }
+    }
+
+    public ArrayValues<T> getOptions() {
+        return options;
+    }
+
+    /**
+     * Checks if the value is one of the options, adding it as option if there are still options left.
+     *
+     * @param value the value to check.
+     * @return true if the value is one of the options.
+     */
+    public boolean accept(T value) {
+        Object key = lookupKey(value);
+        if (key != null) {
+            // Options without a key are never the same option as values with a key.
+            if (lookup.contains(key)) {
+                return true;
+            }
+            if (full) {
+                return false;
+            }
+        }
+
+        T[] values = options.getValue();
+        for (int i = 0; i < values.length; i++) {
+            // There are still options.
+            if (values[i] == null) {
+                options.setValue(i, value);
+                addLookupKey(value);
+                full = !hasFreeSlot(options.getValue());
+                return true;
+
+            // The current value is already an option.
+            } else if (isSameOption(values[i], value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public OneOfAccumulator<T> copy() {
+        return new OneOfAccumulator<>(new ArrayValues<>(options.getElementType(), options.getValue().clone()));
+    }
+
+    @Override
+    public boolean merge(OneOfAccumulator<T> accumulator, OneOfAccumulator<T> base) {
+        // Options are merged in order, so merging the accumulators of consecutive data in order keeps the options
+        // evaluating the data sequentially would. Options that do not fit anymore are dropped.
+        boolean merged = true;
+        for (T option : accumulator.options.getValue()) {
+            if (option != null) {
+                merged &= accept(option);
+            }
+        }
+
+        return merged;
+    }
+
+    private void addLookupKey(T option) {
+        Object key = lookupKey(option);
+        if (key != null) {
+            lookup.add(key);
+        }
+    }
+
+    private static boolean hasFreeSlot(Value<?>[] values) {
+        for (Value<?> value : values) {
+            if (value == null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return a key that is equal for values that are the same option (see {@link #isSameOption(Value, Value)}), or
+     * null if the value is only compared to the options one by one, e.g., arrays.
+     */
+    private static Object lookupKey(Value<?> value) {
+        if (value instanceof NumberLiteral number) {
+            double d = number.getValue().doubleValue();
+            if (Double.isNaN(d)) {
+                return null;
+            }
+            // Equal numbers of different types, and positive and negative zero are the same option.
+            return d == 0 ? 0.0 : d;
+        }
+        if (value instanceof ArrayValues<?> || value.getValue() == null) {
+            return null;
+        }
+
+        return value;
+    }
+
+    private static boolean isSameOption(Value<?> option, Value<?> value) {
+        if (option instanceof NumberLiteral o && value instanceof NumberLiteral v) {
+            return o.getValue().doubleValue() == v.getValue().doubleValue();
+        }
+        if (option instanceof ArrayValues<?> o && value instanceof ArrayValues<?> v) {
+            return Arrays.equals(o.getValue(), v.getValue());
+        }
+
+        return option.equals(value);
+    }
+
+    @Override
+    public String toString() {
+        return "OneOfAccumulator{options: " + options + '}';
+    }
+}
@@ -8,4 +8,19 @@ import java.util.List;
 public interface Operator extends Node {
 
     List<Type> operandTypes();
+
+    /**
+     * Returns the operands currently held by this operator. In contrast to {@link #getChildren()} this includes all
+     * operands, also those an operator keeps as internal state.
+     *
+     * @return the operands of this operator.
+     */
+    List<Node> getOperands();
+
+    /**
+     * Replaces the operands of this operator, e.g., to restore operands that were replaced during evaluation.
+     *
+     * @param operands the operands in the order returned by {@link #getOperands()}.
+     */
+    void setOperands(List<Node> operands);
 }
@@ -0,0 +1,134 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.ArrayValues;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Value;
+
+import java.util.*;
+
+/**
+ * Counts how often each option occurs, as window aggregate of the one-of operators. Values are the same option under
+ * the same conditions as for {@link OneOfAccumulator}.
+ * <p>
+ * The options the operator already has stay options. The remaining options are the most frequent other values instead
+ * of the first ones, so the values that violate the constraint do not depend on the order of the data. To find them,
+ * each aggregate counts all distinct values it was applied to, so its size grows with the number of distinct values in
+ * the window.
+ */
+public class OptionMultiset implements WindowAggregate<OptionMultiset> {
+
+    private final int numberOfOptions;
+
+    private final Set<Object> fixedOptions;
+
+    private final Map<Object, Integer> counts;
+
+    private int numberOfValues;
+
+    public OptionMultiset(int numberOfOptions) {
+        this(numberOfOptions, Set.of());
+    }
+
+    /**
+     * @param options the options of the operator, with null for the options that are left.
+     */
+    public OptionMultiset(Value<?>[] options) {
+        this(options.length, fixedOptions(options));
+    }
+
+    private OptionMultiset(int numberOfOptions, Set<Object> fixedOptions) {
+        this.numberOfOptions = numberOfOptions;
+        this.fixedOptions = fixedOptions;
+        this.counts = new HashMap<>();
+    }
+
+    private static Set<Object> fixedOptions(Value<?>[] options) {
+        Set<Object> fixedOptions = new HashSet<>();
+        for (Value<?> option : options) {
+            if(option != null){
+                fixedOptions.add(key(option));
+            }
+        }
+
+        return fixedOptions;
+    }
+
+    public int getNumberOfOptions() {
+        return numberOfOptions;
+    }
+
+    @Override
+    public OptionMultiset emptyAggregate() {
+        return new OptionMultiset(numberOfOptions, fixedOptions);
+    }
+
+    @Override
+    public void accept(Value<?> value, int times) {
+        numberOfValues += times;
+        counts.merge(key(value), times, Integer::sum);
+    }
+
+    @Override
+    public void add(OptionMultiset aggregate) {
+        aggregate.counts.forEach((k, v) -> counts.merge(k, v, Integer::sum));
+        numberOfValues += aggregate.numberOfValues;
+    }
+
+    @Override
+    public void subtract(OptionMultiset aggregate) {
+        aggregate.counts.forEach((k, v) -> counts.computeIfPresent(k, (key, count) -> count > v ? count - v : null));
+        numberOfValues -= aggregate.numberOfValues;
+    }
+
+    @Override
+    public int numberOfValues() {
+        return numberOfValues;
+    }
+
+    @Override
+    public int numberOfValidValues() {
+        int freeOptions = numberOfOptions - fixedOptions.size();
+        if(fixedOptions.isEmpty() && counts.size() <= freeOptions){
+            return numberOfValues;
+        }
+
+        int validValues = 0;
+        List<Integer> frequencies = new ArrayList<>();
+        for (Map.Entry<Object, Integer> entry : counts.entrySet()) {
+            if(fixedOptions.contains(entry.getKey())){
+                validValues += entry.getValue();
+            } else {
+                frequencies.add(entry.getValue());
+            }
+        }
+
+        frequencies.sort(Comparator.reverseOrder());
+        for (int i = 0; i < freeOptions && i < frequencies.size(); i++) {
+            validValues += frequencies.get(i);
+        }
+
+        return validValues;
+    }
+
+    @Override
+    public int numberOfViolations() {
+        return numberOfValues - numberOfValidValues();
+    }
+
+    private static Object key(Value<?> value) {
+        if(value instanceof NumberLiteral number){
+            double d = number.getValue().doubleValue();
+            return d == 0 ? 0.0 : d;
+        }
+        if(value instanceof ArrayValues<?> array){
+            return Arrays.asList(array.getValue());
+        }
+
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "OptionMultiset{counts: " + counts + ", fixedOptions: " + fixedOptions + '}';
+    }
+}
@@ -0,0 +1,25 @@
+package at.sfischer.constraints.model.operators;
+
+/**
+ * Operator that keeps state between evaluations, e.g., the options observed so far. The results of such an operator
+ * depend on the order in which data is evaluated.
+ * <p>
+ * The state is kept in an {@link Accumulator}, which is shared by the terms created via
+ * {@link #setVariableValues(java.util.Map)}. Evaluating such terms directly updates the shared accumulator, so terms
+ * that are evaluated by several threads are evaluated via a {@link at.sfischer.constraints.model.CompiledTerm}, which
+ * keeps the state in an {@link at.sfischer.constraints.model.EvaluationContext}.
+ *
+ * @param <A> the type of the accumulator.
+ */
+public interface StatefulOperator<A extends Accumulator<A>> extends Operator {
+
+    A getAccumulator();
+
+    /**
+     * Lets this operator keep its state in the given accumulator. This is meant for copies of a term that are only
+     * used within one evaluation context, see {@link at.sfischer.constraints.model.EvaluationContext}.
+     *
+     * @param accumulator the accumulator to use.
+     */
+    void setAccumulator(A accumulator);
+}
@@ -2,6 +2,8 @@ package at.sfischer.constraints.model.operators;
 
 import at.sfischer.constraints.model.Node;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 public abstract class UnaryOperator implements Operator {
@@ -29,6 +31,16 @@ public abstract class UnaryOperator implements Operator {
         return operand;
     }
 
+    @Override
+    public List<Node> getOperands() {
+        return Collections.singletonList(operand);
+    }
+
+    @Override
+    public void setOperands(List<Node> operands) {
+        this.operand = operands.get(0);
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "(operand: " + operand + ")";
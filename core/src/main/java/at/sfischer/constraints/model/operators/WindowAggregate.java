@@ -0,0 +1,49 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.Value;
+
+/**
+ * Order-independent summary of the values a {@link WindowedOperator} was applied to within a window of the data, e.g.,
+ * the data of one hour. Aggregates of consecutive windows can be added up and the aggregate of an expired window can be
+ * subtracted again, so the outcome over the retained windows is known without evaluating their data again.
+ *
+ * @param <W> the type of the aggregate.
+ */
+public interface WindowAggregate<W extends WindowAggregate<W>> {
+
+    /**
+     * @return an empty aggregate for the same operator.
+     */
+    W emptyAggregate();
+
+    default void accept(Value<?> value) {
+        accept(value, 1);
+    }
+
+    /**
+     * Adds the value as often as given, e.g., the weight of a data entry that stands for that many equal entries.
+     *
+     * @param value the value to add.
+     * @param times the positive number of times to add the value.
+     */
+    void accept(Value<?> value, int times);
+
+    void add(W aggregate);
+
+    /**
+     * Removes the values of the given aggregate, which must have been added before.
+     *
+     * @param aggregate the aggregate to remove.
+     */
+    void subtract(W aggregate);
+
+    int numberOfValues();
+
+    int numberOfValidValues();
+
+    int numberOfViolations();
+
+    default int numberOfValuesMissingEvidence() {
+        return numberOfValues() - numberOfValidValues() - numberOfViolations();
+    }
+}
@@ -0,0 +1,22 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.Value;
+
+/**
+ * Stateful operator whose outcome over a window of the data can be derived from a {@link WindowAggregate} of the values
+ * it was applied to, independent of the order of the data.
+ *
+ * @param <W> the type of the aggregate.
+ */
+public interface WindowedOperator<W extends WindowAggregate<W>> extends Operator {
+
+    /**
+     * @return an empty aggregate, starting from the state of this operator.
+     */
+    W emptyWindowAggregate();
+
+    /**
+     * @return the value this operator is applied to, once its variables are set, or null if it is not applicable.
+     */
+    Value<?> getWindowValue();
+}
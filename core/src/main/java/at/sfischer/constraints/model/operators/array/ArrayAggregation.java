@@ -64,6 +64,52 @@ public abstract class ArrayAggregation extends ArrayOperation {
         }
     }
 
+    /**
+     * The keys of the elements of an array as numbers.
+     *
+     * @param values   the keys, in the order of the elements, which the kernels may reorder.
+     * @param integral true if all keys are integers.
+     */
+    protected record NumericKeys(double[] values, boolean integral) {
+    }
+
+    /**
+     * Evaluates the key selector once per element. If it selects the elements themselves, the elements are read
+     * directly, from the primitives if the array stores them.
+     *
+     * @return the keys, or null if a key cannot be resolved to a number.
+     */
+    protected static NumericKeys getNumericKeys(ArrayValues<?> arrayValues, Node keySelector) {
+        boolean element = keySelector instanceof Variable variable && ELEMENT_NAME.equals(variable.getName());
+        if(element && arrayValues instanceof PrimitiveArrayValues<?> primitive && primitive.isNumeric()){
+            // No keys are integers like no literals.
+            return new NumericKeys(primitive.toDoubleArray(), primitive.isIntegral() || primitive.length() == 0);
+        }
+
+        Value<?>[] elements = arrayValues.getValue();
+        double[] values = new double[elements.length];
+        boolean integral = true;
+        for (int i = 0; i < elements.length; i++) {
+            Node key = element ? elements[i] : keySelector
+                    .setVariableNameValue(ELEMENT_NAME, elements[i])
+                    .evaluate();
+
+            if (!(key instanceof Value<?> value)) {
+                return null;
+            }
+
+            if (value.getReturnType() == TypeEnum.NUMBER) {
+                integral = false;
+            } else if (value.getReturnType() != TypeEnum.INTEGER) {
+                return null;
+            }
+
+            values[i] = value instanceof NumberLiteral literal ? literal.doubleValue() : ((Number) value.getValue()).doubleValue();
+        }
+
+        return new NumericKeys(values, integral);
+    }
+
     protected abstract ArrayAggregation createArrayAggregation(Node array, Node keySelector, Node... parameters);
 
     @Override
@@ -23,31 +23,17 @@ public class Average extends ArrayAggregation {
             return this;
         }
 
-        Value<?>[] elements = arrayValues.getValue();
-        if (elements.length == 0) {
-            return new NumberLiteral(0);
+        NumericKeys keys = getNumericKeys(arrayValues, keySelector);
+        if (keys == null) {
+            return this;
         }
 
-        double sum = 0;
-        for (Value<?> element : elements) {
-            Node key = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, element)
-                    .evaluate();
-
-            if (!(key instanceof Value<?> value)) {
-                return this;
-            }
-
-            if (value.getReturnType() == TypeEnum.INTEGER) {
-                sum += ((Number) value.getValue()).longValue();
-            } else if (value.getReturnType() == TypeEnum.NUMBER) {
-                sum += ((Number) value.getValue()).doubleValue();
-            } else {
-                return this;
-            }
+        double[] values = keys.values();
+        if (values.length == 0) {
+            return new NumberLiteral(0);
         }
 
-        return new NumberLiteral(sum / elements.length);
+        return new NumberLiteral(NumericKernels.sum(values) / values.length);
     }
 
     @Override
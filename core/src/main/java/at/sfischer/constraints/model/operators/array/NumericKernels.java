@@ -0,0 +1,128 @@
+package at.sfischer.constraints.model.operators.array;
+
+/**
+ * Numeric computations on the keys of array elements, which are shared by the array aggregations. They work on
+ * primitive arrays and do not allocate.
+ */
+final class NumericKernels {
+
+    private NumericKernels() {
+    }
+
+    static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Computes the population variance in two passes, the mean first and then the squared differences to it. Unlike
+     * a single pass over sums of squares, this does not cancel out when the values are far from their mean.
+     *
+     * @return the variance, or 0 if there are no values.
+     */
+    static double variance(double[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+
+        double mean = sum(values) / values.length;
+        double squaredDifferences = 0;
+        for (double value : values) {
+            double difference = value - mean;
+            squaredDifferences += difference * difference;
+        }
+
+        return squaredDifferences / values.length;
+    }
+
+    /**
+     * Computes the percentile by selecting the values around its position, instead of sorting all values. The values
+     * are reordered.
+     *
+     * @param values     the values, at least one.
+     * @param percentile the percentile between 0 and 100.
+     * @return the value at the position of the percentile, interpolated linearly between the adjacent values.
+     */
+    static double percentile(double[] values, double percentile) {
+        double position = percentile / 100.0 * (values.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+        double lowerValue = select(values, lower);
+        if (lower == upper) {
+            return lowerValue;
+        }
+
+        // All values after the selected one are at least as large, the next value is the smallest of them.
+        double upperValue = values[upper];
+        for (int i = upper + 1; i < values.length; i++) {
+            if (Double.compare(values[i], upperValue) < 0) {
+                upperValue = values[i];
+            }
+        }
+
+        double fraction = position - lower;
+        return lowerValue + fraction * (upperValue - lowerValue);
+    }
+
+    /**
+     * Quickselect, which orders the values like {@link java.util.Arrays#sort(double[])} around the given index. The
+     * values are partitioned in three ways, so that many equal values do not slow it down.
+     *
+     * @return the value at the given index if the values were sorted.
+     */
+    static double select(double[] values, int index) {
+        int from = 0;
+        int to = values.length - 1;
+        while (from < to) {
+            double pivot = values[medianOfThree(values, from, (from + to) >>> 1, to)];
+            // Values in [from, less) are smaller than the pivot, values in (greater, to] are larger.
+            int less = from;
+            int greater = to;
+            int i = from;
+            while (i <= greater) {
+                int comparison = Double.compare(values[i], pivot);
+                if (comparison < 0) {
+                    swap(values, less++, i++);
+                } else if (comparison > 0) {
+                    swap(values, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+
+            if (index < less) {
+                to = less - 1;
+            } else if (index > greater) {
+                from = greater + 1;
+            } else {
+                break;
+            }
+        }
+
+        return values[index];
+    }
+
+    private static int medianOfThree(double[] values, int a, int b, int c) {
+        if (Double.compare(values[a], values[b]) < 0) {
+            if (Double.compare(values[b], values[c]) < 0) {
+                return b;
+            }
+            return Double.compare(values[a], values[c]) < 0 ? c : a;
+        }
+
+        if (Double.compare(values[a], values[c]) < 0) {
+            return a;
+        }
+        return Double.compare(values[b], values[c]) < 0 ? c : b;
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
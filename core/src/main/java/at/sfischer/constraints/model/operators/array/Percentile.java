@@ -2,7 +2,6 @@ package at.sfischer.constraints.model.operators.array;
 
 import at.sfischer.constraints.model.*;
 
-import java.util.Arrays;
 import java.util.List;
 
 public class Percentile extends ArrayAggregation {
@@ -41,45 +40,17 @@ public class Percentile extends ArrayAggregation {
             return this;
         }
 
-        Value<?>[] elements = arrayValues.getValue();
-        if (elements.length == 0) {
-            return new NumberLiteral(0);
-        }
-
-        double[] values = new double[elements.length];
-        for (int i = 0; i < elements.length; i++) {
-            Node key = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, elements[i])
-                    .evaluate();
-
-            if (!(key instanceof Value<?> value)) {
-                return this;
-            }
-
-            if (value.getReturnType() == TypeEnum.INTEGER) {
-                values[i] = ((Number) value.getValue()).doubleValue();
-            } else if (value.getReturnType() == TypeEnum.NUMBER) {
-                values[i] = ((Number) value.getValue()).doubleValue();
-            } else {
-                return this;
-            }
-        }
-
-        Arrays.sort(values);
-        if (values.length == 1) {
-            return new NumberLiteral(values[0]);
+        NumericKeys keys = getNumericKeys(arrayValues, keySelector);
+        if (keys == null) {
+            return this;
         }
 
-        double position = percentile / 100.0 * (values.length - 1);
-        int lower = (int) Math.floor(position);
-        int upper = (int) Math.ceil(position);
-        if (lower == upper) {
-            return new NumberLiteral(values[lower]);
+        double[] values = keys.values();
+        if (values.length == 0) {
+            return new NumberLiteral(0);
         }
 
-        double fraction = position - lower;
-        double result = values[lower] + fraction * (values[upper] - values[lower]);
-        return new NumberLiteral(result);
+        return new NumberLiteral(NumericKernels.percentile(values, percentile));
     }
 
     @Override
@@ -48,36 +48,45 @@ public class Sort extends ArrayOperation {
         }
 
         boolean ascending = ascLiteral.getValue();
-        List<Value<?>> values = new ArrayList<>(Arrays.asList(arrayValues.getValue()));
-        Comparator<Value<?>> comparator = (left, right) -> {
-            Node leftKey = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, left)
-                    .evaluate();
-            Node rightKey = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, right)
+        Value<?>[] elements = arrayValues.getValue();
+        boolean element = keySelector instanceof Variable variable && ELEMENT_NAME.equals(variable.getName());
+        // The keys are extracted once per element, instead of twice per comparison.
+        KeyedElement[] keyedElements = new KeyedElement[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            Node key = element ? elements[i] : keySelector
+                    .setVariableNameValue(ELEMENT_NAME, elements[i])
                     .evaluate();
 
-            if (!(leftKey instanceof Value<?> leftValue) ||
-                    !(rightKey instanceof Value<?> rightValue)) {
-                throw new IllegalStateException();
+            // A single element is not compared, so its key does not have to be a value.
+            Value<?> keyValue = key instanceof Value<?> value ? value : null;
+            if (keyValue == null && elements.length > 1) {
+                return this;
             }
+            keyedElements[i] = new KeyedElement(keyValue, elements[i]);
+        }
 
-            Comparable<Object> l = asComparable(leftValue);
-            Object r = rightValue.getValue();
+        Comparator<KeyedElement> comparator = (left, right) -> {
+            Comparable<Object> l = asComparable(left.key());
+            Object r = right.key().getValue();
 
             int result = l.compareTo(r);
             return ascending ? result : -result;
         };
 
         try {
-            values.sort(comparator);
+            Arrays.sort(keyedElements, comparator);
         } catch (Exception ex) {
             return this;
         }
 
+        Value<?>[] values = new Value<?>[keyedElements.length];
+        for (int i = 0; i < keyedElements.length; i++) {
+            values[i] = keyedElements[i].element();
+        }
+
         return new ArrayValues<>(
                 arrayValues.getElementType(),
-                values.toArray(new Value<?>[0])
+                values
         );
     }
 
@@ -184,4 +193,7 @@ public class Sort extends ArrayOperation {
     public Type getReturnType() {
         return new ArrayType(arrayElementType);
     }
+
+    private record KeyedElement(Value<?> key, Value<?> element) {
+    }
 }
@@ -23,28 +23,13 @@ public class Sum extends ArrayAggregation {
             return this;
         }
 
-        double sum = 0;
-        boolean integer = true;
-        for (Value<?> element : arrayValues.getValue()) {
-            Node key = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, element)
-                    .evaluate();
-
-            if (!(key instanceof Value<?> value)) {
-                return this;
-            }
-
-            if (value.getReturnType() == TypeEnum.INTEGER) {
-                sum += ((Number) value.getValue()).longValue();
-            } else if (value.getReturnType() == TypeEnum.NUMBER) {
-                sum += ((Number) value.getValue()).doubleValue();
-                integer = false;
-            } else {
-                return this;
-            }
+        NumericKeys keys = getNumericKeys(arrayValues, keySelector);
+        if (keys == null) {
+            return this;
         }
 
-        if (integer) {
+        double sum = NumericKernels.sum(keys.values());
+        if (keys.integral()) {
             return new IntegerLiteral((int) sum);
         }
 
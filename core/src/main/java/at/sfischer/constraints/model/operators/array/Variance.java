@@ -23,45 +23,16 @@ public class Variance extends ArrayAggregation {
             return this;
         }
 
-        Value<?>[] elements = arrayValues.getValue();
-        if (elements.length == 0) {
-            return new NumberLiteral(0);
-        }
-
-        double[] values = new double[elements.length];
-        double sum = 0;
-        for (int i = 0; i < elements.length; i++) {
-            Node key = keySelector
-                    .setVariableNameValue(ELEMENT_NAME, elements[i])
-                    .evaluate();
-
-            if (!(key instanceof Value<?> value)) {
-                return this;
-            }
-
-            double number;
-            if (value.getReturnType() == TypeEnum.INTEGER) {
-                number = ((Number) value.getValue()).longValue();
-            } else if (value.getReturnType() == TypeEnum.NUMBER) {
-                number = ((Number) value.getValue()).doubleValue();
-            } else {
-                return this;
-            }
-
-            values[i] = number;
-            sum += number;
+        NumericKeys keys = getNumericKeys(arrayValues, keySelector);
+        if (keys == null) {
+            return this;
         }
 
-        double mean = sum / values.length;
-        double variance = 0;
-        for (double value : values) {
-            double diff = value - mean;
-            variance += diff * diff;
+        if (keys.values().length == 0) {
+            return new NumberLiteral(0);
         }
 
-        variance /= values.length;
-
-        return new NumberLiteral(variance);
+        return new NumberLiteral(NumericKernels.variance(keys.values()));
     }
 
     @Override
@@ -14,8 +14,8 @@ public class AdditionOperator extends ArithmeticOperator {
 
     @Override
     public Node evaluate() {
-        Number left = this.getLeftNumber();
-        Number right = this.getRightNumber();
+        NumberLiteral left = this.getLeftLiteral();
+        NumberLiteral right = this.getRightLiteral();
         if(left != null && right != null){
             double result = left.doubleValue() + right.doubleValue();
             return new NumberLiteral(result);
@@ -26,7 +26,7 @@ public class AdditionOperator extends ArithmeticOperator {
                 return this.right;
             }
 
-            return new AdditionOperator(new NumberLiteral(left), this.right);
+            return new AdditionOperator(new NumberLiteral(left.getValue()), this.right);
         }
 
         if(right != null){
@@ -34,7 +34,7 @@ public class AdditionOperator extends ArithmeticOperator {
                 return this.left;
             }
 
-            return new AdditionOperator(this.left, new NumberLiteral(right));
+            return new AdditionOperator(this.left, new NumberLiteral(right.getValue()));
         }
 
         return this;
@@ -14,21 +14,21 @@ public abstract class BinaryNumberOperator extends BinaryOperator {
         super(left, right);
     }
 
-    protected Number getLeftNumber(){
+    protected NumberLiteral getLeftLiteral(){
         Node left = this.left.evaluate();
         this.left = left;
-        if(left instanceof NumberLiteral){
-            return ((NumberLiteral) left).getValue();
+        if(left instanceof NumberLiteral literal){
+            return literal;
         }
 
         return null;
     }
 
-    protected Number getRightNumber() {
+    protected NumberLiteral getRightLiteral() {
         Node right = this.right.evaluate();
         this.right = right;
-        if (right instanceof NumberLiteral) {
-            return ((NumberLiteral) right).getValue();
+        if (right instanceof NumberLiteral literal) {
+            return literal;
         }
 
         return null;
@@ -0,0 +1,137 @@
+package at.sfischer.constraints.model.operators.numbers;
+
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Value;
+import at.sfischer.constraints.model.operators.WindowAggregate;
+
+/**
+ * Counts the values relative to the bounds of a {@link LowerBoundOperator}, as its window aggregate. For each bound,
+ * the values equal to it and the values between it and the next lower bound are counted, as well as the values above
+ * the highest bound.
+ * <p>
+ * The lowest non-empty count determines the bound like the {@link LowerBoundAccumulator} does: a value equal to a bound
+ * or above the highest bound keeps the bound, other values leave no bound that applies.
+ */
+public class BoundHistogram implements WindowAggregate<BoundHistogram> {
+
+    private final double[] bounds;
+
+    private final int minValuesAtBound;
+
+    private final int minValues;
+
+    private final int[] counts;
+
+    private int numberOfValues;
+
+    /**
+     * @param bounds           the bounds to count the values for, sorted ascending.
+     * @param minValuesAtBound the number of values at the bound needed as evidence.
+     * @param minValues        the number of values needed as evidence.
+     */
+    public BoundHistogram(double[] bounds, int minValuesAtBound, int minValues) {
+        this.bounds = bounds;
+        this.minValuesAtBound = minValuesAtBound;
+        this.minValues = minValues;
+        this.counts = new int[2 * bounds.length + 1];
+    }
+
+    @Override
+    public BoundHistogram emptyAggregate() {
+        return new BoundHistogram(bounds, minValuesAtBound, minValues);
+    }
+
+    @Override
+    public void accept(Value<?> value, int times) {
+        if(!(value instanceof NumberLiteral number)){
+            return;
+        }
+
+        // Even indices count the values below a bound (or above the highest one), odd indices the values at a bound.
+        double v = number.getValue().doubleValue();
+        int lowerBounds = 0;
+        while(lowerBounds < bounds.length && bounds[lowerBounds] < v){
+            lowerBounds++;
+        }
+        int index = 2 * lowerBounds;
+        if(lowerBounds < bounds.length && bounds[lowerBounds] == v){
+            index++;
+        }
+
+        counts[index] += times;
+        numberOfValues += times;
+    }
+
+    @Override
+    public void add(BoundHistogram aggregate) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += aggregate.counts[i];
+        }
+        numberOfValues += aggregate.numberOfValues;
+    }
+
+    @Override
+    public void subtract(BoundHistogram aggregate) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= aggregate.counts[i];
+        }
+        numberOfValues -= aggregate.numberOfValues;
+    }
+
+    /**
+     * @return the bound that applies to all values, or null if there is none.
+     */
+    public Number getBound() {
+        int lowest = lowestCount();
+        if(lowest < 0 || bounds.length == 0){
+            return null;
+        }
+        if(lowest == counts.length - 1){
+            return bounds[bounds.length - 1];
+        }
+        if(lowest % 2 == 1){
+            return bounds[lowest / 2];
+        }
+
+        return null;
+    }
+
+    private int lowestCount() {
+        for (int i = 0; i < counts.length; i++) {
+            if(counts[i] > 0){
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean hasEvidence() {
+        int lowest = lowestCount();
+        int valuesAtBound = lowest % 2 == 1 ? counts[lowest] : 0;
+        return valuesAtBound >= minValuesAtBound && numberOfValues >= minValues;
+    }
+
+    @Override
+    public int numberOfValues() {
+        return numberOfValues;
+    }
+
+    @Override
+    public int numberOfValidValues() {
+        if(getBound() == null || !hasEvidence()){
+            return 0;
+        }
+
+        return numberOfValues;
+    }
+
+    @Override
+    public int numberOfViolations() {
+        if(numberOfValues > 0 && getBound() == null){
+            return numberOfValues;
+        }
+
+        return 0;
+    }
+}
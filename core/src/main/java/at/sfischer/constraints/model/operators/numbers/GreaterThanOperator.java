@@ -15,8 +15,8 @@ public class GreaterThanOperator extends NumberComparisonOperator {
 
     @Override
     public Node evaluate() {
-        Number left = this.getLeftNumber();
-        Number right = this.getRightNumber();
+        NumberLiteral left = this.getLeftLiteral();
+        NumberLiteral right = this.getRightLiteral();
 
         // Numbers could be resolved.
         if(left != null && right != null){
@@ -29,11 +29,11 @@ public class GreaterThanOperator extends NumberComparisonOperator {
         }
 
         if(left != null){
-            return new GreaterThanOperator(new NumberLiteral(left), this.right);
+            return new GreaterThanOperator(new NumberLiteral(left.getValue()), this.right);
         }
 
         if(right != null){
-            return new GreaterThanOperator(this.left, new NumberLiteral(right));
+            return new GreaterThanOperator(this.left, new NumberLiteral(right.getValue()));
         }
 
         return this;
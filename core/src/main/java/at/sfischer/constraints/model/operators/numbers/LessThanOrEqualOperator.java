@@ -15,8 +15,8 @@ public class LessThanOrEqualOperator extends NumberComparisonOperator {
 
     @Override
     public Node evaluate() {
-        Number left = this.getLeftNumber();
-        Number right = this.getRightNumber();
+        NumberLiteral left = this.getLeftLiteral();
+        NumberLiteral right = this.getRightLiteral();
 
         // Numbers could be resolved.
         if(left != null && right != null){
@@ -29,11 +29,11 @@ public class LessThanOrEqualOperator extends NumberComparisonOperator {
         }
 
         if(left != null){
-            return new LessThanOrEqualOperator(new NumberLiteral(left), this.right);
+            return new LessThanOrEqualOperator(new NumberLiteral(left.getValue()), this.right);
         }
 
         if(right != null){
-            return new LessThanOrEqualOperator(this.left, new NumberLiteral(right));
+            return new LessThanOrEqualOperator(this.left, new NumberLiteral(right.getValue()));
         }
 
         return this;
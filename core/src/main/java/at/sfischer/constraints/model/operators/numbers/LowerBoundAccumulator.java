@@ -0,0 +1,157 @@
+package at.sfischer.constraints.model.operators.numbers;
+
+import at.sfischer.constraints.model.ArrayValues;
+import at.sfischer.constraints.model.BooleanLiteral;
+import at.sfischer.constraints.model.MoreStatisticalEvidenceNeeded;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.operators.Accumulator;
+
+public class LowerBoundAccumulator implements Accumulator<LowerBoundAccumulator> {
+
+    private final ArrayValues<NumberLiteral> bounds;
+
+    private final NumberLiteral valuesAtBoundCounter;
+
+    private final NumberLiteral valuesCounter;
+
+    /**
+     * The weight of the following observations, which is not part of the collected state.
+     */
+    private int weight = 1;
+
+    /**
+     * @param bounds               the bounds that still could apply, sorted ascending.
+     * @param valuesAtBoundCounter the number of values observed at the current (highest) bound.
+     * @param valuesCounter        the number of values observed.
+     */
+    public LowerBoundAccumulator(ArrayValues<NumberLiteral> bounds, NumberLiteral valuesAtBoundCounter, NumberLiteral valuesCounter) {
+        this.bounds = bounds;
+        this.valuesAtBoundCounter = valuesAtBoundCounter;
+        this.valuesCounter = valuesCounter;
+    }
+
+    public ArrayValues<NumberLiteral> getBounds() {
+        return bounds;
+    }
+
+    public NumberLiteral getValuesAtBoundCounter() {
+        return valuesAtBoundCounter;
+    }
+
+    public NumberLiteral getValuesCounter() {
+        return valuesCounter;
+    }
+
+    public Number getBound() {
+        NumberLiteral[] bounds = this.bounds.getValue();
+        if(bounds.length == 0){
+            return null;
+        }
+
+        return bounds[bounds.length - 1].getValue();
+    }
+
+    public Node accept(Number value, Number minValuesAtBound, Number minValues) {
+        NumberLiteral[] bounds = this.bounds.getValue();
+        if(bounds.length == 0){
+            // There are no more bounds to be checked, because we found a value lower than all bounds.
+            return BooleanLiteral.FALSE;
+        }
+
+        int valuesCounter = this.valuesCounter.getValue().intValue() + weight;
+        this.valuesCounter.setValue(valuesCounter);
+
+        int valuesAtBoundCounter = this.valuesAtBoundCounter.getValue().intValue();
+        double currentBound = bounds[bounds.length - 1].getValue().doubleValue();
+        if(currentBound == value.doubleValue()){
+            valuesAtBoundCounter = valuesAtBoundCounter + weight;
+            this.valuesAtBoundCounter.setValue(valuesAtBoundCounter);
+        }
+
+        if(currentBound <= value.doubleValue()){
+            return evidence(valuesAtBoundCounter, valuesCounter, minValuesAtBound, minValues);
+        }
+
+        int newIndex = bounds.length - 2;
+        while(newIndex >= 0){
+            if(bounds[newIndex].getValue().doubleValue() == value.doubleValue()){
+                break;
+            }
+
+            newIndex--;
+        }
+
+        if(newIndex < 0){
+            // Update bounds to empty array, because we found a value lower than all of them.
+            this.bounds.setValue(new NumberLiteral[]{});
+            this.valuesAtBoundCounter.setValue(0);
+            return BooleanLiteral.FALSE;
+        }
+
+        NumberLiteral[] newBounds = new NumberLiteral[newIndex + 1];
+        for (int i = 0; i < newBounds.length; i++) {
+            newBounds[i] = new NumberLiteral(bounds[i].getValue());
+        }
+        // Update bounds to array with the bounds that still could apply.
+        this.bounds.setValue(newBounds);
+        this.valuesAtBoundCounter.setValue(weight);
+
+        return evidence(weight, valuesCounter, minValuesAtBound, minValues);
+    }
+
+    private static Node evidence(int valuesAtBoundCounter, int valuesCounter, Number minValuesAtBound, Number minValues) {
+        if(valuesAtBoundCounter >= minValuesAtBound.intValue() && valuesCounter >= minValues.intValue()){
+            return BooleanLiteral.TRUE;
+        }
+
+        return MoreStatisticalEvidenceNeeded.INSTANCE;
+    }
+
+    /**
+     * Observing a value with weight n has the same effect as observing it n times in a row: the counters grow by n and
+     * the evidence is the one after the last of the n observations.
+     */
+    @Override
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public LowerBoundAccumulator copy() {
+        return new LowerBoundAccumulator(
+                new ArrayValues<>(bounds.getElementType(), bounds.getValue().clone()),
+                (NumberLiteral) valuesAtBoundCounter.cloneNode(),
+                (NumberLiteral) valuesCounter.cloneNode()
+        );
+    }
+
+    @Override
+    public boolean merge(LowerBoundAccumulator accumulator, LowerBoundAccumulator base) {
+        // All bounds are prefixes of the same sorted bounds, so the shorter one is the lower bound.
+        int length = bounds.getValue().length;
+        int otherLength = accumulator.bounds.getValue().length;
+        int otherValuesAtBound = accumulator.valuesAtBoundCounter.getValue().intValue();
+        if(otherLength == base.bounds.getValue().length){
+            // The bound did not change, so only count the values observed since the base.
+            otherValuesAtBound -= base.valuesAtBoundCounter.getValue().intValue();
+        }
+
+        if(otherLength < length){
+            bounds.setValue(accumulator.bounds.getValue().clone());
+            valuesAtBoundCounter.setValue(accumulator.valuesAtBoundCounter.getValue().intValue());
+        } else if(otherLength == length && length > 0){
+            valuesAtBoundCounter.setValue(valuesAtBoundCounter.getValue().intValue() + otherValuesAtBound);
+        }
+
+        int otherValues = accumulator.valuesCounter.getValue().intValue() - base.valuesCounter.getValue().intValue();
+        valuesCounter.setValue(valuesCounter.getValue().intValue() + otherValues);
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "LowerBoundAccumulator{bounds: " + bounds + ", valuesAtBoundCounter: " + valuesAtBoundCounter + ", valuesCounter: " + valuesCounter + '}';
+    }
+}
@@ -2,16 +2,20 @@ package at.sfischer.constraints.model.operators.numbers;
 
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.Function;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+import at.sfischer.constraints.model.operators.WindowedOperator;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-public class LowerBoundOperator extends Function {
+public class LowerBoundOperator extends Function implements StatefulOperator<LowerBoundAccumulator>, WindowedOperator<BoundHistogram> {
 
     private static final String FUNCTION_NAME = "number.LowerBound";
 
+    private LowerBoundAccumulator accumulator;
+
     public LowerBoundOperator(Node value) {
         this(
                 value,
@@ -31,7 +35,7 @@ public class LowerBoundOperator extends Function {
     }
 
     public LowerBoundOperator(Node value, ArrayValues<NumberLiteral> bounds, NumberLiteral minValuesAtBound, NumberLiteral valuesAtBoundCounter, NumberLiteral minValues, NumberLiteral valuesCounter) {
-        super(FUNCTION_NAME, value, bounds, minValuesAtBound, valuesAtBoundCounter, minValues, valuesCounter);
+        this(value, minValuesAtBound, minValues, new LowerBoundAccumulator(bounds, valuesAtBoundCounter, valuesCounter));
         Arrays.sort(bounds.getValue(), (o1, o2) -> {
             double diff = o1.getValue().doubleValue() - o2.getValue().doubleValue();
             if(diff < 0) {
@@ -44,112 +48,76 @@ public class LowerBoundOperator extends Function {
         });
     }
 
-    public Number getBound(){
-        Number[] bounds = this.getNumberArrayArgument(1);
-        if(bounds.length == 0){
-            return null;
-        }
+    private LowerBoundOperator(Node value, NumberLiteral minValuesAtBound, NumberLiteral minValues, LowerBoundAccumulator accumulator) {
+        super(FUNCTION_NAME, value, accumulator.getBounds(), minValuesAtBound, accumulator.getValuesAtBoundCounter(), minValues, accumulator.getValuesCounter());
+        this.accumulator = accumulator;
+    }
 
-        return bounds[bounds.length - 1];
+    public Number getBound(){
+        return accumulator.getBound();
     }
 
     @Override
     public Node evaluate() {
         Number value = this.getNumberArgument(0);
-        Number[] bounds = this.getNumberArrayArgument(1);
         Number minValuesAtBound = this.getNumberArgument(2);
-        Number valuesAtBoundCounter = this.getNumberArgument(3);
         Number minValues = this.getNumberArgument(4);
-        Number valuesCounter = this.getNumberArgument(5);
-        if(value == null || bounds == null || minValuesAtBound == null || valuesAtBoundCounter == null) {
+        if(value == null || minValuesAtBound == null || minValues == null) {
             return this;
         }
 
-        if(bounds.length == 0){
-            // There are no more bounds to be checked, because we found a value lower than all bounds.
-            return BooleanLiteral.FALSE;
-        }
-
-        valuesCounter = valuesCounter.intValue()  + 1;
-        NumberLiteral valuesCounterParameter = (NumberLiteral) getParameter(5);
-        valuesCounterParameter.setValue(valuesCounter);
-
-        Number currentBound = bounds[bounds.length - 1];
-        if(currentBound.doubleValue() == value.doubleValue()){
-            valuesAtBoundCounter = valuesAtBoundCounter.intValue() + 1;
-            NumberLiteral valuesAtBoundCounterParameter = (NumberLiteral) getParameter(3);
-            valuesAtBoundCounterParameter.setValue(valuesAtBoundCounter);
-        }
-
-        if(currentBound.doubleValue() <= value.doubleValue()){
-            if(valuesAtBoundCounter.intValue() >= minValuesAtBound.intValue() && valuesCounter.intValue() >= minValues.intValue()){
-                return BooleanLiteral.TRUE;
-            }
-
-            return MoreStatisticalEvidenceNeeded.INSTANCE;
-        }
-
-        int newIndex = bounds.length - 2;
-        while(newIndex >= 0){
-            currentBound = bounds[newIndex];
-            if(currentBound.doubleValue() == value.doubleValue()){
-                break;
-            }
-
-            newIndex--;
-        }
-
-        if(newIndex < 0){
-            // Update bounds to empty array, because we found a value lower than all of them.
-            //noinspection unchecked
-            ArrayValues<NumberLiteral> boundsParameter = (ArrayValues<NumberLiteral>) getParameter(1);
-            boundsParameter.setValue(new NumberLiteral[]{});
-
-            // Update valuesAtBoundCounter.
-            NumberLiteral valuesAtBoundCounterParameter = (NumberLiteral) getParameter(3);
-            valuesAtBoundCounterParameter.setValue(0);
-            return BooleanLiteral.FALSE;
-        }
-
-        NumberLiteral[] newBounds = new NumberLiteral[newIndex + 1];
-        for (int i = 0; i < newBounds.length; i++) {
-            newBounds[i] = new NumberLiteral(bounds[i]);
-        }
-        // Update bounds to array with the bounds that still could apply.
-        //noinspection unchecked
-        ArrayValues<NumberLiteral> boundsParameter = (ArrayValues<NumberLiteral>) getParameter(1);
-        boundsParameter.setValue(newBounds);
-
-        // Update valuesAtBoundCounter.
-        NumberLiteral valuesAtBoundCounterParameter = (NumberLiteral) getParameter(3);
-        valuesAtBoundCounterParameter.setValue(1);
-        valuesAtBoundCounter = 1;
-        if(valuesAtBoundCounter.intValue() >= minValuesAtBound.intValue() && valuesCounter.intValue() >= minValues.intValue()){
-            return BooleanLiteral.TRUE;
-        }
-
-        return MoreStatisticalEvidenceNeeded.INSTANCE;
+        return accumulator.accept(value, minValuesAtBound, minValues);
     }
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        //noinspection unchecked
-        return new LowerBoundOperator(getParameter(0).setVariableValues(values), (ArrayValues<NumberLiteral>) getParameter(1), ((NumberLiteral) getParameter(2)), ((NumberLiteral) getParameter(3)), ((NumberLiteral) getParameter(4)), ((NumberLiteral) getParameter(5)));
+        return new LowerBoundOperator(getParameter(0).setVariableValues(values), (NumberLiteral) getParameter(2), (NumberLiteral) getParameter(4), accumulator);
     }
 
     @Override
     public Node cloneNode() {
-        //noinspection unchecked
         return new LowerBoundOperator(
                 getParameter(0).cloneNode(),
-                (ArrayValues<NumberLiteral>) getParameter(1).cloneNode(),
-                ((NumberLiteral) getParameter(2).cloneNode()),
-                ((NumberLiteral) getParameter(3).cloneNode()),
-                ((NumberLiteral) getParameter(4).cloneNode()),
-                ((NumberLiteral) getParameter(5).cloneNode())
+                (NumberLiteral) getParameter(2).cloneNode(),
+                (NumberLiteral) getParameter(4).cloneNode(),
+                accumulator.copy()
         );
     }
 
+    @Override
+    public LowerBoundAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public void setAccumulator(LowerBoundAccumulator accumulator) {
+        this.accumulator = accumulator;
+        setParameter(1, accumulator.getBounds());
+        setParameter(3, accumulator.getValuesAtBoundCounter());
+        setParameter(5, accumulator.getValuesCounter());
+    }
+
+    @Override
+    public BoundHistogram emptyWindowAggregate() {
+        NumberLiteral[] bounds = accumulator.getBounds().getValue();
+        double[] values = new double[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            values[i] = bounds[i].getValue().doubleValue();
+        }
+
+        return new BoundHistogram(values, ((NumberLiteral) getParameter(2)).getValue().intValue(), ((NumberLiteral) getParameter(4)).getValue().intValue());
+    }
+
+    @Override
+    public Value<?> getWindowValue() {
+        Number value = this.getNumberArgument(0);
+        if(value == null) {
+            return null;
+        }
+
+        return new NumberLiteral(value);
+    }
+
     @Override
     public List<Node> getChildren() {
         return List.of(getParameter(0), getParameter(1), getParameter(2), getParameter(3), getParameter(4), getParameter(5));
@@ -14,8 +14,8 @@ public class ModuloOperator extends ArithmeticOperator {
 
     @Override
     public Node evaluate() {
-        Number left = this.getLeftNumber();
-        Number right = this.getRightNumber();
+        NumberLiteral left = this.getLeftLiteral();
+        NumberLiteral right = this.getRightLiteral();
         if(left != null && right != null){
             double result = left.doubleValue() % right.doubleValue();
             return new NumberLiteral(result);
@@ -26,7 +26,7 @@ public class ModuloOperator extends ArithmeticOperator {
                 return new NumberLiteral(0);
             }
 
-            return new ModuloOperator(new NumberLiteral(left), this.right);
+            return new ModuloOperator(new NumberLiteral(left.getValue()), this.right);
         }
 
         if(right != null){
@@ -35,7 +35,7 @@ public class ModuloOperator extends ArithmeticOperator {
 
             }
 
-            return new ModuloOperator(this.left, new NumberLiteral(right));
+            return new ModuloOperator(this.left, new NumberLiteral(right.getValue()));
         }
 
         return this;
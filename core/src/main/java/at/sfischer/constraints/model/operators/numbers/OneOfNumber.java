@@ -2,44 +2,39 @@ package at.sfischer.constraints.model.operators.numbers;
 
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.Function;
+import at.sfischer.constraints.model.operators.OneOfAccumulator;
+import at.sfischer.constraints.model.operators.OptionMultiset;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+import at.sfischer.constraints.model.operators.WindowedOperator;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-public class OneOfNumber extends Function {
+public class OneOfNumber extends Function implements StatefulOperator<OneOfAccumulator<NumberLiteral>>, WindowedOperator<OptionMultiset> {
 
     private static final String FUNCTION_NAME = "number.OneOf";
 
+    private OneOfAccumulator<NumberLiteral> accumulator;
+
     public OneOfNumber(Node value, IntegerLiteral numberOfOptions) {
         this(value, new ArrayValues<>(TypeEnum.NUMBER, new NumberLiteral[numberOfOptions.getValue()]));
     }
 
     public OneOfNumber(Node value, ArrayValues<NumberLiteral> options) {
-        super(FUNCTION_NAME, value, new IntegerLiteral(options.getValue().length), options);
+        this(value, new OneOfAccumulator<>(options));
+    }
+
+    private OneOfNumber(Node value, OneOfAccumulator<NumberLiteral> accumulator) {
+        super(FUNCTION_NAME, value, new IntegerLiteral(accumulator.getOptions().getValue().length), accumulator.getOptions());
+        this.accumulator = accumulator;
     }
 
     @Override
     public Node evaluate() {
         Number first = this.getNumberArgument(0);
-        Number[] options = this.getNumberArrayArgument(2);
-
         if(first != null) {
-            for (int i = 0; i < options.length; i++) {
-                // There are still options.
-                if (options[i] == null) {
-                    //noinspection unchecked
-                    ArrayValues<NumberLiteral> optionParameter = (ArrayValues<NumberLiteral>) getParameter(2);
-                    optionParameter.setValue(i, new NumberLiteral(first));
-                    return BooleanLiteral.TRUE;
-
-                // The current value is already an option.
-                } else if (options[i].doubleValue() == first.doubleValue()) {
-                    return BooleanLiteral.TRUE;
-                }
-            }
-
-            return BooleanLiteral.FALSE;
+            return BooleanLiteral.getBooleanLiteral(accumulator.accept(new NumberLiteral(first)));
         }
 
         return this;
@@ -47,14 +42,38 @@ public class OneOfNumber extends Function {
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        //noinspection unchecked
-        return new OneOfNumber(getParameter(0).setVariableValues(values), (ArrayValues<NumberLiteral>) getParameter(2));
+        return new OneOfNumber(getParameter(0).setVariableValues(values), accumulator);
     }
 
     @Override
     public Node cloneNode() {
-        //noinspection unchecked
-        return new OneOfNumber(getParameter(0).cloneNode(), (ArrayValues<NumberLiteral>) getParameter(2).cloneNode());
+        return new OneOfNumber(getParameter(0).cloneNode(), accumulator.copy());
+    }
+
+    @Override
+    public OneOfAccumulator<NumberLiteral> getAccumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public void setAccumulator(OneOfAccumulator<NumberLiteral> accumulator) {
+        this.accumulator = accumulator;
+        setParameter(2, accumulator.getOptions());
+    }
+
+    @Override
+    public OptionMultiset emptyWindowAggregate() {
+        return new OptionMultiset(accumulator.getOptions().getValue());
+    }
+
+    @Override
+    public Value<?> getWindowValue() {
+        Number first = this.getNumberArgument(0);
+        if(first != null) {
+            return new NumberLiteral(first);
+        }
+
+        return null;
     }
 
     @Override
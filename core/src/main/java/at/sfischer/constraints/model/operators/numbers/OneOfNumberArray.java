@@ -2,23 +2,33 @@ package at.sfischer.constraints.model.operators.numbers;
 
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.Function;
+import at.sfischer.constraints.model.operators.OneOfAccumulator;
+import at.sfischer.constraints.model.operators.OptionMultiset;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+import at.sfischer.constraints.model.operators.WindowedOperator;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-public class OneOfNumberArray extends Function {
+public class OneOfNumberArray extends Function implements StatefulOperator<OneOfAccumulator<ArrayValues<NumberLiteral>>>, WindowedOperator<OptionMultiset> {
 
     private static final String FUNCTION_NAME = "number.OneOfArray";
 
+    private OneOfAccumulator<ArrayValues<NumberLiteral>> accumulator;
+
     public OneOfNumberArray(Node value, IntegerLiteral numberOfOptions) {
         //noinspection unchecked
         this(value, new ArrayValues<ArrayValues<NumberLiteral>>(new ArrayType(TypeEnum.NUMBER), new ArrayValues[numberOfOptions.getValue()]));
     }
 
     public OneOfNumberArray(Node value, ArrayValues<ArrayValues<NumberLiteral>> options) {
-        super(FUNCTION_NAME, value, new IntegerLiteral(options.getValue().length), options);
+        this(value, new OneOfAccumulator<>(options));
+    }
+
+    private OneOfNumberArray(Node value, OneOfAccumulator<ArrayValues<NumberLiteral>> accumulator) {
+        super(FUNCTION_NAME, value, new IntegerLiteral(accumulator.getOptions().getValue().length), accumulator.getOptions());
+        this.accumulator = accumulator;
     }
 
     @Override
@@ -30,35 +40,43 @@ public class OneOfNumberArray extends Function {
 
         //noinspection unchecked
         ArrayValues<NumberLiteral> firstValue = (ArrayValues<NumberLiteral>) first;
-        ArrayValues<?>[] options = this.getNestedArrayArgument(2);
-
-        for (int i = 0; i < options.length; i++) {
-            // There are still options.
-            if (options[i] == null) {
-                //noinspection unchecked
-                ArrayValues<ArrayValues<NumberLiteral>> optionParameter = (ArrayValues<ArrayValues<NumberLiteral>>) getParameter(2);
-                optionParameter.setValue(i, new ArrayValues<>(TypeEnum.NUMBER, firstValue.getValue()));
-                return BooleanLiteral.TRUE;
-
-            // The current value is already an option.
-            } else if (Arrays.equals(options[i].getValue(), firstValue.getValue())) {
-                return BooleanLiteral.TRUE;
-            }
-        }
-
-        return BooleanLiteral.FALSE;
+        return BooleanLiteral.getBooleanLiteral(accumulator.accept(new ArrayValues<>(TypeEnum.NUMBER, firstValue.getValue())));
     }
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        //noinspection unchecked
-        return new OneOfNumberArray(getParameter(0).setVariableValues(values), (ArrayValues<ArrayValues<NumberLiteral>>) getParameter(2));
+        return new OneOfNumberArray(getParameter(0).setVariableValues(values), accumulator);
     }
 
     @Override
     public Node cloneNode() {
-        //noinspection unchecked
-        return new OneOfNumberArray(getParameter(0).cloneNode(), (ArrayValues<ArrayValues<NumberLiteral>>) getParameter(2).cloneNode());
+        return new OneOfNumberArray(getParameter(0).cloneNode(), accumulator.copy());
+    }
+
+    @Override
+    public OneOfAccumulator<ArrayValues<NumberLiteral>> getAccumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public void setAccumulator(OneOfAccumulator<ArrayValues<NumberLiteral>> accumulator) {
+        this.accumulator = accumulator;
+        setParameter(2, accumulator.getOptions());
+    }
+
+    @Override
+    public OptionMultiset emptyWindowAggregate() {
+        return new OptionMultiset(accumulator.getOptions().getValue());
+    }
+
+    @Override
+    public Value<?> getWindowValue() {
+        Node first = this.getParameter(0).evaluate();
+        if(!(first instanceof ArrayValues<?>)){
+            return null;
+        }
+
+        return (ArrayValues<?>) first;
     }
 
     @Override
@@ -14,15 +14,15 @@ public class SubtractionOperator extends ArithmeticOperator {
 
     @Override
     public Node evaluate() {
-        Number left = this.getLeftNumber();
-        Number right = this.getRightNumber();
+        NumberLiteral left = this.getLeftLiteral();
+        NumberLiteral right = this.getRightLiteral();
         if(left != null && right != null){
             double result = left.doubleValue() - right.doubleValue();
             return new NumberLiteral(result);
         }
 
         if(left != null){
-            return new SubtractionOperator(new NumberLiteral(left), this.right);
+            return new SubtractionOperator(new NumberLiteral(left.getValue()), this.right);
         }
 
         if(right != null){
@@ -30,7 +30,7 @@ public class SubtractionOperator extends ArithmeticOperator {
                 return this.left;
             }
 
-            return new SubtractionOperator(this.left, new NumberLiteral(right));
+            return new SubtractionOperator(this.left, new NumberLiteral(right.getValue()));
         }
 
         return this;
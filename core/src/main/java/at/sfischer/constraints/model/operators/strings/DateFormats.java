@@ -0,0 +1,78 @@
+package at.sfischer.constraints.model.operators.strings;
+
+import at.sfischer.constraints.model.ArrayValues;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.StringLiteral;
+
+import java.text.ParsePosition;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalQuery;
+
+/**
+ * Formatters for the patterns of the date operators, which are created once for patterns that are literals.
+ */
+final class DateFormats {
+
+    private DateFormats() {
+    }
+
+    /**
+     * @return the formatters of the given patterns, with null for invalid patterns, or null if the patterns are not
+     * literals.
+     */
+    static DateTimeFormatter[] compile(Node patterns) {
+        if(!(patterns instanceof ArrayValues<?> array) || array.getValue() == null){
+            return null;
+        }
+
+        Object[] literals = array.getValue();
+        DateTimeFormatter[] formatters = new DateTimeFormatter[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            if(!(literals[i] instanceof StringLiteral literal) || literal.getValue() == null){
+                return null;
+            }
+
+            formatters[i] = compile(literal.getValue());
+        }
+
+        return formatters;
+    }
+
+    /**
+     * @return the formatter of the pattern, or null if the pattern is invalid.
+     */
+    static DateTimeFormatter compile(String pattern) {
+        try {
+            return DateTimeFormatter.ofPattern(pattern);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the text can be parsed by the formatter. Texts that do not match the pattern are rejected without an
+     * exception, only texts with values out of range, e.g., a 13th month, are rejected by the failed resolution.
+     *
+     * @param formatter the formatter, or null for an invalid pattern.
+     * @param query     the type the text is resolved to, e.g., {@code LocalDate::from}.
+     * @return true if the text is parsed completely and resolved to the type.
+     */
+    static boolean parses(String text, DateTimeFormatter formatter, TemporalQuery<?> query) {
+        if(formatter == null){
+            return false;
+        }
+
+        ParsePosition position = new ParsePosition(0);
+        if(formatter.parseUnresolved(text, position) == null || position.getIndex() != text.length()){
+            return false;
+        }
+
+        try {
+            formatter.parse(text, query);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
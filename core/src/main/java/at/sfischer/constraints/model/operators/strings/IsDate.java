@@ -5,7 +5,6 @@ import at.sfischer.constraints.model.operators.Function;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -13,6 +12,13 @@ public class IsDate extends Function {
 
     private static final String FUNCTION_NAME = "string.isDate";
 
+    /**
+     * The patterns the formatters were created for by {@link #prepare()}.
+     */
+    private Node preparedPatterns;
+
+    private DateTimeFormatter[] formatters;
+
     public static final StringLiteral[] YMD_DATE_PATTERNS = new StringLiteral[]{
             new StringLiteral("yyyy-MM-dd"),
             new StringLiteral("yyyy/MM/dd")
@@ -39,6 +45,16 @@ public class IsDate extends Function {
     @Override
     public Node evaluate() {
         String first = this.getStringArgument(0);
+        if(first != null && formatters != null && getParameter(1) == preparedPatterns){
+            for (DateTimeFormatter formatter : formatters) {
+                if(DateFormats.parses(first, formatter, LocalDate::from)){
+                    return BooleanLiteral.TRUE;
+                }
+            }
+
+            return BooleanLiteral.FALSE;
+        }
+
         String[] patterns = this.getStringArrayArgument(1);
 
         if(first != null && patterns != null){
@@ -55,19 +71,22 @@ public class IsDate extends Function {
     }
 
     static boolean isDate(String dateString, String pattern){
-        try{
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
-            LocalDate.parse(dateString, formatter);
-            return true;
-        } catch (IllegalArgumentException | DateTimeParseException e) {
-            return false;
-        }
+        return DateFormats.parses(dateString, DateFormats.compile(pattern), LocalDate::from);
+    }
+
+    @Override
+    public void prepare() {
+        preparedPatterns = getParameter(1);
+        formatters = DateFormats.compile(preparedPatterns);
     }
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
         //noinspection unchecked
-        return new IsDate(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        IsDate isDate = new IsDate(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        isDate.preparedPatterns = preparedPatterns;
+        isDate.formatters = formatters;
+        return isDate;
     }
 
     @Override
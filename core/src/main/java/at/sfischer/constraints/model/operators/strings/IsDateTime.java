@@ -5,7 +5,6 @@ import at.sfischer.constraints.model.operators.Function;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -13,6 +12,13 @@ public class IsDateTime extends Function {
 
     private static final String FUNCTION_NAME = "string.isDateTime";
 
+    /**
+     * The patterns the formatters were created for by {@link #prepare()}.
+     */
+    private Node preparedPatterns;
+
+    private DateTimeFormatter[] formatters;
+
     public static final StringLiteral[] DATE_PATTERNS = new StringLiteral[]{
             new StringLiteral("yyyy-MM-dd'T'HH:mm:ss"),
             new StringLiteral("yyyy-MM-dd'T'HH:mm:ss.SSS")
@@ -29,6 +35,16 @@ public class IsDateTime extends Function {
     @Override
     public Node evaluate() {
         String first = this.getStringArgument(0);
+        if(first != null && formatters != null && getParameter(1) == preparedPatterns){
+            for (DateTimeFormatter formatter : formatters) {
+                if(DateFormats.parses(first, formatter, LocalDateTime::from)){
+                    return BooleanLiteral.TRUE;
+                }
+            }
+
+            return BooleanLiteral.FALSE;
+        }
+
         String[] patterns = this.getStringArrayArgument(1);
 
         if(first != null && patterns != null){
@@ -45,19 +61,22 @@ public class IsDateTime extends Function {
     }
 
     static boolean isDateTime(String dateString, String pattern){
-        try{
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
-            LocalDateTime.parse(dateString, formatter);
-            return true;
-        } catch (IllegalArgumentException | DateTimeParseException e) {
-            return false;
-        }
+        return DateFormats.parses(dateString, DateFormats.compile(pattern), LocalDateTime::from);
+    }
+
+    @Override
+    public void prepare() {
+        preparedPatterns = getParameter(1);
+        formatters = DateFormats.compile(preparedPatterns);
     }
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
         //noinspection unchecked
-        return new IsDateTime(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        IsDateTime isDateTime = new IsDateTime(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        isDateTime.preparedPatterns = preparedPatterns;
+        isDateTime.formatters = formatters;
+        return isDateTime;
     }
 
     @Override
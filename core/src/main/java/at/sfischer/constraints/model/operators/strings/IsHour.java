@@ -3,7 +3,7 @@ package at.sfischer.constraints.model.operators.strings;
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.Function;
 
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +12,16 @@ public class IsHour extends Function {
 
     private static final String FUNCTION_NAME = "string.IsHour";
 
+    /**
+     * The patterns the formats were created for by {@link #prepare()}.
+     */
+    private Node preparedPatterns;
+
+    /**
+     * Formats of the prepared patterns, per thread, since they are not thread-safe.
+     */
+    private ThreadLocal<SimpleDateFormat[]> formats;
+
     public static final StringLiteral[] HOUR_PATTERNS_24H = new StringLiteral[]{
             new StringLiteral("HH:mm"),
     };
@@ -31,6 +41,16 @@ public class IsHour extends Function {
     @Override
     public Node evaluate() {
         String first = this.getStringArgument(0);
+        if(first != null && formats != null && getParameter(1) == preparedPatterns){
+            for (SimpleDateFormat format : formats.get()) {
+                if(parses(first, format)){
+                    return BooleanLiteral.TRUE;
+                }
+            }
+
+            return BooleanLiteral.FALSE;
+        }
+
         String[] patterns = this.getStringArrayArgument(1);
 
         if(first != null && patterns != null){
@@ -47,19 +67,60 @@ public class IsHour extends Function {
     }
 
     static boolean isDate(String dateString, String pattern){
-        try{
-            SimpleDateFormat parseFormat = new SimpleDateFormat(pattern);
-            parseFormat.parse(dateString);
-            return true;
-        } catch (ParseException e) {
-            return false;
+        return parses(dateString, new SimpleDateFormat(pattern));
+    }
+
+    /**
+     * Like {@link SimpleDateFormat#parse(String)}, which only has to parse the beginning of the text, but without
+     * throwing an exception for texts that cannot be parsed.
+     */
+    private static boolean parses(String dateString, SimpleDateFormat format){
+        ParsePosition position = new ParsePosition(0);
+        format.parse(dateString, position);
+        return position.getIndex() != 0;
+    }
+
+    @Override
+    public void prepare() {
+        if(!(getParameter(1) instanceof ArrayValues<?> array) || array.getValue() == null){
+            return;
+        }
+
+        String[] patterns = new String[array.getValue().length];
+        for (int i = 0; i < patterns.length; i++) {
+            if(!(array.getValue()[i] instanceof StringLiteral literal) || literal.getValue() == null){
+                return;
+            }
+            patterns[i] = literal.getValue();
+        }
+
+        try {
+            // Invalid patterns fail the evaluation as before.
+            createFormats(patterns);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        preparedPatterns = array;
+        formats = ThreadLocal.withInitial(() -> createFormats(patterns));
+    }
+
+    private static SimpleDateFormat[] createFormats(String[] patterns){
+        SimpleDateFormat[] formats = new SimpleDateFormat[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            formats[i] = new SimpleDateFormat(patterns[i]);
         }
+
+        return formats;
     }
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
         //noinspection unchecked
-        return new IsHour(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        IsHour isHour = new IsHour(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(1));
+        isHour.preparedPatterns = preparedPatterns;
+        isHour.formats = formats;
+        return isHour;
     }
 
     @Override
@@ -11,6 +11,13 @@ public class MatchesRegex extends Function {
 
     private static final String FUNCTION_NAME = "string.matchesRegex";
 
+    /**
+     * The regular expression the pattern was compiled for by {@link #prepare()}.
+     */
+    private Node preparedRegex;
+
+    private Pattern pattern;
+
     public MatchesRegex(Node value, StringLiteral pattern) {
         this(FUNCTION_NAME, value, pattern);
     }
@@ -25,8 +32,13 @@ public class MatchesRegex extends Function {
         String regex = this.getStringArgument(1);
 
         if(value != null){
+            Pattern pattern = this.pattern;
+            if(pattern == null || getParameter(1) != preparedRegex){
+                pattern = Pattern.compile(regex);
+            }
+
             return BooleanLiteral.getBooleanLiteral(
-                Pattern.compile(regex)
+                pattern
                     .matcher(value)
                     .matches()
             );
@@ -35,9 +47,18 @@ public class MatchesRegex extends Function {
         return this;
     }
 
+    @Override
+    public void prepare() {
+        preparedRegex = getParameter(1);
+        pattern = StringMatches.compile(getParameter(1));
+    }
+
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        return new MatchesRegex(getParameter(0).setVariableValues(values), (StringLiteral)getParameter(1));
+        MatchesRegex matchesRegex = new MatchesRegex(getParameter(0).setVariableValues(values), (StringLiteral)getParameter(1));
+        matchesRegex.preparedRegex = preparedRegex;
+        matchesRegex.pattern = pattern;
+        return matchesRegex;
     }
 
     @Override
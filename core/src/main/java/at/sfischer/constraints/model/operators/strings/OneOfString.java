@@ -2,44 +2,39 @@ package at.sfischer.constraints.model.operators.strings;
 
 import at.sfischer.constraints.model.*;
 import at.sfischer.constraints.model.operators.Function;
+import at.sfischer.constraints.model.operators.OneOfAccumulator;
+import at.sfischer.constraints.model.operators.OptionMultiset;
+import at.sfischer.constraints.model.operators.StatefulOperator;
+import at.sfischer.constraints.model.operators.WindowedOperator;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-public class OneOfString extends Function {
+public class OneOfString extends Function implements StatefulOperator<OneOfAccumulator<StringLiteral>>, WindowedOperator<OptionMultiset> {
 
     private static final String FUNCTION_NAME = "string.OneOf";
 
+    private OneOfAccumulator<StringLiteral> accumulator;
+
     public OneOfString(Node value, IntegerLiteral numberOfOptions) {
         this(value, new ArrayValues<>(TypeEnum.STRING, new StringLiteral[numberOfOptions.getValue()]));
     }
 
     public OneOfString(Node value, ArrayValues<StringLiteral> options) {
-        super(FUNCTION_NAME, value, new IntegerLiteral(options.getValue().length), options);
+        this(value, new OneOfAccumulator<>(options));
+    }
+
+    private OneOfString(Node value, OneOfAccumulator<StringLiteral> accumulator) {
+        super(FUNCTION_NAME, value, new IntegerLiteral(accumulator.getOptions().getValue().length), accumulator.getOptions());
+        this.accumulator = accumulator;
     }
 
     @Override
     public Node evaluate() {
         String first = this.getStringArgument(0);
-        String[] options = this.getStringArrayArgument(2);
-
-        if(first != null & options != null) {
-            for (int i = 0; i < options.length; i++) {
-                // There are still options.
-                if (options[i] == null) {
-                    //noinspection unchecked
-                    ArrayValues<StringLiteral> optionParameter = (ArrayValues<StringLiteral>) getParameter(2);
-                    optionParameter.setValue(i, new StringLiteral(first));
-                    return BooleanLiteral.TRUE;
-
-                // The current value is already an option.
-                } else if (options[i].equals(first)) {
-                    return BooleanLiteral.TRUE;
-                }
-            }
-
-            return BooleanLiteral.FALSE;
+        if(first != null) {
+            return BooleanLiteral.getBooleanLiteral(accumulator.accept(new StringLiteral(first)));
         }
 
         return this;
@@ -47,14 +42,38 @@ public class OneOfString extends Function {
 
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        //noinspection unchecked
-        return new OneOfString(getParameter(0).setVariableValues(values), (ArrayValues<StringLiteral>) getParameter(2));
+        return new OneOfString(getParameter(0).setVariableValues(values), accumulator);
     }
 
     @Override
     public Node cloneNode() {
-        //noinspection unchecked
-        return new OneOfString(getParameter(0).cloneNode(), (ArrayValues<StringLiteral>) getParameter(2).cloneNode());
+        return new OneOfString(getParameter(0).cloneNode(), accumulator.copy());
+    }
+
+    @Override
+    public OneOfAccumulator<StringLiteral> getAccumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public void setAccumulator(OneOfAccumulator<StringLiteral> accumulator) {
+        this.accumulator = accumulator;
+        setParameter(2, accumulator.getOptions());
+    }
+
+    @Override
+    public OptionMultiset emptyWindowAggregate() {
+        return new OptionMultiset(accumulator.getOptions().getValue());
+    }
+
+    @Override
+    public Value<?> getWindowValue() {
+        String first = this.getStringArgument(0);
+        if(first != null) {
+            return new StringLiteral(first);
+        }
+
+        return null;
     }
 
     @Override
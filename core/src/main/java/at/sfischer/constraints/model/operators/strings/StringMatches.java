@@ -5,11 +5,20 @@ import at.sfischer.constraints.model.operators.Function;
 
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class StringMatches extends Function {
 
     private static final String FUNCTION_NAME = "string.matches";
 
+    /**
+     * The regular expression the pattern was compiled for by {@link #prepare()}.
+     */
+    private Node preparedRegex;
+
+    private Pattern pattern;
+
     public StringMatches(Node first, Node second) {
         super(FUNCTION_NAME, first, second);
     }
@@ -20,16 +29,42 @@ public class StringMatches extends Function {
         String second = this.getStringArgument(1);
         
         if(first != null && second != null){
-            boolean result = first.matches(second);
+            Pattern pattern = this.pattern;
+            boolean result = pattern != null && getParameter(1) == preparedRegex ? pattern.matcher(first).matches() : first.matches(second);
             return BooleanLiteral.getBooleanLiteral(result);
         }
 
         return this;
     }
 
+    @Override
+    public void prepare() {
+        preparedRegex = getParameter(1);
+        pattern = compile(getParameter(1));
+    }
+
+    /**
+     * @return the compiled pattern if the given regular expression is a literal, otherwise null.
+     */
+    static Pattern compile(Node regex) {
+        if(!(regex instanceof StringLiteral literal) || literal.getValue() == null){
+            return null;
+        }
+
+        try {
+            return Pattern.compile(literal.getValue());
+        } catch (PatternSyntaxException e) {
+            // The evaluation reports the invalid pattern.
+            return null;
+        }
+    }
+
     @Override
     public Node setVariableValues(Map<Variable, Node> values) {
-        return new StringMatches(getParameter(0).setVariableValues(values), getParameter(1).setVariableValues(values));
+        StringMatches stringMatches = new StringMatches(getParameter(0).setVariableValues(values), getParameter(1).setVariableValues(values));
+        stringMatches.preparedRegex = preparedRegex;
+        stringMatches.pattern = pattern;
+        return stringMatches;
     }
 
     @Override
@@ -1,17 +1,28 @@
 package at.sfischer.constraints;
 
 import at.sfischer.constraints.data.*;
+import at.sfischer.constraints.miner.AndConstraintPolicy;
 import at.sfischer.constraints.miner.ConstraintPolicy;
 import at.sfischer.constraints.miner.MinApplicationsPolicy;
 import at.sfischer.constraints.miner.NoViolationsPolicy;
+import at.sfischer.constraints.miner.SequentialTestPolicy;
 import at.sfischer.constraints.model.DataReference;
+import at.sfischer.constraints.model.IntegerLiteral;
 import at.sfischer.constraints.model.Node;
 import at.sfischer.constraints.model.NumberLiteral;
 import at.sfischer.constraints.model.Variable;
 import at.sfischer.constraints.model.operators.numbers.GreaterThanOrEqualOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import at.sfischer.constraints.model.operators.numbers.OneOfNumber;
 import org.javatuples.Pair;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ConstraintHandlerTest {
@@ -225,4 +236,341 @@ public class ConstraintHandlerTest {
         handler.retain(invalidConstraint, schema, results);
         assertTrue(value.constraints.contains(invalid));
     }
+
+    @Test
+    public void evaluateAllConstructsInOnePass() {
+        SimpleDataCollection data = SimpleDataCollection.parseData(
+                "{value:0}",
+                "{value:0}",
+                "{value:0}",
+                "{value:2}",
+                "{value:3}"
+        );
+
+        ConstraintTemplate validConstraint = new ConstraintTemplate(
+                "valid",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new NoViolationsPolicy()
+        );
+        ConstraintTemplate lowerBound = new ConstraintTemplate(
+                "lowerBound",
+                new LowerBoundOperator(new Variable("a")),
+                new NoViolationsPolicy()
+        );
+        ConstraintTemplate notEvaluated = new ConstraintTemplate(
+                "notEvaluated",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(3)),
+                new MinApplicationsPolicy(1)
+        );
+        List<ConstraintTemplate> constructs = List.of(validConstraint, lowerBound);
+
+        ConstraintHandler handler = new ConstraintHandler();
+        SimpleDataSchema expectedSchema = data.deriveSchema(null);
+        handler.instantiate(validConstraint, expectedSchema);
+        handler.instantiate(lowerBound, expectedSchema);
+        handler.instantiate(notEvaluated, expectedSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> expectedResults = handler.evaluate(validConstraint, expectedSchema, data);
+        handler.retain(validConstraint, expectedSchema, expectedResults);
+        handler.retain(lowerBound, expectedSchema, expectedResults);
+
+        SimpleDataSchema schema = data.deriveSchema(null);
+        handler.instantiate(validConstraint, schema);
+        handler.instantiate(lowerBound, schema);
+        handler.instantiate(notEvaluated, schema);
+        EvaluationResults<SimpleDataSchema, DataObject> results = handler.evaluateAll(constructs, schema, data);
+
+        Set<ConstraintResults<DataObject>> valueResults = results.getPotentialConstraintResults().get(schema.getSchemaEntry("value"));
+        assertEquals(2, valueResults.size());
+        for (ConstraintResults<DataObject> constraintResults : valueResults) {
+            assertNotSame(notEvaluated, constraintResults.constraint().derivedFrom());
+            assertEquals(5, constraintResults.numberOfValidDataEntries());
+        }
+
+        handler.retainAll(constructs, schema, results);
+        assertEquals(expectedSchema, schema);
+        assertEquals(2, schema.getSchemaEntry("value").constraints.size());
+        assertEquals(1, schema.getSchemaEntry("value").potentialConstraints.size());
+    }
+
+    @Test
+    public void evaluateAllConstructsOnceByDefault() {
+        SimpleDataCollection data = SimpleDataCollection.parseData("{value:0}", "{value:2}", "{value:3}");
+        ConstraintTemplate validConstraint = new ConstraintTemplate(
+                "valid",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new NoViolationsPolicy()
+        );
+        ConstraintTemplate lowerBound = new ConstraintTemplate(
+                "lowerBound",
+                new LowerBoundOperator(new Variable("a")),
+                new NoViolationsPolicy()
+        );
+
+        ConstraintHandler delegate = new ConstraintHandler();
+        ConstraintConstructHandler<ConstraintTemplate> handler = new ConstraintConstructHandler<>() {
+            @Override
+            public Class<ConstraintTemplate> getSupportedType() {
+                return ConstraintTemplate.class;
+            }
+
+            @Override
+            public void instantiate(ConstraintTemplate construct, DataSchema schema) {
+                delegate.instantiate(construct, schema);
+            }
+
+            @Override
+            public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluate(ConstraintTemplate construct, DataSchema schema, DataCollection<DATA> data) {
+                return delegate.evaluate(construct, schema, data);
+            }
+
+            @Override
+            public <SCHEMA extends DataSchema, DATA> void retain(ConstraintTemplate construct, DataSchema schema, EvaluationResults<SCHEMA, DATA> results) {
+                delegate.retain(construct, schema, results);
+            }
+        };
+
+        SimpleDataSchema schema = data.deriveSchema(null);
+        handler.instantiate(validConstraint, schema);
+        handler.instantiate(lowerBound, schema);
+        EvaluationResults<SimpleDataSchema, DataObject> results = handler.evaluateAll(List.of(validConstraint, lowerBound), schema, data, new EvaluationResults<>(1));
+
+        Set<ConstraintResults<DataObject>> valueResults = results.getPotentialConstraintResults().get(schema.getSchemaEntry("value"));
+        assertEquals(2, valueResults.size());
+        for (ConstraintResults<DataObject> constraintResults : valueResults) {
+            assertEquals(3, constraintResults.numberOfValidDataEntries() + constraintResults.missingEvidenceConstraintData().numberOfDataEntries());
+            assertInstanceOf(CountingDataCollection.class, constraintResults.validConstraintData());
+        }
+    }
+
+    @Test
+    public void evaluateInParallelEqualsSequentialEvaluation() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int value = (i * 7) % 11 - 2;
+            if(i % 9 == 4){
+                entries.add("{other:" + value + "}");
+            } else {
+                entries.add("{value:" + value + ", other:" + (i % 3) + "}");
+            }
+        }
+        SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+        ConstraintTemplate greaterZero = new ConstraintTemplate(
+                "greaterZero",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new NoViolationsPolicy()
+        );
+        ConstraintTemplate lowerBound = new ConstraintTemplate(
+                "lowerBound",
+                new LowerBoundOperator(new Variable("a")),
+                new NoViolationsPolicy()
+        );
+
+        SimpleDataSchema sequentialSchema = data.deriveSchema(null);
+        ConstraintHandler sequentialHandler = new ConstraintHandler();
+        sequentialHandler.instantiate(greaterZero, sequentialSchema);
+        sequentialHandler.instantiate(lowerBound, sequentialSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> sequentialResults = sequentialHandler.evaluate(greaterZero, sequentialSchema, data);
+
+        SimpleDataSchema parallelSchema = data.deriveSchema(null);
+        ConstraintHandler parallelHandler = new ConstraintHandler(false, new ForkJoinPool(4));
+        parallelHandler.instantiate(greaterZero, parallelSchema);
+        parallelHandler.instantiate(lowerBound, parallelSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> parallelResults = parallelHandler.evaluate(greaterZero, parallelSchema, data);
+
+        assertEquals(sequentialResults.getEvaluationResults(), parallelResults.getEvaluationResults());
+        assertEquals(sequentialResults.getPotentialConstraintResults().keySet(), parallelResults.getPotentialConstraintResults().keySet());
+        int numberOfResults = 0;
+        for (Map.Entry<DataSchemaEntry<SimpleDataSchema>, Set<ConstraintResults<DataObject>>> entry : sequentialResults.getPotentialConstraintResults().entrySet()) {
+            assertEquals(entry.getValue().size(), parallelResults.getPotentialConstraintResults().get(entry.getKey()).size());
+            for (ConstraintResults<DataObject> expected : entry.getValue()) {
+                ConstraintResults<DataObject> actual = parallelResults.getPotentialConstraintResults(entry.getKey(), expected.constraint(), data);
+                assertEquals(dataEntries(expected.validConstraintData()), dataEntries(actual.validConstraintData()));
+                assertEquals(dataEntries(expected.invalidConstraintData()), dataEntries(actual.invalidConstraintData()));
+                assertEquals(dataEntries(expected.inapplicableConstraintData()), dataEntries(actual.inapplicableConstraintData()));
+                assertEquals(dataEntries(expected.missingEvidenceConstraintData()), dataEntries(actual.missingEvidenceConstraintData()));
+                numberOfResults++;
+            }
+        }
+        assertEquals(4, numberOfResults);
+    }
+
+    @Test
+    public void evaluateStatefulConstraintsInParallelEqualsSequentialEvaluation() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            entries.add("{value:" + ((i * 7) % 11 - 2) + ", other:" + (i % 5) + "}");
+        }
+        SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+        ConstraintTemplate oneOf = new ConstraintTemplate(
+                "oneOf",
+                new OneOfNumber(new Variable("a"), new IntegerLiteral(3)),
+                new NoViolationsPolicy()
+        );
+        ConstraintTemplate lowerBound = new ConstraintTemplate(
+                "lowerBound",
+                new LowerBoundOperator(new Variable("a")),
+                new NoViolationsPolicy()
+        );
+
+        SimpleDataSchema sequentialSchema = data.deriveSchema(null);
+        ConstraintHandler sequentialHandler = new ConstraintHandler();
+        sequentialHandler.instantiate(oneOf, sequentialSchema);
+        sequentialHandler.instantiate(lowerBound, sequentialSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> sequentialResults = sequentialHandler.evaluateAll(List.of(oneOf, lowerBound), sequentialSchema, data);
+
+        SimpleDataSchema parallelSchema = data.deriveSchema(null);
+        ConstraintHandler parallelHandler = new ConstraintHandler(false, new ForkJoinPool(4));
+        parallelHandler.instantiate(oneOf, parallelSchema);
+        parallelHandler.instantiate(lowerBound, parallelSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> parallelResults = parallelHandler.evaluateAll(List.of(oneOf, lowerBound), parallelSchema, data);
+
+        assertEquals(sequentialResults.getEvaluationResults(), parallelResults.getEvaluationResults());
+        int numberOfResults = 0;
+        for (Map.Entry<DataSchemaEntry<SimpleDataSchema>, Set<ConstraintResults<DataObject>>> entry : sequentialResults.getPotentialConstraintResults().entrySet()) {
+            assertEquals(entry.getValue().size(), parallelResults.getPotentialConstraintResults().get(entry.getKey()).size());
+            for (ConstraintResults<DataObject> expected : entry.getValue()) {
+                ConstraintResults<DataObject> actual = parallelResults.getPotentialConstraintResults(entry.getKey(), expected.constraint(), data);
+                assertEquals(dataEntries(expected.validConstraintData()), dataEntries(actual.validConstraintData()));
+                assertEquals(dataEntries(expected.invalidConstraintData()), dataEntries(actual.invalidConstraintData()));
+                assertEquals(dataEntries(expected.inapplicableConstraintData()), dataEntries(actual.inapplicableConstraintData()));
+                assertEquals(dataEntries(expected.missingEvidenceConstraintData()), dataEntries(actual.missingEvidenceConstraintData()));
+                numberOfResults++;
+            }
+        }
+        assertEquals(4, numberOfResults);
+
+        // The state committed to the terms is the one of the sequential evaluation as well.
+        for (ConstraintResults<DataObject> results : sequentialResults.getPotentialConstraintResults().get(sequentialSchema.getSchemaEntry("value"))) {
+            Constraint expected = (Constraint) results.constraint();
+            Constraint actual = parallelSchema.getSchemaEntry("value").potentialConstraints.stream()
+                    .map(Constraint.class::cast)
+                    .filter(c -> c.term().getClass() == expected.term().getClass())
+                    .findAny().orElseThrow();
+            assertEquals(expected.term(), actual.term());
+        }
+    }
+
+    @Test
+    public void evaluateCountingRetainsCountsAndBoundedExamples() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int value = (i * 7) % 11 - 2;
+            entries.add("{value:" + value + ", other:" + (i % 3) + "}");
+        }
+        SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+        ConstraintTemplate greaterZero = new ConstraintTemplate(
+                "greaterZero",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new NoViolationsPolicy()
+        );
+
+        SimpleDataSchema retainingSchema = data.deriveSchema(null);
+        ConstraintHandler retainingHandler = new ConstraintHandler();
+        retainingHandler.instantiate(greaterZero, retainingSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> retainingResults = retainingHandler.evaluate(greaterZero, retainingSchema, data);
+
+        SimpleDataSchema countingSchema = data.deriveSchema(null);
+        ConstraintHandler countingHandler = new ConstraintHandler(false, new ForkJoinPool(4), 3);
+        countingHandler.instantiate(greaterZero, countingSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> countingResults = countingHandler.evaluate(greaterZero, countingSchema, data);
+
+        int numberOfResults = 0;
+        for (Map.Entry<DataSchemaEntry<SimpleDataSchema>, Set<ConstraintResults<DataObject>>> entry : retainingResults.getPotentialConstraintResults().entrySet()) {
+            for (ConstraintResults<DataObject> expected : entry.getValue()) {
+                ConstraintResults<DataObject> actual = countingResults.getPotentialConstraintResults(entry.getKey(), expected.constraint(), data);
+                assertInstanceOf(CountingDataCollection.class, actual.validConstraintData());
+                assertEquals(expected.numberOfValidDataEntries(), actual.numberOfValidDataEntries());
+                assertEquals(expected.numberOfViolations(), actual.numberOfViolations());
+                assertEquals(expected.numberOfInapplicableEntries(), actual.numberOfInapplicableEntries());
+                assertEquals(expected.foundCounterExample(), actual.foundCounterExample());
+
+                CountingDataCollection<DataObject> invalid = (CountingDataCollection<DataObject>) actual.invalidConstraintData();
+                assertEquals(Math.min(3, expected.numberOfViolations()), invalid.getExamples().size());
+                assertTrue(dataEntries(expected.invalidConstraintData()).containsAll(invalid.getExamples()));
+                numberOfResults++;
+            }
+        }
+        assertEquals(2, numberOfResults);
+
+        retainingHandler.retain(greaterZero, retainingSchema, retainingResults);
+        countingHandler.retain(greaterZero, countingSchema, countingResults);
+        assertEquals(retainingSchema, countingSchema);
+    }
+
+    @Test
+    public void evaluateRetiringDecidedCandidates() {
+        List<String> entries = new ArrayList<>();
+        entries.add("{value:-1, other:0}");
+        for (int i = 0; i < 20; i++) {
+            entries.add("{value:" + i + ", other:" + (i % 3) + "}");
+        }
+        SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+        ConstraintTemplate greaterZero = new ConstraintTemplate(
+                "greaterZero",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new AndConstraintPolicy(new NoViolationsPolicy(), new MinApplicationsPolicy(1))
+        );
+
+        SimpleDataSchema schema = data.deriveSchema(null);
+        ConstraintHandler handler = new ConstraintHandler();
+        handler.instantiate(greaterZero, schema);
+        EvaluationResults<SimpleDataSchema, DataObject> results = handler.evaluate(greaterZero, schema, data);
+
+        SimpleDataSchema retiringSchema = data.deriveSchema(null);
+        ConstraintHandler retiringHandler = new ConstraintHandler(false, null, EvaluationResults.RETAIN_ALL_DATA, true);
+        retiringHandler.instantiate(greaterZero, retiringSchema);
+        EvaluationResults<SimpleDataSchema, DataObject> retiringResults = retiringHandler.evaluate(greaterZero, retiringSchema, data);
+
+        DataSchemaEntry<SimpleDataSchema> value = retiringSchema.getSchemaEntry("value");
+        ConstraintResults<DataObject> valueResults = retiringResults.getPotentialConstraintResults(value, new Constraint(new GreaterThanOrEqualOperator(new DataReference(value), new NumberLiteral(0))), data);
+        assertEquals(1, valueResults.numberOfViolations());
+        assertEquals(0, valueResults.numberOfValidDataEntries());
+
+        DataSchemaEntry<SimpleDataSchema> other = retiringSchema.getSchemaEntry("other");
+        ConstraintResults<DataObject> otherResults = retiringResults.getPotentialConstraintResults(other, new Constraint(new GreaterThanOrEqualOperator(new DataReference(other), new NumberLiteral(0))), data);
+        assertEquals(0, otherResults.numberOfViolations());
+        assertEquals(21, otherResults.numberOfValidDataEntries());
+
+        handler.retain(greaterZero, schema, results);
+        retiringHandler.retain(greaterZero, retiringSchema, retiringResults);
+        assertEquals(schema, retiringSchema);
+        assertEquals(0, retiringSchema.getSchemaEntry("value").constraints.size());
+        assertEquals(1, retiringSchema.getSchemaEntry("other").constraints.size());
+    }
+
+    @Test
+    public void evaluateRetiringAcceptedCandidates() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            entries.add("{value:" + i + "}");
+        }
+        SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+        ConstraintTemplate greaterZero = new ConstraintTemplate(
+                "greaterZero",
+                new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+                new SequentialTestPolicy(0.0, 0.95)
+        );
+
+        SimpleDataSchema schema = data.deriveSchema(null);
+        ConstraintHandler handler = new ConstraintHandler(false, null, EvaluationResults.RETAIN_ALL_DATA, true);
+        handler.instantiate(greaterZero, schema);
+        EvaluationResults<SimpleDataSchema, DataObject> results = handler.evaluate(greaterZero, schema, data);
+
+        DataSchemaEntry<SimpleDataSchema> value = schema.getSchemaEntry("value");
+        ConstraintResults<DataObject> valueResults = results.getPotentialConstraintResults(value, new Constraint(new GreaterThanOrEqualOperator(new DataReference(value), new NumberLiteral(0))), data);
+        // The test accepts the constraint after 293 valid entries without violations.
+        assertEquals(293, valueResults.numberOfValidDataEntries());
+
+        handler.retain(greaterZero, schema, results);
+        assertEquals(1, value.constraints.size());
+    }
+
+    private static List<DataObject> dataEntries(DataCollection<DataObject> data) {
+        return ((SimpleDataCollection) data).getDataCollection();
+    }
 }
@@ -0,0 +1,188 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.model.DataReference;
+import at.sfischer.constraints.model.IntegerLiteral;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarDataCollectionTest {
+
+	private static final String[] DATA = {
+			"{size:0, isEmpty:true, name:\"a\", object:{id:0, value:\"string\"}, tags:[\"x\", \"y\"]}",
+			"{size:1, isEmpty:false, name:\"b\", ratio:0.5, object:{id:1}, tags:[]}",
+			"{size:3, isEmpty:false, name:\"a\", ratio:1.5, object:{}, values:[1, 2, 3], flags:[true, false]}",
+			"{size:4, isEmpty:true, items:[{id:1}, {id:2, value:\"v\"}], numbers:[0.5, 1.5], matrix:[[1, 2], [3]]}"
+	};
+
+	@Test
+	public void rebuildDataObjects() {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(DATA);
+
+		assertEquals(expected.numberOfDataEntries(), actual.numberOfDataEntries());
+		List<DataObject> visited = new ArrayList<>();
+		actual.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+		assertEquals(expected.getDataCollection(), visited);
+	}
+
+	@Test
+	public void rebuildInconsistentTypes() {
+		String[] data = {
+				"{value:1, object:{id:0}}",
+				"{value:1.5, object:3}",
+				"{value:\"a\", object:{id:\"x\"}}"
+		};
+		SimpleDataCollection expected = SimpleDataCollection.parseData(data);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(data);
+
+		for (int i = 0; i < data.length; i++) {
+			assertEquals(expected.getDataCollection().get(i), actual.getDataEntry(i));
+		}
+		assertEquals(expected.getAllValues("value"), actual.getAllValues("value"));
+		assertEquals(expected.getAllValues("object.id"), actual.getAllValues("object.id"));
+	}
+
+	@Test
+	public void deriveSameSchema() {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(DATA);
+
+		assertEquals(expected.deriveSchema(null), actual.deriveSchema(null));
+	}
+
+	@Test
+	public void getSameValues() {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(DATA);
+
+		for (String valueReference : new String[]{"size", "ratio", "name", "object", "object.id", "object.value", "tags", "values", "flags", "numbers", "items", "items.id", "matrix", "missing"}) {
+			assertEquals(expected.getAllValues(valueReference), actual.getAllValues(valueReference), valueReference);
+		}
+	}
+
+	@Test
+	public void removeAndPartition() {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(DATA);
+		DataObject removed = expected.getDataCollection().get(1);
+		expected.removeDataEntry(removed);
+		actual.removeDataEntry(removed);
+
+		List<DataObject> visited = new ArrayList<>();
+		for (DataCollection<DataObject> partition : actual.partition(2)) {
+			assertInstanceOf(ColumnarDataCollection.class, partition);
+			partition.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+		}
+		assertEquals(expected.getDataCollection(), visited);
+	}
+
+	@Test
+	public void visitSameValues() {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(DATA);
+		Set<String> fieldNames = Set.of("size", "ratio", "object", "object.id", "tags", "items", "matrix", "missing");
+
+		List<Map<String, Node>> expectedValues = new ArrayList<>();
+		expected.visitDataEntries(fieldNames, (values, dataEntry) -> expectedValues.add(values));
+		List<Map<String, Node>> actualValues = new ArrayList<>();
+		actual.visitDataEntries(fieldNames, (values, dataEntry) -> actualValues.add(values));
+		assertEquals(expectedValues, actualValues);
+	}
+
+	@Test
+	public void retainVisitedRowsWithoutRebuilding() {
+		ColumnarDataCollection data = ColumnarDataCollection.parseData(DATA);
+		ColumnarDataCollection retained = new ColumnarDataCollection();
+		data.visitDataEntries(Set.of("size"), new DataEntryVisitor<>() {
+			@Override
+			public void visitDataValues(Map<String, Node> values, DataObject dataEntry) {
+				fail("Rows should be visited lazily.");
+			}
+
+			@Override
+			public void visitLazyDataValues(Map<String, Node> values, Supplier<? extends DataObject> dataEntry) {
+				if(values.get("size").equals(new IntegerLiteral(3))){
+					retained.addLazyDataEntry(dataEntry);
+				}
+			}
+		});
+
+		assertEquals(1, retained.numberOfDataEntries());
+		assertEquals(DataObject.parseData(DATA[2]), retained.getDataEntry(0));
+	}
+
+	@Test
+	public void applyConstraintLikeSimpleDataCollection() {
+		Constraint constraint = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)));
+		ConstraintResults<DataObject> expected = constraint.applyData(SimpleDataCollection.parseData(DATA));
+		ConstraintResults<DataObject> actual = constraint.applyData(ColumnarDataCollection.parseData(DATA));
+
+		assertInstanceOf(ColumnarDataCollection.class, actual.validConstraintData());
+		assertEquals(visit(expected.validConstraintData()), visit(actual.validConstraintData()));
+		assertEquals(visit(expected.invalidConstraintData()), visit(actual.invalidConstraintData()));
+	}
+
+	private static List<DataObject> visit(DataCollection<DataObject> data) {
+		List<DataObject> visited = new ArrayList<>();
+		data.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+		return visited;
+	}
+
+	@Test
+	public void appendInconsistentTypes() {
+		String[] first = {
+				"{value:1, object:3}",
+				"{value:2, object:{id:0}}"
+		};
+		String[] second = {
+				"{value:\"a\", object:{id:\"x\", name:\"n\"}}",
+				"{value:1.5, object:{id:1}}",
+				"{object:[1, 2]}"
+		};
+		SimpleDataCollection expected = SimpleDataCollection.parseData(first);
+		expected.append(SimpleDataCollection.parseData(second));
+
+		ColumnarDataCollection actual = ColumnarDataCollection.parseData(first);
+		actual.append(ColumnarDataCollection.parseData(second));
+		List<DataObject> visited = new ArrayList<>();
+		actual.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+		assertEquals(expected.getDataCollection(), visited);
+
+		ColumnarDataCollection reversed = ColumnarDataCollection.parseData(second);
+		reversed.append(ColumnarDataCollection.parseData(first));
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(DataObject.parseData(first[i]), reversed.getDataEntry(second.length + i));
+		}
+		reversed.append(ColumnarDataCollection.parseData("{value:3, object:{id:2, name:\"m\"}}"));
+		assertEquals(DataObject.parseData("{value:3, object:{id:2, name:\"m\"}}"), reversed.getDataEntry(second.length + first.length));
+	}
+
+	@Test
+	public void evaluateLikeSimpleDataCollection() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", true);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new NumberLiteral(0)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		ColumnarDataCollection data = ColumnarDataCollection.parseData(DATA);
+		EvaluationResults<SimpleDataSchema, DataObject> results = schema.evaluate(data);
+		ConstraintResults<DataObject> constraintResults = results.getConstraintResults(sizeEntry, sizeConstraint, data);
+
+		assertEquals(1, constraintResults.numberOfViolations());
+		assertEquals(3, constraintResults.numberOfValidDataEntries());
+		assertInstanceOf(ColumnarDataCollection.class, constraintResults.validConstraintData());
+	}
+}
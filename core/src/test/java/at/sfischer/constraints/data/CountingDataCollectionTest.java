@@ -0,0 +1,90 @@
+package at.sfischer.constraints.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingDataCollectionTest {
+	@Test
+	public void countAndRetainBoundedExamples() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{value:0}",
+				"{value:1}",
+				"{value:2}",
+				"{value:3}",
+				"{value:4}"
+		);
+		CountingDataCollection<DataObject> counting = new CountingDataCollection<>(data, 2);
+		for (DataObject dataObject : data.getDataCollection()) {
+			counting.addDataEntry(dataObject);
+		}
+
+		assertEquals(5, counting.numberOfDataEntries());
+		assertEquals(5, counting.size());
+		assertEquals(2, counting.getExamples().size());
+		assertTrue(data.getDataCollection().containsAll(counting.getExamples()));
+
+		List<DataObject> visited = new ArrayList<>();
+		counting.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+		assertEquals(counting.getExamples(), visited);
+	}
+
+	@Test
+	public void addAllCountingCollection() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{value:0}",
+				"{value:1}",
+				"{value:2}"
+		);
+		CountingDataCollection<DataObject> first = new CountingDataCollection<>(data, 2);
+		CountingDataCollection<DataObject> second = new CountingDataCollection<>(data, 2);
+		first.addDataEntry(data.getDataCollection().get(0));
+		for (DataObject dataObject : data.getDataCollection()) {
+			second.addDataEntry(dataObject);
+		}
+
+		first.addAll(second);
+		second.clear();
+
+		assertEquals(4, first.numberOfDataEntries());
+		assertEquals(2, first.getExamples().size());
+		assertEquals(0, second.numberOfDataEntries());
+		assertTrue(second.getExamples().isEmpty());
+	}
+
+	@Test
+	public void removeOnlyRetainedExamples() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{value:0}",
+				"{value:1}",
+				"{value:2}"
+		);
+		CountingDataCollection<DataObject> counting = new CountingDataCollection<>(data, 1);
+		counting.addDataEntry(data.getDataCollection().get(0));
+		counting.addDataEntry(data.getDataCollection().get(1));
+
+		counting.removeDataEntry(DataObject.parseData("{value:5}"));
+		assertEquals(2, counting.numberOfDataEntries());
+
+		counting.removeDataEntry(counting.getExamples().get(0));
+		assertEquals(1, counting.numberOfDataEntries());
+		assertTrue(counting.getExamples().isEmpty());
+
+		counting.removeDataEntry(data.getDataCollection().get(2));
+		assertEquals(1, counting.numberOfDataEntries());
+	}
+
+	@Test
+	public void emptyDataCollectionKeepsLimit() {
+		SimpleDataCollection data = SimpleDataCollection.parseData("{value:0}", "{value:1}");
+		DataCollection<DataObject> counting = new CountingDataCollection<>(data, 1).emptyDataCollection();
+		counting.addAll(data);
+
+		assertInstanceOf(CountingDataCollection.class, counting);
+		assertEquals(2, counting.numberOfDataEntries());
+		assertEquals(1, ((CountingDataCollection<DataObject>) counting).getExamples().size());
+	}
+}
@@ -0,0 +1,69 @@
+package at.sfischer.constraints.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataObjectShapeTest {
+	@Test
+	public void shareShapesOfSameFields() {
+		DataObjectShape root = DataObjectShape.root(10);
+		DataObjectShape shape = root.withField("a").withField("b");
+
+		assertSame(shape, root.withField("a").withField("b"));
+		assertTrue(shape.isShared());
+		assertEquals(1, shape.slot("b"));
+		assertEquals(-1, shape.slot("c"));
+	}
+
+	@Test
+	public void stopSharingWhenTransitionsOfShapeAreFull() {
+		DataObjectShape root = DataObjectShape.root(2);
+		DataObjectShape a = root.withField("a");
+		DataObjectShape ab = a.withField("b");
+		DataObjectShape b = root.withField("b");
+		assertTrue(b.isShared());
+
+		// Shapes of dynamic field names are created per object.
+		DataObjectShape c = root.withField("c");
+		assertFalse(c.isShared());
+		assertNotSame(c, root.withField("c"));
+
+		// Other shapes still share their transitions.
+		assertSame(ab, root.withField("a").withField("b"));
+		assertTrue(a.withField("c").isShared());
+		// Shapes are only shared while they are used.
+		assertSame(b, root.withField("b"));
+	}
+
+	@Test
+	public void growShapeThatIsNotShared() {
+		DataObjectShape root = DataObjectShape.root(1);
+		DataObjectShape a = root.withField("a");
+		DataObjectShape shape = root.withField("b");
+		Object key = shape.key();
+		for (int i = 0; i < 20; i++) {
+			assertSame(shape, shape.withField("f" + i));
+		}
+
+		assertEquals(21, shape.size());
+		assertEquals(20, shape.slot("f19"));
+		assertEquals(List.of("b"), key);
+		assertEquals(shape.key(), shape.copy().key());
+		assertNotSame(shape, shape.copy());
+
+		List<String> fieldNames = new ArrayList<>();
+		for (String fieldName : shape.fieldNames()) {
+			fieldNames.add(fieldName);
+			if(fieldName.equals("b")){
+				shape.withField("late");
+			}
+		}
+		assertEquals(21, fieldNames.size());
+		assertTrue(shape.fieldNames().contains("late"));
+		assertSame(a, root.withField("a"));
+	}
+}
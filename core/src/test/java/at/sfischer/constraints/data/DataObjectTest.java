@@ -7,7 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class DataObjectTest {
 	@Test
@@ -131,4 +131,56 @@ public class DataObjectTest {
 
 		assertEquals(expected, actual);
 	}
+
+	@Test
+	public void equalIndependentOfFieldOrder() {
+		DataObject first = new DataObject();
+		first.putValue("size", 0);
+		first.putValue("object.id", 1);
+		DataObject second = new DataObject();
+		second.putValue("object.id", 1);
+		second.putValue("size", 0);
+
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(new HashMap<>(Map.of("size", 0, "object", 1)).keySet(), first.getFieldNames());
+
+		second.putValue("size", 1);
+		assertNotEquals(first, second);
+		assertEquals(new IntegerLiteral(1), second.getDataValue("size").getLiteralValue());
+	}
+
+	@Test
+	public void shareStructureOfSameShapes() {
+		DataObject first = DataObject.parseData("{size:0, name:\"a\", object:{id:0}}");
+		DataObject second = DataObject.parseData("{size:1, name:\"b\", object:{id:2}}");
+		DataObject other = DataObject.parseData("{size:1, name:\"b\", object:{id:\"2\"}}");
+		DataObject withArray = DataObject.parseData("{items:[{id:1}]}");
+		DataObject withLongerArray = DataObject.parseData("{items:[{id:2}, {id:3}]}");
+		DataObject withOtherElements = DataObject.parseData("{items:[{id:2}, {id:3, name:\"c\"}]}");
+		DataObject withNestedArray = DataObject.parseData("{items:[[{id:1}], [{id:2}]]}");
+
+		assertSame(first.getFieldNames(), second.getFieldNames());
+		assertEquals(first.structureKey(), second.structureKey());
+		assertNotEquals(first.structureKey(), other.structureKey());
+		assertEquals(withArray.structureKey(), withLongerArray.structureKey());
+		assertNotEquals(withArray.structureKey(), withOtherElements.structureKey());
+		assertNotEquals(withArray.structureKey(), withNestedArray.structureKey());
+		assertEquals(withNestedArray.structureKey(), DataObject.parseData("{items:[[{id:1}, {id:3}]]}").structureKey());
+		assertEquals(first, first.clone());
+	}
+
+	@Test
+	public void manyFields() {
+		DataObject dataObject = new DataObject();
+		for (int i = 0; i < 20; i++) {
+			dataObject.putValue("field" + i, i);
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i, dataObject.getDataValue("field" + i).getValue());
+		}
+		assertNull(dataObject.getDataValue("field20"));
+		assertEquals(20, dataObject.getFieldNames().size());
+	}
 }
@@ -0,0 +1,169 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.model.DataReference;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskDataCollectionTest {
+
+	private static final String[] DATA = {
+			"{size:0, isEmpty:true, name:\"a\", object:{id:0, value:\"string\"}, tags:[\"x\", \"y\"]}",
+			"{size:1, isEmpty:false, name:\"b\", ratio:0.5, object:{id:1}, tags:[]}",
+			"{size:3, isEmpty:false, name:\"ä\", ratio:-1.5, object:{}, values:[1, -2, 3], flags:[true, false]}",
+			"{size:4, isEmpty:true, items:[{id:1}, {id:2, value:\"v\"}], numbers:[0.5, 10000000000], matrix:[[1, 2], [3]]}"
+	};
+
+	@TempDir
+	Path directory;
+
+	private DiskDataCollection create(SimpleDataCollection data) {
+		// A small region size stores data objects across regions.
+		DiskDataCollection collection = new DiskDataCollection(directory.resolve("data.bin"), 16);
+		for (DataObject dataObject : data.getDataCollection()) {
+			collection.addDataEntry(dataObject);
+		}
+		return collection;
+	}
+
+	@Test
+	public void readStoredDataObjects() throws IOException {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		DataObject numbers = new DataObject();
+		numbers.putValue("decimal", new BigDecimal("1.25"));
+		numbers.putValue("long", 10000000000L);
+		numbers.putValue("booleans", new Boolean[]{true, false});
+		expected.addDataEntry(numbers);
+
+		try (DiskDataCollection actual = create(expected)) {
+			assertEquals(expected.numberOfDataEntries(), actual.numberOfDataEntries());
+			List<DataObject> visited = new ArrayList<>();
+			actual.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+			assertEquals(expected.getDataCollection(), visited);
+			assertEquals(new BigDecimal("1.25"), actual.getDataEntry(4).getDataValue("decimal").getValue());
+		}
+		assertTrue(Files.size(directory.resolve("data.bin")) > 0);
+	}
+
+	@Test
+	public void keepTypesOfNumbers() throws IOException {
+		DataObject numbers = new DataObject();
+		numbers.putValue("short", (short) -3);
+		numbers.putValue("byte", (byte) 7);
+		numbers.putValue("float", 1.5f);
+		numbers.putValue("numbers", new Number[]{(short) 1, (byte) 2, 2.5f});
+
+		try (DiskDataCollection actual = new DiskDataCollection(directory.resolve("numbers.bin"), 16)) {
+			actual.addDataEntry(numbers);
+			DataObject read = actual.getDataEntry(0);
+			assertEquals(numbers, read);
+			assertEquals(Short.class, read.getDataValue("short").getValue().getClass());
+			assertEquals(Byte.class, read.getDataValue("byte").getValue().getClass());
+			assertEquals(Float.class, read.getDataValue("float").getValue().getClass());
+			assertArrayEquals(new Number[]{(short) 1, (byte) 2, 2.5f}, (Number[]) read.getDataValue("numbers").getValue());
+		}
+	}
+
+	@Test
+	public void appendChangedDataObjects() throws IOException {
+		try (DiskDataCollection data = create(SimpleDataCollection.parseData(DATA))) {
+			DiskDataCollection copy = (DiskDataCollection) data.emptyDataCollection();
+			DataObject unchanged = data.getDataEntry(0);
+			DataObject changed = data.getDataEntry(1);
+			changed.putValue("size", 5);
+			copy.addDataEntry(unchanged);
+			copy.addDataEntry(changed);
+
+			assertEquals(data.getOffset(0), copy.getOffset(0));
+			assertTrue(copy.getOffset(1) > data.getOffset(3));
+			assertEquals(5, copy.getDataEntry(1).getDataValue("size").getValue());
+		}
+	}
+
+	@Test
+	public void deleteTemporaryFileOnceUnused() throws IOException, InterruptedException {
+		DataSegment closed = new DataSegment(16);
+		closed.append(DataObject.parseData(DATA[0]));
+		Path closedFile = closed.getFile();
+		closed.close();
+		assertFalse(Files.exists(closedFile));
+
+		Path file = unusedSegmentFile();
+		for (int i = 0; i < 100 && Files.exists(file); i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertFalse(Files.exists(file));
+	}
+
+	private static Path unusedSegmentFile() throws IOException {
+		DataSegment segment = new DataSegment(16);
+		segment.append(DataObject.parseData(DATA[0]));
+		assertTrue(Files.exists(segment.getFile()));
+		return segment.getFile();
+	}
+
+	@Test
+	public void deriveSameSchemaAndValues() throws IOException {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		try (DiskDataCollection actual = create(expected)) {
+			assertEquals(expected.deriveSchema(null), actual.deriveSchema(null));
+			for (String valueReference : new String[]{"size", "ratio", "name", "object.id", "tags", "items.id", "matrix", "missing"}) {
+				assertEquals(expected.getAllValues(valueReference), actual.getAllValues(valueReference), valueReference);
+			}
+		}
+	}
+
+	@Test
+	public void removeAndPartition() throws IOException {
+		SimpleDataCollection expected = SimpleDataCollection.parseData(DATA);
+		try (DiskDataCollection actual = create(expected)) {
+			DataObject removed = expected.getDataCollection().get(1);
+			expected.removeDataEntry(removed);
+			actual.removeDataEntry(removed);
+
+			List<DataObject> visited = new ArrayList<>();
+			for (DataCollection<DataObject> partition : actual.partition(2)) {
+				assertInstanceOf(DiskDataCollection.class, partition);
+				partition.visitDataEntries((values, dataEntry) -> visited.add(dataEntry));
+			}
+			assertEquals(expected.getDataCollection(), visited);
+		}
+	}
+
+	@Test
+	public void referenceResultsByOffset() throws IOException {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", true);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new NumberLiteral(0)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		try (DiskDataCollection data = create(SimpleDataCollection.parseData(DATA))) {
+			long size = Files.size(directory.resolve("data.bin"));
+			for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(2)}) {
+				EvaluationResults<SimpleDataSchema, DataObject> results = pool == null ? schema.evaluate(data) : schema.evaluate(data, pool);
+				ConstraintResults<DataObject> constraintResults = results.getConstraintResults(sizeEntry, sizeConstraint, data);
+
+				assertEquals(1, constraintResults.numberOfViolations());
+				assertEquals(3, constraintResults.numberOfValidDataEntries());
+				DiskDataCollection invalid = assertInstanceOf(DiskDataCollection.class, constraintResults.invalidConstraintData());
+				assertEquals(data.getOffset(0), invalid.getOffset(0));
+			}
+			// The results only reference the stored data objects.
+			assertEquals(size, Files.size(directory.resolve("data.bin")));
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.ConstraintTemplate;
+import at.sfischer.constraints.IConstraint;
+import at.sfischer.constraints.miner.SequentialTestPolicy;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationResultsTest {
+	@Test
+	public void getConstraintResultsOfEqualConstraint() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> size = schema.numberEntry("size", true);
+		SimpleDataCollection data = SimpleDataCollection.parseData("{size:1}");
+
+		Constraint constraint1 = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)));
+		Constraint constraint2 = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)));
+		Constraint constraint3 = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(1)));
+
+		EvaluationResults<SimpleDataSchema, DataObject> results = new EvaluationResults<>();
+		ConstraintResults<DataObject> results1 = results.getPotentialConstraintResults(size, constraint1, data);
+		assertSame(results1, results.getPotentialConstraintResults(size, constraint1, data));
+		assertSame(results1, results.getPotentialConstraintResults(size, constraint2, data));
+		assertNotSame(results1, results.getPotentialConstraintResults(size, constraint3, data));
+		assertNotSame(results1, results.getConstraintResults(size, constraint1, data));
+		assertEquals(2, results.getPotentialConstraintResults().get(size).size());
+		assertEquals(1, results.getConstraintResults().get(size).size());
+
+		EvaluationResults<SimpleDataSchema, DataObject> merged = new EvaluationResults<>();
+		merged.addResults(results);
+		assertSame(results1, merged.getPotentialConstraintResults(size, constraint2, data));
+	}
+
+	@Test
+	public void getPotentialConstraintOfEqualConstraint() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> size = schema.numberEntry("size", true);
+
+		Constraint constraint = new Constraint(new LowerBoundOperator(new Variable("size")));
+		size.potentialConstraints.add(constraint);
+
+		IConstraint equalConstraint = new Constraint(new LowerBoundOperator(new Variable("size")));
+		assertSame(constraint, size.getPotentionConstraint(equalConstraint));
+		assertNull(size.getPotentionConstraint(new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)))));
+
+		size.potentialConstraints.remove(equalConstraint);
+		assertNull(size.getPotentionConstraint(constraint));
+		assertTrue(size.potentialConstraints.isEmpty());
+	}
+
+	@Test
+	public void keepDecisionOfRetiredCandidates() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> size = schema.numberEntry("size", true);
+		SimpleDataCollection data = new SimpleDataCollection();
+		SequentialTestPolicy policy = new SequentialTestPolicy(0.0, 0.95);
+		ConstraintTemplate template = new ConstraintTemplate("greaterZero", new GreaterThanOperator(new Variable("a"), new NumberLiteral(0)), policy);
+		Constraint constraint = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)), template);
+
+		EvaluationResults<SimpleDataSchema, DataObject> results = new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true);
+		assertFalse(results.isRetired(size, constraint));
+		assertNull(results.findPotentialConstraintResults(size, constraint));
+
+		ConstraintResults<DataObject> constraintResults = results.getPotentialConstraintResults(size, constraint, data);
+		addEntries(constraintResults.validConstraintData(), 292);
+		assertFalse(results.retireIfDecided(constraintResults));
+		addEntries(constraintResults.validConstraintData(), 1);
+		assertTrue(results.retireIfDecided(constraintResults));
+		assertTrue(results.isRetired(size, constraint));
+
+		// Violations after the decision neither change the results nor the decision.
+		EvaluationResults<SimpleDataSchema, DataObject> later = new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true);
+		addEntries(later.getPotentialConstraintResults(size, constraint, data).invalidConstraintData(), 5);
+		results.merge(later, data);
+		assertEquals(0, constraintResults.numberOfViolations());
+		assertTrue(results.includeConstraint(constraintResults, policy));
+
+		constraintResults.invalidConstraintData().addDataEntry(new DataObject());
+		assertFalse(policy.includeConstraint(constraintResults));
+		assertTrue(results.includeConstraint(constraintResults, policy));
+	}
+
+	@Test
+	public void retireCandidatesDecidedOnMergedResults() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> size = schema.numberEntry("size", true);
+		SimpleDataCollection data = new SimpleDataCollection();
+		ConstraintTemplate template = new ConstraintTemplate("greaterZero", new GreaterThanOperator(new Variable("a"), new NumberLiteral(0)), new SequentialTestPolicy(0.0, 0.95));
+		Constraint constraint = new Constraint(new GreaterThanOperator(new Variable("size"), new NumberLiteral(0)), template);
+
+		EvaluationResults<SimpleDataSchema, DataObject> results = new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true);
+		addEntries(results.getPotentialConstraintResults(size, constraint, data).validConstraintData(), 200);
+		EvaluationResults<SimpleDataSchema, DataObject> partition = new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true);
+		addEntries(partition.getPotentialConstraintResults(size, constraint, data).validConstraintData(), 100);
+		assertFalse(results.isRetired(size, constraint));
+
+		results.merge(partition, data);
+		assertTrue(results.isRetired(size, constraint));
+	}
+
+	private static void addEntries(DataCollection<DataObject> data, int number) {
+		for (int i = 0; i < number; i++) {
+			data.addDataEntry(new DataObject());
+		}
+	}
+}
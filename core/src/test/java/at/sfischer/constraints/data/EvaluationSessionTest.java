@@ -0,0 +1,128 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.ConstraintHandler;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.ConstraintTemplate;
+import at.sfischer.constraints.miner.NoViolationsPolicy;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOrEqualOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationSessionTest {
+	@Test
+	public void evaluateBatchesLikeAllData() {
+		List<String> entries = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			int value = (i * 7) % 11 - 2;
+			if(i % 9 == 4){
+				entries.add("{other:" + value + "}");
+			} else {
+				entries.add("{value:" + value + ", other:" + (i % 3) + "}");
+			}
+		}
+		SimpleDataCollection data = SimpleDataCollection.parseData(entries);
+
+		ConstraintTemplate greaterZero = new ConstraintTemplate(
+				"greaterZero",
+				new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+				new NoViolationsPolicy()
+		);
+		ConstraintTemplate lowerBound = new ConstraintTemplate(
+				"lowerBound",
+				new LowerBoundOperator(new Variable("a")),
+				new NoViolationsPolicy()
+		);
+
+		SimpleDataSchema expectedSchema = data.deriveSchema(null);
+		ConstraintHandler handler = new ConstraintHandler();
+		handler.instantiate(greaterZero, expectedSchema);
+		handler.instantiate(lowerBound, expectedSchema);
+		EvaluationResults<SimpleDataSchema, DataObject> expectedResults = handler.evaluate(greaterZero, expectedSchema, data);
+
+		SimpleDataSchema schema = data.deriveSchema(null);
+		handler.instantiate(greaterZero, schema);
+		handler.instantiate(lowerBound, schema);
+		EvaluationSession<SimpleDataSchema, DataObject> session = new EvaluationSession<>(schema, new SimpleDataCollection());
+		session.evaluate(SimpleDataCollection.parseData(entries.subList(0, 7)));
+		session.evaluate(SimpleDataCollection.parseData(entries.subList(7, 27)));
+		EvaluationResults<SimpleDataSchema, DataObject> results = session.evaluate(SimpleDataCollection.parseData(entries.subList(27, 40)));
+
+		assertEquals(40, session.getData().numberOfDataEntries());
+		assertEquals(expectedResults.getEvaluationResults().size(), results.getEvaluationResults().size());
+		int numberOfResults = 0;
+		for (Map.Entry<DataSchemaEntry<SimpleDataSchema>, Set<ConstraintResults<DataObject>>> entry : expectedResults.getPotentialConstraintResults().entrySet()) {
+			for (ConstraintResults<DataObject> expected : entry.getValue()) {
+				ConstraintResults<DataObject> actual = results.getPotentialConstraintResults(entry.getKey(), expected.constraint(), data);
+				assertEquals(dataEntries(expected.validConstraintData()), dataEntries(actual.validConstraintData()));
+				assertEquals(dataEntries(expected.invalidConstraintData()), dataEntries(actual.invalidConstraintData()));
+				assertEquals(dataEntries(expected.inapplicableConstraintData()), dataEntries(actual.inapplicableConstraintData()));
+				assertEquals(dataEntries(expected.missingEvidenceConstraintData()), dataEntries(actual.missingEvidenceConstraintData()));
+				assertEquals(expected.applicationRate(), actual.applicationRate());
+				numberOfResults++;
+			}
+		}
+		assertEquals(4, numberOfResults);
+
+		handler.retain(greaterZero, expectedSchema, expectedResults);
+		handler.retain(lowerBound, expectedSchema, expectedResults);
+		handler.retain(greaterZero, schema, results);
+		handler.retain(lowerBound, schema, results);
+		assertEquals(expectedSchema, schema);
+	}
+
+	@Test
+	public void skipDecidedCandidatesInLaterBatches() {
+		SimpleDataCollection data = SimpleDataCollection.parseData("{value:-1}", "{value:1}", "{value:2}");
+		ConstraintTemplate greaterZero = new ConstraintTemplate(
+				"greaterZero",
+				new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+				new NoViolationsPolicy()
+		);
+
+		SimpleDataSchema schema = data.deriveSchema(null);
+		new ConstraintHandler().instantiate(greaterZero, schema);
+		EvaluationSession<SimpleDataSchema, DataObject> session = new EvaluationSession<>(schema, new SimpleDataCollection(), null, new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true));
+		session.evaluate(SimpleDataCollection.parseData("{value:-1}"));
+		EvaluationResults<SimpleDataSchema, DataObject> results = session.evaluate(SimpleDataCollection.parseData("{value:1}", "{value:2}"));
+
+		ConstraintResults<DataObject> constraintResults = results.getPotentialConstraintResults().values().iterator().next().iterator().next();
+		assertEquals(1, constraintResults.numberOfViolations());
+		assertEquals(0, constraintResults.numberOfValidDataEntries());
+		assertEquals(3, session.getData().numberOfDataEntries());
+	}
+
+	@Test
+	public void retireDecidedCandidatesWithinBatches() {
+		SimpleDataCollection data = SimpleDataCollection.parseData("{value:-1}", "{value:1}", "{value:2}");
+		ConstraintTemplate greaterZero = new ConstraintTemplate(
+				"greaterZero",
+				new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+				new NoViolationsPolicy()
+		);
+
+		SimpleDataSchema schema = data.deriveSchema(null);
+		new ConstraintHandler().instantiate(greaterZero, schema);
+		EvaluationSession<SimpleDataSchema, DataObject> session = new EvaluationSession<>(schema, new SimpleDataCollection(), null, new EvaluationResults<>(EvaluationResults.RETAIN_ALL_DATA, true));
+		session.evaluate(SimpleDataCollection.parseData("{value:1}", "{value:-1}", "{value:2}"));
+		EvaluationResults<SimpleDataSchema, DataObject> results = session.evaluate(SimpleDataCollection.parseData("{value:3}"));
+
+		ConstraintResults<DataObject> constraintResults = results.getPotentialConstraintResults().values().iterator().next().iterator().next();
+		assertTrue(results.isRetired(constraintResults));
+		assertEquals(1, constraintResults.numberOfViolations());
+		assertEquals(1, constraintResults.numberOfValidDataEntries());
+		assertEquals(4, session.getData().numberOfDataEntries());
+	}
+
+	private static List<DataObject> dataEntries(DataCollection<DataObject> data) {
+		return ((SimpleDataCollection) data).getDataCollection();
+	}
+}
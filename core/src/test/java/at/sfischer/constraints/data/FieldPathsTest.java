@@ -0,0 +1,41 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldPathsTest {
+
+	private static Map<String, Node> flattened(DataObject dataObject, Set<String> fieldNames) {
+		Map<String, Node> values = new HashMap<>(dataObject.getDataValues());
+		values.keySet().retainAll(fieldNames);
+		return values;
+	}
+
+	@Test
+	public void resolveLikeFlattenedValues() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{size:3, name:\"a\", object:{id:1, inner:{value:\"x\"}}, items:[{id:1}, {id:2}], values:[1, 2]}",
+				"{size:4, object:3, items:[]}"
+		);
+		Set<String> fieldNames = Set.of("size", "name", "object", "object.id", "object.inner", "object.inner.value", "items", "items.id", "values", "missing", "size.value");
+		FieldPaths paths = new FieldPaths(fieldNames);
+
+		for (DataObject dataObject : data.getDataCollection()) {
+			assertEquals(flattened(dataObject, fieldNames), paths.resolve(dataObject));
+		}
+	}
+
+	@Test
+	public void visitOnlyRequestedFields() {
+		SimpleDataCollection data = SimpleDataCollection.parseData("{size:3, name:\"a\", object:{id:1}}");
+
+		data.visitDataEntries(Set.of("size", "object.id"), (values, dataEntry) -> assertEquals(Set.of("size", "object.id"), values.keySet()));
+		data.visitDataEntries(Set.of(), (values, dataEntry) -> assertTrue(values.isEmpty()));
+	}
+}
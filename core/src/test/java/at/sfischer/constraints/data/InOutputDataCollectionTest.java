@@ -3,6 +3,8 @@ package at.sfischer.constraints.data;
 import org.javatuples.Pair;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class InOutputDataCollectionTest {
@@ -51,4 +53,26 @@ public class InOutputDataCollectionTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void deriveSchemaInParallel() {
+        InOutputDataCollection data = new InOutputDataCollection();
+        for (int i = 0; i < 20000; i++) {
+            String output = i % 7 == 0 ? "{size:" + i + "}" : "{size:" + i + ", object:{number:" + (i % 2 == 0 ? i : i + 0.5) + "}}";
+            data.addDataEntry(DataObject.parseData("{add:" + i + "}"), DataObject.parseData(output));
+        }
+
+        SimpleDataSchema inputSchema = new SimpleDataSchema();
+        inputSchema.integerEntry("add", true);
+
+        SimpleDataSchema outputSchema = new SimpleDataSchema();
+        outputSchema.integerEntry("size", true);
+        DataSchemaEntry<SimpleDataSchema> entry = outputSchema.objectEntry("object", false);
+        entry.dataSchema.numberEntry("number",true);
+
+        InOutputDataSchema<SimpleDataSchema> expected = new InOutputDataSchema<>(inputSchema, outputSchema);
+
+        assertEquals(expected, data.deriveSchema(new DefaultTypePromotionPolicy()));
+        assertEquals(expected, data.deriveSchema(new DefaultTypePromotionPolicy(), new ForkJoinPool(4)));
+    }
 }
@@ -0,0 +1,153 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.ArrayType;
+import at.sfischer.constraints.model.TypeEnum;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonDataParserTest {
+
+	private static final String JSON = "{\"size\":3, \"name\":\"a\", \"valid\":true, \"object\":{\"id\":1, \"value\":1.5}, \"items\":[{\"id\":1}, {\"id\":2}], \"values\":[1, 2], \"flags\":[true, false], \"nested\":[[1], [2, 3]], \"empty\":[], \"missing\":null}";
+
+	private static DataObject expected() {
+		DataObject object = new DataObject();
+		object.putValue("id", 1);
+		object.putValue("value", 1.5);
+
+		DataObject item1 = new DataObject();
+		item1.putValue("id", 1);
+		DataObject item2 = new DataObject();
+		item2.putValue("id", 2);
+
+		DataObject expected = new DataObject();
+		expected.putValue("size", 3);
+		expected.putValue("name", "a");
+		expected.putValue("valid", true);
+		expected.putValue("object", object);
+		expected.putValue("items", new DataObject[]{item1, item2});
+		expected.putValue("values", new Integer[]{1, 2});
+		expected.putValue("flags", new boolean[]{true, false});
+		expected.putValue("nested", new DataValue<?>[]{
+				new DataValue<>(new ArrayType(TypeEnum.INTEGER), new Integer[]{1}),
+				new DataValue<>(new ArrayType(TypeEnum.INTEGER), new Integer[]{2, 3})
+		}, new ArrayType(TypeEnum.INTEGER));
+
+		return expected;
+	}
+
+	@Test
+	public void parseObject() throws IOException {
+		DataObject expected = expected();
+
+		assertEquals(expected, JsonDataParser.parseObject(JSON));
+		assertEquals(expected, JsonDataParser.parseObject(JSON.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(expected, JsonDataParser.parseObject(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8))));
+		assertEquals(expected, JsonDataParser.parseObject(new StringReader(JSON)));
+		assertEquals(expected, DataObject.parseData(JSON));
+	}
+
+	@Test
+	public void parseNumbers() {
+		DataObject dataObject = JsonDataParser.parseObject("{int:1, long:10000000000, big:100000000000000000000, decimal:0.5, zero:-0, mixed:[1, 0.5]}");
+
+		assertEquals(TypeEnum.INTEGER, dataObject.getDataValue("int").getType());
+		assertEquals(Integer.class, dataObject.getDataValue("int").getValue().getClass());
+		assertEquals(TypeEnum.NUMBER, dataObject.getDataValue("long").getType());
+		assertEquals(10000000000L, dataObject.getDataValue("long").getValue());
+		assertEquals(TypeEnum.NUMBER, dataObject.getDataValue("big").getType());
+		assertEquals(0.5, dataObject.getDataValue("decimal").getValue());
+		assertEquals(-0.0, dataObject.getDataValue("zero").getValue());
+		assertEquals(new ArrayType(TypeEnum.NUMBER), dataObject.getDataValue("mixed").getType());
+	}
+
+	@Test
+	public void parseUnquotedAndDottedFieldNames() {
+		DataObject dataObject = JsonDataParser.parseObject("{size:0, 'name':'a', \"object.id\":1}");
+
+		assertEquals(0, dataObject.getDataValue("size").getValue());
+		assertEquals("a", dataObject.getDataValue("name").getValue());
+		assertEquals(TypeEnum.COMPLEXTYPE, dataObject.getDataValue("object").getType());
+		assertEquals(1, ((DataObject) dataObject.getDataValue("object").getValue()).getDataValue("id").getValue());
+	}
+
+	@Test
+	public void parseUnquotedValues() {
+		DataObject dataObject = JsonDataParser.parseObject("{name: hello world , size: 3, valid: true, tags:[a, 'b'], version: 1.2.3, object:{id: x}}");
+
+		assertEquals("hello world", dataObject.getDataValue("name").getValue());
+		assertEquals(3, dataObject.getDataValue("size").getValue());
+		assertEquals(true, dataObject.getDataValue("valid").getValue());
+		assertEquals("1.2.3", dataObject.getDataValue("version").getValue());
+		assertEquals("x", ((DataObject) dataObject.getDataValue("object").getValue()).getDataValue("id").getValue());
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{tags:[a, 'b', -1]}"));
+		assertArrayEquals(new String[]{"a", "b"}, (String[]) JsonDataParser.parseObject("{tags:[a, 'b']}".getBytes(StandardCharsets.UTF_8)).getDataValue("tags").getValue());
+		assertEquals("hello", JsonDataParser.parseValue("hello").getValue());
+		assertEquals("{\"a\":\"b\"}", JsonDataParser.quoteUnquotedValues("{\"a\":b}"));
+		assertNull(JsonDataParser.quoteUnquotedValues("{a:'b: c', d:[1, null]}"));
+	}
+
+	@Test
+	public void parseValue() {
+		DataValue<?> value = JsonDataParser.parseValue("[{id:1}, {id:2}]");
+
+		assertEquals(new ArrayType(TypeEnum.COMPLEXTYPE), value.getType());
+		assertEquals(2, ((DataObject[]) value.getValue()).length);
+		assertNull(JsonDataParser.parseValue("[]"));
+		assertEquals("a", JsonDataParser.parseValue("\"a\"").getValue());
+	}
+
+	@Test
+	public void parseMultipleObjects() throws IOException {
+		try (JsonParser parser = new JsonFactory().createParser("{\"id\":1}\n{\"id\":2}")) {
+			assertEquals(1, JsonDataParser.parseObject(parser).getDataValue("id").getValue());
+			assertEquals(2, JsonDataParser.parseObject(parser).getDataValue("id").getValue());
+			assertNull(JsonDataParser.parseObject(parser));
+		}
+	}
+
+	@Test
+	public void parseNestedArrays() {
+		DataObject dataObject = JsonDataParser.parseObject("{empty:[[], [1]], mixed:[[1], [0.5]], deep:[[[]], [[1]], []], allEmpty:[[], []]}");
+
+		DataValue<?> empty = dataObject.getDataValue("empty");
+		assertEquals(new ArrayType(new ArrayType(TypeEnum.INTEGER)), empty.getType());
+		DataValue<?>[] emptyValues = (DataValue<?>[]) empty.getValue();
+		assertEquals(new ArrayType(TypeEnum.INTEGER), emptyValues[0].getType());
+		assertEquals(0, ((Integer[]) emptyValues[0].getValue()).length);
+		assertArrayEquals(new Integer[]{1}, (Integer[]) emptyValues[1].getValue());
+
+		DataValue<?> mixed = dataObject.getDataValue("mixed");
+		assertEquals(new ArrayType(new ArrayType(TypeEnum.NUMBER)), mixed.getType());
+		DataValue<?>[] mixedValues = (DataValue<?>[]) mixed.getValue();
+		assertEquals(new ArrayType(TypeEnum.NUMBER), mixedValues[0].getType());
+		assertArrayEquals(new Number[]{1}, (Number[]) mixedValues[0].getValue());
+
+		DataValue<?> deep = dataObject.getDataValue("deep");
+		assertEquals(new ArrayType(new ArrayType(new ArrayType(TypeEnum.INTEGER))), deep.getType());
+		assertEquals(3, ((DataValue<?>[]) deep.getValue()).length);
+
+		assertNull(dataObject.getDataValue("allEmpty"));
+	}
+
+	@Test
+	public void rejectNestedArraysOfDifferentTypes() {
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{values:[[1], [\"a\"]]}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{values:[[1], [[1]]]}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{values:[[{id:1}], [true]]}"));
+	}
+
+	@Test
+	public void rejectInvalidJson() {
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{size:"));
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("[1, 2]"));
+		assertThrows(IllegalArgumentException.class, () -> JsonDataParser.parseObject("{values:[1, \"a\"]}"));
+	}
+}
@@ -0,0 +1,89 @@
+package at.sfischer.constraints.data;
+
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonLinesLoaderTest {
+
+	@TempDir
+	Path directory;
+
+	private static List<String> lines(int numberOfLines) {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < numberOfLines; i++) {
+			lines.add("{\"id\":" + i + ", \"name\":\"line " + i + "\", \"values\":[" + i + ", " + (i + 1) + "]}");
+		}
+		return lines;
+	}
+
+	private Path write(String fileName, List<String> lines, boolean gzip) throws IOException {
+		Path file = directory.resolve(fileName);
+		try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file)) {
+			out.write(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+
+	@Test
+	public void loadSimpleDataCollectionInOrder() throws IOException {
+		List<String> lines = lines(1000);
+		SimpleDataCollection expected = SimpleDataCollection.parseData(lines);
+
+		// Small chunks split the file into many chunks, and some lines do not fit into a chunk.
+		JsonLinesLoader loader = new JsonLinesLoader(new ForkJoinPool(4), 32);
+		assertEquals(expected.getDataCollection(), loader.loadSimpleDataCollection(write("data.jsonl", lines, false)).getDataCollection());
+		assertEquals(expected.getDataCollection(), loader.loadSimpleDataCollection(write("data.jsonl.gz", lines, true)).getDataCollection());
+		assertEquals(expected.getDataCollection(), new JsonLinesLoader().loadSimpleDataCollection(write("default.jsonl", lines, false)).getDataCollection());
+	}
+
+	@Test
+	public void loadInOutputDataCollection() throws IOException {
+		Path file = write("data.jsonl", List.of(
+				"{\"input\":{\"add\":0}, \"output\":{\"size\":3}}",
+				"",
+				"{\"input\":{\"add\":5}, \"output\":{\"size\":1}}"
+		), false);
+
+		InOutputDataCollection expected = InOutputDataCollection.parseData(
+				new Pair<>("{add:0}", "{size:3}"),
+				new Pair<>("{add:5}", "{size:1}")
+		);
+
+		InOutputDataCollection actual = new JsonLinesLoader(ForkJoinPool.commonPool(), 16).loadInOutputDataCollection(file);
+		assertEquals(expected.getDataCollection(), actual.getDataCollection());
+		assertEquals(expected.deriveSchema(), actual.deriveSchema());
+	}
+
+	@Test
+	public void loadEmptyFile() throws IOException {
+		assertEquals(0, new JsonLinesLoader().loadSimpleDataCollection(write("empty.jsonl", List.of(), false)).size());
+	}
+
+	@Test
+	public void loadUnquotedValues() throws IOException {
+		List<String> lines = List.of("{\"id\":1, \"name\":\"a\"}", "{id:2, name: b}", "", "{id:3, name:c}");
+		SimpleDataCollection expected = SimpleDataCollection.parseData("{id:1, name:\"a\"}", "{id:2, name:\"b\"}", "{id:3, name:\"c\"}");
+
+		assertEquals(expected.getDataCollection(), new JsonLinesLoader().loadSimpleDataCollection(write("unquoted.jsonl", lines, false)).getDataCollection());
+	}
+
+	@Test
+	public void rejectInvalidLine() throws IOException {
+		Path file = write("invalid.jsonl", List.of("{\"id\":1}", "{\"id\":"), false);
+
+		assertThrows(IOException.class, () -> new JsonLinesLoader().loadSimpleDataCollection(file));
+	}
+}
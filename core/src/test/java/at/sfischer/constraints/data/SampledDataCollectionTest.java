@@ -0,0 +1,126 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.model.DataReference;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampledDataCollectionTest {
+
+	private static DataObject entry(int size) {
+		return DataObject.parseData("{size:" + size + "}");
+	}
+
+	@Test
+	public void retainBoundedSample() {
+		SampledDataCollection<DataObject> sampled = new SampledDataCollection<>(new SimpleDataCollection(), 10);
+		for (int i = 0; i < 1000; i++) {
+			sampled.addDataEntry(entry(i));
+		}
+
+		assertEquals(1000, sampled.getNumberOfSeenEntries());
+		assertEquals(10, sampled.numberOfDataEntries());
+		assertEquals(10, sampled.getSample().size());
+		assertEquals(10, sampled.getAllValues("size").size());
+
+		int[] visited = {0};
+		sampled.visitDataEntries((values, dataEntry) -> visited[0]++);
+		assertEquals(10, visited[0]);
+
+		SimpleDataCollection all = new SimpleDataCollection();
+		all.addDataEntry(entry(0));
+		assertEquals(all.deriveSchema(), sampled.deriveSchema());
+	}
+
+	@Test
+	public void sampleUniformly() {
+		// Each entry is retained with probability 1/10, so about 1000 of the first half are retained.
+		int retainedOfFirstHalf = 0;
+		for (int seed = 0; seed < 200; seed++) {
+			SampledDataCollection<DataObject> sampled = new SampledDataCollection<>(new SimpleDataCollection(), 10, null, seed);
+			for (int i = 0; i < 100; i++) {
+				sampled.addDataEntry(entry(i));
+			}
+			for (DataObject dataObject : sampled.getSample()) {
+				if(((Number) dataObject.getDataValue("size").getValue()).intValue() < 50){
+					retainedOfFirstHalf++;
+				}
+			}
+		}
+
+		assertTrue(retainedOfFirstHalf > 900 && retainedOfFirstHalf < 1100, "" + retainedOfFirstHalf);
+	}
+
+	@Test
+	public void sampleStrataSeparately() {
+		SampledDataCollection<DataObject> sampled = new SampledDataCollection<>(new SimpleDataCollection(), 5, SampledDataCollection.byStructure(), 0);
+		for (int i = 0; i < 1000; i++) {
+			sampled.addDataEntry(entry(i));
+		}
+		sampled.addDataEntry(DataObject.parseData("{name:\"rare\"}"));
+
+		assertEquals(1001, sampled.getNumberOfSeenEntries());
+		assertEquals(6, sampled.numberOfDataEntries());
+		Map<Object, Long> seen = sampled.getNumberOfSeenEntriesPerStratum();
+		assertEquals(List.of(1000L, 1L), List.copyOf(seen.values()));
+		assertEquals(1, sampled.getAllValues("name").size());
+		assertNotNull(((SimpleDataSchema) sampled.deriveSchema()).getSchemaEntry("name"));
+
+		SampledDataCollection<DataObject> clone = (SampledDataCollection<DataObject>) sampled.clone();
+		assertEquals(sampled.getSample(), clone.getSample());
+		assertEquals(seen, clone.getNumberOfSeenEntriesPerStratum());
+
+		sampled.clear();
+		assertEquals(0, sampled.getNumberOfSeenEntries());
+		assertEquals(0, sampled.numberOfDataEntries());
+	}
+
+	@Test
+	public void removeOnlyFromSample() {
+		SampledDataCollection<DataObject> sampled = new SampledDataCollection<>(new SimpleDataCollection(), 10, SampledDataCollection.byStructure(), 0);
+		for (int i = 0; i < 100; i++) {
+			sampled.addDataEntry(entry(i));
+		}
+		sampled.addDataEntry(DataObject.parseData("{name:\"rare\"}"), 5);
+
+		sampled.removeDataEntry(sampled.getSample().get(0));
+		sampled.removeDataEntry(entry(1000));
+		assertEquals(105, sampled.getNumberOfSeenEntries());
+		assertEquals(List.of(100L, 5L), List.copyOf(sampled.getNumberOfSeenEntriesPerStratum().values()));
+		assertEquals(10, sampled.numberOfDataEntries());
+		assertEquals(10, sampled.getSample().size());
+		assertEquals(9, sampled.getAllValues("size").size());
+	}
+
+	@Test
+	public void evaluateOnSample() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", true);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new NumberLiteral(0)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		SampledDataCollection<DataObject> sampled = new SampledDataCollection<>(new SimpleDataCollection(), 20);
+		for (int i = 0; i < 500; i++) {
+			sampled.addDataEntry(entry(i));
+		}
+		sampled.removeDataEntry(sampled.getSample().get(0));
+		sampled.addDataEntry(entry(0));
+
+		int invalid = sampled.getSample().contains(entry(0)) ? 1 : 0;
+		for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(2)}) {
+			EvaluationResults<SimpleDataSchema, DataObject> results = pool == null ? schema.evaluate(sampled) : schema.evaluate(sampled, pool);
+			ConstraintResults<DataObject> constraintResults = results.getConstraintResults(sizeEntry, sizeConstraint, sampled);
+			assertEquals(invalid, constraintResults.numberOfViolations());
+			assertEquals(20 - invalid, constraintResults.numberOfValidDataEntries());
+			assertEquals((20 - invalid) / 20.0, constraintResults.applicationRate());
+		}
+	}
+}
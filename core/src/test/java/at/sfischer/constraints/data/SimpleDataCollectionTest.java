@@ -2,6 +2,8 @@ package at.sfischer.constraints.data;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SimpleDataCollectionTest {
@@ -96,4 +98,48 @@ public class SimpleDataCollectionTest {
 
 		assertEquals(expected, actual);
 	}
+
+	@Test
+	public void deriveSchemaInParallel() {
+		SimpleDataCollection data = new SimpleDataCollection();
+		for (int i = 0; i < 20000; i++) {
+			Object number = i % 3 == 0 ? "\"" + i + "\"" : i % 3 == 1 ? i : i + 0.5;
+			data.addDataEntry(DataObject.parseData("{size:" + i + ", field" + (i % 20) + ":true, object:{number:" + number + "}, values:[" + i + "]}"));
+		}
+
+		SimpleDataSchema expected = new SimpleDataSchema();
+		expected.integerEntry("size", true);
+		for (int i = 0; i < 20; i++) {
+			expected.booleanEntry("field" + i, false);
+		}
+		DataSchemaEntry<SimpleDataSchema> entry = expected.objectEntry("object", true);
+		entry.dataSchema.stringEntry("number", true);
+		expected.integerArrayEntry("values", true);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		assertEquals(expected, data.deriveSchema(new DefaultTypePromotionPolicy()));
+		assertEquals(expected, data.deriveSchema(new DefaultTypePromotionPolicy(), pool));
+		assertThrows(IllegalStateException.class, () -> data.deriveSchema(null, pool));
+	}
+
+	@Test
+	public void deriveSchemaOfArraysInOrder() {
+		SimpleDataCollection data = new SimpleDataCollection();
+		data.addDataEntry(DataObject.parseData("{value:1, items:[{id:1}]}"));
+		for (int i = 0; i < 10000; i++) {
+			String items = i % 2 == 0 ? "[{id:" + i + "}, {id:" + (i + 1) + "}]" : "[[{id:" + i + ", name:\"a\"}]]";
+			data.addDataEntry(DataObject.parseData("{value:\"" + i + "\", items" + (i % 2) + ":" + items + "}"));
+		}
+
+		// Keeps the type seen first, so the result depends on the order in which the schemas are unified.
+		TypePromotionPolicy first = (type1, type2) -> type1;
+		SimpleDataSchema expected = SimpleDataSchema.deriveFromData(data.getDataCollection().get(0));
+		for (DataObject dataObject : data.getDataCollection()) {
+			expected.unify(SimpleDataSchema.deriveFromData(dataObject), first);
+		}
+
+		assertEquals(expected, data.deriveSchema(first));
+		assertEquals(expected, data.deriveSchema(first, new ForkJoinPool(4)));
+		assertEquals(3, SchemaDerivation.representatives(data.getDataCollection(), dataObject -> dataObject).size());
+	}
 }
@@ -0,0 +1,75 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.model.IntegerLiteral;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueCombinationsTest {
+	@Test
+	public void collectEqualsUtils() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{size:0, object:{id:10}}",
+				"{size:2, array:[{object:{id:1,number:0}}, {object:{id:3,number:2}}], values:[1,2,3]}",
+				"{size:1, array:[{object:{id:1}, items:[{a:1},{a:2}]}, {items:[{a:3}]}, {object:{id:4,number:5}}]}",
+				"{array:[]}",
+				"{other:1}"
+		);
+
+		List<Set<Variable>> variableSets = List.of(
+				Set.of(new Variable("size"), new Variable("object.id")),
+				Set.of(new Variable("array.object.id"), new Variable("array.object.number")),
+				Set.of(new Variable("size"), new Variable("array.object.id"), new Variable("array.items.a")),
+				Set.of(new Variable("size"), new Variable("values"), new Variable("array.object.number")),
+				Set.of(new Variable("array"), new Variable("array.object.id")),
+				Set.of(new Variable("missing"))
+		);
+
+		for (Set<Variable> variables : variableSets) {
+			ValueCombinations valueCombinations = new ValueCombinations(variables);
+			for (DataObject dao : data.getDataCollection()) {
+				assertEquals(Utils.collectValueCombinations(dao, variables), valueCombinations.collect(dao), variables + " in " + dao);
+			}
+		}
+	}
+
+	@Test
+	public void iterateLazily() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{array:[{a:1,b:[{c:1},{c:2}]},{a:2,b:[{c:3}]}], d:7}"
+		);
+		DataObject dao = data.getDataCollection().get(0);
+
+		ValueCombinations valueCombinations = new ValueCombinations(List.of(new Variable("d"), new Variable("array.a"), new Variable("array.b.c")));
+		assertEquals(List.of(new Variable("d"), new Variable("array.a"), new Variable("array.b.c")), valueCombinations.getVariables());
+
+		Iterator<Node[]> iterator = valueCombinations.iterator(dao);
+		assertTrue(iterator.hasNext());
+		Node[] first = iterator.next();
+		assertEquals(new IntegerLiteral(7), first[0]);
+
+		int count = 1;
+		while (iterator.hasNext()) {
+			Node[] values = iterator.next();
+			assertEquals(new IntegerLiteral(7), values[0]);
+			count++;
+		}
+		assertEquals(Utils.collectValueCombinations(dao, Set.copyOf(valueCombinations.getVariables())).size(), count);
+
+		// A new iteration starts from the beginning.
+		Map<Variable, Node> expected = valueCombinations.collect(dao).get(0);
+		iterator = valueCombinations.iterator(dao);
+		assertTrue(iterator.hasNext());
+		Node[] values = iterator.next();
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(expected.get(valueCombinations.getVariables().get(i)), values[i]);
+		}
+	}
+}
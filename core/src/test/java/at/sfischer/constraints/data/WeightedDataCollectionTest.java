@@ -0,0 +1,238 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.IConstraint;
+import at.sfischer.constraints.miner.MinApplicationsPolicy;
+import at.sfischer.constraints.model.DataReference;
+import at.sfischer.constraints.model.Node;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedDataCollectionTest {
+
+	private static final String[] DATA = {
+			"{size:0, name:\"a\"}",
+			"{size:1, name:\"b\"}",
+			"{size:1, name:\"b\"}",
+			"{name:\"c\"}",
+			"{name:\"b\", size:1}",
+			"{size:0, name:\"a\"}",
+			"{size:2, name:\"b\"}"
+	};
+
+	private static WeightedDataCollection<DataObject> weighted(SimpleDataCollection data) {
+		WeightedDataCollection<DataObject> weighted = new WeightedDataCollection<>(new SimpleDataCollection());
+		for (DataObject dataObject : data.getDataCollection()) {
+			weighted.addDataEntry(dataObject);
+		}
+		return weighted;
+	}
+
+	@Test
+	public void storeEqualEntriesOnce() {
+		SimpleDataCollection data = SimpleDataCollection.parseData(DATA);
+		WeightedDataCollection<DataObject> weighted = weighted(data);
+
+		assertEquals(7, weighted.numberOfDataEntries());
+		assertEquals(4, weighted.numberOfDistinctDataEntries());
+		assertEquals(3, weighted.getWeight(DataObject.parseData("{size:1, name:\"b\"}")));
+		assertEquals(data.deriveSchema(), weighted.deriveSchema());
+		assertEquals(data.getAllValues("size").size(), weighted.getAllValues("size").size());
+
+		int[] visited = {0};
+		weighted.visitDataEntries((values, dataEntry) -> visited[0]++);
+		assertEquals(7, visited[0]);
+
+		long[] weights = {0, 0};
+		weighted.visitDataEntries(new DataEntryVisitor<>() {
+			@Override
+			public void visitDataValues(Map<String, Node> values, DataObject dataEntry) {
+				fail("Entries are visited with their weight.");
+			}
+
+			@Override
+			public void visitDataValues(Map<String, Node> values, DataObject dataEntry, long weight) {
+				weights[0]++;
+				weights[1] += weight;
+			}
+		});
+		assertEquals(4, weights[0]);
+		assertEquals(7, weights[1]);
+
+		weighted.removeDataEntry(DataObject.parseData("{size:0, name:\"a\"}"));
+		weighted.removeDataEntry(DataObject.parseData("{size:0, name:\"a\"}"));
+		assertEquals(5, weighted.numberOfDataEntries());
+		assertEquals(3, weighted.numberOfDistinctDataEntries());
+	}
+
+	@Test
+	public void removeEntriesInOrder() {
+		WeightedDataCollection<DataObject> weighted = weighted(SimpleDataCollection.parseData(DATA));
+		weighted.removeDataEntry(DataObject.parseData("{name:\"c\"}"));
+		weighted.addDataEntry(DataObject.parseData("{name:\"d\"}"), 2);
+		weighted.addDataEntry(DataObject.parseData("{name:\"c\"}"));
+		weighted.removeDataEntry(DataObject.parseData("{size:2, name:\"b\"}"));
+		assertEquals(8, weighted.numberOfDataEntries());
+		assertEquals(4, weighted.numberOfDistinctDataEntries());
+
+		List<String> visited = new ArrayList<>();
+		weighted.visitDataEntries(new DataEntryVisitor<>() {
+			@Override
+			public void visitDataValues(Map<String, Node> values, DataObject dataEntry) {
+				visitDataValues(values, dataEntry, 1);
+			}
+
+			@Override
+			public void visitDataValues(Map<String, Node> values, DataObject dataEntry, long weight) {
+				visited.add(dataEntry.getDataValue("name").getValue().toString() + weight);
+			}
+		});
+		assertEquals(List.of("a2", "b3", "d2", "c1"), visited);
+
+		weighted.removeDataEntry(DataObject.parseData("{size:0, name:\"a\"}"));
+		weighted.removeDataEntry(DataObject.parseData("{size:0, name:\"a\"}"));
+		weighted.removeDataEntry(DataObject.parseData("{name:\"d\"}"));
+		weighted.removeDataEntry(DataObject.parseData("{name:\"d\"}"));
+		assertEquals(4, weighted.numberOfDataEntries());
+		assertEquals(List.of(3L, 1L), List.of(weighted.getWeight(DataObject.parseData("{size:1, name:\"b\"}")), weighted.getWeight(DataObject.parseData("{name:\"c\"}"))));
+		assertEquals(2, weighted.partition(2).size());
+	}
+
+	@Test
+	public void keepWeightsOfCopiedResults() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", false);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new NumberLiteral(0)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		WeightedDataCollection<DataObject> weighted = weighted(SimpleDataCollection.parseData(DATA));
+		EvaluationResults<SimpleDataSchema, DataObject> evaluationResults = schema.evaluate(weighted);
+		ConstraintResults<DataObject> results = evaluationResults.getConstraintResults(sizeEntry, sizeConstraint, weighted);
+		DataCollection<DataObject> counted = new CountingDataCollection<>(new SimpleDataCollection(), 1);
+		counted.addAll(results.validConstraintData().clone());
+		assertEquals(4, counted.numberOfDataEntries());
+		SimpleDataCollection copy = new SimpleDataCollection();
+		copy.addAll(results.validConstraintData());
+		assertEquals(4, copy.numberOfDataEntries());
+		assertTrue(new MinApplicationsPolicy(4).includeConstraint(results));
+	}
+
+	@Test
+	public void evaluateWithWeights() {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", false);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new NumberLiteral(0)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		SimpleDataCollection data = SimpleDataCollection.parseData(DATA);
+		WeightedDataCollection<DataObject> weighted = weighted(data);
+		MinApplicationsPolicy policy = new MinApplicationsPolicy(4);
+		Map<DataSchemaEntry<SimpleDataSchema>, Set<IConstraint>> constraints = new HashMap<>();
+		Map<DataSchemaEntry<SimpleDataSchema>, Set<IConstraint>> potentialConstraints = new HashMap<>();
+		schema.collectAllConstraints(constraints, potentialConstraints);
+		for (int maxExamples : new int[]{EvaluationResults.RETAIN_ALL_DATA, 1}) {
+			for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(2)}) {
+				EvaluationResults<SimpleDataSchema, DataObject> expectedResults = new EvaluationResults<>(maxExamples);
+				EvaluationResults<SimpleDataSchema, DataObject> actualResults = new EvaluationResults<>(maxExamples);
+				if(pool == null){
+					schema.evaluate(data, constraints, potentialConstraints, expectedResults);
+					schema.evaluate(weighted, constraints, potentialConstraints, actualResults);
+				} else {
+					schema.evaluate(data, constraints, potentialConstraints, pool, expectedResults);
+					schema.evaluate(weighted, constraints, potentialConstraints, pool, actualResults);
+				}
+
+				ConstraintResults<DataObject> expected = expectedResults.getConstraintResults(sizeEntry, sizeConstraint, data);
+				ConstraintResults<DataObject> actual = actualResults.getConstraintResults(sizeEntry, sizeConstraint, weighted);
+				assertEquals(2, actual.numberOfViolations());
+				assertEquals(4, actual.numberOfValidDataEntries());
+				assertEquals(expected.numberOfViolations(), actual.numberOfViolations());
+				assertEquals(expected.numberOfValidDataEntries(), actual.numberOfValidDataEntries());
+				assertEquals(expected.numberOfInapplicableEntries(), actual.numberOfInapplicableEntries());
+				assertEquals(expected.applicationRate(), actual.applicationRate());
+				assertEquals(policy.includeConstraint(expected), policy.includeConstraint(actual));
+			}
+		}
+	}
+
+	@Test
+	public void evaluateInOutputWithWeights() {
+		InOutputDataCollection data = InOutputDataCollection.parseData(
+				new Pair<>("{add:0}", "{size:3}"),
+				new Pair<>("{add:0}", "{size:3}"),
+				new Pair<>("{add:5}", "{size:0}")
+		);
+		WeightedDataCollection<Pair<DataObject, DataObject>> weighted = new WeightedDataCollection<>(new InOutputDataCollection());
+		for (Pair<DataObject, DataObject> pair : data.getDataCollection()) {
+			weighted.addDataEntry(new Pair<>(InOutputDataCollection.getInputData(pair), InOutputDataCollection.getOutputData(pair)));
+		}
+		assertEquals(2, weighted.numberOfDistinctDataEntries());
+		assertEquals(data.deriveSchema(), weighted.deriveSchema());
+
+		SimpleDataSchema inputSchema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> addEntry = inputSchema.integerEntry("add", true);
+		SimpleDataSchema outputSchema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = outputSchema.integerEntry("size", true);
+		InOutputDataSchema<SimpleDataSchema> schema = new InOutputDataSchema<>(inputSchema, outputSchema);
+		Constraint sizeConstraint = new Constraint(new GreaterThanOperator(new DataReference(sizeEntry), new DataReference(addEntry)));
+		sizeEntry.constraints.add(sizeConstraint);
+
+		EvaluationResults<SimpleDataSchema, Pair<DataObject, DataObject>> results = schema.evaluate(weighted);
+		ConstraintResults<Pair<DataObject, DataObject>> constraintResults = results.getConstraintResults(sizeEntry, sizeConstraint, weighted);
+		assertEquals(2, constraintResults.numberOfValidDataEntries());
+		assertEquals(1, constraintResults.numberOfViolations());
+	}
+
+	@Test
+	public void evaluateStatefulConstraintsWithWeights() {
+		// Equal entries are in a row, as a weighted collection evaluates them.
+		SimpleDataCollection data = SimpleDataCollection.parseData(
+				"{size:2}", "{size:2}", "{size:2}",
+				"{size:3}",
+				"{size:1}", "{size:1}",
+				"{size:4}", "{size:4}", "{size:4}", "{size:4}",
+				"{size:1}"
+		);
+		WeightedDataCollection<DataObject> weighted = weighted(data);
+		assertEquals(4, weighted.numberOfDistinctDataEntries());
+
+		for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(2)}) {
+			LowerBoundOperator expectedOperator = new LowerBoundOperator(new Variable("a"));
+			ConstraintResults<DataObject> expected = evaluateLowerBound(data, expectedOperator, pool);
+			LowerBoundOperator actualOperator = new LowerBoundOperator(new Variable("a"));
+			ConstraintResults<DataObject> actual = evaluateLowerBound(weighted, actualOperator, pool);
+
+			assertEquals(11, actual.numberOfValidDataEntries() + actual.missingEvidenceConstraintData().numberOfDataEntries());
+			assertEquals(expected.numberOfValidDataEntries(), actual.numberOfValidDataEntries());
+			assertEquals(expected.missingEvidenceConstraintData().numberOfDataEntries(), actual.missingEvidenceConstraintData().numberOfDataEntries());
+			assertEquals(expected.numberOfViolations(), actual.numberOfViolations());
+			assertEquals(expectedOperator.getBound(), actualOperator.getBound());
+			assertEquals(expectedOperator.getAccumulator().getValuesAtBoundCounter(), actualOperator.getAccumulator().getValuesAtBoundCounter());
+			assertEquals(expectedOperator.getAccumulator().getValuesCounter(), actualOperator.getAccumulator().getValuesCounter());
+		}
+	}
+
+	private static ConstraintResults<DataObject> evaluateLowerBound(DataCollection<DataObject> data, LowerBoundOperator operator, ForkJoinPool pool) {
+		SimpleDataSchema schema = new SimpleDataSchema();
+		DataSchemaEntry<SimpleDataSchema> sizeEntry = schema.integerEntry("size", true);
+		Constraint constraint = new Constraint(operator.setVariableValues(Map.of(new Variable("a"), new DataReference(sizeEntry))));
+		sizeEntry.constraints.add(constraint);
+
+		EvaluationResults<SimpleDataSchema, DataObject> results = schema.evaluate(data, pool);
+		return results.getConstraintResults(sizeEntry, constraint, data);
+	}
+}
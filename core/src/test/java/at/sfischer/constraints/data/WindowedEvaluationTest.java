@@ -0,0 +1,136 @@
+package at.sfischer.constraints.data;
+
+import at.sfischer.constraints.ConstraintHandler;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.ConstraintTemplate;
+import at.sfischer.constraints.miner.NoViolationsPolicy;
+import at.sfischer.constraints.model.IntegerLiteral;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOrEqualOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import at.sfischer.constraints.model.operators.strings.OneOfString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WindowedEvaluationTest {
+
+	private static WindowedEvaluation<SimpleDataSchema, DataObject> windowedEvaluation(ConstraintTemplate template, String... data) {
+		SimpleDataSchema schema = SimpleDataCollection.parseData(data).deriveSchema(null);
+		new ConstraintHandler().instantiate(template, schema);
+		return new WindowedEvaluation<>(schema, 2);
+	}
+
+	private static ConstraintResults<DataObject> results(EvaluationResults<SimpleDataSchema, DataObject> results) {
+		Set<ConstraintResults<DataObject>> constraintResults = results.getPotentialConstraintResults().values().iterator().next();
+		assertEquals(1, constraintResults.size());
+		return constraintResults.iterator().next();
+	}
+
+	@Test
+	public void expireCounts() {
+		ConstraintTemplate greaterZero = new ConstraintTemplate(
+				"greaterZero",
+				new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0)),
+				new NoViolationsPolicy()
+		);
+		WindowedEvaluation<SimpleDataSchema, DataObject> evaluation = windowedEvaluation(greaterZero, "{value:1}");
+
+		evaluation.evaluate(SimpleDataCollection.parseData("{value:-1}", "{value:1}"));
+		ConstraintResults<DataObject> results = results(evaluation.evaluate(SimpleDataCollection.parseData("{value:2}", "{value:3}")));
+		assertEquals(1, results.numberOfViolations());
+		assertEquals(3, results.numberOfValidDataEntries());
+		assertEquals(4, results.data().numberOfDataEntries());
+
+		results = results(evaluation.evaluate(SimpleDataCollection.parseData("{value:4}")));
+		assertEquals(0, results.numberOfViolations());
+		assertEquals(3, results.numberOfValidDataEntries());
+		assertEquals(3, results.data().numberOfDataEntries());
+		assertEquals(2, evaluation.getNumberOfRetainedWindows());
+	}
+
+	@Test
+	public void expireOptions() {
+		ConstraintTemplate oneOf = new ConstraintTemplate(
+				"oneOf",
+				new OneOfString(new Variable("a"), new IntegerLiteral(2)),
+				new NoViolationsPolicy()
+		);
+		WindowedEvaluation<SimpleDataSchema, DataObject> evaluation = windowedEvaluation(oneOf, "{name:\"a\"}");
+
+		evaluation.evaluate(SimpleDataCollection.parseData("{name:\"a\"}", "{name:\"b\"}", "{name:\"b\"}"));
+		ConstraintResults<DataObject> results = results(evaluation.evaluate(SimpleDataCollection.parseData("{name:\"c\"}", "{name:\"c\"}", "{other:1}")));
+		assertEquals(1, results.numberOfViolations());
+		assertEquals(4, results.numberOfValidDataEntries());
+		assertEquals(1, results.numberOfInapplicableEntries());
+		assertEquals(6, results.data().numberOfDataEntries());
+
+		results = results(evaluation.evaluate(SimpleDataCollection.parseData("{name:\"a\"}")));
+		assertEquals(0, results.numberOfViolations());
+		assertEquals(3, results.numberOfValidDataEntries());
+		assertEquals(1, results.numberOfInapplicableEntries());
+	}
+
+	@Test
+	public void expireLowerBound() {
+		ConstraintTemplate lowerBound = new ConstraintTemplate(
+				"lowerBound",
+				new LowerBoundOperator(new Variable("a")),
+				new NoViolationsPolicy()
+		);
+		WindowedEvaluation<SimpleDataSchema, DataObject> evaluation = windowedEvaluation(lowerBound, "{value:1}");
+
+		evaluation.evaluate(SimpleDataCollection.parseData("{value:-5}"));
+		ConstraintResults<DataObject> results = results(evaluation.evaluate(SimpleDataCollection.parseData("{value:0}", "{value:0}", "{value:1}", "{value:2}")));
+		assertEquals(5, results.numberOfViolations());
+
+		results = results(evaluation.evaluate(SimpleDataCollection.parseData("{value:0}", "{value:4}")));
+		assertEquals(0, results.numberOfViolations());
+		assertEquals(6, results.numberOfValidDataEntries());
+
+		results = results(evaluation.evaluate(SimpleDataCollection.parseData("{value:1}", "{value:3}")));
+		assertEquals(0, results.numberOfViolations());
+		assertEquals(0, results.numberOfValidDataEntries());
+		assertEquals(4, results.missingEvidenceConstraintData().numberOfDataEntries());
+	}
+
+	@Test
+	public void aggregateValuesOfArrays() {
+		ConstraintTemplate oneOf = new ConstraintTemplate(
+				"oneOf",
+				new OneOfString(new Variable("a"), new IntegerLiteral(2)),
+				new NoViolationsPolicy()
+		);
+		WindowedEvaluation<SimpleDataSchema, DataObject> evaluation = windowedEvaluation(oneOf, "{items:[{name:\"a\"}]}");
+
+		evaluation.evaluate(SimpleDataCollection.parseData("{items:[{name:\"a\"}, {name:\"b\"}]}"));
+		ConstraintResults<DataObject> results = results(evaluation.evaluate(SimpleDataCollection.parseData("{items:[{name:\"b\"}, {name:\"c\"}]}", "{items:[]}")));
+		assertEquals(1, results.numberOfViolations());
+		assertEquals(3, results.numberOfValidDataEntries());
+		assertEquals(1, results.numberOfInapplicableEntries());
+	}
+
+	@Test
+	public void keepStateOfSchema() {
+		OneOfString term = new OneOfString(new Variable("a"), new IntegerLiteral(1));
+		ConstraintTemplate oneOf = new ConstraintTemplate("oneOf", term, new NoViolationsPolicy());
+		SimpleDataSchema schema = SimpleDataCollection.parseData("{name:\"a\"}").deriveSchema(null);
+		new ConstraintHandler().instantiate(oneOf, schema);
+		WindowedEvaluation<SimpleDataSchema, DataObject> evaluation = new WindowedEvaluation<>(schema, 1);
+
+		evaluation.evaluate(SimpleDataCollection.parseData("{name:\"a\"}"));
+		ConstraintResults<DataObject> results = results(evaluation.evaluate(SimpleDataCollection.parseData("{name:\"b\"}")));
+		assertEquals(0, results.numberOfViolations());
+
+		results = results(schema.evaluate(SimpleDataCollection.parseData("{name:\"c\"}")));
+		assertEquals(0, results.numberOfViolations());
+	}
+
+	@Test
+	public void rejectInvalidNumberOfWindows() {
+		assertThrows(IllegalArgumentException.class, () -> new WindowedEvaluation<>(new SimpleDataSchema(), 0));
+	}
+}
@@ -0,0 +1,80 @@
+package at.sfischer.constraints.miner;
+
+import at.sfischer.constraints.Constraint;
+import at.sfischer.constraints.ConstraintResults;
+import at.sfischer.constraints.data.DataObject;
+import at.sfischer.constraints.data.SimpleDataCollection;
+import at.sfischer.constraints.model.NumberLiteral;
+import at.sfischer.constraints.model.Variable;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOrEqualOperator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SequentialTestPolicyTest {
+	@Test
+	public void acceptWithoutViolationsAfterEnoughEvidence() {
+		SequentialTestPolicy policy = new SequentialTestPolicy(0.0, 0.95);
+
+		ConstraintResults<DataObject> undecided = results(292, 0);
+		assertFalse(policy.isAcceptanceFinal(undecided));
+		assertFalse(policy.isRejectionFinal(undecided));
+		assertFalse(policy.includeConstraint(undecided));
+
+		ConstraintResults<DataObject> accepted = results(293, 0);
+		assertTrue(policy.isAcceptanceFinal(accepted));
+		assertFalse(policy.isRejectionFinal(accepted));
+		assertTrue(policy.includeConstraint(accepted));
+	}
+
+	@Test
+	public void rejectFirstViolationWithoutTolerance() {
+		SequentialTestPolicy policy = new SequentialTestPolicy(0.0, 0.95);
+
+		ConstraintResults<DataObject> results = results(1000, 1);
+		assertTrue(policy.isRejectionFinal(results));
+		assertFalse(policy.isAcceptanceFinal(results));
+		assertFalse(policy.includeConstraint(results));
+	}
+
+	@Test
+	public void tolerateViolations() {
+		SequentialTestPolicy policy = new SequentialTestPolicy(0.1, 0.2, 0.9);
+
+		assertFalse(policy.isAcceptanceFinal(results(9, 1)));
+		assertFalse(policy.isRejectionFinal(results(9, 1)));
+
+		assertTrue(policy.isAcceptanceFinal(results(190, 10)));
+		assertTrue(policy.isRejectionFinal(results(60, 40)));
+	}
+
+	@Test
+	public void combineWithOtherPolicies() {
+		SequentialTestPolicy policy = new SequentialTestPolicy(0.0, 0.95);
+		ConstraintResults<DataObject> results = results(300, 0);
+
+		assertFalse(new AndConstraintPolicy(policy, new NoViolationsPolicy()).isAcceptanceFinal(results));
+		assertTrue(new AndConstraintPolicy(policy, new MinApplicationsPolicy(10)).isAcceptanceFinal(results));
+		assertTrue(new OrConstraintPolicy(policy, new NoViolationsPolicy()).isAcceptanceFinal(results));
+	}
+
+	@Test
+	public void invalidParameters() {
+		assertThrows(IllegalArgumentException.class, () -> new SequentialTestPolicy(-0.1, 0.95));
+		assertThrows(IllegalArgumentException.class, () -> new SequentialTestPolicy(0.2, 0.1, 0.95));
+		assertThrows(IllegalArgumentException.class, () -> new SequentialTestPolicy(0.1, 0.5));
+	}
+
+	private static ConstraintResults<DataObject> results(int validEntries, int violations) {
+		SimpleDataCollection data = new SimpleDataCollection();
+		ConstraintResults<DataObject> results = new ConstraintResults<>(new Constraint(new GreaterThanOrEqualOperator(new Variable("a"), new NumberLiteral(0))), data);
+		for (int i = 0; i < validEntries; i++) {
+			results.validConstraintData().addDataEntry(new DataObject());
+		}
+		for (int i = 0; i < violations; i++) {
+			results.invalidConstraintData().addDataEntry(new DataObject());
+		}
+
+		return results;
+	}
+}
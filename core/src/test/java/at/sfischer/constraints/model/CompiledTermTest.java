@@ -0,0 +1,272 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.operators.array.ArrayLength;
+import at.sfischer.constraints.model.operators.array.ArrayOperation;
+import at.sfischer.constraints.model.operators.array.ForAll;
+import at.sfischer.constraints.model.operators.logic.AndOperator;
+import at.sfischer.constraints.model.operators.numbers.AdditionOperator;
+import at.sfischer.constraints.model.operators.numbers.GreaterThanOperator;
+import at.sfischer.constraints.model.operators.numbers.LessThanOperator;
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import at.sfischer.constraints.model.operators.strings.IsNumeric;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledTermTest {
+	@Test
+	public void evaluateStatefulTermFromSeveralThreads() throws Exception {
+		Variable a = new Variable("a");
+		LowerBoundOperator term = new LowerBoundOperator(a);
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				CompiledTerm compiledTerm = new CompiledTerm(term);
+				for (int j = 0; j < 1000; j++) {
+					compiledTerm.evaluate(new NumberLiteral(j % 3));
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, term.getBound().intValue());
+		assertEquals(4000, term.getAccumulator().getValuesCounter().getValue().intValue());
+		assertEquals(4 * 334, term.getAccumulator().getValuesAtBoundCounter().getValue().intValue());
+	}
+
+	@Test
+	public void evaluateMultipleBindings() {
+		Variable a = new Variable("a");
+		Variable b = new Variable("b");
+		Node term = new GreaterThanOperator(new AdditionOperator(a, new NumberLiteral(1)), b);
+		Node original = term.cloneNode();
+
+		CompiledTerm compiledTerm = new CompiledTerm(term);
+		int ia = compiledTerm.indexOf(a);
+		int ib = compiledTerm.indexOf(b);
+
+		Node[] bindings = new Node[2];
+		bindings[ia] = new NumberLiteral(2);
+		bindings[ib] = new NumberLiteral(1);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(bindings));
+
+		bindings[ia] = new NumberLiteral(0);
+		bindings[ib] = new NumberLiteral(5);
+		assertEquals(BooleanLiteral.FALSE, compiledTerm.evaluate(bindings));
+
+		bindings[ia] = new NumberLiteral(7);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(bindings));
+
+		assertEquals(original, term);
+	}
+
+	@Test
+	public void evaluateMissingBinding() {
+		Variable a = new Variable("a");
+		Variable b = new Variable("b");
+		Node term = new GreaterThanOperator(a, b);
+
+		CompiledTerm compiledTerm = new CompiledTerm(term);
+		int ia = compiledTerm.indexOf(a);
+
+		Node[] bindings = new Node[2];
+		bindings[ia] = new NumberLiteral(2);
+		assertFalse(compiledTerm.evaluate(bindings) instanceof BooleanLiteral);
+
+		bindings[compiledTerm.indexOf(b)] = new NumberLiteral(1);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(bindings));
+	}
+
+	@Test
+	public void evaluateQuantifierWithOuterVariable() {
+		Variable array = new Variable("array");
+		Variable a = new Variable("a");
+		Node term = new ForAll(array, new GreaterThanOperator(new Variable(ArrayOperation.ELEMENT_NAME), a));
+
+		CompiledTerm compiledTerm = new CompiledTerm(term);
+		ArrayValues<NumberLiteral> values = new ArrayValues<>(TypeEnum.NUMBER, new NumberLiteral[]{
+				new NumberLiteral(3),
+				new NumberLiteral(5)
+		});
+
+		Node[] bindings = new Node[compiledTerm.getVariables().size()];
+		bindings[compiledTerm.indexOf(array)] = values;
+		bindings[compiledTerm.indexOf(a)] = new NumberLiteral(2);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(bindings));
+
+		bindings[compiledTerm.indexOf(a)] = new NumberLiteral(4);
+		assertEquals(BooleanLiteral.FALSE, compiledTerm.evaluate(bindings));
+	}
+
+	@Test
+	public void evaluateSharesOperatorState() {
+		Variable a = new Variable("a");
+		LowerBoundOperator term = new LowerBoundOperator(a);
+
+		CompiledTerm compiledTerm = new CompiledTerm(term);
+		for (int i = 0; i < 4; i++) {
+			assertEquals(MoreStatisticalEvidenceNeeded.INSTANCE, compiledTerm.evaluate(new NumberLiteral(2)));
+		}
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(new NumberLiteral(2)));
+		assertEquals(2, term.getBound().intValue());
+	}
+
+	@Test
+	public void evaluateSharedSubtermOncePerDataEntry() {
+		Variable a = new Variable("a");
+		int[] evaluations = {0};
+		Node term1 = new GreaterThanOperator(new CountingLength(a, evaluations), new NumberLiteral(1));
+		Node term2 = new LessThanOperator(new CountingLength(a, evaluations), new NumberLiteral(3));
+
+		EvaluationContext context = new EvaluationContext();
+		context.shareSubterms(term1);
+		context.shareSubterms(term2);
+		CompiledTerm compiledTerm1 = new CompiledTerm(term1, context);
+		CompiledTerm compiledTerm2 = new CompiledTerm(term2, context);
+
+		IntegerLiteral[][] entries = {
+				{new IntegerLiteral(1), new IntegerLiteral(2)},
+				{new IntegerLiteral(1), new IntegerLiteral(2), new IntegerLiteral(3)},
+				{new IntegerLiteral(1)}
+		};
+		Node[][] expected = {
+				{BooleanLiteral.TRUE, BooleanLiteral.TRUE},
+				{BooleanLiteral.TRUE, BooleanLiteral.FALSE},
+				{BooleanLiteral.FALSE, BooleanLiteral.TRUE}
+		};
+		for (int i = 0; i < entries.length; i++) {
+			context.beginDataEntry(entries[i]);
+			ArrayValues<IntegerLiteral> array = new ArrayValues<>(TypeEnum.INTEGER, entries[i]);
+			assertEquals(expected[i][0], compiledTerm1.evaluate(array));
+			assertEquals(expected[i][1], compiledTerm2.evaluate(array));
+		}
+		context.commit();
+
+		assertEquals(entries.length, evaluations[0]);
+	}
+
+	@Test
+	public void evaluateUnregisteredSubtermsSeparately() {
+		Variable a = new Variable("a");
+		int[] evaluations = {0};
+		Node term1 = new GreaterThanOperator(new CountingLength(a, evaluations), new NumberLiteral(1));
+		Node term2 = new LessThanOperator(new CountingLength(a, evaluations), new NumberLiteral(3));
+
+		EvaluationContext context = new EvaluationContext();
+		CompiledTerm compiledTerm1 = new CompiledTerm(term1, context);
+		CompiledTerm compiledTerm2 = new CompiledTerm(term2, context);
+
+		ArrayValues<IntegerLiteral> array = new ArrayValues<>(TypeEnum.INTEGER, new IntegerLiteral[]{new IntegerLiteral(1), new IntegerLiteral(2)});
+		context.beginDataEntry(array);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm1.evaluate(array));
+		assertEquals(BooleanLiteral.TRUE, compiledTerm2.evaluate(array));
+
+		assertEquals(2, evaluations[0]);
+	}
+
+	@Test
+	public void evaluateMemoizedPredicateOncePerValue() {
+		Variable a = new Variable("a");
+		Variable b = new Variable("b");
+		int[] evaluations = {0};
+		Node term1 = new CountingIsNumeric(a, evaluations);
+		Node term2 = new AndOperator(new CountingIsNumeric(a, evaluations), new GreaterThanOperator(b, new NumberLiteral(0)));
+
+		EvaluationContext context = new EvaluationContext();
+		context.memoizePredicates();
+		CompiledTerm compiledTerm1 = new CompiledTerm(term1, context);
+		CompiledTerm compiledTerm2 = new CompiledTerm(term2, List.of(a, b), context);
+
+		String[] values = {"1", "x", "1", "x", "2", "1"};
+		for (String value : values) {
+			Node expected = new IsNumeric(new StringLiteral(value)).evaluate();
+			assertEquals(expected, compiledTerm1.evaluate(new StringLiteral(value)));
+			assertEquals(expected, compiledTerm2.evaluate(new StringLiteral(value), new NumberLiteral(1)));
+		}
+		assertEquals(BooleanLiteral.FALSE, compiledTerm2.evaluate(new StringLiteral("1"), new NumberLiteral(-1)));
+
+		// Both terms share the results of the equal predicate.
+		assertEquals(3, evaluations[0]);
+	}
+
+	@Test
+	public void evaluateMemoizedPredicateBounded() {
+		Variable a = new Variable("a");
+		int[] evaluations = {0};
+
+		EvaluationContext context = new EvaluationContext();
+		context.memoizePredicates(1);
+		CompiledTerm compiledTerm = new CompiledTerm(new CountingIsNumeric(a, evaluations), context);
+
+		for (String value : new String[]{"1", "1", "x", "x", "1"}) {
+			compiledTerm.evaluate(new StringLiteral(value));
+		}
+
+		// Once the predicate is applied to more values than are kept, it is evaluated for every value.
+		assertEquals(4, evaluations[0]);
+		assertThrows(IllegalArgumentException.class, () -> context.memoizePredicates(-1));
+	}
+
+	@Test
+	public void evaluateQuantifiedPredicateNotMemoized() {
+		Variable array = new Variable("array");
+		int[] evaluations = {0};
+
+		EvaluationContext context = new EvaluationContext();
+		context.memoizePredicates();
+		CompiledTerm compiledTerm = new CompiledTerm(new ForAll(array, new CountingIsNumeric(new Variable(ArrayOperation.ELEMENT_NAME), evaluations)), List.of(array), context);
+
+		ArrayValues<StringLiteral> values = new ArrayValues<>(TypeEnum.STRING, new StringLiteral[]{new StringLiteral("1"), new StringLiteral("1")});
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(values));
+		assertEquals(2, evaluations[0]);
+	}
+
+	private static class CountingIsNumeric extends IsNumeric {
+
+		private final int[] evaluations;
+
+		private CountingIsNumeric(Node value, int[] evaluations) {
+			super(value);
+			this.evaluations = evaluations;
+		}
+
+		@Override
+		public Node evaluate() {
+			evaluations[0]++;
+			return super.evaluate();
+		}
+
+		@Override
+		public Node setVariableValues(Map<Variable, Node> values) {
+			return new CountingIsNumeric(getParameter(0).setVariableValues(values), evaluations);
+		}
+	}
+
+	private static class CountingLength extends ArrayLength {
+
+		private final int[] evaluations;
+
+		private CountingLength(Node first, int[] evaluations) {
+			super(first);
+			this.evaluations = evaluations;
+		}
+
+		@Override
+		public Node evaluate() {
+			evaluations[0]++;
+			return super.evaluate();
+		}
+
+		@Override
+		public Node setVariableValues(Map<Variable, Node> values) {
+			return new CountingLength(getParameter(0).setVariableValues(values), evaluations);
+		}
+	}
+}
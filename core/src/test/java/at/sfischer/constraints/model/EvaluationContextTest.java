@@ -0,0 +1,108 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.model.operators.numbers.LowerBoundOperator;
+import at.sfischer.constraints.model.operators.strings.OneOfString;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationContextTest {
+	@Test
+	public void mergeOptionsOfSeparateContexts() {
+		Variable a = new Variable("a");
+		OneOfString term = new OneOfString(a, new IntegerLiteral(3));
+
+		EvaluationContext context1 = new EvaluationContext();
+		CompiledTerm compiledTerm1 = new CompiledTerm(term, context1);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm1.evaluate(new StringLiteral("A")));
+		assertEquals(BooleanLiteral.TRUE, compiledTerm1.evaluate(new StringLiteral("B")));
+
+		EvaluationContext context2 = new EvaluationContext();
+		CompiledTerm compiledTerm2 = new CompiledTerm(term, context2);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm2.evaluate(new StringLiteral("B")));
+		assertEquals(BooleanLiteral.TRUE, compiledTerm2.evaluate(new StringLiteral("C")));
+
+		// Nothing is written to the term before the context is committed.
+		assertArrayEquals(new StringLiteral[]{null, null, null}, term.getAccumulator().getOptions().getValue());
+
+		context1.merge(context2);
+		context1.commit();
+
+		assertArrayEquals(new StringLiteral[]{
+				new StringLiteral("A"),
+				new StringLiteral("B"),
+				new StringLiteral("C")
+		}, term.getAccumulator().getOptions().getValue());
+		assertEquals(BooleanLiteral.FALSE, new CompiledTerm(term).evaluate(new StringLiteral("D")));
+	}
+
+	@Test
+	public void mergeLowerBoundEqualsSequentialEvaluation() {
+		Variable a = new Variable("a");
+		LowerBoundOperator sequential = new LowerBoundOperator(a);
+		LowerBoundOperator merged = new LowerBoundOperator(a);
+
+		int[] partition1 = {5, 3, 2};
+		int[] partition2 = {0, 1, 0};
+
+		CompiledTerm sequentialTerm = new CompiledTerm(sequential);
+		EvaluationContext context1 = new EvaluationContext();
+		CompiledTerm compiledTerm1 = new CompiledTerm(merged, context1);
+		for (int value : partition1) {
+			sequentialTerm.evaluate(new NumberLiteral(value));
+			compiledTerm1.evaluate(new NumberLiteral(value));
+		}
+
+		EvaluationContext context2 = new EvaluationContext();
+		CompiledTerm compiledTerm2 = new CompiledTerm(merged, context2);
+		for (int value : partition2) {
+			sequentialTerm.evaluate(new NumberLiteral(value));
+			compiledTerm2.evaluate(new NumberLiteral(value));
+		}
+
+		context1.merge(context2);
+		context1.commit();
+
+		assertEquals(0, merged.getBound().intValue());
+		assertEquals(sequential.getBound(), merged.getBound());
+		assertEquals(sequential.getAccumulator().getValuesAtBoundCounter(), merged.getAccumulator().getValuesAtBoundCounter());
+		assertEquals(sequential.getAccumulator().getValuesCounter(), merged.getAccumulator().getValuesCounter());
+	}
+
+	@Test
+	public void mergeReportsDroppedOptions() {
+		Variable a = new Variable("a");
+		OneOfString term = new OneOfString(a, new IntegerLiteral(1));
+
+		EvaluationContext context1 = new EvaluationContext();
+		assertEquals(BooleanLiteral.TRUE, new CompiledTerm(term, context1).evaluate(new StringLiteral("A")));
+		EvaluationContext context2 = new EvaluationContext();
+		assertEquals(BooleanLiteral.TRUE, new CompiledTerm(term, context2).evaluate(new StringLiteral("B")));
+
+		assertFalse(context1.merge(context2));
+		assertTrue(context1.commit());
+		assertArrayEquals(new StringLiteral[]{new StringLiteral("A")}, term.getAccumulator().getOptions().getValue());
+	}
+
+	@Test
+	public void continuationStartsFromCollectedState() {
+		Variable a = new Variable("a");
+		OneOfString term = new OneOfString(a, new IntegerLiteral(2));
+
+		EvaluationContext context = new EvaluationContext();
+		assertEquals(BooleanLiteral.TRUE, new CompiledTerm(term, context).evaluate(new StringLiteral("A")));
+
+		EvaluationContext continuation = context.continuation();
+		CompiledTerm continuedTerm = new CompiledTerm(term, continuation);
+		assertEquals(BooleanLiteral.TRUE, continuedTerm.evaluate(new StringLiteral("B")));
+		assertEquals(BooleanLiteral.FALSE, continuedTerm.evaluate(new StringLiteral("C")));
+
+		// The continuation does not change the context it started from.
+		assertEquals(BooleanLiteral.TRUE, new CompiledTerm(term, context).evaluate(new StringLiteral("C")));
+
+		assertTrue(continuation.commit());
+		assertArrayEquals(new StringLiteral[]{
+				new StringLiteral("A"),
+				new StringLiteral("B")
+		}, term.getAccumulator().getOptions().getValue());
+	}
+}
@@ -0,0 +1,95 @@
+package at.sfischer.constraints.model;
+
+import at.sfischer.constraints.data.DataObject;
+import at.sfischer.constraints.model.operators.array.*;
+import at.sfischer.constraints.model.operators.numbers.AdditionOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveArrayValuesTest {
+
+    @Test
+    public void equalToArrayOfLiterals() {
+        ArrayValues<?> integers = new ArrayValues<>(TypeEnum.INTEGER, new IntegerLiteral[]{new IntegerLiteral(1), new IntegerLiteral(-2)});
+        ArrayValues<?> numbers = new ArrayValues<>(TypeEnum.NUMBER, new NumberLiteral[]{new NumberLiteral(1.5), new NumberLiteral(-0.0)});
+        ArrayValues<?> booleans = new ArrayValues<>(TypeEnum.BOOLEAN, new BooleanLiteral[]{BooleanLiteral.TRUE, BooleanLiteral.FALSE});
+
+        PrimitiveArrayValues<IntegerLiteral> primitiveIntegers = PrimitiveArrayValues.ofIntegers(new long[]{1, -2});
+        PrimitiveArrayValues<NumberLiteral> primitiveNumbers = PrimitiveArrayValues.ofNumbers(new double[]{1.5, -0.0});
+        PrimitiveArrayValues<BooleanLiteral> primitiveBooleans = PrimitiveArrayValues.ofBooleans(new boolean[]{true, false});
+
+        assertEquals(integers.hashCode(), primitiveIntegers.hashCode());
+        assertEquals(numbers.hashCode(), primitiveNumbers.hashCode());
+        assertEquals(booleans.hashCode(), primitiveBooleans.hashCode());
+        assertEquals(primitiveIntegers, PrimitiveArrayValues.ofIntegers(new long[]{1, -2}));
+        assertNotEquals(primitiveIntegers, PrimitiveArrayValues.ofNumbers(new double[]{1, -2}));
+
+        assertEquals(integers, primitiveIntegers);
+        assertEquals(primitiveNumbers, numbers);
+        assertEquals(booleans, primitiveBooleans);
+        assertEquals(primitiveBooleans, booleans);
+        assertEquals(new ArrayType(TypeEnum.INTEGER), primitiveIntegers.getReturnType());
+        assertEquals(primitiveNumbers, primitiveNumbers.cloneNode());
+    }
+
+    @Test
+    public void replaceElement() {
+        PrimitiveArrayValues<IntegerLiteral> integers = PrimitiveArrayValues.ofIntegers(new long[]{1, 2});
+        integers.setValue(1, new IntegerLiteral(5));
+
+        assertFalse(integers.isPrimitive());
+        assertEquals(5, integers.getValue()[1].getValue());
+        assertEquals(new ArrayValues<>(TypeEnum.INTEGER, new IntegerLiteral[]{new IntegerLiteral(1), new IntegerLiteral(5)}), integers);
+        assertEquals(new IntegerLiteral(6), new Sum(integers).evaluate());
+    }
+
+    @Test
+    public void createFromData() {
+        DataObject dataObject = DataObject.parseData("{integers:[1, 2, 3], numbers:[0.5, 1.5], mixed:[1, 1.5], flags:[true]}");
+
+        assertInstanceOf(PrimitiveArrayValues.class, dataObject.getDataValue("integers").getLiteralValue());
+        assertInstanceOf(PrimitiveArrayValues.class, dataObject.getDataValue("numbers").getLiteralValue());
+        assertInstanceOf(PrimitiveArrayValues.class, dataObject.getDataValue("flags").getLiteralValue());
+        // Integers in arrays of numbers would not be equal to their literals as doubles.
+        assertFalse(dataObject.getDataValue("mixed").getLiteralValue() instanceof PrimitiveArrayValues<?>);
+    }
+
+    @Test
+    public void aggregateLikeArrayOfLiterals() {
+        List<Function<Node, Node>> aggregations = List.of(
+                Sum::new,
+                Average::new,
+                Variance::new,
+                StandardDeviation::new,
+                Min::new,
+                Max::new,
+                Median::new,
+                array -> new Percentile(array, new NumberLiteral(25)),
+                array -> new Sum(array, new AdditionOperator(new Variable(ArrayOperation.ELEMENT_NAME), new IntegerLiteral(1)))
+        );
+
+        long[] integers = {4, -1, 7, 0, 12};
+        double[] numbers = {2.5, -1.25, 8.0, 3.75};
+        IntegerLiteral[] integerLiterals = new IntegerLiteral[integers.length];
+        for (int i = 0; i < integers.length; i++) {
+            integerLiterals[i] = new IntegerLiteral((int) integers[i]);
+        }
+        NumberLiteral[] numberLiterals = new NumberLiteral[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            numberLiterals[i] = new NumberLiteral(numbers[i]);
+        }
+
+        for (Function<Node, Node> aggregation : aggregations) {
+            assertEquals(aggregation.apply(new ArrayValues<>(TypeEnum.INTEGER, integerLiterals)).evaluate(),
+                    aggregation.apply(PrimitiveArrayValues.ofIntegers(integers)).evaluate());
+            assertEquals(aggregation.apply(new ArrayValues<>(TypeEnum.NUMBER, numberLiterals)).evaluate(),
+                    aggregation.apply(PrimitiveArrayValues.ofNumbers(numbers)).evaluate());
+            assertEquals(aggregation.apply(new ArrayValues<>(TypeEnum.NUMBER, new NumberLiteral[0])).evaluate(),
+                    aggregation.apply(PrimitiveArrayValues.ofNumbers(new double[0])).evaluate());
+        }
+    }
+}
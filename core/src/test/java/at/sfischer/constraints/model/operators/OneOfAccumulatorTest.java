@@ -0,0 +1,65 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OneOfAccumulatorTest {
+	@Test
+	public void acceptOptionsAddedLater() {
+		OneOfAccumulator<StringLiteral> accumulator = new OneOfAccumulator<>(new ArrayValues<>(TypeEnum.STRING, new StringLiteral[2]));
+
+		assertTrue(accumulator.accept(new StringLiteral("A")));
+		assertTrue(accumulator.accept(new StringLiteral("A")));
+		assertTrue(accumulator.accept(new StringLiteral("B")));
+		assertFalse(accumulator.accept(new StringLiteral("C")));
+		assertTrue(accumulator.accept(new StringLiteral("B")));
+		assertArrayEquals(new StringLiteral[]{new StringLiteral("A"), new StringLiteral("B")}, accumulator.getOptions().getValue());
+	}
+
+	@Test
+	public void acceptGivenOptions() {
+		OneOfAccumulator<StringLiteral> accumulator = new OneOfAccumulator<>(new ArrayValues<>(TypeEnum.STRING, new StringLiteral[]{
+				null,
+				new StringLiteral("B")
+		}));
+
+		assertTrue(accumulator.accept(new StringLiteral("B")));
+		assertTrue(accumulator.accept(new StringLiteral("A")));
+		assertFalse(accumulator.accept(new StringLiteral("C")));
+		assertEquals(new StringLiteral("A"), accumulator.getOptions().getValue()[0]);
+	}
+
+	@Test
+	public void acceptEqualNumbers() {
+		OneOfAccumulator<NumberLiteral> accumulator = new OneOfAccumulator<>(new ArrayValues<>(TypeEnum.NUMBER, new NumberLiteral[]{
+				new IntegerLiteral(1),
+				new NumberLiteral(0.0)
+		}));
+
+		assertTrue(accumulator.accept(new NumberLiteral(1.0)));
+		assertTrue(accumulator.accept(new IntegerLiteral(1)));
+		assertTrue(accumulator.accept(new NumberLiteral(-0.0)));
+		assertFalse(accumulator.accept(new NumberLiteral(Double.NaN)));
+		assertFalse(accumulator.accept(new NumberLiteral(2)));
+	}
+
+	@Test
+	public void mergeReportsDroppedOptions() {
+		OneOfAccumulator<StringLiteral> accumulator = new OneOfAccumulator<>(new ArrayValues<>(TypeEnum.STRING, new StringLiteral[2]));
+		OneOfAccumulator<StringLiteral> base = accumulator.copy();
+		OneOfAccumulator<StringLiteral> other = accumulator.copy();
+		accumulator.accept(new StringLiteral("A"));
+		other.accept(new StringLiteral("A"));
+		other.accept(new StringLiteral("B"));
+
+		assertTrue(accumulator.merge(other, base));
+		assertArrayEquals(new StringLiteral[]{new StringLiteral("A"), new StringLiteral("B")}, accumulator.getOptions().getValue());
+
+		OneOfAccumulator<StringLiteral> another = base.copy();
+		another.accept(new StringLiteral("C"));
+		assertFalse(accumulator.merge(another, base));
+		assertArrayEquals(new StringLiteral[]{new StringLiteral("A"), new StringLiteral("B")}, accumulator.getOptions().getValue());
+	}
+}
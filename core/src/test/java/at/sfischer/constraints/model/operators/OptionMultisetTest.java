@@ -0,0 +1,72 @@
+package at.sfischer.constraints.model.operators;
+
+import at.sfischer.constraints.model.*;
+import at.sfischer.constraints.model.operators.strings.OneOfString;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptionMultisetTest {
+	@Test
+	public void findMostFrequentValuesArrivingLast() {
+		OptionMultiset multiset = new OptionMultiset(2);
+		for (String value : new String[]{"A", "B", "C", "D", "D", "D", "D"}) {
+			multiset.accept(new StringLiteral(value));
+		}
+
+		assertEquals(7, multiset.numberOfValues());
+		assertEquals(5, multiset.numberOfValidValues());
+		assertEquals(2, multiset.numberOfViolations());
+	}
+
+	@Test
+	public void acceptValuesWithWeight() {
+		OptionMultiset multiset = new OptionMultiset(2);
+		multiset.accept(new StringLiteral("A"));
+		multiset.accept(new StringLiteral("B"));
+		multiset.accept(new StringLiteral("C"));
+		multiset.accept(new StringLiteral("D"), 4);
+
+		assertEquals(7, multiset.numberOfValues());
+		assertEquals(5, multiset.numberOfValidValues());
+		assertEquals(2, multiset.numberOfViolations());
+	}
+
+	@Test
+	public void subtractExpiredValues() {
+		OptionMultiset total = new OptionMultiset(1);
+		OptionMultiset first = total.emptyAggregate();
+		first.accept(new NumberLiteral(1));
+		first.accept(new NumberLiteral(1.0));
+		OptionMultiset second = total.emptyAggregate();
+		second.accept(new NumberLiteral(2));
+		second.accept(new NumberLiteral(-0.0));
+		second.accept(new NumberLiteral(0));
+
+		total.add(first);
+		total.add(second);
+		assertEquals(5, total.numberOfValues());
+		assertEquals(2, total.numberOfValidValues());
+
+		total.subtract(first);
+		assertEquals(3, total.numberOfValues());
+		assertEquals(2, total.numberOfValidValues());
+		assertEquals(1, total.numberOfViolations());
+	}
+
+	@Test
+	public void keepOptionsOfOperator() {
+		OneOfString oneOf = new OneOfString(new Variable("a"), new ArrayValues<>(TypeEnum.STRING, new StringLiteral[]{
+				new StringLiteral("A"),
+				null
+		}));
+		OptionMultiset multiset = oneOf.emptyWindowAggregate();
+		for (String value : new String[]{"A", "B", "C", "C", "D", "D", "D"}) {
+			multiset.accept(new StringLiteral(value));
+		}
+
+		assertEquals(4, multiset.numberOfValidValues());
+		assertEquals(3, multiset.numberOfViolations());
+		assertEquals(2, multiset.emptyAggregate().getNumberOfOptions());
+	}
+}
@@ -0,0 +1,100 @@
+package at.sfischer.constraints.model.operators.array;
+
+import at.sfischer.constraints.model.*;
+import at.sfischer.constraints.model.operators.numbers.SubtractionOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NumericKernelsTest {
+
+    private static double sortedPercentile(double[] values, double percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double position = percentile / 100.0 * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    @Test
+    public void selectLikeSorting() {
+        Random random = new Random(0);
+        for (int length : new int[]{1, 2, 3, 10, 101, 10000}) {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                // Few distinct values, to have many duplicates.
+                values[i] = length > 100 ? random.nextInt(10) : random.nextGaussian();
+            }
+            for (double percentile : new double[]{0, 12.5, 25, 50, 90, 99.9, 100}) {
+                assertEquals(sortedPercentile(values, percentile), NumericKernels.percentile(values.clone(), percentile), length + ": " + percentile);
+            }
+        }
+
+        double[] special = {0.0, Double.NaN, -0.0, 1, Double.NEGATIVE_INFINITY};
+        for (int index = 0; index < special.length; index++) {
+            double[] sorted = special.clone();
+            Arrays.sort(sorted);
+            assertEquals(sorted[index], NumericKernels.select(special.clone(), index));
+        }
+    }
+
+    @Test
+    public void varianceInOnePass() {
+        Random random = new Random(0);
+        double[] values = new double[10000];
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e9 + random.nextDouble();
+            sum += values[i];
+        }
+        double mean = sum / values.length;
+        double squaredDifferences = 0;
+        for (double value : values) {
+            squaredDifferences += (value - mean) * (value - mean);
+        }
+
+        assertEquals(squaredDifferences / values.length, NumericKernels.variance(values), 1e-6);
+        assertEquals(0, NumericKernels.variance(new double[0]));
+        assertEquals(0, NumericKernels.variance(new double[]{5, 5, 5}));
+        assertEquals(2, NumericKernels.variance(new double[]{1, 2, 3, 4, 5}));
+
+        // The first value is far from the mean of the others.
+        double[] outlier = new double[1001];
+        outlier[0] = 1e9;
+        for (int i = 1; i < outlier.length; i++) {
+            outlier[i] = 1 + (i % 2) * 1e-7;
+        }
+        double outlierMean = (1e9 + 1000 + 500 * 1e-7) / outlier.length;
+        double outlierVariance = 0;
+        for (double value : outlier) {
+            outlierVariance += (value - outlierMean) * (value - outlierMean);
+        }
+        assertEquals(outlierVariance / outlier.length, NumericKernels.variance(outlier), outlierVariance / outlier.length * 1e-12);
+    }
+
+    @Test
+    public void sortLargeArrayByKey() {
+        Random random = new Random(0);
+        IntegerLiteral[] elements = new IntegerLiteral[10000];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new IntegerLiteral(random.nextInt(1000));
+        }
+
+        // Sort descending by negating the key.
+        Node keySelector = new SubtractionOperator(new IntegerLiteral(0), new Variable(ArrayOperation.ELEMENT_NAME));
+        Node result = new Sort(new ArrayValues<>(TypeEnum.INTEGER, elements), keySelector, BooleanLiteral.TRUE).evaluate();
+
+        Value<?>[] sorted = ((ArrayValues<?>) assertInstanceOf(ArrayValues.class, result)).getValue();
+        assertEquals(elements.length, sorted.length);
+        for (int i = 1; i < sorted.length; i++) {
+            assertTrue(((IntegerLiteral) sorted[i - 1]).getValue() >= ((IntegerLiteral) sorted[i]).getValue());
+        }
+
+        Median median = new Median(PrimitiveArrayValues.ofIntegers(Arrays.stream(elements).mapToLong(IntegerLiteral::getValue).toArray()));
+        assertEquals(new Median(new ArrayValues<>(TypeEnum.INTEGER, elements)).evaluate(), median.evaluate());
+    }
+}
@@ -94,4 +94,20 @@ public class IsDateTest {
 		assertInstanceOf(BooleanLiteral.class,result);
 		assertEquals(true, ((BooleanLiteral)result).getValue());
 	}
+
+	@Test
+	public void evaluatePreparedLikeUnprepared() {
+		Variable a = new Variable("a");
+		ArrayValues<StringLiteral> patterns = new ArrayValues<>(TypeEnum.STRING, new StringLiteral[]{
+				new StringLiteral("yyyy-MM-dd"),
+				new StringLiteral("invalid pattern")
+		});
+		CompiledTerm compiledTerm = new CompiledTerm(new IsDate(a, patterns));
+
+		for (String value : new String[]{"2024-01-13", "2024-02-30", "2024-13-01", "2024-01-1", "2024-01-13x", "13/01/2024", ""}) {
+			Node expected = new IsDate(new StringLiteral(value), patterns).evaluate();
+			assertEquals(expected, compiledTerm.evaluate(new StringLiteral(value)), value);
+		}
+		assertEquals(BooleanLiteral.FALSE, compiledTerm.evaluate(new StringLiteral("2024-13-01")));
+	}
 }
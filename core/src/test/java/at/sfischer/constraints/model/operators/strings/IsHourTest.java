@@ -60,4 +60,16 @@ public class IsHourTest {
 		assertInstanceOf(BooleanLiteral.class,result);
 		assertEquals(true, ((BooleanLiteral)result).getValue());
 	}
+
+	@Test
+	public void evaluatePreparedLikeUnprepared() {
+		Variable a = new Variable("a");
+		ArrayValues<StringLiteral> patterns = new ArrayValues<>(TypeEnum.STRING, IsHour.HOUR_PATTERNS_12H);
+		CompiledTerm compiledTerm = new CompiledTerm(new IsHour(a, patterns));
+
+		for (String value : new String[]{"06:00 PM", "6:00 am", "13:66", "06:00", "noon", ""}) {
+			Node expected = new IsHour(new StringLiteral(value), patterns).evaluate();
+			assertEquals(expected, compiledTerm.evaluate(new StringLiteral(value)), value);
+		}
+	}
 }
@@ -162,4 +162,21 @@ public class OneOfStringTest {
 			assertEquals(expected[i], ((BooleanLiteral)result).getValue());
 		}
 	}
+
+	@Test
+	public void evaluatePrepared() {
+		Variable a = new Variable("a");
+		OneOfString operator = new OneOfString(a, new IntegerLiteral(2));
+		CompiledTerm compiledTerm = new CompiledTerm(operator);
+
+		// Options added after preparing are still accepted.
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(new StringLiteral("ONE")));
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(new StringLiteral("TWO")));
+		assertEquals(BooleanLiteral.FALSE, compiledTerm.evaluate(new StringLiteral("THREE")));
+
+		compiledTerm = new CompiledTerm(operator);
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(new StringLiteral("ONE")));
+		assertEquals(BooleanLiteral.TRUE, compiledTerm.evaluate(new StringLiteral("TWO")));
+		assertEquals(BooleanLiteral.FALSE, compiledTerm.evaluate(new StringLiteral("THREE")));
+	}
 }
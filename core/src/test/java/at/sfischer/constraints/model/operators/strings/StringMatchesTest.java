@@ -1,10 +1,14 @@
 package at.sfischer.constraints.model.operators.strings;
 
 import at.sfischer.constraints.model.BooleanLiteral;
+import at.sfischer.constraints.model.CompiledTerm;
 import at.sfischer.constraints.model.Node;
 import at.sfischer.constraints.model.StringLiteral;
+import at.sfischer.constraints.model.Variable;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
@@ -30,4 +34,17 @@ public class StringMatchesTest {
 		assertInstanceOf(BooleanLiteral.class,result);
 		assertEquals(false, ((BooleanLiteral)result).getValue());
 	}
+
+	@Test
+	public void evaluatePreparedLikeUnprepared() {
+		Variable a = new Variable("a");
+		Variable b = new Variable("b");
+		CompiledTerm literalPattern = new CompiledTerm(new StringMatches(a, new StringLiteral("[a-z]+\\d")));
+		CompiledTerm variablePattern = new CompiledTerm(new StringMatches(a, b), List.of(a, b));
+
+		assertEquals(BooleanLiteral.TRUE, literalPattern.evaluate(new StringLiteral("abc1")));
+		assertEquals(BooleanLiteral.FALSE, literalPattern.evaluate(new StringLiteral("abc")));
+		assertEquals(BooleanLiteral.TRUE, variablePattern.evaluate(new StringLiteral("abc"), new StringLiteral("a.c")));
+		assertEquals(BooleanLiteral.FALSE, variablePattern.evaluate(new StringLiteral("abc"), new StringLiteral("a")));
+	}
 }
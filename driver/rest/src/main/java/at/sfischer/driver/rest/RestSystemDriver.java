@@ -2,6 +2,7 @@ package at.sfischer.driver.rest;
 
 import at.sfischer.constraints.data.DataObject;
 import at.sfischer.constraints.data.DataValue;
+import at.sfischer.constraints.data.JsonDataParser;
 import at.sfischer.driver.DriverException;
 import at.sfischer.driver.SystemDriver;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -193,21 +194,26 @@ public class RestSystemDriver implements SystemDriver {
         LOGGER.debug("Created request: {} with body: {}", request, requestBody);
 
         try (HttpClient client = HttpClient.newHttpClient()) {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // Parse the body from its bytes, without decoding it into a string first.
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            byte[] b = response.body();
 
-            LOGGER.debug("Response: {} with body: {}", response, response.body());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response: {} with body: {}", response, b == null ? null : new String(b, StandardCharsets.UTF_8));
+            }
 
             // Convert Response → DataCollection
             if (isSuccess(response)) {
-                String b = response.body();
-                if (b == null || b.isEmpty()) {
-                    b = "{}";
+                if (b == null || b.length == 0) {
+                    return new DataObject();
                 }
 
-                return DataObject.parseData(b);
+                return JsonDataParser.parseObject(b);
             } else {
                 // TODO special handing for error cases.
-                LOGGER.debug("Error ({}) \"{}\" for data: {}", response.statusCode(), response.body(), input);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Error ({}) \"{}\" for data: {}", response.statusCode(), b == null ? null : new String(b, StandardCharsets.UTF_8), input);
+                }
             }
 
 
@@ -72,6 +72,26 @@ public class MetamorphicRelationHandler implements ConstraintConstructHandler<Me
 
     @Override
     public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluate(MetamorphicRelationTemplate construct, DataSchema schema, DataCollection<DATA> data) {
+        return evaluate(construct, schema, data, new EvaluationResults<>());
+    }
+
+    /**
+     * Evaluates each construct on its own, as the relations of different constructs do not share transformations, and
+     * merges the results.
+     */
+    @Override
+    public <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluateAll(Collection<MetamorphicRelationTemplate> constructs, DataSchema schema, DataCollection<DATA> data, EvaluationResults<SCHEMA, DATA> results) {
+        for (MetamorphicRelationTemplate construct : constructs) {
+            EvaluationResults<SCHEMA, DATA> constructResults = evaluate(construct, schema, data, results.emptyEvaluationResults());
+            if(constructResults != null){
+                results.merge(constructResults, data);
+            }
+        }
+
+        return results;
+    }
+
+    private <SCHEMA extends DataSchema, DATA> EvaluationResults<SCHEMA, DATA> evaluate(MetamorphicRelationTemplate construct, DataSchema schema, DataCollection<DATA> data, EvaluationResults<SCHEMA, DATA> evaluationResults) {
         // TODO We could also support SimpleDataCollection and call the driver to also generate source outputs.
         if(schema instanceof InOutputDataSchema<?> inout && data instanceof InOutputDataCollection inoutData) {
             DataSchema in = inout.getInputSchema();
@@ -101,7 +121,6 @@ public class MetamorphicRelationHandler implements ConstraintConstructHandler<Me
                     }
                 }
 
-                EvaluationResults<SCHEMA, DATA> evaluationResults = new EvaluationResults<>();
                 for (Map.Entry<Node, List<MetamorphicRelation>> group : groups.entrySet()) {
                     Node transformation = group.getKey();
                     InOutputDataCollection sourceFollowupData = new InOutputDataCollection();
@@ -152,7 +171,7 @@ public class MetamorphicRelationHandler implements ConstraintConstructHandler<Me
                     validationSchema.collectConstraints(c, pc, group.getValue());
 
                     @SuppressWarnings("unchecked")
-                    EvaluationResults<SCHEMA, DATA> res = (EvaluationResults<SCHEMA, DATA>) validationSchema.evaluate(sourceFollowupData, c, pc);
+                    EvaluationResults<SCHEMA, DATA> res = (EvaluationResults<SCHEMA, DATA>) validationSchema.evaluate(sourceFollowupData, c, pc, evaluationResults.emptyEvaluationResults());
 
                     evaluationResults.addResults(res);
                 }
@@ -1,13 +1,12 @@
 package at.sfischer.traces.otel.dataextraction.rest;
 
 import at.sfischer.constraints.data.DataObject;
+import at.sfischer.constraints.data.DataValue;
+import at.sfischer.constraints.data.JsonDataParser;
 import at.sfischer.traces.otel.TraceNode;
 import at.sfischer.traces.otel.dataextraction.DataExtractor;
 import at.sfischer.traces.otel.dataextraction.SpanAttributeExtractor;
 import at.sfischer.traces.otel.dataextraction.SpanData;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class RestSpanDataExtractor implements DataExtractor {
 
@@ -63,7 +62,7 @@ public class RestSpanDataExtractor implements DataExtractor {
         }
 
         if (requestBody != null) {
-            DataObject body = DataObject.parseData(requestBody);
+            DataObject body = JsonDataParser.parseObject(requestBody);
             inputData.putValue("body", body);
         }
 
@@ -95,25 +94,25 @@ public class RestSpanDataExtractor implements DataExtractor {
     // --- output ---
 
     private static DataObject extractOutput(String responseBody) {
-        if (responseBody == null || responseBody.equals("[]")) return null;
+        if (responseBody == null) return null;
+        DataValue<?> root;
         try {
-            JsonNode root = new ObjectMapper().readTree(responseBody);
-            if (root.isObject()) {
-                return DataObject.parseData(responseBody);
-            } else if (root.isArray()) {
-                if (root.isEmpty()) return null;
-                DataObject[] items = new DataObject[root.size()];
-                for (int i = 0; i < root.size(); i++) {
-                    items[i] = DataObject.parseData(root.get(i).toString());
-                }
-                DataObject result = new DataObject();
-                result.putValue("results", items);
-                return result;
-            }
-
-            return new DataObject();
-        } catch (JsonProcessingException e) {
+            // Parse the body only once, also when it is an array of objects.
+            root = JsonDataParser.parseValue(responseBody);
+        } catch (IllegalArgumentException e) {
             return new DataObject();
         }
+
+        // Empty arrays and null are parsed as no value, only an empty array is no output.
+        if (root == null) return responseBody.strip().startsWith("[") ? null : new DataObject();
+        if (root.getValue() instanceof DataObject object) {
+            return object;
+        } else if (root.getValue() instanceof DataObject[] items) {
+            DataObject result = new DataObject();
+            result.putValue("results", items);
+            return result;
+        }
+
+        return new DataObject();
     }
 }